@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration.benchmark;
+
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * <p>
+ * A helper class providing test data for the benchmarks in this package.
+ * </p>
+ * <p>
+ * The benchmarks are parameterized by the number of keys stored in a
+ * configuration and - for hierarchical structures - the depth of the tree.
+ * This class generates keys following a fixed naming scheme so that the
+ * single benchmarks operate on comparable data.
+ * </p>
+ *
+ * @version $Id$
+ */
+final class BenchmarkData
+{
+    /** The prefix of the names of generated leaf keys. */
+    private static final String KEY_PREFIX = "key";
+
+    /** The prefix of the names of generated intermediate sections. */
+    private static final String SECTION_PREFIX = "section";
+
+    /**
+     * Private constructor so that no instances can be created.
+     */
+    private BenchmarkData()
+    {
+    }
+
+    /**
+     * Generates an array of flat keys.
+     *
+     * @param count the number of keys
+     * @return the array with the keys
+     */
+    public static String[] flatKeys(int count)
+    {
+        return hierarchicalKeys(count, 0, ".");
+    }
+
+    /**
+     * Generates an array of hierarchical keys. Each key consists of the given
+     * number of section components followed by a leaf component. The keys
+     * are distributed over multiple sections so that the resulting tree does
+     * not degenerate to a single list of children.
+     *
+     * @param count the number of keys
+     * @param depth the number of section components
+     * @param separator the separator between the components of a key
+     * @return the array with the keys
+     */
+    public static String[] hierarchicalKeys(int count, int depth,
+            String separator)
+    {
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++)
+        {
+            StringBuilder buf = new StringBuilder();
+            for (int level = 0; level < depth; level++)
+            {
+                buf.append(SECTION_PREFIX).append(level).append('_')
+                        .append(i % (level + 2)).append(separator);
+            }
+            buf.append(KEY_PREFIX).append(i);
+            keys[i] = buf.toString();
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the value to be stored for the key with the given index.
+     *
+     * @param index the index
+     * @return the value for this key
+     */
+    public static String value(int index)
+    {
+        return String.valueOf(index);
+    }
+
+    /**
+     * Adds properties for all the given keys to a configuration.
+     *
+     * @param config the configuration to be filled
+     * @param keys the keys to be added
+     */
+    public static void fill(Configuration config, String[] keys)
+    {
+        for (int i = 0; i < keys.length; i++)
+        {
+            config.addProperty(keys[i], value(i));
+        }
+    }
+}
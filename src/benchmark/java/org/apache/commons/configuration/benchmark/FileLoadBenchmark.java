@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.configuration.XMLConfiguration;
+import org.apache.commons.configuration.io.FileHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for loading configuration files. Test files for
+ * {@code PropertiesConfiguration} and {@code XMLConfiguration} with a
+ * configurable number of keys and tree depth are generated in a temporary
+ * directory.
+ *
+ * @version $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileLoadBenchmark
+{
+    /** Constant for the encoding of the generated files. */
+    private static final String ENCODING = "UTF-8";
+
+    /** The number of keys stored in the test files. */
+    @Param({ "100", "10000" })
+    private int keyCount;
+
+    /** The depth of the keys. */
+    @Param({ "1", "4" })
+    private int depth;
+
+    /** The generated properties file. */
+    private File propertiesFile;
+
+    /** The generated XML file. */
+    private File xmlFile;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        String[] keys = BenchmarkData.hierarchicalKeys(keyCount, depth, ".");
+        propertiesFile = File.createTempFile("benchmark", ".properties");
+        PrintWriter out = createWriter(propertiesFile);
+        try
+        {
+            out.println("# Generated test file");
+            for (int i = 0; i < keys.length; i++)
+            {
+                out.print(keys[i]);
+                out.print(" = ");
+                out.println(BenchmarkData.value(i));
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+
+        xmlFile = File.createTempFile("benchmark", ".xml");
+        out = createWriter(xmlFile);
+        try
+        {
+            out.println("<?xml version=\"1.0\" encoding=\"" + ENCODING
+                    + "\"?>");
+            out.println("<config>");
+            for (int i = 0; i < keys.length; i++)
+            {
+                writeXmlProperty(out, keys[i].split("\\."),
+                        BenchmarkData.value(i));
+            }
+            out.println("</config>");
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        propertiesFile.delete();
+        xmlFile.delete();
+    }
+
+    @Benchmark
+    public PropertiesConfiguration loadProperties()
+            throws ConfigurationException
+    {
+        PropertiesConfiguration config = new PropertiesConfiguration();
+        new FileHandler(config).load(propertiesFile);
+        return config;
+    }
+
+    @Benchmark
+    public XMLConfiguration loadXml() throws ConfigurationException
+    {
+        XMLConfiguration config = new XMLConfiguration();
+        new FileHandler(config).load(xmlFile);
+        return config;
+    }
+
+    /**
+     * Creates a writer for the specified file.
+     *
+     * @param file the file
+     * @return the writer
+     * @throws IOException if an error occurs
+     */
+    private static PrintWriter createWriter(File file) throws IOException
+    {
+        return new PrintWriter(new OutputStreamWriter(new FileOutputStream(
+                file), ENCODING));
+    }
+
+    /**
+     * Writes a single property as a nested structure of XML elements.
+     *
+     * @param out the writer
+     * @param path the components of the key
+     * @param value the value of the property
+     */
+    private static void writeXmlProperty(PrintWriter out, String[] path,
+            String value)
+    {
+        for (String element : path)
+        {
+            out.print('<');
+            out.print(element);
+            out.print('>');
+        }
+        out.print(value);
+        for (int i = path.length - 1; i >= 0; i--)
+        {
+            out.print("</");
+            out.print(path[i]);
+            out.print('>');
+        }
+        out.println();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.MapConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for property lookups on flat configurations, i.e.
+ * {@code BaseConfiguration} and {@code MapConfiguration}.
+ *
+ * @version $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlatLookupBenchmark
+{
+    /** The number of keys stored in the configuration. */
+    @Param({ "100", "10000" })
+    private int keyCount;
+
+    /** The type of the configuration to be tested. */
+    @Param({ "base", "map" })
+    private String configType;
+
+    /** The configuration to be queried. */
+    private Configuration config;
+
+    /** The keys which are queried. */
+    private String[] keys;
+
+    /** The index of the next key to be queried. */
+    private int index;
+
+    @Setup
+    public void setUp()
+    {
+        keys = BenchmarkData.flatKeys(keyCount);
+        if ("map".equals(configType))
+        {
+            Map<String, Object> map = new HashMap<String, Object>();
+            for (int i = 0; i < keys.length; i++)
+            {
+                map.put(keys[i], BenchmarkData.value(i));
+            }
+            config = new MapConfiguration(map);
+        }
+        else
+        {
+            config = new BaseConfiguration();
+            BenchmarkData.fill(config, keys);
+        }
+    }
+
+    /**
+     * Returns the next key to be queried.
+     *
+     * @return the next key
+     */
+    private String nextKey()
+    {
+        if (++index >= keys.length)
+        {
+            index = 0;
+        }
+        return keys[index];
+    }
+
+    @Benchmark
+    public Object getProperty()
+    {
+        return config.getProperty(nextKey());
+    }
+
+    @Benchmark
+    public String getString()
+    {
+        return config.getString(nextKey());
+    }
+
+    @Benchmark
+    public int getInt()
+    {
+        return config.getInt(nextKey());
+    }
+
+    @Benchmark
+    public boolean containsKey()
+    {
+        return config.containsKey(nextKey());
+    }
+
+    @Benchmark
+    public String getStringMissing()
+    {
+        return config.getString("non.existing.key", null);
+    }
+}
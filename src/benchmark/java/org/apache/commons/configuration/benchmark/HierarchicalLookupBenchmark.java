@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.BaseHierarchicalConfiguration;
+import org.apache.commons.configuration.tree.DefaultExpressionEngine;
+import org.apache.commons.configuration.tree.xpath.XPathExpressionEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for property lookups on hierarchical configurations. The keys
+ * are evaluated either by a {@code DefaultExpressionEngine} or by an
+ * {@code XPathExpressionEngine}.
+ *
+ * @version $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HierarchicalLookupBenchmark
+{
+    /** Constant for the default expression engine. */
+    private static final String ENGINE_DEFAULT = "default";
+
+    /** The number of keys stored in the configuration. */
+    @Param({ "100", "10000" })
+    private int keyCount;
+
+    /** The depth of the configuration tree. */
+    @Param({ "1", "4", "8" })
+    private int depth;
+
+    /** The expression engine to be used. */
+    @Param({ ENGINE_DEFAULT, "xpath" })
+    private String engine;
+
+    /** The configuration to be queried. */
+    private BaseHierarchicalConfiguration config;
+
+    /** The keys which are queried. */
+    private String[] keys;
+
+    /** The index of the next key to be queried. */
+    private int index;
+
+    @Setup
+    public void setUp()
+    {
+        config = new BaseHierarchicalConfiguration();
+        config.setExpressionEngine(new DefaultExpressionEngine());
+        BenchmarkData.fill(config,
+                BenchmarkData.hierarchicalKeys(keyCount, depth, "."));
+
+        if (ENGINE_DEFAULT.equals(engine))
+        {
+            keys = BenchmarkData.hierarchicalKeys(keyCount, depth, ".");
+        }
+        else
+        {
+            config.setExpressionEngine(new XPathExpressionEngine());
+            keys = BenchmarkData.hierarchicalKeys(keyCount, depth, "/");
+        }
+    }
+
+    /**
+     * Returns the next key to be queried.
+     *
+     * @return the next key
+     */
+    private String nextKey()
+    {
+        if (++index >= keys.length)
+        {
+            index = 0;
+        }
+        return keys[index];
+    }
+
+    @Benchmark
+    public Object getProperty()
+    {
+        return config.getProperty(nextKey());
+    }
+
+    @Benchmark
+    public String getString()
+    {
+        return config.getString(nextKey());
+    }
+
+    @Benchmark
+    public int getInt()
+    {
+        return config.getInt(nextKey());
+    }
+
+    @Benchmark
+    public boolean containsKey()
+    {
+        return config.containsKey(nextKey());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.BaseConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading values that are subject to interpolation. Values
+ * without variables are contrasted with values containing a chain of
+ * variable references of a configurable length.
+ *
+ * @version $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterpolationBenchmark
+{
+    /** Constant for the key of the plain value. */
+    private static final String KEY_PLAIN = "plain";
+
+    /** Constant for the key of the value with a system property reference. */
+    private static final String KEY_SYS = "sys";
+
+    /** Constant for the prefix of the keys of the variable chain. */
+    private static final String KEY_CHAIN = "chain";
+
+    /** The number of keys in the configuration. */
+    @Param({ "100", "10000" })
+    private int keyCount;
+
+    /** The number of variable references to be resolved for one value. */
+    @Param({ "1", "4" })
+    private int depth;
+
+    /** The configuration to be queried. */
+    private BaseConfiguration config;
+
+    /** The key of the property at the start of the variable chain. */
+    private String chainStart;
+
+    @Setup
+    public void setUp()
+    {
+        config = new BaseConfiguration();
+        BenchmarkData.fill(config, BenchmarkData.flatKeys(keyCount));
+        config.addProperty(KEY_PLAIN, "A value without any variables");
+        config.addProperty(KEY_SYS, "${sys:java.version}");
+
+        config.addProperty(KEY_CHAIN + depth, "end of chain");
+        for (int i = depth - 1; i >= 0; i--)
+        {
+            config.addProperty(KEY_CHAIN + i, "${" + KEY_CHAIN + (i + 1)
+                    + "}/" + i);
+        }
+        chainStart = KEY_CHAIN + 0;
+    }
+
+    @Benchmark
+    public String getStringPlain()
+    {
+        return config.getString(KEY_PLAIN);
+    }
+
+    @Benchmark
+    public String getStringVariableChain()
+    {
+        return config.getString(chainStart);
+    }
+
+    @Benchmark
+    public String getStringPrefixLookup()
+    {
+        return config.getString(KEY_SYS);
+    }
+}
@@ -37,7 +37,6 @@ import org.apache.commons.configuration.event.ConfigurationErrorListener;
 import org.apache.commons.configuration.interpol.ConfigurationInterpolator;
 import org.apache.commons.configuration.interpol.InterpolatorSpecification;
 import org.apache.commons.configuration.interpol.Lookup;
-import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.ClassUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.logging.Log;
@@ -737,15 +736,7 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
      */
     public boolean getBoolean(String key)
     {
-        Boolean b = getBoolean(key, null);
-        if (b != null)
-        {
-            return b.booleanValue();
-        }
-        else
-        {
-            throw new NoSuchElementException('\'' + key + "' doesn't map to an existing object");
-        }
+        return toBooleanValue(key, resolveExistingValue(key));
     }
 
     /**
@@ -754,7 +745,8 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
      */
     public boolean getBoolean(String key, boolean defaultValue)
     {
-        return getBoolean(key, BooleanUtils.toBooleanObject(defaultValue)).booleanValue();
+        Object value = resolveContainerStore(key);
+        return (value == null) ? defaultValue : toBooleanValue(key, value);
     }
 
     /**
@@ -831,20 +823,13 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
 
     public double getDouble(String key)
     {
-        Double d = getDouble(key, null);
-        if (d != null)
-        {
-            return d.doubleValue();
-        }
-        else
-        {
-            throw new NoSuchElementException('\'' + key + "' doesn't map to an existing object");
-        }
+        return toDoubleValue(key, resolveExistingValue(key));
     }
 
     public double getDouble(String key, double defaultValue)
     {
-        return getDouble(key, new Double(defaultValue)).doubleValue();
+        Object value = resolveContainerStore(key);
+        return (value == null) ? defaultValue : toDoubleValue(key, value);
     }
 
     public Double getDouble(String key, Double defaultValue)
@@ -909,27 +894,13 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
 
     public int getInt(String key)
     {
-        Integer i = getInteger(key, null);
-        if (i != null)
-        {
-            return i.intValue();
-        }
-        else
-        {
-            throw new NoSuchElementException('\'' + key + "' doesn't map to an existing object");
-        }
+        return toIntValue(key, resolveExistingValue(key));
     }
 
     public int getInt(String key, int defaultValue)
     {
-        Integer i = getInteger(key, null);
-
-        if (i == null)
-        {
-            return defaultValue;
-        }
-
-        return i.intValue();
+        Object value = resolveContainerStore(key);
+        return (value == null) ? defaultValue : toIntValue(key, value);
     }
 
     public Integer getInteger(String key, Integer defaultValue)
@@ -955,20 +926,13 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
 
     public long getLong(String key)
     {
-        Long l = getLong(key, null);
-        if (l != null)
-        {
-            return l.longValue();
-        }
-        else
-        {
-            throw new NoSuchElementException('\'' + key + "' doesn't map to an existing object");
-        }
+        return toLongValue(key, resolveExistingValue(key));
     }
 
     public long getLong(String key, long defaultValue)
     {
-        return getLong(key, new Long(defaultValue)).longValue();
+        Object value = resolveContainerStore(key);
+        return (value == null) ? defaultValue : toLongValue(key, value);
     }
 
     public Long getLong(String key, Long defaultValue)
@@ -1288,6 +1252,109 @@ public abstract class AbstractConfiguration extends BaseEventSource implements C
         return value;
     }
 
+    /**
+     * Returns the value of the specified key like
+     * {@link #resolveContainerStore(String)}, but throws an exception if the
+     * key cannot be resolved.
+     *
+     * @param key the key of the property
+     * @return the value of this property
+     * @throws NoSuchElementException if the key does not have a value
+     */
+    private Object resolveExistingValue(String key)
+    {
+        Object value = resolveContainerStore(key);
+        if (value == null)
+        {
+            throw new NoSuchElementException('\'' + key + "' doesn't map to an existing object");
+        }
+        return value;
+    }
+
+    /**
+     * Converts the value of the specified key into a primitive boolean. The value
+     * is interpolated before the conversion.
+     *
+     * @param key the key of the property
+     * @param value the (non null) value of this property
+     * @return the converted value
+     * @throws ConversionException if the value cannot be converted
+     */
+    private boolean toBooleanValue(String key, Object value)
+    {
+        try
+        {
+            return PropertyConverter.toBooleanValue(interpolate(value));
+        }
+        catch (ConversionException e)
+        {
+            throw new ConversionException('\'' + key + "' doesn't map to a Boolean object", e);
+        }
+    }
+
+    /**
+     * Converts the value of the specified key into a primitive double. The value
+     * is interpolated before the conversion.
+     *
+     * @param key the key of the property
+     * @param value the (non null) value of this property
+     * @return the converted value
+     * @throws ConversionException if the value cannot be converted
+     */
+    private double toDoubleValue(String key, Object value)
+    {
+        try
+        {
+            return PropertyConverter.toDoubleValue(interpolate(value));
+        }
+        catch (ConversionException e)
+        {
+            throw new ConversionException('\'' + key + "' doesn't map to a Double object", e);
+        }
+    }
+
+    /**
+     * Converts the value of the specified key into a primitive int. The value
+     * is interpolated before the conversion.
+     *
+     * @param key the key of the property
+     * @param value the (non null) value of this property
+     * @return the converted value
+     * @throws ConversionException if the value cannot be converted
+     */
+    private int toIntValue(String key, Object value)
+    {
+        try
+        {
+            return PropertyConverter.toIntValue(interpolate(value));
+        }
+        catch (ConversionException e)
+        {
+            throw new ConversionException('\'' + key + "' doesn't map to an Integer object", e);
+        }
+    }
+
+    /**
+     * Converts the value of the specified key into a primitive long. The value
+     * is interpolated before the conversion.
+     *
+     * @param key the key of the property
+     * @param value the (non null) value of this property
+     * @return the converted value
+     * @throws ConversionException if the value cannot be converted
+     */
+    private long toLongValue(String key, Object value)
+    {
+        try
+        {
+            return PropertyConverter.toLongValue(interpolate(value));
+        }
+        catch (ConversionException e)
+        {
+            throw new ConversionException('\'' + key + "' doesn't map to a Long object", e);
+        }
+    }
+
     /**
      * Checks whether the specified object is a scalar value. This method is
      * called by {@code getList()} and {@code getStringArray()} if the
@@ -25,6 +25,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.configuration.event.ConfigurationEvent;
 import org.apache.commons.configuration.event.ConfigurationListener;
@@ -209,7 +210,7 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
     private boolean ignoreReloadExceptions = true;
 
     /** Set to true when the backing file has changed */
-    private boolean reloadRequired;
+    private volatile boolean reloadRequired;
 
     /**
      * An expression engine used for converting child configurations to
@@ -220,6 +221,12 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
     /** A flag whether an enhanced reload check is to be performed.*/
     private boolean forceReloadCheck;
 
+    /** A flag whether read access does not block during a reconstruction.*/
+    private volatile boolean nonBlockingReads;
+
+    /** A flag whether a thread is currently reconstructing the root node.*/
+    private AtomicBoolean reconstructing = new AtomicBoolean();
+
     /**
      * Creates a new instance of {@code CombinedConfiguration} and
      * initializes the combiner to be used.
@@ -346,6 +353,38 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
             ExpressionEngine conversionExpressionEngine)
     {
         this.conversionExpressionEngine = conversionExpressionEngine;
+        // the cached nodes of child configurations have to be converted again
+        markAllChanged();
+    }
+
+    /**
+     * Returns a flag whether read access is non-blocking.
+     *
+     * @return the non-blocking reads flag
+     * @since 2.0
+     */
+    public boolean isNonBlockingReads()
+    {
+        return nonBlockingReads;
+    }
+
+    /**
+     * Sets a flag whether read access is non-blocking. Per default, each
+     * access to the combined node structure synchronizes on the reload lock,
+     * and if the structure has been invalidated, the calling thread
+     * re-constructs it while other threads wait. In non-blocking mode, the
+     * current combined root node is read without locking. If it has been
+     * invalidated, only a single thread re-constructs it; other threads
+     * continue to see the previous root node until the new one is available.
+     * So readers may temporarily obtain outdated data, but they are never
+     * blocked by a reconstruction (except for the very first one).
+     *
+     * @param nonBlockingReads the value of the flag
+     * @since 2.0
+     */
+    public void setNonBlockingReads(boolean nonBlockingReads)
+    {
+        this.nonBlockingReads = nonBlockingReads;
     }
 
     /**
@@ -412,7 +451,8 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
         }
 
         registerListenerAt(config);
-        invalidate();
+        // the combined nodes of the existing configurations are still valid
+        markReloadRequired();
     }
 
     /**
@@ -543,7 +583,11 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
             namedConfigurations.remove(cd.getName());
         }
         unregisterListenerAt(cd.getConfiguration());
-        invalidate();
+        if (index < configurations.size())
+        {
+            configurations.get(index).resetCombinedNode();
+        }
+        markReloadRequired();
         return cd.getConfiguration();
     }
 
@@ -583,18 +627,24 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
      * Invalidation of a combined configuration also means that an event of type
      * {@code EVENT_COMBINED_INVALIDATE} is fired. Note that while other
      * events most times appear twice (once before and once after an update),
-     * this event is only fired once (after update).
+     * this event is only fired once (after update). This method causes the
+     * nodes of all child configurations to be combined anew; in contrast, if
+     * a change event of a child configuration is received, only the affected
+     * part of the combined node structure is re-constructed.
      */
     public void invalidate()
     {
-        reloadRequired = true;
-        fireEvent(EVENT_COMBINED_INVALIDATE, null, null, false);
+        markAllChanged();
+        markReloadRequired();
     }
 
     /**
      * Event listener call back for configuration update events. This method is
      * called whenever one of the contained configurations was modified. It
-     * invalidates this combined configuration.
+     * invalidates this combined configuration. Only the nodes of the changed
+     * configuration and of the configurations added after it have to be
+     * combined again; the combined nodes of the configurations before it are
+     * reused.
      *
      * @param event the update event
      */
@@ -606,7 +656,16 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
         }
         else if (!event.isBeforeUpdate())
         {
-            invalidate();
+            ConfigData cd = findConfigData(event.getSource());
+            if (cd != null)
+            {
+                cd.markChanged();
+                markReloadRequired();
+            }
+            else
+            {
+                invalidate();
+            }
         }
     }
 
@@ -620,15 +679,27 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
     @Override
     public ConfigurationNode getRootNode()
     {
-        synchronized (getReloadLock())
+        if (isNonBlockingReads())
         {
-            if (reloadRequired || combinedRoot == null)
+            ConfigurationNode root = combinedRoot;
+            if (root != null)
             {
-                combinedRoot = constructCombinedNode();
-                reloadRequired = false;
+                if (reloadRequired && reconstructing.compareAndSet(false, true))
+                {
+                    try
+                    {
+                        return reconstructRootNode();
+                    }
+                    finally
+                    {
+                        reconstructing.set(false);
+                    }
+                }
+                return root;
             }
-            return combinedRoot;
         }
+
+        return reconstructRootNode();
     }
 
     /**
@@ -644,6 +715,29 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
         invalidate();
     }
 
+    /**
+     * Notifies the registered listeners about an event. This implementation
+     * checks whether the event is caused by a direct manipulation of the
+     * combined node structure. In this case the nodes cached for the child
+     * configurations may have been modified, too, so they are discarded.
+     *
+     * @param type the event's type
+     * @param propName the name of the affected property (can be <b>null</b>)
+     * @param propValue the value of the affected property (can be <b>null</b>)
+     * @param before the before update flag
+     */
+    @Override
+    protected void fireEvent(int type, String propName, Object propValue,
+            boolean before)
+    {
+        if (type != EVENT_COMBINED_INVALIDATE
+                && type != AbstractFileConfiguration.EVENT_CONFIG_CHANGED)
+        {
+            markAllChanged();
+        }
+        super.fireEvent(type, propName, propValue, before);
+    }
+
     /**
      * Returns a copy of this object. This implementation performs a deep clone,
      * i.e. all contained configurations will be cloned, too. For this to work,
@@ -657,6 +751,7 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
     public Object clone()
     {
         CombinedConfiguration copy = (CombinedConfiguration) super.clone();
+        copy.reconstructing = new AtomicBoolean();
         copy.clear();
         for (ConfigData cd : configurations)
         {
@@ -787,12 +882,22 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
 
         else
         {
-            Iterator<ConfigData> it = configurations.iterator();
-            ConfigurationNode node = it.next().getTransformedRoot();
-            while (it.hasNext())
+            // skip all configurations whose combined nodes can be reused
+            int start = 0;
+            while (start < configurations.size()
+                    && configurations.get(start).isCombinedNodeValid())
             {
-                node = getNodeCombiner().combine(node,
-                        it.next().getTransformedRoot());
+                start++;
+            }
+
+            ConfigurationNode node =
+                    (start > 0) ? configurations.get(start - 1).getCombinedNode() : null;
+            for (int i = start; i < configurations.size(); i++)
+            {
+                ConfigData cd = configurations.get(i);
+                ConfigurationNode root = cd.fetchTransformedRoot();
+                node = (node == null) ? root : getNodeCombiner().combine(node, root);
+                cd.setCombinedNode(node);
             }
             if (getLogger().isDebugEnabled())
             {
@@ -805,6 +910,85 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
         }
     }
 
+    /**
+     * Re-constructs the combined root node if necessary. The reload lock is
+     * held during this operation. The new root node is published only after
+     * it has been completely constructed.
+     *
+     * @return the current combined root node
+     */
+    private ConfigurationNode reconstructRootNode()
+    {
+        synchronized (getReloadLock())
+        {
+            if (reloadRequired || combinedRoot == null)
+            {
+                // reset the flag first, so that concurrent changes are not lost
+                reloadRequired = false;
+                boolean success = false;
+                try
+                {
+                    combinedRoot = constructCombinedNode();
+                    success = true;
+                }
+                finally
+                {
+                    if (!success)
+                    {
+                        reloadRequired = true;
+                    }
+                }
+            }
+            return combinedRoot;
+        }
+    }
+
+    /**
+     * Sets the flag that the combined node structure has to be re-constructed
+     * and fires an event of type {@code EVENT_COMBINED_INVALIDATE}.
+     */
+    private void markReloadRequired()
+    {
+        reloadRequired = true;
+        fireEvent(EVENT_COMBINED_INVALIDATE, null, null, false);
+    }
+
+    /**
+     * Marks all child configurations as changed. So no cached nodes will be
+     * reused when the combined node structure is constructed the next time.
+     */
+    private void markAllChanged()
+    {
+        // may be called by super constructors before initialization
+        if (configurations != null)
+        {
+            for (ConfigData cd : configurations)
+            {
+                cd.markChanged();
+            }
+        }
+    }
+
+    /**
+     * Returns the {@code ConfigData} object for the specified child
+     * configuration.
+     *
+     * @param config the child configuration
+     * @return the corresponding {@code ConfigData} or <b>null</b> if the
+     *         configuration cannot be found
+     */
+    private ConfigData findConfigData(Object config)
+    {
+        for (ConfigData cd : configurations)
+        {
+            if (cd.getConfiguration() == config)
+            {
+                return cd;
+            }
+        }
+        return null;
+    }
+
     /**
      * Determines the configuration that owns the specified node.
      *
@@ -887,6 +1071,21 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
         /** Stores the root node for this child configuration.*/
         private ConfigurationNode rootNode;
 
+        /** Stores the cached transformed root node.*/
+        private ConfigurationNode transformedRoot;
+
+        /**
+         * Stores the result of combining the nodes of all configurations up
+         * to this one.
+         */
+        private ConfigurationNode combinedNode;
+
+        /**
+         * A flag whether the configuration has changed since the cached nodes
+         * were created.
+         */
+        private volatile boolean changed = true;
+
         /**
          * Creates a new instance of {@code ConfigData} and initializes
          * it.
@@ -979,6 +1178,74 @@ public class CombinedConfiguration extends HierarchicalReloadableConfiguration i
             return result;
         }
 
+        /**
+         * Returns the transformed root node of the stored configuration. The
+         * node is cached; it is created anew only if the configuration has
+         * changed.
+         *
+         * @return the transformed root node
+         */
+        public ConfigurationNode fetchTransformedRoot()
+        {
+            if (changed || transformedRoot == null)
+            {
+                // reset the flag first, so that concurrent changes are not lost
+                changed = false;
+                transformedRoot = getTransformedRoot();
+            }
+            return transformedRoot;
+        }
+
+        /**
+         * Returns the cached result of combining the nodes of all
+         * configurations up to this one.
+         *
+         * @return the combined node
+         */
+        public ConfigurationNode getCombinedNode()
+        {
+            return combinedNode;
+        }
+
+        /**
+         * Sets the result of combining the nodes of all configurations up to
+         * this one.
+         *
+         * @param node the combined node
+         */
+        public void setCombinedNode(ConfigurationNode node)
+        {
+            combinedNode = node;
+        }
+
+        /**
+         * Returns a flag whether the cached combined node can be reused.
+         *
+         * @return a flag whether the combined node is valid
+         */
+        public boolean isCombinedNodeValid()
+        {
+            return !changed && combinedNode != null;
+        }
+
+        /**
+         * Discards the cached combined node. This is necessary if a preceding
+         * configuration has been removed.
+         */
+        public void resetCombinedNode()
+        {
+            combinedNode = null;
+        }
+
+        /**
+         * Marks this configuration as changed. Its cached nodes will be
+         * created anew.
+         */
+        public void markChanged()
+        {
+            changed = true;
+        }
+
         /**
          * Splits the at path into its components.
          *
@@ -19,12 +19,18 @@ package org.apache.commons.configuration;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.configuration.event.ConfigurationEvent;
+import org.apache.commons.configuration.event.ConfigurationListener;
 
 /**
  * <p>{@code CompositeConfiguration} allows you to add multiple {@code Configuration}
@@ -47,6 +53,20 @@ import java.util.Set;
  * configurations at the position it was added, i.e. its priority for property
  * queries can be defined by adding the child configurations in the correct
  * order.</p>
+ * <p>If there are many child configurations, a key index can be enabled using
+ * {@link #setIndexEnabled(boolean)}. It maps each key to the child
+ * configuration defining it, so that a property query does not have to check
+ * all child configurations with a higher priority. In addition, the set of
+ * keys returned by {@link #getKeys()} is cached. The index is kept up to date
+ * by change events fired by the child configurations, so all children must
+ * be {@link org.apache.commons.configuration.event.EventSource}s. If a child
+ * configuration can change without firing events (e.g. because it is backed
+ * by system properties or a database which is updated by other processes),
+ * {@link #invalidateIndex()} has to be called to reflect such changes. Keys
+ * which are not contained in the index are only looked up in hierarchical
+ * child configurations, because they may be expressions that are not
+ * returned by {@code getKeys()}; if there are no hierarchical children, such
+ * keys are known to be undefined without querying any child.</p>
  *
  * @author <a href="mailto:epugh@upstate.com">Eric Pugh</a>
  * @author <a href="mailto:hps@intermeta.de">Henning P. Schmiedehausen</a>
@@ -70,6 +90,21 @@ implements Cloneable
      */
     private boolean inMemoryConfigIsChild;
 
+    /** A flag whether the key index is enabled. */
+    private volatile boolean indexEnabled;
+
+    /** The listener registered at the child configurations for the index. */
+    private ConfigurationListener indexListener;
+
+    /**
+     * The index mapping keys to the child configurations defining them. A
+     * value of <b>null</b> means that the index has to be rebuilt.
+     */
+    private volatile KeyIndex keyIndex;
+
+    /** The cached set of keys, <b>null</b> if it has to be rebuilt. */
+    private volatile Set<String> keySet;
+
     /**
      * Creates an empty CompositeConfiguration object which can then
      * be added some other Configuration files
@@ -160,6 +195,12 @@ implements Cloneable
     {
         if (!configList.contains(config))
         {
+            if (indexEnabled)
+            {
+                ConfigurationUtils.asEventSource(config, false)
+                        .addConfigurationListener(indexListener);
+            }
+
             if (asInMemory)
             {
                 replaceInMemoryConfiguration(config);
@@ -188,6 +229,7 @@ implements Cloneable
                 ((AbstractConfiguration) config)
                         .setThrowExceptionOnMissing(isThrowExceptionOnMissing());
             }
+            invalidateIndex();
         }
     }
 
@@ -202,7 +244,15 @@ implements Cloneable
         // the CompositeConfiguration object
         if (!config.equals(inMemoryConfiguration))
         {
-            configList.remove(config);
+            if (configList.remove(config))
+            {
+                if (indexEnabled)
+                {
+                    ConfigurationUtils.asEventSource(config, false)
+                            .removeConfigurationListener(indexListener);
+                }
+                invalidateIndex();
+            }
         }
     }
 
@@ -224,6 +274,10 @@ implements Cloneable
     @Override
     public void clear()
     {
+        if (indexEnabled)
+        {
+            unregisterIndexListener();
+        }
         configList.clear();
         // recreate the in memory configuration
         inMemoryConfiguration = new BaseConfiguration();
@@ -232,6 +286,82 @@ implements Cloneable
         ((BaseConfiguration) inMemoryConfiguration).setDelimiterParsingDisabled(isDelimiterParsingDisabled());
         configList.add(inMemoryConfiguration);
         inMemoryConfigIsChild = false;
+        if (indexEnabled)
+        {
+            registerIndexListener();
+        }
+        invalidateIndex();
+    }
+
+    /**
+     * Returns a flag whether the key index is enabled.
+     *
+     * @return a flag whether the key index is enabled
+     * @since 2.0
+     */
+    public boolean isIndexEnabled()
+    {
+        return indexEnabled;
+    }
+
+    /**
+     * Enables or disables the key index. If enabled, a listener is registered
+     * at all child configurations (including ones added later) which keeps
+     * the index up to date.
+     *
+     * @param enabled a flag whether the key index is to be used
+     * @throws ConfigurationRuntimeException if the index is to be enabled and
+     *         a child configuration does not support event listeners
+     * @since 2.0
+     */
+    public synchronized void setIndexEnabled(boolean enabled)
+    {
+        if (enabled == indexEnabled)
+        {
+            return;
+        }
+
+        if (enabled)
+        {
+            for (Configuration config : configList)
+            {
+                // fail early before any listener is registered
+                ConfigurationUtils.asEventSource(config, false);
+            }
+            indexListener = new ConfigurationListener()
+            {
+                public void configurationChanged(ConfigurationEvent event)
+                {
+                    if (!event.isBeforeUpdate())
+                    {
+                        childConfigurationChanged(event);
+                    }
+                }
+            };
+            registerIndexListener();
+        }
+        else
+        {
+            unregisterIndexListener();
+            indexListener = null;
+        }
+        indexEnabled = enabled;
+        invalidateIndex();
+    }
+
+    /**
+     * Discards the key index and the cached set of keys. They are rebuilt on
+     * next access. This method is called automatically when a child
+     * configuration is added or removed or fires a change event that cannot
+     * be handled incrementally. Clients have to call it only if a child
+     * configuration was changed without firing an event.
+     *
+     * @since 2.0
+     */
+    public synchronized void invalidateIndex()
+    {
+        keyIndex = null;
+        keySet = null;
     }
 
     /**
@@ -254,9 +384,42 @@ implements Cloneable
      * @return object associated with the given configuration key.
      */
     public Object getProperty(String key)
+    {
+        if (indexEnabled)
+        {
+            KeyIndex index = fetchKeyIndex();
+            Configuration owner = index.getOwners().get(key);
+            if (owner == null)
+            {
+                // only hierarchical configurations can define keys not
+                // contained in the index, e.g. expressions
+                return getPropertyFromConfigs(index.getExpressionConfigs(),
+                        key);
+            }
+            Object value = owner.getProperty(key);
+            if (value != null)
+            {
+                return value;
+            }
+            // the index is out of date, use a linear search
+        }
+
+        return getPropertyFromConfigs(configList, key);
+    }
+
+    /**
+     * Returns the value of the given property from the first configuration in
+     * the given list which contains it.
+     *
+     * @param configs the configurations to search
+     * @param key the key of the property
+     * @return the value of this property or <b>null</b> if it is undefined
+     */
+    private static Object getPropertyFromConfigs(List<Configuration> configs,
+            String key)
     {
         Configuration firstMatchingConfiguration = null;
-        for (Configuration config : configList)
+        for (Configuration config : configs)
         {
             if (config.containsKey(key))
             {
@@ -277,16 +440,12 @@ implements Cloneable
 
     public Iterator<String> getKeys()
     {
-        Set<String> keys = new LinkedHashSet<String>();
-        for (Configuration config : configList)
+        if (indexEnabled)
         {
-            for (Iterator<String> it = config.getKeys(); it.hasNext();)
-            {
-                keys.add(it.next());
-            }
+            return fetchKeySet().iterator();
         }
 
-        return keys.iterator();
+        return collectKeys().iterator();
     }
 
     @Override
@@ -427,6 +586,9 @@ implements Cloneable
             CompositeConfiguration copy = (CompositeConfiguration) super
                     .clone();
             copy.clearConfigurationListeners();
+            copy.indexEnabled = false;
+            copy.indexListener = null;
+            copy.invalidateIndex();
             copy.configList = new LinkedList<Configuration>();
             copy.inMemoryConfiguration = ConfigurationUtils
                     .cloneConfiguration(getInMemoryConfiguration());
@@ -440,6 +602,7 @@ implements Cloneable
                             .cloneConfiguration(config));
                 }
             }
+            copy.setIndexEnabled(isIndexEnabled());
 
             return copy;
         }
@@ -545,10 +708,172 @@ implements Cloneable
         {
             // remove current in-memory configuration
             configList.remove(inMemoryConfiguration);
+            if (indexEnabled)
+            {
+                ConfigurationUtils.asEventSource(inMemoryConfiguration, false)
+                        .removeConfigurationListener(indexListener);
+            }
         }
         inMemoryConfiguration = config;
     }
 
+    /**
+     * Returns the set of keys of all child configurations. The keys are
+     * ordered by the child configurations defining them.
+     *
+     * @return the set with all keys
+     */
+    private Set<String> collectKeys()
+    {
+        Set<String> keys = new LinkedHashSet<String>();
+        for (Configuration config : configList)
+        {
+            for (Iterator<String> it = config.getKeys(); it.hasNext();)
+            {
+                keys.add(it.next());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the key index. It is rebuilt if necessary.
+     *
+     * @return the key index
+     */
+    private KeyIndex fetchKeyIndex()
+    {
+        KeyIndex index = keyIndex;
+        return (index != null) ? index : rebuildKeyIndex();
+    }
+
+    /**
+     * Creates the key index if it has been invalidated. Each key is mapped to
+     * the first child configuration defining it. The hierarchical child
+     * configurations are recorded, too.
+     *
+     * @return the key index
+     */
+    private synchronized KeyIndex rebuildKeyIndex()
+    {
+        if (keyIndex == null)
+        {
+            ConcurrentMap<String, Configuration> owners =
+                    new ConcurrentHashMap<String, Configuration>();
+            List<Configuration> expressionConfigs =
+                    new ArrayList<Configuration>();
+            for (Configuration config : configList)
+            {
+                if (config instanceof ImmutableHierarchicalConfiguration)
+                {
+                    expressionConfigs.add(config);
+                }
+                for (Iterator<String> it = config.getKeys(); it.hasNext();)
+                {
+                    String key = it.next();
+                    if (!owners.containsKey(key))
+                    {
+                        owners.put(key, config);
+                    }
+                }
+            }
+            keyIndex = new KeyIndex(owners, expressionConfigs);
+        }
+        return keyIndex;
+    }
+
+    /**
+     * Returns the cached set of keys. It is rebuilt if necessary.
+     *
+     * @return the unmodifiable set with all keys
+     */
+    private Set<String> fetchKeySet()
+    {
+        Set<String> keys = keySet;
+        if (keys == null)
+        {
+            synchronized (this)
+            {
+                if (keySet == null)
+                {
+                    keySet = Collections.unmodifiableSet(collectKeys());
+                }
+                keys = keySet;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Updates the key index after a child configuration has changed. Changes
+     * of single properties of non-hierarchical configurations are handled
+     * incrementally by determining the new owner of this key. (For
+     * hierarchical configurations the key passed to the event can be an
+     * expression which is not contained in the index.) In all other cases
+     * the index is discarded.
+     *
+     * @param event the change event
+     */
+    private synchronized void childConfigurationChanged(ConfigurationEvent event)
+    {
+        KeyIndex index = keyIndex;
+        String key = event.getPropertyName();
+        boolean singleProperty = event.getType() == EVENT_ADD_PROPERTY
+                || event.getType() == EVENT_SET_PROPERTY
+                || event.getType() == EVENT_CLEAR_PROPERTY;
+
+        if (index == null || key == null || !singleProperty
+                || event.getSource() instanceof ImmutableHierarchicalConfiguration)
+        {
+            invalidateIndex();
+            return;
+        }
+
+        Configuration owner = null;
+        for (Configuration config : configList)
+        {
+            if (config.containsKey(key))
+            {
+                owner = config;
+                break;
+            }
+        }
+
+        if (owner != null)
+        {
+            index.getOwners().put(key, owner);
+        }
+        else
+        {
+            index.getOwners().remove(key);
+        }
+        keySet = null;
+    }
+
+    /**
+     * Registers the index listener at all child configurations.
+     */
+    private void registerIndexListener()
+    {
+        for (Configuration config : configList)
+        {
+            ConfigurationUtils.asEventSource(config, false)
+                    .addConfigurationListener(indexListener);
+        }
+    }
+
+    /**
+     * Removes the index listener from all child configurations.
+     */
+    private void unregisterIndexListener()
+    {
+        for (Configuration config : configList)
+        {
+            ConfigurationUtils.asEventSource(config, false)
+                    .removeConfigurationListener(indexListener);
+        }
+    }
+
     /**
      * Adds the value of a property to the given list. This method is used by
      * {@code getList()} for gathering property values from the child
@@ -575,4 +900,53 @@ implements Cloneable
             }
         }
     }
+
+    /**
+     * A class representing the key index. It stores the map with the owners
+     * of keys and the hierarchical child configurations which may define
+     * keys not contained in this map. Both are created together, so that a
+     * reader always sees a consistent state.
+     */
+    private static class KeyIndex
+    {
+        /** The map with the child configurations owning the keys. */
+        private final ConcurrentMap<String, Configuration> owners;
+
+        /** The configurations which have to be queried for unknown keys. */
+        private final List<Configuration> expressionConfigs;
+
+        /**
+         * Creates a new instance of {@code KeyIndex}.
+         *
+         * @param owners the map with the owners of the keys
+         * @param expressionConfigs the hierarchical child configurations
+         */
+        public KeyIndex(ConcurrentMap<String, Configuration> owners,
+                List<Configuration> expressionConfigs)
+        {
+            this.owners = owners;
+            this.expressionConfigs = expressionConfigs;
+        }
+
+        /**
+         * Returns the map with the child configurations owning the keys.
+         *
+         * @return the map with the owners
+         */
+        public ConcurrentMap<String, Configuration> getOwners()
+        {
+            return owners;
+        }
+
+        /**
+         * Returns a list with the child configurations which have to be
+         * queried for keys not contained in the index.
+         *
+         * @return the hierarchical child configurations
+         */
+        public List<Configuration> getExpressionConfigs()
+        {
+            return expressionConfigs;
+        }
+    }
 }
@@ -903,6 +903,28 @@ public final class ConfigurationUtils
                 IMMUTABLE_HIERARCHICAL_CONFIG_IFCS, c);
     }
 
+    /**
+     * Creates an immutable snapshot of the given configuration. In contrast
+     * to {@link #unmodifiableConfiguration(Configuration)}, the returned
+     * object is not a view on the original configuration: the current content
+     * of the configuration is copied, with all values already interpolated.
+     * So later changes on the original configuration are not visible in the
+     * snapshot. Read access to the snapshot is very efficient, and the
+     * object can be shared between threads without synchronization. Refer to
+     * the documentation of {@link SnapshotConfiguration} for further details.
+     *
+     * @param c the configuration to be copied (must not be <b>null</b>)
+     * @return an immutable snapshot of this configuration
+     * @throws IllegalArgumentException if the passed in configuration is
+     *         <b>null</b>
+     * @since 2.0
+     */
+    public static ImmutableHierarchicalConfiguration snapshotConfiguration(
+            ImmutableConfiguration c)
+    {
+        return new SnapshotConfiguration(c);
+    }
+
     /**
      * Helper method for creating a proxy for an unmodifiable configuration. The
      * interfaces the proxy should implement are passed as argument.
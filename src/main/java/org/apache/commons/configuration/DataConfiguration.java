@@ -31,7 +31,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.apache.commons.configuration.event.ConfigurationEvent;
+import org.apache.commons.configuration.event.ConfigurationListener;
 import org.apache.commons.lang.ClassUtils;
 import org.apache.commons.lang.StringUtils;
 
@@ -82,6 +86,22 @@ import org.apache.commons.lang.StringUtils;
  * getters, or by putting a date format in the configuration under the key
  * <tt>org.apache.commons.configuration.format.date</tt>.
  *
+ * <h4>Conversion cache</h4>
+ *
+ * Converting a string to an object like a {@code URL} or an
+ * {@code InetAddress} can be expensive. If such values are queried
+ * frequently, a cache for converted values can be enabled using
+ * {@link #setConversionCacheEnabled(boolean)}. The generic
+ * {@link #get(Class, String, Object)} and
+ * {@link #getList(Class, String, List)} methods and all getters based on them
+ * then return the results of previous conversions for the same key, target
+ * class, and date format. The cache is cleared whenever a change event is
+ * received from the wrapped configuration, so the wrapped configuration must
+ * be an {@link org.apache.commons.configuration.event.EventSource}. Note that
+ * values obtained through variable lookups which are not backed by a
+ * configuration (e.g. system properties) are cached, too. The cache is not
+ * serialized.
+ *
  * @author <a href="ebourg@apache.org">Emmanuel Bourg</a>
  * @version $Id$
  * @since 1.1
@@ -99,9 +119,18 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
      */
     private static final long serialVersionUID = -69011336405718640L;
 
+    /** The maximum number of entries in the conversion cache. */
+    private static final int CONVERSION_CACHE_SIZE = 1024;
+
     /** Stores the wrapped configuration.*/
     protected Configuration configuration;
 
+    /** The listener for invalidating the conversion cache. */
+    private transient ConfigurationListener cacheListener;
+
+    /** The cache for converted values, <b>null</b> if disabled. */
+    private transient volatile ConcurrentMap<ConversionKey, Object> conversionCache;
+
     /**
      * Creates a new instance of {@code DataConfiguration} and sets the
      * wrapped configuration.
@@ -123,6 +152,79 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
         return configuration;
     }
 
+    /**
+     * Returns a flag whether the cache for converted values is enabled.
+     *
+     * @return a flag whether converted values are cached
+     * @since 2.0
+     */
+    public boolean isConversionCacheEnabled()
+    {
+        return conversionCache != null;
+    }
+
+    /**
+     * Enables or disables the cache for converted values. When the cache is
+     * enabled a listener is registered at the wrapped configuration which
+     * clears the cache on each change.
+     *
+     * @param enabled a flag whether converted values are to be cached
+     * @throws ConfigurationRuntimeException if the cache is to be enabled and
+     *         the wrapped configuration does not support event listeners
+     * @since 2.0
+     */
+    public synchronized void setConversionCacheEnabled(boolean enabled)
+    {
+        if (enabled == isConversionCacheEnabled())
+        {
+            return;
+        }
+
+        if (enabled)
+        {
+            cacheListener = new ConfigurationListener()
+            {
+                public void configurationChanged(ConfigurationEvent event)
+                {
+                    if (!event.isBeforeUpdate())
+                    {
+                        invalidateConversionCache();
+                    }
+                }
+            };
+            ConfigurationUtils.asEventSource(configuration, false)
+                    .addConfigurationListener(cacheListener);
+            addConfigurationListener(cacheListener);
+            conversionCache = new ConcurrentHashMap<ConversionKey, Object>();
+        }
+        else
+        {
+            conversionCache = null;
+            ConfigurationUtils.asEventSource(configuration, false)
+                    .removeConfigurationListener(cacheListener);
+            removeConfigurationListener(cacheListener);
+            cacheListener = null;
+        }
+    }
+
+    /**
+     * Removes all values from the cache for converted values. This method is
+     * called automatically when the wrapped configuration is changed. A
+     * client has to call it only if the value of a property changes in a way
+     * which is not reported by an event, e.g. if a variable refers to a system
+     * property.
+     *
+     * @since 2.0
+     */
+    public synchronized void invalidateConversionCache()
+    {
+        if (conversionCache != null)
+        {
+            // readers still using the old map cannot pollute the new one
+            conversionCache = new ConcurrentHashMap<ConversionKey, Object>();
+        }
+    }
+
     public Object getProperty(String key)
     {
         return configuration.getProperty(key);
@@ -240,6 +342,19 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
      */
     public <T> T get(Class<T> cls, String key, T defaultValue)
     {
+        String format = isDateClass(cls) ? getDefaultDateFormat() : null;
+        ConcurrentMap<ConversionKey, Object> cache = fetchConversionCache(key);
+        ConversionKey cacheKey = null;
+        if (cache != null)
+        {
+            cacheKey = new ConversionKey(key, cls, format, false);
+            Object cachedValue = cache.get(cacheKey);
+            if (cachedValue != null)
+            {
+                return cls.cast(copyValue(cachedValue));
+            }
+        }
+
         Object value = resolveContainerStore(key);
 
         if (value == null)
@@ -247,14 +362,27 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
             return defaultValue;
         }
 
-        if (Date.class.equals(cls) || Calendar.class.equals(cls))
-        {
-            return convert(cls, key, interpolate(value), new String[] {getDefaultDateFormat()});
-        }
-        else
+        T result = convert(cls, key, interpolate(value),
+                (format != null) ? new String[] {format} : null);
+        if (cache != null && result != null)
         {
-            return convert(cls, key, interpolate(value), null);
+            storeConversion(cache, cacheKey, copyValue(result));
         }
+        return result;
+    }
+
+    /**
+     * Returns the conversion cache to be used for the given key. A key of
+     * <b>null</b> is not cached; for it the conversion methods fall back to
+     * the default value as if no cache was enabled.
+     *
+     * @param key the configuration key
+     * @return the conversion cache or <b>null</b> if no cache is to be used
+     */
+    private ConcurrentMap<ConversionKey, Object> fetchConversionCache(
+            String key)
+    {
+        return (key != null) ? conversionCache : null;
     }
 
     /**
@@ -294,6 +422,19 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
      */
     public <T> List<T> getList(Class<T> cls, String key, List<T> defaultValue)
     {
+        String format = isDateClass(cls) ? getDefaultDateFormat() : null;
+        ConcurrentMap<ConversionKey, Object> cache = fetchConversionCache(key);
+        ConversionKey cacheKey = null;
+        if (cache != null)
+        {
+            cacheKey = new ConversionKey(key, cls, format, true);
+            List<?> cachedList = (List<?>) cache.get(cacheKey);
+            if (cachedList != null)
+            {
+                return copyList(cls, cachedList);
+            }
+        }
+
         Object value = getProperty(key);
         Class<?> valueClass = value != null ? value.getClass() : null;
 
@@ -309,9 +450,9 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
             list = new ArrayList<T>();
 
             Object[] params = null;
-            if (cls.equals(Date.class) || cls.equals(Calendar.class))
+            if (format != null)
             {
-                params = new Object[] {getDefaultDateFormat()};
+                params = new Object[] {format};
             }
 
             if (valueClass.isArray())
@@ -353,6 +494,11 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
                 // attempt to convert a single value
                 list.add(convert(cls, key, interpolate(value), params));
             }
+
+            if (cache != null)
+            {
+                storeConversion(cache, cacheKey, copyList(cls, list));
+            }
         }
 
         return list;
@@ -1356,31 +1502,18 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
         {
             list = defaultValue;
         }
-        else if (value.getClass().isArray())
+        else
         {
-            list = new ArrayList<Date>();
-            int length = Array.getLength(value);
-            for (int i = 0; i < length; i++)
+            try
             {
-                list.add(convert(Date.class, key, interpolate(Array.get(value, i)), new String[] {format}));
+                list = PropertyConverter.toDates(interpolateValues(value), format);
             }
-        }
-        else if (value instanceof Collection)
-        {
-            Collection<?> values = (Collection<?>) value;
-            list = new ArrayList<Date>();
-
-            for (Object o : values)
+            catch (ConversionException e)
             {
-                list.add(convert(Date.class, key, interpolate(o), new String[] {format}));
+                throw new ConversionException('\'' + key + "' doesn't map to a "
+                        + Date.class, e);
             }
         }
-        else
-        {
-            // attempt to convert a single value
-            list = new ArrayList<Date>();
-            list.add(convert(Date.class, key, interpolate(value), new String[] {format}));
-        }
 
         return list;
     }
@@ -1647,31 +1780,18 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
         {
             list = defaultValue;
         }
-        else if (value.getClass().isArray())
+        else
         {
-            list = new ArrayList<Calendar>();
-            int length = Array.getLength(value);
-            for (int i = 0; i < length; i++)
+            try
             {
-                list.add(convert(Calendar.class, key, interpolate(Array.get(value, i)), new String[] {format}));
+                list = PropertyConverter.toCalendars(interpolateValues(value), format);
             }
-        }
-        else if (value instanceof Collection)
-        {
-            Collection<?> values = (Collection<?>) value;
-            list = new ArrayList<Calendar>();
-
-            for (Object o : values)
+            catch (ConversionException e)
             {
-                list.add(convert(Calendar.class, key, interpolate(o), new String[] {format}));
+                throw new ConversionException('\'' + key + "' doesn't map to a "
+                        + Calendar.class, e);
             }
         }
-        else
-        {
-            // attempt to convert a single value
-            list = new ArrayList<Calendar>();
-            list.add(convert(Calendar.class, key, interpolate(value), new String[] {format}));
-        }
 
         return list;
     }
@@ -1961,6 +2081,112 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
         return (Color[]) getArray(Color.class, key, defaultValue);
     }
 
+    /**
+     * Returns a collection with the interpolated single values of the given
+     * property value. The value can be an array, a collection, or a single
+     * object.
+     *
+     * @param value the property value
+     * @return a collection with the interpolated values
+     */
+    private Collection<Object> interpolateValues(Object value)
+    {
+        List<Object> values;
+        if (value.getClass().isArray())
+        {
+            int length = Array.getLength(value);
+            values = new ArrayList<Object>(length);
+            for (int i = 0; i < length; i++)
+            {
+                values.add(interpolate(Array.get(value, i)));
+            }
+        }
+        else if (value instanceof Collection)
+        {
+            Collection<?> col = (Collection<?>) value;
+            values = new ArrayList<Object>(col.size());
+            for (Object o : col)
+            {
+                values.add(interpolate(o));
+            }
+        }
+        else
+        {
+            values = new ArrayList<Object>(1);
+            values.add(interpolate(value));
+        }
+        return values;
+    }
+
+    /**
+     * Checks whether the specified class is one of the date classes whose
+     * conversion depends on a date format.
+     *
+     * @param cls the class to be checked
+     * @return a flag whether this is a date class
+     */
+    private static boolean isDateClass(Class<?> cls)
+    {
+        return Date.class.equals(cls) || Calendar.class.equals(cls);
+    }
+
+    /**
+     * Stores a converted value in the conversion cache. If the cache is full,
+     * it is cleared first.
+     *
+     * @param cache the cache
+     * @param cacheKey the key of the value
+     * @param value the converted value
+     */
+    private static void storeConversion(ConcurrentMap<ConversionKey, Object> cache,
+            ConversionKey cacheKey, Object value)
+    {
+        if (cache.size() >= CONVERSION_CACHE_SIZE)
+        {
+            cache.clear();
+        }
+        cache.put(cacheKey, value);
+    }
+
+    /**
+     * Returns a copy of the given value if it is mutable. This is necessary
+     * for values stored in the conversion cache.
+     *
+     * @param value the value
+     * @return the value to be passed to the caller
+     */
+    private static Object copyValue(Object value)
+    {
+        if (value instanceof Date)
+        {
+            return ((Date) value).clone();
+        }
+        if (value instanceof Calendar)
+        {
+            return ((Calendar) value).clone();
+        }
+        return value;
+    }
+
+    /**
+     * Creates a copy of a list with converted values. Mutable values are
+     * copied, too.
+     *
+     * @param <T> the type of the list elements
+     * @param cls the class of the list elements
+     * @param list the list to be copied
+     * @return the copied list
+     */
+    private static <T> List<T> copyList(Class<T> cls, List<?> list)
+    {
+        List<T> result = new ArrayList<T>(list.size());
+        for (Object o : list)
+        {
+            result.add(cls.cast(copyValue(o)));
+        }
+        return result;
+    }
+
     /**
      * Helper method for performing a type conversion using the
      * {@code PropertyConverter} class.
@@ -1989,4 +2215,66 @@ public class DataConfiguration extends AbstractConfiguration implements Serializ
                     + cls, e);
         }
     }
+
+    /**
+     * The key of an entry in the conversion cache.
+     */
+    private static class ConversionKey
+    {
+        /** The configuration key. */
+        private final String key;
+
+        /** The target class of the conversion. */
+        private final Class<?> targetClass;
+
+        /** The date format used for the conversion. */
+        private final String format;
+
+        /** A flag whether a list of values was converted. */
+        private final boolean list;
+
+        /**
+         * Creates a new instance of {@code ConversionKey}.
+         *
+         * @param key the configuration key
+         * @param targetClass the target class
+         * @param format the date format (can be <b>null</b>)
+         * @param list the list flag
+         */
+        public ConversionKey(String key, Class<?> targetClass, String format,
+                boolean list)
+        {
+            this.key = key;
+            this.targetClass = targetClass;
+            this.format = format;
+            this.list = list;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof ConversionKey))
+            {
+                return false;
+            }
+
+            ConversionKey c = (ConversionKey) obj;
+            return list == c.list && key.equals(c.key)
+                    && targetClass.equals(c.targetClass)
+                    && (format == null ? c.format == null : format.equals(c.format));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = key.hashCode();
+            result = 31 * result + targetClass.hashCode();
+            result = 31 * result + (format == null ? 0 : format.hashCode());
+            return list ? result + 1 : result;
+        }
+    }
 }
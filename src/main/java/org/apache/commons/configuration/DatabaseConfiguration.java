@@ -17,6 +17,7 @@
 
 package org.apache.commons.configuration;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -24,11 +25,18 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.sql.DataSource;
 
+import org.apache.commons.configuration.reloading.ReloadingDetector;
 import org.apache.commons.logging.LogFactory;
 
 /**
@@ -78,6 +86,29 @@ import org.apache.commons.logging.LogFactory;
  * constructors to <b>true</b>. If commits should not be performed (which is the
  * default behavior), it should be ensured that the connections returned by the
  * {@code DataSource} are in auto-commit mode.
+ * <p>
+ * Per default each read access (e.g. {@code getProperty()},
+ * {@code containsKey()}, or {@code getKeys()}) causes a query on the database.
+ * If the configuration is accessed frequently, a cache can be enabled using
+ * the {@link #setCacheEnabled(boolean)} method. Then all properties of this
+ * configuration are loaded with a single query, and read operations are served
+ * from memory. Updates performed through this configuration are still written
+ * to the database directly and invalidate the cache. Changes made by other
+ * parties become visible after the cache has expired (see
+ * {@link #setCacheTimeout(long)}) or has been refreshed explicitly using
+ * {@link #refreshCache()}. The {@code ReloadingDetector} returned by
+ * {@link #getReloadingDetector()} can be used to refresh an expired cache in
+ * the background, e.g. from a periodic reloading trigger.
+ * </p>
+ * <p>
+ * Many updates can be grouped in a batch. After calling {@link #beginBatch()}
+ * all update operations of the calling thread are collected and written to
+ * the database by {@link #executeBatch()} using a single connection and JDBC
+ * batch statements. Batches are bound to the thread which started them;
+ * updates performed by other threads are still written directly. The
+ * {@code copy()} and {@code append()} methods make use of this mechanism
+ * automatically.
+ * </p>
  *
  * <h1>Note: Like JDBC itself, protection against SQL injection is left to the user.</h1>
  * @since 1.0
@@ -108,6 +139,30 @@ public class DatabaseConfiguration extends AbstractConfiguration
     /** A flag whether commits should be performed by this configuration. */
     private final boolean doCommits;
 
+    /** The detector for reloading the cache. */
+    private final ReloadingDetector reloadingDetector;
+
+    /** A flag whether the cache is enabled. */
+    private volatile boolean cacheEnabled;
+
+    /** The time in milliseconds after which the cache expires. */
+    private volatile long cacheTimeout;
+
+    /**
+     * The current content of the cache. Each invalidation stores a new,
+     * unloaded instance, so that a cache loaded concurrently with an update
+     * cannot replace the invalidation.
+     */
+    private final AtomicReference<PropertyCache> cache =
+            new AtomicReference<PropertyCache>(PropertyCache.unloaded());
+
+    /**
+     * The updates of the batch of the current thread; <b>null</b> if this
+     * thread has no active batch.
+     */
+    private final ThreadLocal<List<UpdateOperation>> batch =
+            new ThreadLocal<List<UpdateOperation>>();
+
     /**
      * Build a configuration from a table containing multiple configurations.
      * No commits are performed by the new configuration instance.
@@ -149,6 +204,7 @@ public class DatabaseConfiguration extends AbstractConfiguration
         this.valueColumn = valueColumn;
         this.name = name;
         doCommits = commits;
+        reloadingDetector = new CacheReloadingDetector();
         setLogger(LogFactory.getLog(getClass()));
         addErrorLogListener();  // log errors per default
     }
@@ -194,6 +250,97 @@ public class DatabaseConfiguration extends AbstractConfiguration
         return doCommits;
     }
 
+    /**
+     * Returns a flag whether the cache for properties is enabled.
+     *
+     * @return a flag whether properties are cached
+     * @since 2.0
+     */
+    public boolean isCacheEnabled()
+    {
+        return cacheEnabled;
+    }
+
+    /**
+     * Enables or disables the cache for properties. If the cache is enabled,
+     * all properties of this configuration are loaded by a single query on
+     * first access. Later read operations do not access the database until
+     * the cache expires or is refreshed. Disabling the cache discards its
+     * content.
+     *
+     * @param cacheEnabled a flag whether properties are to be cached
+     * @since 2.0
+     */
+    public void setCacheEnabled(boolean cacheEnabled)
+    {
+        this.cacheEnabled = cacheEnabled;
+        invalidateCache();
+    }
+
+    /**
+     * Returns the timeout of the cache in milliseconds.
+     *
+     * @return the cache timeout
+     * @since 2.0
+     */
+    public long getCacheTimeout()
+    {
+        return cacheTimeout;
+    }
+
+    /**
+     * Sets the timeout of the cache in milliseconds. If the cache has been
+     * loaded for longer than this time, the next read access loads it again.
+     * A value of 0 (which is the default) means that the cache never
+     * expires; in this case it has to be refreshed explicitly.
+     *
+     * @param cacheTimeout the cache timeout in milliseconds
+     * @throws IllegalArgumentException if the timeout is negative
+     * @since 2.0
+     */
+    public void setCacheTimeout(long cacheTimeout)
+    {
+        if (cacheTimeout < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Cache timeout must not be negative: " + cacheTimeout);
+        }
+        this.cacheTimeout = cacheTimeout;
+    }
+
+    /**
+     * Reloads the cache for properties from the database. This method can be
+     * called to make changes in the database table visible which have not
+     * been performed through this configuration. If the cache is disabled,
+     * this method has no effect.
+     *
+     * @since 2.0
+     */
+    public void refreshCache()
+    {
+        if (isCacheEnabled())
+        {
+            PropertyCache currentCache = cache.get();
+            cache.compareAndSet(currentCache, loadCache());
+        }
+    }
+
+    /**
+     * Returns a {@code ReloadingDetector} for the cache of this
+     * configuration. The detector reports that a reload is required if the
+     * cache is enabled and has expired. When it is notified about a reload it
+     * refreshes the cache. So by connecting the detector to a
+     * {@code ReloadingController} the cache can be kept up-to-date without
+     * blocking read operations.
+     *
+     * @return the {@code ReloadingDetector} for the cache
+     * @since 2.0
+     */
+    public ReloadingDetector getReloadingDetector()
+    {
+        return reloadingDetector;
+    }
+
     /**
      * Returns the value of the specified property. If this causes a database
      * error, an error event will be generated of type
@@ -206,6 +353,13 @@ public class DatabaseConfiguration extends AbstractConfiguration
      */
     public Object getProperty(String key)
     {
+        Map<String, List<Object>> cachedValues = getCachedValues();
+        if (cachedValues != null)
+        {
+            List<Object> values = cachedValues.get(key);
+            return (values != null) ? cachedValue(values) : null;
+        }
+
         Object result = null;
 
         // build the query
@@ -235,29 +389,12 @@ public class DatabaseConfiguration extends AbstractConfiguration
 
             rs = pstmt.executeQuery();
 
-            List<Object> results = new ArrayList<Object>();
+            List<Object> values = new ArrayList<Object>();
             while (rs.next())
             {
-                Object value = rs.getObject(valueColumn);
-                if (isDelimiterParsingDisabled())
-                {
-                    results.add(value);
-                }
-                else
-                {
-                    // Split value if it contains the list delimiter
-                    Iterator<?> it = PropertyConverter.toIterator(value, getListDelimiter());
-                    while (it.hasNext())
-                    {
-                        results.add(it.next());
-                    }
-                }
-            }
-
-            if (!results.isEmpty())
-            {
-                result = (results.size() > 1) ? results : results.get(0);
+                values.add(rs.getObject(valueColumn));
             }
+            result = extractValue(values);
         }
         catch (SQLException e)
         {
@@ -286,44 +423,24 @@ public class DatabaseConfiguration extends AbstractConfiguration
     {
         // build the query
         StringBuilder query = new StringBuilder("INSERT INTO " + table);
+        String[] params;
         if (nameColumn != null)
         {
             query.append(" (" + nameColumn + ", " + keyColumn + ", " + valueColumn + ") VALUES (?, ?, ?)");
+            params = new String[] {
+                    name, key, String.valueOf(obj)
+            };
         }
         else
         {
             query.append(" (" + keyColumn + ", " + valueColumn + ") VALUES (?, ?)");
+            params = new String[] {
+                    key, String.valueOf(obj)
+            };
         }
 
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-
-        try
-        {
-            conn = getConnection();
-
-            // bind the parameters
-            pstmt = conn.prepareStatement(query.toString());
-            int index = 1;
-            if (nameColumn != null)
-            {
-                pstmt.setString(index++, name);
-            }
-            pstmt.setString(index++, key);
-            pstmt.setString(index++, String.valueOf(obj));
-
-            pstmt.executeUpdate();
-            commitIfRequired(conn);
-        }
-        catch (SQLException e)
-        {
-            fireError(EVENT_ADD_PROPERTY, key, obj, e);
-        }
-        finally
-        {
-            // clean up
-            close(conn, pstmt, null);
-        }
+        executeUpdate(new UpdateOperation(query.toString(), params,
+                EVENT_ADD_PROPERTY, key, obj));
     }
 
     /**
@@ -367,6 +484,12 @@ public class DatabaseConfiguration extends AbstractConfiguration
      */
     public boolean isEmpty()
     {
+        Map<String, List<Object>> cachedValues = getCachedValues();
+        if (cachedValues != null)
+        {
+            return cachedValues.isEmpty();
+        }
+
         boolean empty = true;
 
         // build the query
@@ -423,6 +546,12 @@ public class DatabaseConfiguration extends AbstractConfiguration
      */
     public boolean containsKey(String key)
     {
+        Map<String, List<Object>> cachedValues = getCachedValues();
+        if (cachedValues != null)
+        {
+            return cachedValues.containsKey(key);
+        }
+
         boolean found = false;
 
         // build the query
@@ -479,38 +608,23 @@ public class DatabaseConfiguration extends AbstractConfiguration
     {
         // build the query
         StringBuilder query = new StringBuilder("DELETE FROM " + table + " WHERE " + keyColumn + "=?");
+        String[] params;
         if (nameColumn != null)
         {
             query.append(" AND " + nameColumn + "=?");
+            params = new String[] {
+                    key, name
+            };
         }
-
-        Connection conn = null;
-        PreparedStatement pstmt = null;
-
-        try
-        {
-            conn = getConnection();
-
-            // bind the parameters
-            pstmt = conn.prepareStatement(query.toString());
-            pstmt.setString(1, key);
-            if (nameColumn != null)
-            {
-                pstmt.setString(2, name);
-            }
-
-            pstmt.executeUpdate();
-            commitIfRequired(conn);
-        }
-        catch (SQLException e)
-        {
-            fireError(EVENT_CLEAR_PROPERTY, key, null, e);
-        }
-        finally
+        else
         {
-            // clean up
-            close(conn, pstmt, null);
+            params = new String[] {
+                key
+            };
         }
+
+        executeUpdate(new UpdateOperation(query.toString(), params,
+                EVENT_CLEAR_PROPERTY, key, null));
     }
 
     /**
@@ -526,38 +640,198 @@ public class DatabaseConfiguration extends AbstractConfiguration
         fireEvent(EVENT_CLEAR, null, null, true);
         // build the query
         StringBuilder query = new StringBuilder("DELETE FROM " + table);
+        String[] params;
         if (nameColumn != null)
         {
             query.append(" WHERE " + nameColumn + "=?");
+            params = new String[] {
+                name
+            };
+        }
+        else
+        {
+            params = new String[0];
+        }
+
+        executeUpdate(new UpdateOperation(query.toString(), params,
+                EVENT_CLEAR, null, null));
+        fireEvent(EVENT_CLEAR, null, null, false);
+    }
+
+    /**
+     * Copies the content of the specified configuration into this
+     * configuration. This implementation performs all resulting updates in a
+     * single batch (unless a batch is already active).
+     *
+     * @param c the configuration to copy (can be <b>null</b>)
+     * @since 2.0
+     */
+    @Override
+    public void copy(Configuration c)
+    {
+        boolean ownBatch = beginBatchIfRequired();
+        try
+        {
+            super.copy(c);
+        }
+        finally
+        {
+            executeBatchIfRequired(ownBatch);
+        }
+    }
+
+    /**
+     * Appends the content of the specified configuration to this
+     * configuration. This implementation performs all resulting inserts in a
+     * single batch (unless a batch is already active).
+     *
+     * @param c the configuration to be appended (can be <b>null</b>)
+     * @since 2.0
+     */
+    @Override
+    public void append(Configuration c)
+    {
+        boolean ownBatch = beginBatchIfRequired();
+        try
+        {
+            super.append(c);
+        }
+        finally
+        {
+            executeBatchIfRequired(ownBatch);
+        }
+    }
+
+    /**
+     * Returns a flag whether a batch is currently active for the calling
+     * thread.
+     *
+     * @return a flag whether updates of this thread are collected in a batch
+     * @since 2.0
+     */
+    public boolean isBatchActive()
+    {
+        return batch.get() != null;
+    }
+
+    /**
+     * <p>
+     * Starts a batch of updates for the calling thread. All following update
+     * operations of this thread on this configuration (adding or removing
+     * properties, clearing the configuration) are not written to the database
+     * immediately; they are collected until {@link #executeBatch()} is called
+     * by the same thread. Then all updates are performed using a single
+     * connection and JDBC batch statements, and - if commits are enabled - a
+     * single commit. This is much more efficient when a large number of
+     * properties is changed. Updates performed by other threads are not
+     * affected by the batch. Note that read operations do not see the
+     * collected updates before the batch has been executed.
+     * </p>
+     * <p>
+     * Change events are sent when an update is added to the batch, not when
+     * it is written to the database. So registered listeners are notified
+     * about updates which may still fail when the batch is executed; in this
+     * case an error event is sent by {@link #executeBatch()}, and - if
+     * commits are enabled - none of the updates of the batch is performed.
+     * </p>
+     *
+     * @throws IllegalStateException if a batch is already active for the
+     *         calling thread
+     * @since 2.0
+     */
+    public void beginBatch()
+    {
+        if (isBatchActive())
+        {
+            throw new IllegalStateException("A batch is already active!");
+        }
+        batch.set(new ArrayList<UpdateOperation>());
+    }
+
+    /**
+     * Executes the batch of updates started by {@link #beginBatch()} in the
+     * calling thread. The collected updates are grouped by their SQL
+     * statement, so that each statement is prepared only a few times. The
+     * order of the updates affecting the same property is retained, and
+     * clearing the whole configuration is performed in the order it was
+     * requested relative to all other updates. If this causes a database
+     * error, an
+     * error event will be generated with the type, the property key, and the
+     * property value of the update that failed and the causing exception. If
+     * the failing update cannot be determined exactly (e.g. because no
+     * connection could be obtained), the first update of the affected
+     * statement is reported. If commits are enabled, the transaction is
+     * rolled back in this case.
+     *
+     * @throws IllegalStateException if no batch is active for the calling
+     *         thread
+     * @since 2.0
+     */
+    public void executeBatch()
+    {
+        List<UpdateOperation> pending = batch.get();
+        if (pending == null)
+        {
+            throw new IllegalStateException("No batch is active!");
+        }
+        batch.remove();
+        if (pending.isEmpty())
+        {
+            return;
         }
+        List<UpdateOperation> operations = groupOperations(pending);
 
         Connection conn = null;
         PreparedStatement pstmt = null;
+        int index = 0;
+        int current = 0;
 
         try
         {
             conn = getConnection();
 
-            // bind the parameters
-            pstmt = conn.prepareStatement(query.toString());
-            if (nameColumn != null)
+            while (index < operations.size())
             {
-                pstmt.setString(1, name);
+                // consecutive operations with the same SQL share a statement
+                int groupStart = index;
+                UpdateOperation op = operations.get(index);
+                pstmt = conn.prepareStatement(op.getSql());
+                do
+                {
+                    current = index;
+                    operations.get(index).bind(pstmt);
+                    pstmt.addBatch();
+                    index++;
+                } while (index < operations.size()
+                        && op.getSql().equals(operations.get(index).getSql()));
+
+                current = groupStart;
+                pstmt.executeBatch();
+                pstmt.close();
+                pstmt = null;
             }
 
-            pstmt.executeUpdate();
             commitIfRequired(conn);
         }
+        catch (BatchUpdateException e)
+        {
+            UpdateOperation op =
+                    operations.get(findFailedOperation(e, current, index));
+            fireError(op.getEventType(), op.getKey(), op.getValue(), e);
+            rollbackIfRequired(conn);
+        }
         catch (SQLException e)
         {
-            fireError(EVENT_CLEAR, null, null, e);
+            UpdateOperation op = operations.get(current);
+            fireError(op.getEventType(), op.getKey(), op.getValue(), e);
+            rollbackIfRequired(conn);
         }
         finally
         {
             // clean up
             close(conn, pstmt, null);
+            invalidateCache();
         }
-        fireEvent(EVENT_CLEAR, null, null, false);
     }
 
     /**
@@ -572,6 +846,12 @@ public class DatabaseConfiguration extends AbstractConfiguration
      */
     public Iterator<String> getKeys()
     {
+        Map<String, List<Object>> cachedValues = getCachedValues();
+        if (cachedValues != null)
+        {
+            return new ArrayList<String>(cachedValues.keySet()).iterator();
+        }
+
         Collection<String> keys = new ArrayList<String>();
 
         // build the query
@@ -644,6 +924,350 @@ public class DatabaseConfiguration extends AbstractConfiguration
         return getDatasource().getConnection();
     }
 
+    /**
+     * Returns the cached values of this configuration. If the cache is
+     * disabled, result is <b>null</b>; then the caller has to query the
+     * database directly. Otherwise, the cache is loaded if necessary. A
+     * newly loaded cache is only stored if the cache has not been
+     * invalidated during the load; otherwise the loaded values may not
+     * contain the latest updates and are only used for the current read
+     * operation.
+     *
+     * @return a map with the cached values or <b>null</b>
+     */
+    private Map<String, List<Object>> getCachedValues()
+    {
+        if (!isCacheEnabled())
+        {
+            return null;
+        }
+
+        PropertyCache currentCache = cache.get();
+        if (!currentCache.isLoaded()
+                || currentCache.isExpired(getCacheTimeout())
+                || !currentCache.matches(getListDelimiter(),
+                        isDelimiterParsingDisabled()))
+        {
+            PropertyCache newCache = loadCache();
+            cache.compareAndSet(currentCache, newCache);
+            currentCache = newCache;
+        }
+        return currentCache.getValues();
+    }
+
+    /**
+     * Loads all properties of this configuration into a new cache object. If
+     * this causes a database error, an error event will be generated of type
+     * {@code EVENT_READ_PROPERTY} with the causing exception. Both the
+     * event's {@code propertyName} and the {@code propertyValue} will be
+     * undefined. In this case an already expired cache is returned, so that
+     * the next access tries again to load the data. The values are split at
+     * the list delimiter (if enabled) when they are loaded, so this has not
+     * to be done on each read access.
+     *
+     * @return the new cache object
+     */
+    private PropertyCache loadCache()
+    {
+        char delimiter = getListDelimiter();
+        boolean parsingDisabled = isDelimiterParsingDisabled();
+
+        // build the query
+        StringBuilder query = new StringBuilder("SELECT " + keyColumn + ", "
+                + valueColumn + " FROM " + table);
+        if (nameColumn != null)
+        {
+            query.append(" WHERE " + nameColumn + "=?");
+        }
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try
+        {
+            conn = getConnection();
+
+            // bind the parameters
+            pstmt = conn.prepareStatement(query.toString());
+            if (nameColumn != null)
+            {
+                pstmt.setString(1, name);
+            }
+
+            rs = pstmt.executeQuery();
+
+            Map<String, List<Object>> values =
+                    new LinkedHashMap<String, List<Object>>();
+            while (rs.next())
+            {
+                String key = rs.getString(1);
+                List<Object> keyValues = values.get(key);
+                if (keyValues == null)
+                {
+                    keyValues = new ArrayList<Object>(1);
+                    values.put(key, keyValues);
+                }
+                splitValue(rs.getObject(2), delimiter, parsingDisabled,
+                        keyValues);
+            }
+            return new PropertyCache(values, System.currentTimeMillis(),
+                    delimiter, parsingDisabled);
+        }
+        catch (SQLException e)
+        {
+            fireError(EVENT_READ_PROPERTY, null, null, e);
+            return new PropertyCache(
+                    Collections.<String, List<Object>> emptyMap(), -1,
+                    delimiter, parsingDisabled);
+        }
+        finally
+        {
+            // clean up
+            close(conn, pstmt, rs);
+        }
+    }
+
+    /**
+     * Discards the content of the cache. It will be loaded again on next
+     * access. This method is called after the database table was updated.
+     */
+    private void invalidateCache()
+    {
+        cache.set(PropertyCache.unloaded());
+    }
+
+    /**
+     * Transforms the values read from the database for a key into the value
+     * of the property. If list delimiter parsing is enabled, the single
+     * values are split at the list delimiter. If there is a single value
+     * only, it is returned directly; multiple values are returned as a list.
+     * If there are no values, result is <b>null</b>.
+     *
+     * @param values the values read from the database
+     * @return the value of the property
+     */
+    private Object extractValue(List<Object> values)
+    {
+        List<Object> results = new ArrayList<Object>();
+        char delimiter = getListDelimiter();
+        boolean parsingDisabled = isDelimiterParsingDisabled();
+        for (Object value : values)
+        {
+            splitValue(value, delimiter, parsingDisabled, results);
+        }
+        return cachedValue(results);
+    }
+
+    /**
+     * Returns the value of a property from the given list of (already split)
+     * values. If there is a single value only, it is returned directly;
+     * multiple values are returned as a new list. If there are no values,
+     * result is <b>null</b>.
+     *
+     * @param values the split values of the property
+     * @return the value of the property
+     */
+    private static Object cachedValue(List<Object> values)
+    {
+        if (values.isEmpty())
+        {
+            return null;
+        }
+        return (values.size() > 1) ? new ArrayList<Object>(values) : values
+                .get(0);
+    }
+
+    /**
+     * Adds a value read from the database to the given collection. If list
+     * delimiter parsing is enabled, the value is split at the list delimiter.
+     *
+     * @param value the value read from the database
+     * @param delimiter the list delimiter
+     * @param parsingDisabled a flag whether list delimiter parsing is disabled
+     * @param results the target collection
+     */
+    private static void splitValue(Object value, char delimiter,
+            boolean parsingDisabled, Collection<Object> results)
+    {
+        if (parsingDisabled)
+        {
+            results.add(value);
+        }
+        else
+        {
+            // Split value if it contains the list delimiter
+            Iterator<?> it = PropertyConverter.toIterator(value, delimiter);
+            while (it.hasNext())
+            {
+                results.add(it.next());
+            }
+        }
+    }
+
+    /**
+     * Performs an update operation on the database. If the current thread
+     * has an active batch, the operation is only added to this batch.
+     * Otherwise it is executed
+     * directly. If this causes a database error, an error event is generated
+     * based on the properties of the operation.
+     *
+     * @param op the update operation
+     */
+    private void executeUpdate(UpdateOperation op)
+    {
+        List<UpdateOperation> operations = batch.get();
+        if (operations != null)
+        {
+            operations.add(op);
+            return;
+        }
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try
+        {
+            conn = getConnection();
+
+            // bind the parameters
+            pstmt = conn.prepareStatement(op.getSql());
+            op.bind(pstmt);
+
+            pstmt.executeUpdate();
+            commitIfRequired(conn);
+        }
+        catch (SQLException e)
+        {
+            fireError(op.getEventType(), op.getKey(), op.getValue(), e);
+        }
+        finally
+        {
+            // clean up
+            close(conn, pstmt, null);
+            invalidateCache();
+        }
+    }
+
+    /**
+     * Starts a batch if none is active. This is used by methods which
+     * perform many updates.
+     *
+     * @return a flag whether a new batch was started
+     */
+    private boolean beginBatchIfRequired()
+    {
+        if (isBatchActive())
+        {
+            return false;
+        }
+        beginBatch();
+        return true;
+    }
+
+    /**
+     * Executes the current batch if it was started by the caller.
+     *
+     * @param ownBatch the result of {@link #beginBatchIfRequired()}
+     */
+    private void executeBatchIfRequired(boolean ownBatch)
+    {
+        if (ownBatch)
+        {
+            executeBatch();
+        }
+    }
+
+    /**
+     * Reorders the operations of a batch so that operations with the same SQL
+     * statement follow each other if possible. Operations are moved only
+     * before operations affecting other keys; so the order of the
+     * operations for a single key is retained. Operations without a key (i.e.
+     * clearing the configuration) are never reordered relative to other
+     * operations. For instance, the alternating removals and inserts produced
+     * by {@code copy()} are arranged as a group of removals followed by a
+     * group of inserts.
+     *
+     * @param operations the operations in the order they were performed
+     * @return the reordered operations
+     */
+    private static List<UpdateOperation> groupOperations(
+            List<UpdateOperation> operations)
+    {
+        List<UpdateOperation> result =
+                new ArrayList<UpdateOperation>(operations.size());
+        List<UpdateOperation> remaining = operations;
+        Set<String> blockedKeys = new HashSet<String>();
+
+        while (!remaining.isEmpty())
+        {
+            String sql = remaining.get(0).getSql();
+            List<UpdateOperation> next = new ArrayList<UpdateOperation>();
+            blockedKeys.clear();
+            int index = 0;
+            for (; index < remaining.size(); index++)
+            {
+                UpdateOperation op = remaining.get(index);
+                if (op.getKey() == null)
+                {
+                    if (!next.isEmpty() || !sql.equals(op.getSql()))
+                    {
+                        // all following operations depend on this one
+                        break;
+                    }
+                    result.add(op);
+                }
+                else if (sql.equals(op.getSql())
+                        && !blockedKeys.contains(op.getKey()))
+                {
+                    result.add(op);
+                }
+                else
+                {
+                    blockedKeys.add(op.getKey());
+                    next.add(op);
+                }
+            }
+            next.addAll(remaining.subList(index, remaining.size()));
+            remaining = next;
+        }
+        return result;
+    }
+
+    /**
+     * Determines the index of the update operation which caused a batch
+     * statement to fail. The update counts of the exception are evaluated:
+     * Drivers which continue after an error mark the failed command;
+     * drivers which stop at the first error only report the counts of the
+     * successful commands. If no information is available, the first
+     * operation of the statement is returned.
+     *
+     * @param e the exception thrown by the batch statement
+     * @param start the index of the first operation of the statement
+     * @param end the index after the last operation of the statement
+     * @return the index of the failed operation
+     */
+    private static int findFailedOperation(BatchUpdateException e, int start,
+            int end)
+    {
+        int[] counts = e.getUpdateCounts();
+        if (counts != null)
+        {
+            for (int i = 0; i < counts.length; i++)
+            {
+                if (counts[i] == Statement.EXECUTE_FAILED)
+                {
+                    return start + i;
+                }
+            }
+            if (counts.length < end - start)
+            {
+                return start + counts.length;
+            }
+        }
+        return start;
+    }
+
     /**
      * Close the specified database objects.
      * Avoid closing if null and hide any SQLExceptions that occur.
@@ -706,4 +1330,245 @@ public class DatabaseConfiguration extends AbstractConfiguration
             conn.commit();
         }
     }
+
+    /**
+     * Performs a rollback if needed. This method is called if a batch update
+     * failed. If the configuration performs commits, the changes of the
+     * batch are rolled back. Errors are only logged.
+     *
+     * @param conn the active connection (may be <b>null</b>)
+     */
+    private void rollbackIfRequired(Connection conn)
+    {
+        if (isDoCommits() && conn != null)
+        {
+            try
+            {
+                conn.rollback();
+            }
+            catch (SQLException e)
+            {
+                getLogger().error("An error occurred on rolling back the batch", e);
+            }
+        }
+    }
+
+    /**
+     * A simple class storing the content of the cache together with the time
+     * it was loaded and the settings for splitting list values. Instances are
+     * immutable, so they can be shared between threads without further
+     * synchronization.
+     */
+    private static class PropertyCache
+    {
+        /** The map with the cached values; <b>null</b> if not loaded. */
+        private final Map<String, List<Object>> values;
+
+        /** The time when the values were loaded; -1 for an invalid cache. */
+        private final long loadTime;
+
+        /** The list delimiter used for splitting the values. */
+        private final char listDelimiter;
+
+        /** The flag whether list delimiter parsing was disabled. */
+        private final boolean delimiterParsingDisabled;
+
+        /**
+         * Creates a new instance of {@code PropertyCache}.
+         *
+         * @param values the map with the cached values
+         * @param loadTime the time when the values were loaded
+         * @param listDelimiter the list delimiter
+         * @param delimiterParsingDisabled the delimiter parsing flag
+         */
+        public PropertyCache(Map<String, List<Object>> values, long loadTime,
+                char listDelimiter, boolean delimiterParsingDisabled)
+        {
+            this.values = values;
+            this.loadTime = loadTime;
+            this.listDelimiter = listDelimiter;
+            this.delimiterParsingDisabled = delimiterParsingDisabled;
+        }
+
+        /**
+         * Creates a new instance representing a cache which has not yet been
+         * loaded. A new instance is created on each call, so that an
+         * invalidation can be detected by comparing references.
+         *
+         * @return the unloaded cache
+         */
+        public static PropertyCache unloaded()
+        {
+            return new PropertyCache(null, -1, (char) 0, false);
+        }
+
+        /**
+         * Returns a flag whether this cache contains data.
+         *
+         * @return a flag whether this cache has been loaded
+         */
+        public boolean isLoaded()
+        {
+            return values != null;
+        }
+
+        /**
+         * Checks whether the values of this cache have been split using the
+         * given settings.
+         *
+         * @param delimiter the list delimiter
+         * @param parsingDisabled the delimiter parsing flag
+         * @return a flag whether these settings were used for this cache
+         */
+        public boolean matches(char delimiter, boolean parsingDisabled)
+        {
+            return delimiterParsingDisabled == parsingDisabled
+                    && (parsingDisabled || listDelimiter == delimiter);
+        }
+
+        /**
+         * Returns the map with the cached values.
+         *
+         * @return the cached values
+         */
+        public Map<String, List<Object>> getValues()
+        {
+            return values;
+        }
+
+        /**
+         * Checks whether this cache has expired.
+         *
+         * @param timeout the timeout of the cache (0 for no timeout)
+         * @return a flag whether this cache is no longer valid
+         */
+        public boolean isExpired(long timeout)
+        {
+            return loadTime < 0
+                    || (timeout > 0 && System.currentTimeMillis() - loadTime >= timeout);
+        }
+    }
+
+    /**
+     * A class describing an update operation on the database table. An
+     * instance stores the SQL statement and its parameters, so that it can
+     * be executed directly or as part of a batch. It also contains the data
+     * needed for generating an error event.
+     */
+    private static class UpdateOperation
+    {
+        /** The SQL statement. */
+        private final String sql;
+
+        /** The parameters of the statement. */
+        private final String[] params;
+
+        /** The type of the error event. */
+        private final int eventType;
+
+        /** The key for the error event. */
+        private final String key;
+
+        /** The value for the error event. */
+        private final Object value;
+
+        /**
+         * Creates a new instance of {@code UpdateOperation}.
+         *
+         * @param sql the SQL statement
+         * @param params the parameters of the statement
+         * @param eventType the type of the error event
+         * @param key the key for the error event
+         * @param value the value for the error event
+         */
+        public UpdateOperation(String sql, String[] params, int eventType,
+                String key, Object value)
+        {
+            this.sql = sql;
+            this.params = params;
+            this.eventType = eventType;
+            this.key = key;
+            this.value = value;
+        }
+
+        /**
+         * Returns the SQL statement of this operation.
+         *
+         * @return the SQL statement
+         */
+        public String getSql()
+        {
+            return sql;
+        }
+
+        /**
+         * Returns the type of the error event for this operation.
+         *
+         * @return the event type
+         */
+        public int getEventType()
+        {
+            return eventType;
+        }
+
+        /**
+         * Returns the key for the error event for this operation.
+         *
+         * @return the key
+         */
+        public String getKey()
+        {
+            return key;
+        }
+
+        /**
+         * Returns the value for the error event for this operation.
+         *
+         * @return the value
+         */
+        public Object getValue()
+        {
+            return value;
+        }
+
+        /**
+         * Binds the parameters of this operation to the given statement.
+         *
+         * @param pstmt the statement
+         * @throws SQLException if an error occurs
+         */
+        public void bind(PreparedStatement pstmt) throws SQLException
+        {
+            for (int i = 0; i < params.length; i++)
+            {
+                pstmt.setString(i + 1, params[i]);
+            }
+        }
+    }
+
+    /**
+     * The {@code ReloadingDetector} implementation for the cache of this
+     * configuration.
+     */
+    private class CacheReloadingDetector implements ReloadingDetector
+    {
+        /**
+         * {@inheritDoc} This implementation checks whether the cache has
+         * expired.
+         */
+        public boolean isReloadingRequired()
+        {
+            PropertyCache currentCache = cache.get();
+            return isCacheEnabled() && currentCache.isLoaded()
+                    && currentCache.isExpired(getCacheTimeout());
+        }
+
+        /**
+         * {@inheritDoc} This implementation refreshes the cache.
+         */
+        public void reloadingPerformed()
+        {
+            refreshCache();
+        }
+    }
 }
@@ -22,15 +22,18 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.configuration.event.ConfigurationErrorListener;
 import org.apache.commons.configuration.event.ConfigurationListener;
+import org.apache.commons.configuration.event.EventSource;
 import org.apache.commons.configuration.interpol.ConfigurationInterpolator;
 import org.apache.commons.configuration.interpol.Lookup;
 import org.apache.commons.configuration.tree.ConfigurationNode;
@@ -43,6 +46,36 @@ import org.apache.commons.logging.LogFactory;
  * DynamicCombinedConfiguration allows a set of CombinedConfigurations to be used. Each CombinedConfiguration
  * is referenced by a key that is dynamically constructed from a key pattern on each call. The key pattern
  * will be resolved using the configured ConfigurationInterpolator.
+ * <p>
+ * The key pattern is parsed only once by the
+ * {@code ConfigurationInterpolator}; on each access only the variables it
+ * contains have to be looked up. If the key for the current thread is known
+ * in advance (e.g. the tenant of a request), it can be bound to the thread
+ * using {@link #bindKey(String)} or {@link #bindCurrentKey()}.
+ * Then the key pattern is not evaluated at all until {@link #unbindKey()} is
+ * called. A binding should always be released in a {@code finally} block.
+ * </p>
+ * <p>
+ * Per default, a {@code CombinedConfiguration} created for a key is kept
+ * forever. If there is a large number of keys, the number of cached
+ * configurations can be limited using {@link #setMaxConfigurations(int)}.
+ * If this limit is exceeded, configurations are evicted according to the
+ * {@link EvictionPolicy}. In addition, configurations which have not been
+ * accessed for a while can be evicted by setting an idle timeout. Statistics
+ * about the cache can be queried using methods like
+ * {@link #getCacheHitCount()}. Eviction does not have to scan the whole
+ * cache: the least recently used configuration is approximated by a clock
+ * algorithm, and idle configurations are searched for in a sample of the
+ * oldest entries when a new configuration is created.
+ * </p>
+ * <p>
+ * A configuration which is already cached is looked up without locking; an
+ * access only sets a flag in the cache entry. Creating and evicting cached
+ * configurations, the list of child configurations, and the registration of
+ * cached configurations at the child configurations are guarded by a single
+ * lock. It is held only for short periods; the cached configurations
+ * themselves are created outside of it.
+ * </p>
  * @since 1.6
  * @author <a
  * href="http://commons.apache.org/configuration/team-list.html">Commons
@@ -63,12 +96,51 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
         }
     };
 
-    /** The CombinedConfigurations */
-    private final ConcurrentMap<String, CombinedConfiguration> configs =
-            new ConcurrentHashMap<String, CombinedConfiguration>();
+    /**
+     * The number of entries examined for the {@link EvictionPolicy#LFU}
+     * eviction policy and for idle configurations when a new configuration is
+     * created.
+     */
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    /**
+     * The CombinedConfigurations. The map can be read without locking; it is
+     * modified only while holding the lock on {@code configurations}.
+     */
+    private final ConcurrentMap<String, ConfigHolder> configs =
+            new ConcurrentHashMap<String, ConfigHolder>();
+
+    /**
+     * The cached configurations in the order inspected for eviction. New
+     * configurations are added at the end. It is guarded by the lock on
+     * {@code configurations}.
+     */
+    private final LinkedList<ConfigHolder> evictionQueue =
+            new LinkedList<ConfigHolder>();
+
+    /** The maximum number of cached configurations; 0 means unlimited. */
+    private volatile int maxConfigurations;
+
+    /** The policy for evicting configurations. */
+    private volatile EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+
+    /** The idle timeout for cached configurations; 0 means no timeout. */
+    private volatile long idleTimeout;
 
-    /** Stores a list with the contained configurations. */
-    private List<ConfigData> configurations = new ArrayList<ConfigData>();
+    /** The number of accesses to an already cached configuration. */
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    /** The number of configurations which had to be created. */
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /** The number of evicted configurations. */
+    private final AtomicLong cacheEvictions = new AtomicLong();
+
+    /**
+     * Stores a list with the contained configurations. This object is also
+     * used as lock for all data structures of this configuration.
+     */
+    private final List<ConfigData> configurations = new ArrayList<ConfigData>();
 
     /** Stores a map with the named configurations. */
     private Map<String, Configuration> namedConfigurations =
@@ -77,6 +149,9 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     /** The key pattern for the CombinedConfiguration map */
     private String keyPattern;
 
+    /** Stores the keys bound to threads. */
+    private final ThreadLocal<String> boundKey = new ThreadLocal<String>();
+
     /** Stores the combiner. */
     private NodeCombiner nodeCombiner;
 
@@ -126,6 +201,242 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
         return this.keyPattern;
     }
 
+    /**
+     * Binds the specified key to the current thread. Until
+     * {@link #unbindKey()} is called, all operations of this thread are
+     * delegated to the {@code CombinedConfiguration} associated with this key;
+     * the key pattern is not evaluated. Passing <b>null</b> removes an
+     * existing binding.
+     *
+     * @param key the key to be bound to the current thread
+     * @since 2.0
+     */
+    public void bindKey(String key)
+    {
+        if (key == null)
+        {
+            unbindKey();
+        }
+        else
+        {
+            boundKey.set(key);
+        }
+    }
+
+    /**
+     * Resolves the key pattern once and binds the resulting key to the
+     * current thread. This is useful if all variables used in the key pattern
+     * remain constant while the current thread performs a number of
+     * operations on this configuration.
+     *
+     * @return the key which has been bound to the current thread
+     * @since 2.0
+     * @see #bindKey(String)
+     */
+    public String bindCurrentKey()
+    {
+        unbindKey();
+        String key = getCurrentKey();
+        boundKey.set(key);
+        return key;
+    }
+
+    /**
+     * Removes a key binding for the current thread. After that, the key
+     * pattern is evaluated again on each access.
+     *
+     * @since 2.0
+     */
+    public void unbindKey()
+    {
+        boundKey.remove();
+    }
+
+    /**
+     * Returns the key which is used by the current thread to select the
+     * {@code CombinedConfiguration}. This is either the key bound to the
+     * current thread or the result of evaluating the key pattern.
+     *
+     * @return the current key
+     * @since 2.0
+     */
+    public String getCurrentKey()
+    {
+        String key = boundKey.get();
+        if (key == null)
+        {
+            key = String.valueOf(localSubst.interpolate(keyPattern));
+        }
+        return key;
+    }
+
+    /**
+     * Returns the maximum number of {@code CombinedConfiguration} objects
+     * which are cached by this object.
+     *
+     * @return the maximum number of cached configurations (0 for unlimited)
+     * @since 2.0
+     */
+    public int getMaxConfigurations()
+    {
+        return maxConfigurations;
+    }
+
+    /**
+     * Sets the maximum number of {@code CombinedConfiguration} objects which
+     * are cached by this object. If a new configuration has to be created for
+     * a key and this limit is exceeded, another configuration is evicted
+     * according to the current {@link EvictionPolicy}. An evicted
+     * configuration is created again when its key is used the next time. A
+     * value of 0 (which is the default) means that the number of cached
+     * configurations is not limited.
+     *
+     * @param max the maximum number of cached configurations
+     * @throws IllegalArgumentException if the number is negative
+     * @since 2.0
+     */
+    public void setMaxConfigurations(int max)
+    {
+        if (max < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Maximum number of configurations must not be negative: "
+                            + max);
+        }
+        maxConfigurations = max;
+        synchronized (configurations)
+        {
+            evictConfigurations(null, true);
+        }
+    }
+
+    /**
+     * Returns the policy for evicting cached configurations.
+     *
+     * @return the {@code EvictionPolicy}
+     * @since 2.0
+     */
+    public EvictionPolicy getEvictionPolicy()
+    {
+        return evictionPolicy;
+    }
+
+    /**
+     * Sets the policy for evicting cached configurations if the maximum
+     * number of configurations is exceeded. The default is
+     * {@link EvictionPolicy#LRU}.
+     *
+     * @param policy the {@code EvictionPolicy} (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the policy is <b>null</b>
+     * @since 2.0
+     */
+    public void setEvictionPolicy(EvictionPolicy policy)
+    {
+        if (policy == null)
+        {
+            throw new IllegalArgumentException(
+                    "Eviction policy must not be null!");
+        }
+        evictionPolicy = policy;
+    }
+
+    /**
+     * Returns the idle timeout for cached configurations in milliseconds.
+     *
+     * @return the idle timeout (0 for no timeout)
+     * @since 2.0
+     */
+    public long getIdleTimeout()
+    {
+        return idleTimeout;
+    }
+
+    /**
+     * Sets the idle timeout for cached configurations in milliseconds.
+     * Configurations which have not been accessed for this time are evicted.
+     * Idle configurations are detected when a new configuration is created
+     * or when {@link #evictIdleConfigurations()} is called. A value of 0
+     * (which is the default) disables the timeout.
+     *
+     * @param timeout the idle timeout in milliseconds
+     * @throws IllegalArgumentException if the timeout is negative
+     * @since 2.0
+     */
+    public void setIdleTimeout(long timeout)
+    {
+        if (timeout < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Idle timeout must not be negative: " + timeout);
+        }
+        idleTimeout = timeout;
+    }
+
+    /**
+     * Evicts all cached configurations which have exceeded the idle timeout.
+     * This method can be called periodically to free the memory occupied by
+     * configurations which are no longer used. If no idle timeout is set,
+     * this method has no effect.
+     *
+     * @since 2.0
+     */
+    public void evictIdleConfigurations()
+    {
+        synchronized (configurations)
+        {
+            evictConfigurations(null, true);
+        }
+    }
+
+    /**
+     * Returns the number of {@code CombinedConfiguration} objects currently
+     * cached by this object.
+     *
+     * @return the number of cached configurations
+     * @since 2.0
+     */
+    public int getCachedConfigurationCount()
+    {
+        return configs.size();
+    }
+
+    /**
+     * Returns the number of accesses which could be served by an already
+     * cached configuration.
+     *
+     * @return the number of cache hits
+     * @since 2.0
+     */
+    public long getCacheHitCount()
+    {
+        return cacheHits.get();
+    }
+
+    /**
+     * Returns the number of accesses which required the creation of a new
+     * configuration.
+     *
+     * @return the number of cache misses
+     * @since 2.0
+     */
+    public long getCacheMissCount()
+    {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Returns the number of configurations which have been evicted from the
+     * cache, either because the maximum number of configurations was exceeded
+     * or because of the idle timeout.
+     *
+     * @return the number of evictions
+     * @since 2.0
+     */
+    public long getCacheEvictionCount()
+    {
+        return cacheEvictions.get();
+    }
+
     /**
      * Set the name of the Logger to use on each CombinedConfiguration.
      * @param name The Logger name.
@@ -188,10 +499,13 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
             String at)
     {
         ConfigData cd = new ConfigData(config, name, at);
-        configurations.add(cd);
-        if (name != null)
+        synchronized (configurations)
         {
-            namedConfigurations.put(name, config);
+            configurations.add(cd);
+            if (name != null)
+            {
+                namedConfigurations.put(name, config);
+            }
         }
     }
        /**
@@ -203,7 +517,10 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public int getNumberOfConfigurations()
     {
-        return configurations.size();
+        synchronized (configurations)
+        {
+            return configurations.size();
+        }
     }
 
     /**
@@ -217,8 +534,11 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public Configuration getConfiguration(int index)
     {
-        ConfigData cd = configurations.get(index);
-        return cd.getConfiguration();
+        synchronized (configurations)
+        {
+            ConfigData cd = configurations.get(index);
+            return cd.getConfiguration();
+        }
     }
 
     /**
@@ -231,7 +551,10 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public Configuration getConfiguration(String name)
     {
-        return namedConfigurations.get(name);
+        synchronized (configurations)
+        {
+            return namedConfigurations.get(name);
+        }
     }
 
     /**
@@ -258,12 +581,15 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public Configuration removeConfiguration(String name)
     {
-        Configuration conf = getConfiguration(name);
-        if (conf != null)
+        synchronized (configurations)
         {
-            removeConfiguration(conf);
+            Configuration conf = getConfiguration(name);
+            if (conf != null)
+            {
+                removeConfiguration(conf);
+            }
+            return conf;
         }
-        return conf;
     }
 
     /**
@@ -275,16 +601,19 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public boolean removeConfiguration(Configuration config)
     {
-        for (int index = 0; index < getNumberOfConfigurations(); index++)
+        synchronized (configurations)
         {
-            if (configurations.get(index).getConfiguration() == config)
+            for (int index = 0; index < configurations.size(); index++)
             {
-                removeConfigurationAt(index);
-
+                if (configurations.get(index).getConfiguration() == config)
+                {
+                    removeConfigurationAt(index);
+                    return true;
+                }
             }
         }
 
-        return super.removeConfiguration(config);
+        return false;
     }
 
     /**
@@ -296,12 +625,15 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public Configuration removeConfigurationAt(int index)
     {
-        ConfigData cd = configurations.remove(index);
-        if (cd.getName() != null)
+        synchronized (configurations)
         {
-            namedConfigurations.remove(cd.getName());
+            ConfigData cd = configurations.remove(index);
+            if (cd.getName() != null)
+            {
+                namedConfigurations.remove(cd.getName());
+            }
+            return cd.getConfiguration();
         }
-        return super.removeConfigurationAt(index);
     }
     /**
      * Returns the configuration root node of this combined configuration. This
@@ -673,7 +1005,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     {
         super.addConfigurationListener(l);
 
-        for (CombinedConfiguration cc : configs.values())
+        for (CombinedConfiguration cc : getCachedConfigurations())
         {
             cc.addConfigurationListener(l);
         }
@@ -682,7 +1014,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public boolean removeConfigurationListener(ConfigurationListener l)
     {
-        for (CombinedConfiguration cc : configs.values())
+        for (CombinedConfiguration cc : getCachedConfigurations())
         {
             cc.removeConfigurationListener(l);
         }
@@ -698,7 +1030,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public void clearConfigurationListeners()
     {
-        for (CombinedConfiguration cc : configs.values())
+        for (CombinedConfiguration cc : getCachedConfigurations())
         {
             cc.clearConfigurationListeners();
         }
@@ -708,7 +1040,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public void addErrorListener(ConfigurationErrorListener l)
     {
-        for (CombinedConfiguration cc : configs.values())
+        for (CombinedConfiguration cc : getCachedConfigurations())
         {
             cc.addErrorListener(l);
         }
@@ -718,7 +1050,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public boolean removeErrorListener(ConfigurationErrorListener l)
     {
-        for (CombinedConfiguration cc : configs.values())
+        for (CombinedConfiguration cc : getCachedConfigurations())
         {
             cc.removeErrorListener(l);
         }
@@ -728,7 +1060,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
     @Override
     public void clearErrorListeners()
     {
-        for (CombinedConfiguration cc : configs.values())
+        for (CombinedConfiguration cc : getCachedConfigurations())
         {
             cc.clearErrorListeners();
         }
@@ -776,7 +1108,7 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
         {
             return;
         }
-        for (CombinedConfiguration cc : configs.values())
+        for (CombinedConfiguration cc : getCachedConfigurations())
         {
             cc.invalidate();
         }
@@ -807,52 +1139,295 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
 
     private CombinedConfiguration getCurrentConfig()
     {
-        String key = String.valueOf(localSubst.interpolate(keyPattern));
-        CombinedConfiguration config = configs.get(key);
-        // The double-checked works here due to the Thread guarantees of ConcurrentMap.
+        String key = getCurrentKey();
+        ConfigHolder holder = configs.get(key);
+        if (holder == null)
+        {
+            holder = fetchNewHolder(key);
+        }
+        else
+        {
+            holder.accessed();
+        }
+
+        CombinedConfiguration config = holder.getConfiguration();
+        boolean created = false;
         if (config == null)
         {
-            synchronized (configs)
+            // Only threads requesting the same key have to wait here.
+            synchronized (holder)
             {
-                config = configs.get(key);
+                config = holder.getConfiguration();
                 if (config == null)
                 {
-                    config = new CombinedConfiguration(getNodeCombiner());
-                    if (loggerName != null)
-                    {
-                        Log log = LogFactory.getLog(loggerName);
-                        if (log != null)
-                        {
-                            config.setLogger(log);
-                        }
-                    }
-                    config.setIgnoreReloadExceptions(isIgnoreReloadExceptions());
-                    config.setExpressionEngine(this.getExpressionEngine());
-                    config.setDelimiterParsingDisabled(isDelimiterParsingDisabled());
-                    config.setConversionExpressionEngine(getConversionExpressionEngine());
-                    config.setListDelimiter(getListDelimiter());
-                    for (ConfigurationErrorListener listener : getErrorListeners())
-                    {
-                        config.addErrorListener(listener);
-                    }
-                    for (ConfigurationListener listener : getConfigurationListeners())
+                    config = createConfiguration();
+                    holder.setConfiguration(config);
+                    created = true;
+                }
+            }
+        }
+
+        if (created)
+        {
+            cacheMisses.incrementAndGet();
+            synchronized (configurations)
+            {
+                evictConfigurations(key, false);
+            }
+        }
+        else
+        {
+            cacheHits.incrementAndGet();
+        }
+        if (getLogger().isDebugEnabled())
+        {
+            getLogger().debug("Returning config for " + key + ": " + config);
+        }
+        return config;
+    }
+
+    /**
+     * Adds a new entry for the given key to the cache if it does not exist
+     * yet. This method is called on a cache miss.
+     *
+     * @param key the key
+     * @return the holder for the configuration with this key
+     */
+    private ConfigHolder fetchNewHolder(String key)
+    {
+        synchronized (configurations)
+        {
+            ConfigHolder holder = configs.get(key);
+            if (holder == null)
+            {
+                holder = new ConfigHolder(key);
+                configs.put(key, holder);
+                evictionQueue.addLast(holder);
+            }
+            else
+            {
+                holder.accessed();
+            }
+            return holder;
+        }
+    }
+
+    /**
+     * Creates a new {@code CombinedConfiguration} for a key. The new
+     * configuration is initialized with the settings and the child
+     * configurations of this object.
+     *
+     * @return the new configuration
+     */
+    private CombinedConfiguration createConfiguration()
+    {
+        CombinedConfiguration config = new CombinedConfiguration(getNodeCombiner());
+        if (loggerName != null)
+        {
+            Log log = LogFactory.getLog(loggerName);
+            if (log != null)
+            {
+                config.setLogger(log);
+            }
+        }
+        config.setIgnoreReloadExceptions(isIgnoreReloadExceptions());
+        config.setExpressionEngine(this.getExpressionEngine());
+        config.setDelimiterParsingDisabled(isDelimiterParsingDisabled());
+        config.setConversionExpressionEngine(getConversionExpressionEngine());
+        config.setListDelimiter(getListDelimiter());
+        for (ConfigurationErrorListener listener : getErrorListeners())
+        {
+            config.addErrorListener(listener);
+        }
+        for (ConfigurationListener listener : getConfigurationListeners())
+        {
+            config.addConfigurationListener(listener);
+        }
+        config.setForceReloadCheck(isForceReloadCheck());
+        config.setNonBlockingReads(isNonBlockingReads());
+        // Registering at the child configurations is the only step which
+        // touches shared objects; child configurations (e.g. builder
+        // wrappers) are not necessarily thread-safe. Registration must not
+        // interleave with eviction or structural changes.
+        synchronized (configurations)
+        {
+            for (ConfigData data : configurations)
+            {
+                config.addConfiguration(data.getConfiguration(), data.getName(), data.getAt());
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Returns a collection with all {@code CombinedConfiguration} objects
+     * which are currently cached.
+     *
+     * @return a collection with the cached configurations
+     */
+    private Collection<CombinedConfiguration> getCachedConfigurations()
+    {
+        Collection<CombinedConfiguration> result =
+                new ArrayList<CombinedConfiguration>();
+        if (configs != null)
+        {
+            for (ConfigHolder holder : configs.values())
+            {
+                CombinedConfiguration cc = holder.getConfiguration();
+                if (cc != null)
+                {
+                    result.add(cc);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evicts cached configurations which have exceeded the idle timeout or
+     * which exceed the maximum number of configurations. The configuration
+     * for the given key is never evicted; this is the one just being
+     * accessed. Idle configurations are searched for either in the whole
+     * cache or only in a sample at the beginning of the eviction queue, where
+     * the entries not used for the longest time tend to be. This method must
+     * be called while holding the lock on {@code configurations}.
+     *
+     * @param currentKey the key of the current configuration (may be
+     *        <b>null</b>)
+     * @param fullScan a flag whether the whole cache is searched for idle
+     *        configurations
+     */
+    private void evictConfigurations(String currentKey, boolean fullScan)
+    {
+        long timeout = getIdleTimeout();
+        if (timeout > 0)
+        {
+            long limit = System.currentTimeMillis() - timeout;
+            int count = 0;
+            Iterator<ConfigHolder> it = evictionQueue.iterator();
+            while (it.hasNext() && (fullScan || count++ < EVICTION_SAMPLE_SIZE))
+            {
+                ConfigHolder holder = it.next();
+                if (isEvictable(holder, currentKey)
+                        && holder.getLastAccess() < limit)
+                {
+                    it.remove();
+                    evicted(holder);
+                }
+            }
+        }
+
+        int max = getMaxConfigurations();
+        while (max > 0 && configs.size() > max)
+        {
+            ConfigHolder victim = findEvictionCandidate(currentKey);
+            if (victim == null)
+            {
+                break;
+            }
+            evicted(victim);
+        }
+    }
+
+    /**
+     * Determines the cached configuration to be evicted next according to
+     * the current eviction policy and removes it from the eviction queue. For
+     * {@link EvictionPolicy#LRU} a clock algorithm is used: Entries are taken
+     * from the beginning of the queue; an entry which has been accessed since
+     * it was inspected last time is moved to the end of the queue, the first
+     * other one is selected. For {@link EvictionPolicy#LFU} the entry with the
+     * lowest number of accesses is selected from a sample at the beginning of
+     * the queue. This method must be called while holding the lock on
+     * {@code configurations}.
+     *
+     * @param currentKey the key of the current configuration which must not
+     *        be evicted (may be <b>null</b>)
+     * @return the entry to be evicted or <b>null</b> if there is none
+     */
+    private ConfigHolder findEvictionCandidate(String currentKey)
+    {
+        if (getEvictionPolicy() == EvictionPolicy.LFU)
+        {
+            ConfigHolder candidate = null;
+            int count = 0;
+            for (ConfigHolder holder : evictionQueue)
+            {
+                if (isEvictable(holder, currentKey))
+                {
+                    if (candidate == null
+                            || holder.getAccessCount() < candidate
+                                    .getAccessCount())
                     {
-                        config.addConfigurationListener(listener);
+                        candidate = holder;
                     }
-                    config.setForceReloadCheck(isForceReloadCheck());
-                    for (ConfigData data : configurations)
+                    if (++count >= EVICTION_SAMPLE_SIZE)
                     {
-                        config.addConfiguration(data.getConfiguration(), data.getName(), data.getAt());
+                        break;
                     }
-                    configs.put(key, config);
                 }
             }
+            if (candidate != null)
+            {
+                evictionQueue.remove(candidate);
+            }
+            return candidate;
+        }
+
+        // each entry is moved at most twice: once to clear its flag
+        for (int i = 2 * evictionQueue.size(); i > 0; i--)
+        {
+            ConfigHolder holder = evictionQueue.removeFirst();
+            if (isEvictable(holder, currentKey) && !holder.resetAccessed())
+            {
+                return holder;
+            }
+            evictionQueue.addLast(holder);
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the given cache entry may be evicted. This is not the
+     * case for the current configuration and for configurations which are
+     * still under construction.
+     *
+     * @param holder the cache entry
+     * @param currentKey the key of the current configuration
+     * @return a flag whether this entry can be evicted
+     */
+    private static boolean isEvictable(ConfigHolder holder, String currentKey)
+    {
+        return !holder.getKey().equals(currentKey)
+                && holder.getConfiguration() != null;
+    }
+
+    /**
+     * Performs the necessary steps after a configuration has been removed
+     * from the cache. The configuration is detached from the child
+     * configurations, so that it can be garbage collected. It remains
+     * functional for threads which are still using it. The holder must
+     * already have been removed from the eviction queue. This method must be
+     * called while holding the lock on {@code configurations}.
+     *
+     * @param holder the holder of the configuration
+     */
+    private void evicted(ConfigHolder holder)
+    {
+        configs.remove(holder.getKey());
+        cacheEvictions.incrementAndGet();
+        CombinedConfiguration cc = holder.getConfiguration();
+        for (ConfigData data : configurations)
+        {
+            if (data.getConfiguration() instanceof EventSource)
+            {
+                ((EventSource) data.getConfiguration())
+                        .removeConfigurationListener(cc);
+            }
         }
         if (getLogger().isDebugEnabled())
         {
-            getLogger().debug("Returning config for " + key + ": " + config);
+            getLogger().debug("Evicted config for " + holder.getKey());
         }
-        return config;
     }
 
     /**
@@ -878,6 +1453,145 @@ public class DynamicCombinedConfiguration extends CombinedConfiguration
         return ci;
     }
 
+    /**
+     * An enumeration class defining the policies for evicting cached
+     * configurations if the maximum number of configurations is exceeded.
+     *
+     * @since 2.0
+     */
+    public static enum EvictionPolicy
+    {
+        /** Evicts the configuration which was not accessed for the longest time. */
+        LRU,
+
+        /**
+         * Evicts the configuration with the lowest number of accesses. In
+         * order to keep eviction cheap, only a sample of the oldest cache
+         * entries is inspected.
+         */
+        LFU
+    }
+
+    /**
+     * An internal class holding a cached configuration together with the
+     * data needed for eviction. The configuration is created lazily; the
+     * holder is used as lock during its creation, so that configurations for
+     * different keys can be created concurrently. The access data is updated
+     * without locking; it is only needed approximately.
+     */
+    private static class ConfigHolder
+    {
+        /** The key of the configuration. */
+        private final String key;
+
+        /** The number of accesses to the configuration. */
+        private final AtomicLong accessCount = new AtomicLong(1);
+
+        /** The configuration. */
+        private volatile CombinedConfiguration configuration;
+
+        /** The time of the last access. */
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        /** A flag whether the configuration was accessed recently. */
+        private volatile boolean recentlyAccessed;
+
+        /**
+         * Creates a new instance of {@code ConfigHolder} for the given key.
+         * The creation counts as first access.
+         *
+         * @param k the key
+         */
+        public ConfigHolder(String k)
+        {
+            key = k;
+        }
+
+        /**
+         * Returns the key of the configuration.
+         *
+         * @return the key
+         */
+        public String getKey()
+        {
+            return key;
+        }
+
+        /**
+         * Returns the configuration stored in this holder. Result is
+         * <b>null</b> if it has not yet been created.
+         *
+         * @return the configuration
+         */
+        public CombinedConfiguration getConfiguration()
+        {
+            return configuration;
+        }
+
+        /**
+         * Sets the configuration stored in this holder.
+         *
+         * @param config the configuration
+         */
+        public void setConfiguration(CombinedConfiguration config)
+        {
+            configuration = config;
+        }
+
+        /**
+         * Records an access to the configuration. Volatile fields are only
+         * written if their values change, so that frequent accesses from
+         * multiple threads do not compete for them.
+         */
+        public void accessed()
+        {
+            accessCount.incrementAndGet();
+            long now = System.currentTimeMillis();
+            if (lastAccess != now)
+            {
+                lastAccess = now;
+            }
+            if (!recentlyAccessed)
+            {
+                recentlyAccessed = true;
+            }
+        }
+
+        /**
+         * Resets the flag for a recent access. This is called by the clock
+         * algorithm when this entry is inspected.
+         *
+         * @return a flag whether the configuration has been accessed since
+         *         the last invocation of this method
+         */
+        public boolean resetAccessed()
+        {
+            boolean result = recentlyAccessed;
+            recentlyAccessed = false;
+            return result;
+        }
+
+        /**
+         * Returns the time of the last access.
+         *
+         * @return the time of the last access
+         */
+        public long getLastAccess()
+        {
+            return lastAccess;
+        }
+
+        /**
+         * Returns the number of accesses to the configuration.
+         *
+         * @return the number of accesses
+         */
+        public long getAccessCount()
+        {
+            return accessCount.get();
+        }
+    }
+
     /**
      * Internal class that identifies each Configuration.
      */
@@ -17,15 +17,18 @@
 package org.apache.commons.configuration;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.configuration.tree.ConfigurationNode;
@@ -230,7 +233,7 @@ public class HierarchicalINIConfiguration extends
     /**
      * The line continuation character.
      */
-    private static final String LINE_CONT = "\\";
+    private static final char LINE_CONT = '\\';
 
     /**
      * Create a new empty INI Configuration.
@@ -253,7 +256,10 @@ public class HierarchicalINIConfiguration extends
     }
 
     /**
-     * Save the configuration to the specified writer.
+     * Save the configuration to the specified writer. The sections and their
+     * properties are written in a single pass over the node structure. Only
+     * for sections containing nested nodes or attributes, the keys are
+     * generated using the expression engine.
      *
      * @param writer - The writer to save the configuration to.
      * @throws ConfigurationException If an error occurs while writing the
@@ -262,52 +268,41 @@ public class HierarchicalINIConfiguration extends
      */
     public void write(Writer writer) throws ConfigurationException, IOException
     {
-        PrintWriter out = new PrintWriter(writer);
-        Iterator<String> it = getSections().iterator();
-        while (it.hasNext())
+        Writer out = (writer instanceof BufferedWriter) ? writer
+                : new BufferedWriter(writer);
+        for (String section : getSections())
         {
-            String section = it.next();
-            Configuration subset;
             if (section != null)
             {
-                out.print("[");
-                out.print(section);
-                out.print("]");
-                out.println();
-                subset = createSubnodeConfiguration(getSectionNode(section));
+                out.write('[');
+                out.write(section);
+                out.write(']');
+                out.write(LINE_SEPARATOR);
+                ConfigurationNode sectionNode = getSectionNode(section);
+                if (sectionNode.getValue() == null
+                        && isFlat(sectionNode.getChildren()))
+                {
+                    writeFlatSection(out, sectionNode.getChildren());
+                }
+                else
+                {
+                    writeSection(out, createSubnodeConfiguration(sectionNode));
+                }
             }
             else
             {
-                subset = getSection(null);
-            }
-
-            Iterator<String> keys = subset.getKeys();
-            while (keys.hasNext())
-            {
-                String key = keys.next();
-                Object value = subset.getProperty(key);
-                if (value instanceof Collection)
+                List<ConfigurationNode> globalNodes = fetchGlobalNodes();
+                if (isFlat(globalNodes))
                 {
-                    Iterator<?> values = ((Collection<?>) value).iterator();
-                    while (values.hasNext())
-                    {
-                        value = values.next();
-                        out.print(key);
-                        out.print(" = ");
-                        out.print(formatValue(value.toString()));
-                        out.println();
-                    }
+                    writeFlatSection(out, globalNodes);
                 }
                 else
                 {
-                    out.print(key);
-                    out.print(" = ");
-                    out.print(formatValue(value.toString()));
-                    out.println();
+                    writeSection(out, getSection(null));
                 }
             }
 
-            out.println();
+            out.write(LINE_SEPARATOR);
         }
 
         out.flush();
@@ -327,6 +322,7 @@ public class HierarchicalINIConfiguration extends
     {
         BufferedReader bufferedReader = new BufferedReader(in);
         ConfigurationNode sectionNode = getRootNode();
+        StringBuilder buffer = new StringBuilder();
 
         String line = bufferedReader.readLine();
         while (line != null)
@@ -342,21 +338,20 @@ public class HierarchicalINIConfiguration extends
 
                 else
                 {
-                    String key = "";
-                    String value = "";
+                    String key;
+                    String value;
                     int index = findSeparator(line);
                     if (index >= 0)
                     {
-                        key = line.substring(0, index);
-                        value =
-                                parseValue(line.substring(index + 1),
-                                        bufferedReader);
+                        key = trimmedSubstring(line, 0, index);
+                        value = parseValue(line, index + 1, bufferedReader,
+                                buffer);
                     }
                     else
                     {
                         key = line;
+                        value = "";
                     }
-                    key = key.trim();
                     if (key.length() < 1)
                     {
                         // use space for properties with no key
@@ -383,7 +378,7 @@ public class HierarchicalINIConfiguration extends
             String value)
     {
         Collection<String> values;
-        if (isDelimiterParsingDisabled())
+        if (isDelimiterParsingDisabled() || !needsSplitting(value))
         {
             values = Collections.singleton(value);
         }
@@ -400,6 +395,20 @@ public class HierarchicalINIConfiguration extends
         }
     }
 
+    /**
+     * Tests whether the given value has to be passed to the
+     * {@code PropertyConverter} for splitting. This is not necessary if it
+     * contains neither the list delimiter nor an escape character.
+     *
+     * @param value the value
+     * @return a flag whether the value has to be split
+     */
+    private boolean needsSplitting(String value)
+    {
+        return value.indexOf(getListDelimiter()) >= 0
+                || value.indexOf(PropertyConverter.LIST_ESC_CHAR) >= 0;
+    }
+
     /**
      * Parse the value to remove the quotes and ignoring the comment. Example:
      *
@@ -416,145 +425,178 @@ public class HierarchicalINIConfiguration extends
      * <pre>
      * C:\\Windows;C:\\Windows\\system32
      * </pre>
+     * The value is parsed directly from the given line without creating
+     * intermediate strings; the characters of the value are collected in the
+     * passed in buffer.
      *
-     * @param val the value to be parsed
+     * @param line the line containing the value
+     * @param start the start index of the value in the line
      * @param reader the reader (needed if multiple lines have to be read)
+     * @param buffer a buffer for constructing the value
+     * @return the parsed value
      * @throws IOException if an IO error occurs
      */
-    private static String parseValue(String val, BufferedReader reader) throws IOException
+    private static String parseValue(String line, int start,
+            BufferedReader reader, StringBuilder buffer) throws IOException
     {
-        StringBuilder propertyValue = new StringBuilder();
+        buffer.setLength(0);
+        String value = line;
+        int from = skipBlanks(line, start, line.length());
+        int to = skipTrailingBlanks(line, from, line.length());
         boolean lineContinues;
-        String value = val.trim();
 
         do
         {
-            boolean quoted = value.startsWith("\"") || value.startsWith("'");
-            boolean stop = false;
-            boolean escape = false;
-
-            char quote = quoted ? value.charAt(0) : 0;
-
-            int i = quoted ? 1 : 0;
-
-            StringBuilder result = new StringBuilder();
-            char lastChar = 0;
-            while (i < value.length() && !stop)
+            if (from < to && isQuoteChar(value.charAt(from)))
             {
-                char c = value.charAt(i);
-
-                if (quoted)
+                int pos = parseQuotedValue(value, from, to, buffer);
+                if (pos >= to)
                 {
-                    if ('\\' == c && !escape)
-                    {
-                        escape = true;
-                    }
-                    else if (!escape && quote == c)
-                    {
-                        stop = true;
-                    }
-                    else if (escape && quote == c)
-                    {
-                        escape = false;
-                        result.append(c);
-                    }
-                    else
-                    {
-                        if (escape)
-                        {
-                            escape = false;
-                            result.append('\\');
-                        }
-
-                        result.append(c);
-                    }
+                    lineContinues = lineContinues(value, from, to);
                 }
                 else
                 {
-                    if (isCommentChar(c) && Character.isWhitespace(lastChar))
+                    int end = pos;
+                    while (end < to && !isCommentChar(value.charAt(end)))
                     {
-                        stop = true;
+                        end++;
                     }
-                    else
-                    {
-                        result.append(c);
-                    }
-                }
-
-                i++;
-                lastChar = c;
-            }
-
-            String v = result.toString();
-            if (!quoted)
-            {
-                v = v.trim();
-                lineContinues = lineContinues(v);
-                if (lineContinues)
-                {
-                    // remove trailing "\"
-                    v = v.substring(0, v.length() - 1).trim();
+                    lineContinues = lineContinues(value, pos, end);
                 }
             }
             else
             {
-                lineContinues = lineContinues(value, i);
+                lineContinues = parseUnquotedValue(value, from, to, buffer);
             }
-            propertyValue.append(v);
 
             if (lineContinues)
             {
-                propertyValue.append(LINE_SEPARATOR);
+                buffer.append(LINE_SEPARATOR);
                 value = reader.readLine();
+                if (value != null)
+                {
+                    from = 0;
+                    to = value.length();
+                }
             }
         } while (lineContinues && value != null);
 
-        return propertyValue.toString();
+        return buffer.toString();
     }
 
     /**
-     * Tests whether the specified string contains a line continuation marker.
+     * Parses a quoted value. The characters of the value are appended to the
+     * given buffer; escaped quote characters are unescaped.
      *
-     * @param line the string to check
-     * @return a flag whether this line continues
+     * @param value the string containing the value
+     * @param from the index of the opening quote character
+     * @param to the end index of the value
+     * @param buffer the target buffer
+     * @return the index after the closing quote character (or the end index
+     *         if the value is not terminated)
      */
-    private static boolean lineContinues(String line)
+    private static int parseQuotedValue(String value, int from, int to,
+            StringBuilder buffer)
     {
-        String s = line.trim();
-        return s.equals(LINE_CONT)
-                || (s.length() > 2 && s.endsWith(LINE_CONT) && Character
-                        .isWhitespace(s.charAt(s.length() - 2)));
+        char quote = value.charAt(from);
+        boolean escape = false;
+        int i = from + 1;
+
+        while (i < to)
+        {
+            char c = value.charAt(i++);
+            if ('\\' == c && !escape)
+            {
+                escape = true;
+            }
+            else if (!escape && quote == c)
+            {
+                break;
+            }
+            else if (escape && quote == c)
+            {
+                escape = false;
+                buffer.append(c);
+            }
+            else
+            {
+                if (escape)
+                {
+                    escape = false;
+                    buffer.append('\\');
+                }
+
+                buffer.append(c);
+            }
+        }
+
+        return i;
     }
 
     /**
-     * Tests whether the specified string contains a line continuation marker
-     * after the specified position. This method parses the string to remove a
-     * comment that might be present. Then it checks whether a line continuation
-     * marker can be found at the end.
+     * Parses an unquoted value. The characters of the value up to an optional
+     * comment are appended to the given buffer and trimmed. A line
+     * continuation marker at the end is removed.
      *
-     * @param line the line to check
-     * @param pos the start position
-     * @return a flag whether this line continues
+     * @param value the string containing the value
+     * @param from the start index of the value
+     * @param to the end index of the value
+     * @param buffer the target buffer
+     * @return a flag whether the value continues on the next line
      */
-    private static boolean lineContinues(String line, int pos)
+    private static boolean parseUnquotedValue(String value, int from, int to,
+            StringBuilder buffer)
     {
-        String s;
+        int valueStart = buffer.length();
+        char lastChar = 0;
+        for (int i = from; i < to; i++)
+        {
+            char c = value.charAt(i);
+            if (isCommentChar(c) && Character.isWhitespace(lastChar))
+            {
+                break;
+            }
+            buffer.append(c);
+            lastChar = c;
+        }
 
-        if (pos >= line.length())
+        int blanks = skipBlanks(buffer, valueStart, buffer.length()) - valueStart;
+        if (blanks > 0)
         {
-            s = line;
+            buffer.delete(valueStart, valueStart + blanks);
         }
-        else
+        buffer.setLength(skipTrailingBlanks(buffer, valueStart, buffer.length()));
+
+        boolean lineContinues = lineContinues(buffer, valueStart, buffer.length());
+        if (lineContinues)
         {
-            int end = pos;
-            while (end < line.length() && !isCommentChar(line.charAt(end)))
-            {
-                end++;
-            }
-            s = line.substring(pos, end);
+            // remove trailing "\"
+            buffer.setLength(skipTrailingBlanks(buffer, valueStart,
+                    buffer.length() - 1));
         }
+        return lineContinues;
+    }
 
-        return lineContinues(s);
+    /**
+     * Tests whether the specified part of a string contains a line
+     * continuation marker. Leading and trailing whitespace is ignored.
+     *
+     * @param s the string to check
+     * @param from the start index
+     * @param to the end index
+     * @return a flag whether this line continues
+     */
+    private static boolean lineContinues(CharSequence s, int from, int to)
+    {
+        int start = skipBlanks(s, from, to);
+        int end = skipTrailingBlanks(s, start, to);
+        int length = end - start;
+        if (length < 1 || s.charAt(end - 1) != LINE_CONT)
+        {
+            return false;
+        }
+        return length == 1
+                || (length > 2 && Character.isWhitespace(s.charAt(end - 2)));
     }
 
     /**
@@ -568,103 +610,297 @@ public class HierarchicalINIConfiguration extends
         return COMMENT_CHARS.indexOf(c) >= 0;
     }
 
+    /**
+     * Tests whether the specified character is a separator character.
+     *
+     * @param c the character
+     * @return a flag whether this character separates keys from values
+     */
+    private static boolean isSeparatorChar(char c)
+    {
+        return SEPARATOR_CHARS.indexOf(c) >= 0;
+    }
+
+    /**
+     * Tests whether the specified character is a quoting character.
+     *
+     * @param c the character
+     * @return a flag whether this character is used for quoting values
+     */
+    private static boolean isQuoteChar(char c)
+    {
+        return QUOTE_CHARACTERS.indexOf(c) >= 0;
+    }
+
     /**
      * Tries to find the index of the separator character in the given string.
      * This method checks for the presence of separator characters in the given
      * string. If multiple characters are found, the first one is assumed to be
      * the correct separator. If there are quoting characters, they are taken
-     * into account, too.
+     * into account, too: If the first non-whitespace character before the
+     * first quote character is a separator, it is considered the "real"
+     * separator in this line - even if there are other separators before.
+     * The string is scanned only once.
      *
      * @param line the line to be checked
      * @return the index of the separator character or -1 if none is found
      */
     private static int findSeparator(String line)
     {
-        int index =
-                findSeparatorBeforeQuote(line,
-                        findFirstOccurrence(line, QUOTE_CHARACTERS));
-        if (index < 0)
+        int firstSeparator = -1;
+        int lastNonBlank = -1;
+
+        for (int i = 0; i < line.length(); i++)
         {
-            index = findFirstOccurrence(line, SEPARATOR_CHARS);
+            char c = line.charAt(i);
+            if (isQuoteChar(c))
+            {
+                if (lastNonBlank >= 0 && isSeparatorChar(line.charAt(lastNonBlank)))
+                {
+                    return lastNonBlank;
+                }
+                if (firstSeparator >= 0)
+                {
+                    return firstSeparator;
+                }
+
+                for (int j = i + 1; j < line.length(); j++)
+                {
+                    if (isSeparatorChar(line.charAt(j)))
+                    {
+                        return j;
+                    }
+                }
+                return -1;
+            }
+
+            if (firstSeparator < 0 && isSeparatorChar(c))
+            {
+                firstSeparator = i;
+            }
+            if (!Character.isWhitespace(c))
+            {
+                lastNonBlank = i;
+            }
+        }
+
+        return firstSeparator;
+    }
+
+    /**
+     * Returns the index of the first character in the given range which is
+     * not a blank. Blanks are determined in the same way as by
+     * {@code String.trim()}.
+     *
+     * @param s the string
+     * @param from the start index
+     * @param to the end index
+     * @return the index of the first non-blank character or <em>to</em>
+     */
+    private static int skipBlanks(CharSequence s, int from, int to)
+    {
+        int index = from;
+        while (index < to && s.charAt(index) <= ' ')
+        {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the end index of the given range with trailing blanks removed.
+     * Blanks are determined in the same way as by {@code String.trim()}.
+     *
+     * @param s the string
+     * @param from the start index
+     * @param to the end index
+     * @return the end index without trailing blanks
+     */
+    private static int skipTrailingBlanks(CharSequence s, int from, int to)
+    {
+        int index = to;
+        while (index > from && s.charAt(index - 1) <= ' ')
+        {
+            index--;
         }
         return index;
     }
 
     /**
-     * Checks for the occurrence of the specified separators in the given line.
-     * The index of the first separator is returned.
+     * Returns the trimmed part of the given string between the specified
+     * indices. Only a single new string is created.
      *
-     * @param line the line to be investigated
-     * @param separators a string with the separator characters to look for
-     * @return the lowest index of a separator character or -1 if no separator
-     *         is found
+     * @param s the string
+     * @param from the start index
+     * @param to the end index
+     * @return the trimmed substring
      */
-    private static int findFirstOccurrence(String line, String separators)
+    private static String trimmedSubstring(String s, int from, int to)
     {
-        int index = -1;
+        int start = skipBlanks(s, from, to);
+        return s.substring(start, skipTrailingBlanks(s, start, to));
+    }
 
-        for (int i = 0; i < separators.length(); i++)
+    /**
+     * Tests whether the given list of nodes contains only simple properties,
+     * i.e. nodes without children and attributes.
+     *
+     * @param nodes the nodes to check
+     * @return a flag whether all nodes are simple properties
+     */
+    private static boolean isFlat(List<ConfigurationNode> nodes)
+    {
+        for (ConfigurationNode node : nodes)
         {
-            char sep = separators.charAt(i);
-            int pos = line.indexOf(sep);
-            if (pos >= 0)
+            if (node.getChildrenCount() > 0 || node.getAttributeCount() > 0)
             {
-                if (index < 0 || pos < index)
-                {
-                    index = pos;
-                }
+                return false;
             }
         }
+        return true;
+    }
 
-        return index;
+    /**
+     * Returns a list with the nodes of the global section.
+     *
+     * @return the nodes of the global section
+     */
+    private List<ConfigurationNode> fetchGlobalNodes()
+    {
+        List<ConfigurationNode> nodes = new ArrayList<ConfigurationNode>();
+        for (ConfigurationNode node : getRootNode().getChildren())
+        {
+            if (!isSectionNode(node))
+            {
+                nodes.add(node);
+            }
+        }
+        return nodes;
     }
 
     /**
-     * Searches for a separator character directly before a quoting character.
-     * If the first non-whitespace character before a quote character is a
-     * separator, it is considered the "real" separator in this line - even if
-     * there are other separators before.
+     * Writes the properties of a section which only contains simple
+     * properties. The values of properties with the same key are grouped;
+     * keys are written in the order of their first occurrence.
      *
-     * @param line the line to be investigated
-     * @param quoteIndex the index of the quote character
-     * @return the index of the separator before the quote or &lt; 0 if there is
-     *         none
+     * @param out the writer
+     * @param nodes the nodes of the section
+     * @throws IOException if an I/O error occurs
      */
-    private static int findSeparatorBeforeQuote(String line, int quoteIndex)
+    private void writeFlatSection(Writer out, List<ConfigurationNode> nodes)
+            throws IOException
     {
-        int index = quoteIndex - 1;
-        while (index >= 0 && Character.isWhitespace(line.charAt(index)))
+        Map<String, List<Object>> properties =
+                new LinkedHashMap<String, List<Object>>();
+        for (ConfigurationNode node : nodes)
         {
-            index--;
+            if (node.getValue() != null)
+            {
+                List<Object> values = properties.get(node.getName());
+                if (values == null)
+                {
+                    values = new ArrayList<Object>(1);
+                    properties.put(node.getName(), values);
+                    // the key is generated in the same way as by getKeys()
+                    values.add(getExpressionEngine().nodeKey(node, ""));
+                }
+                values.add(node.getValue());
+            }
         }
 
-        if (index >= 0 && SEPARATOR_CHARS.indexOf(line.charAt(index)) < 0)
+        for (List<Object> values : properties.values())
         {
-            index = -1;
+            String key = (String) values.get(0);
+            if (values.size() == 2 && values.get(1) instanceof Collection)
+            {
+                for (Object value : (Collection<?>) values.get(1))
+                {
+                    writeProperty(out, key, value);
+                }
+            }
+            else
+            {
+                for (int i = 1; i < values.size(); i++)
+                {
+                    writeProperty(out, key, values.get(i));
+                }
+            }
         }
+    }
 
-        return index;
+    /**
+     * Writes the properties of a section which contains complex structures.
+     * The keys are obtained from the given configuration for the section.
+     *
+     * @param out the writer
+     * @param subset the configuration for the section
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeSection(Writer out, Configuration subset)
+            throws IOException
+    {
+        Iterator<String> keys = subset.getKeys();
+        while (keys.hasNext())
+        {
+            String key = keys.next();
+            Object value = subset.getProperty(key);
+            if (value instanceof Collection)
+            {
+                for (Object v : (Collection<?>) value)
+                {
+                    writeProperty(out, key, v);
+                }
+            }
+            else
+            {
+                writeProperty(out, key, value);
+            }
+        }
+    }
+
+    /**
+     * Writes a single property.
+     *
+     * @param out the writer
+     * @param key the key
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeProperty(Writer out, String key, Object value)
+            throws IOException
+    {
+        out.write(key);
+        out.write(" = ");
+        out.write(formatValue(value.toString()));
+        out.write(LINE_SEPARATOR);
     }
 
     /**
      * Add quotes around the specified value if it contains a comment character.
+     * Quote characters in the value are then escaped.
      */
     private String formatValue(String value)
     {
         boolean quoted = false;
-
-        for (int i = 0; i < COMMENT_CHARS.length() && !quoted; i++)
+        for (int i = 0; i < value.length() && !quoted; i++)
         {
-            char c = COMMENT_CHARS.charAt(i);
-            if (value.indexOf(c) != -1)
-            {
-                quoted = true;
-            }
+            quoted = isCommentChar(value.charAt(i));
         }
 
         if (quoted)
         {
-            return '"' + value.replaceAll("\"", "\\\\\\\"") + '"';
+            StringBuilder buf = new StringBuilder(value.length() + 2);
+            buf.append('"');
+            for (int i = 0; i < value.length(); i++)
+            {
+                char c = value.charAt(i);
+                if (c == '"')
+                {
+                    buf.append('\\');
+                }
+                buf.append(c);
+            }
+            return buf.append('"').toString();
         }
         else
         {
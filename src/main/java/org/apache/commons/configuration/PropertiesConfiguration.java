@@ -26,8 +26,6 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.configuration.io.FileHandler;
 import org.apache.commons.configuration.io.FileLocator;
@@ -575,20 +573,10 @@ public class PropertiesConfiguration extends BaseConfiguration
      */
     public static class PropertiesReader extends LineNumberReader
     {
-        /** The regular expression to parse the key and the value of a property. */
-        private static final Pattern PROPERTY_PATTERN = Pattern
-                .compile("(([\\S&&[^\\\\" + new String(SEPARATORS)
-                        + "]]|\\\\.)*)(\\s*(\\s+|[" + new String(SEPARATORS)
-                        + "])\\s*)(.*)");
-
-        /** Constant for the index of the group for the key. */
-        private static final int IDX_KEY = 1;
-
-        /** Constant for the index of the group for the value. */
-        private static final int IDX_VALUE = 5;
-
-        /** Constant for the index of the group for the separator. */
-        private static final int IDX_SEPARATOR = 3;
+        /** Constant for the result of a line that cannot be parsed. */
+        private static final String[] EMPTY_PROPERTY = {
+                "", "", ""
+        };
 
         /** Stores the comment lines for the currently processed property.*/
         private List<String> commentLines;
@@ -644,7 +632,7 @@ public class PropertiesConfiguration extends BaseConfiguration
         public String readProperty() throws IOException
         {
             commentLines.clear();
-            StringBuilder buffer = new StringBuilder();
+            StringBuilder buffer = null;
 
             while (true)
             {
@@ -655,18 +643,28 @@ public class PropertiesConfiguration extends BaseConfiguration
                     return null;
                 }
 
-                if (isCommentLine(line))
+                int start = skipWhiteSpace(line);
+                if (start >= line.length()
+                        || COMMENT_CHARS.indexOf(line.charAt(start)) >= 0)
                 {
                     commentLines.add(line);
                     continue;
                 }
 
-                line = line.trim();
+                line = line.substring(start, trimEnd(line));
 
                 if (checkCombineLines(line))
                 {
-                    line = line.substring(0, line.length() - 1);
-                    buffer.append(line);
+                    if (buffer == null)
+                    {
+                        buffer = new StringBuilder(2 * line.length());
+                    }
+                    buffer.append(line, 0, line.length() - 1);
+                }
+                else if (buffer == null)
+                {
+                    // a single line needs no copying
+                    return line;
                 }
                 else
                 {
@@ -782,7 +780,8 @@ public class PropertiesConfiguration extends BaseConfiguration
          */
         protected void initPropertyName(String name)
         {
-            propertyName = StringEscapeUtils.unescapeJava(name);
+            propertyName = (name.indexOf('\\') < 0) ? name
+                    : StringEscapeUtils.unescapeJava(name);
         }
 
         /**
@@ -826,25 +825,159 @@ public class PropertiesConfiguration extends BaseConfiguration
         }
 
         /**
-         * Parse a property line and return the key, the value, and the separator in an array.
+         * Parse a property line and return the key, the value, and the
+         * separator in an array. The line is scanned in a single pass: the key
+         * consists of all characters up to the first unescaped white space or
+         * separator character, the separator of the following white space
+         * with an optional separator character, and the value of the rest of
+         * the line. If the line does not contain a separator, an array with
+         * empty strings is returned.
          *
          * @param line the line to parse
          * @return an array with the property's key, value, and separator
          */
         private static String[] doParseProperty(String line)
         {
-            Matcher matcher = PROPERTY_PATTERN.matcher(line);
+            int length = line.length();
+            int pos = 0;
 
-            String[] result = {"", "", ""};
+            // the key: everything up to the first unescaped separator
+            while (pos < length)
+            {
+                char c = line.charAt(pos);
+                if (c == '\\')
+                {
+                    if (pos + 1 >= length
+                            || isLineTerminator(line.charAt(pos + 1)))
+                    {
+                        break;
+                    }
+                    pos += 2;
+                }
+                else if (isParseWhiteSpace(c) || isSeparator(c))
+                {
+                    break;
+                }
+                else
+                {
+                    pos++;
+                }
+            }
+            int keyEnd = pos;
+
+            // the separator: white space with an optional separator char
+            while (pos < length && isParseWhiteSpace(line.charAt(pos)))
+            {
+                pos++;
+            }
+            if (pos < length && isSeparator(line.charAt(pos)))
+            {
+                pos++;
+                while (pos < length && isParseWhiteSpace(line.charAt(pos)))
+                {
+                    pos++;
+                }
+            }
+            else if (pos == keyEnd)
+            {
+                return EMPTY_PROPERTY.clone();
+            }
+            int valueStart = pos;
 
-            if (matcher.matches())
+            // the value: the remaining line, which must be a single line
+            for (; pos < length; pos++)
             {
-                result[0] = matcher.group(IDX_KEY).trim();
-                result[1] = matcher.group(IDX_VALUE).trim();
-                result[2] = matcher.group(IDX_SEPARATOR);
+                if (isLineTerminator(line.charAt(pos)))
+                {
+                    return EMPTY_PROPERTY.clone();
+                }
             }
 
-            return result;
+            return new String[] {
+                    line.substring(0, keyEnd).trim(),
+                    line.substring(valueStart).trim(),
+                    line.substring(keyEnd, valueStart)
+            };
+        }
+
+        /**
+         * Returns the index of the first character of the given line which is
+         * not white space in the sense of {@link String#trim()}.
+         *
+         * @param line the line
+         * @return the index of the first non white space character
+         */
+        private static int skipWhiteSpace(String line)
+        {
+            int idx = 0;
+            int length = line.length();
+            while (idx < length && line.charAt(idx) <= ' ')
+            {
+                idx++;
+            }
+            return idx;
+        }
+
+        /**
+         * Returns the end index of the given line with trailing white space in
+         * the sense of {@link String#trim()} removed.
+         *
+         * @param line the line
+         * @return the end index of the trimmed line
+         */
+        private static int trimEnd(String line)
+        {
+            int idx = line.length();
+            while (idx > 0 && line.charAt(idx - 1) <= ' ')
+            {
+                idx--;
+            }
+            return idx;
+        }
+
+        /**
+         * Checks whether the given character is a separator between property
+         * key and value.
+         *
+         * @param c the character
+         * @return a flag whether this is a separator character
+         */
+        private static boolean isSeparator(char c)
+        {
+            for (char sep : SEPARATORS)
+            {
+                if (c == sep)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Checks whether the given character is white space which can
+         * separate a property key from its value.
+         *
+         * @param c the character
+         * @return a flag whether this is white space
+         */
+        private static boolean isParseWhiteSpace(char c)
+        {
+            return c == ' ' || c == '\t' || c == '\f' || c == '\n'
+                    || c == '\r' || c == '\u000B';
+        }
+
+        /**
+         * Checks whether the given character terminates a line. Such
+         * characters cannot be part of a property value.
+         *
+         * @param c the character
+         * @return a flag whether this is a line terminator
+         */
+        private static boolean isLineTerminator(char c)
+        {
+            return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028'
+                    || c == '\u2029';
         }
     } // class PropertiesReader
 
@@ -1295,6 +1428,11 @@ public class PropertiesConfiguration extends BaseConfiguration
         {
             return null;
         }
+        if (str.indexOf('\\') < 0)
+        {
+            // nothing to unescape
+            return str;
+        }
         int sz = str.length();
         StringBuilder out = new StringBuilder(sz);
         StringBuilder unicode = new StringBuilder(UNICODE_LEN);
@@ -27,6 +27,7 @@ import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -37,6 +38,9 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.configuration.interpol.ConfigurationInterpolator;
 import org.apache.commons.lang.BooleanUtils;
@@ -75,6 +79,16 @@ public final class PropertyConverter
     /** The fully qualified name of {@link javax.mail.internet.InternetAddress} */
     private static final String INTERNET_ADDRESS_CLASSNAME = "javax.mail.internet.InternetAddress";
 
+    /** The maximum number of date formats in the cache. */
+    private static final int DATE_FORMAT_CACHE_SIZE = 64;
+
+    /**
+     * A cache for parsed date format patterns. The formats stored here are
+     * never used directly, they only serve as prototypes for clones.
+     */
+    private static final ConcurrentMap<String, DateFormatPrototype> DATE_FORMATS =
+            new ConcurrentHashMap<String, DateFormatPrototype>();
+
     /**
      * Private constructor prevents instances from being created.
      */
@@ -262,15 +276,34 @@ public final class PropertyConverter
      */
     public static Integer toInteger(Object value) throws ConversionException
     {
-        Number n = toNumber(value, Integer.class);
-        if (n instanceof Integer)
+        if (value instanceof Integer)
         {
-            return (Integer) n;
+            return (Integer) value;
         }
         else
         {
-            return new Integer(n.intValue());
+            return Integer.valueOf(toIntValue(value));
+        }
+    }
+
+    /**
+     * Converts the specified object into a primitive int. This method
+     * produces the same results as {@link #toInteger(Object)}, but it does
+     * not create wrapper objects and uses specialized parsers for strings
+     * (including the hex and binary formats).
+     *
+     * @param value the value to convert
+     * @return the converted value
+     * @throws ConversionException thrown if the value cannot be converted to an integer
+     * @since 2.0
+     */
+    public static int toIntValue(Object value) throws ConversionException
+    {
+        if (value instanceof Number)
+        {
+            return ((Number) value).intValue();
         }
+        return (int) parseLongValue(value, Integer.class);
     }
 
     /**
@@ -282,15 +315,34 @@ public final class PropertyConverter
      */
     public static Long toLong(Object value) throws ConversionException
     {
-        Number n = toNumber(value, Long.class);
-        if (n instanceof Long)
+        if (value instanceof Long)
         {
-            return (Long) n;
+            return (Long) value;
         }
         else
         {
-            return new Long(n.longValue());
+            return Long.valueOf(toLongValue(value));
+        }
+    }
+
+    /**
+     * Converts the specified object into a primitive long. This method
+     * produces the same results as {@link #toLong(Object)}, but it does not
+     * create wrapper objects and uses specialized parsers for strings
+     * (including the hex and binary formats).
+     *
+     * @param value the value to convert
+     * @return the converted value
+     * @throws ConversionException thrown if the value cannot be converted to a long
+     * @since 2.0
+     */
+    public static long toLongValue(Object value) throws ConversionException
+    {
+        if (value instanceof Number)
+        {
+            return ((Number) value).longValue();
         }
+        return parseLongValue(value, Long.class);
     }
 
     /**
@@ -322,15 +374,135 @@ public final class PropertyConverter
      */
     public static Double toDouble(Object value) throws ConversionException
     {
-        Number n = toNumber(value, Double.class);
-        if (n instanceof Double)
+        if (value instanceof Double)
         {
-            return (Double) n;
+            return (Double) value;
         }
         else
         {
-            return new Double(n.doubleValue());
+            return Double.valueOf(toDoubleValue(value));
+        }
+    }
+
+    /**
+     * Converts the specified object into a primitive double. This method
+     * produces the same results as {@link #toDouble(Object)}, but it does not
+     * create wrapper objects for values in decimal format.
+     *
+     * @param value the value to convert
+     * @return the converted value
+     * @throws ConversionException thrown if the value cannot be converted to a double
+     * @since 2.0
+     */
+    public static double toDoubleValue(Object value) throws ConversionException
+    {
+        if (value instanceof Number)
+        {
+            return ((Number) value).doubleValue();
+        }
+
+        String str = value.toString();
+        if (!str.startsWith(HEX_PREFIX) && !str.startsWith(BIN_PREFIX))
+        {
+            try
+            {
+                return Double.parseDouble(str);
+            }
+            catch (NumberFormatException nex)
+            {
+                // handled below
+            }
+        }
+        // rare cases and errors are handled by the generic conversion
+        return toNumber(value, Double.class).doubleValue();
+    }
+
+    /**
+     * Converts the specified object into a primitive boolean. This method
+     * produces the same results as {@link #toBoolean(Object)}.
+     *
+     * @param value the value to convert
+     * @return the converted value
+     * @throws ConversionException thrown if the value cannot be converted to a boolean
+     * @since 2.0
+     */
+    public static boolean toBooleanValue(Object value) throws ConversionException
+    {
+        return toBoolean(value).booleanValue();
+    }
+
+    /**
+     * Parses the string representation of the given value as a long. Values
+     * in hex or binary format are handled by a specialized parser which -
+     * like {@code BigInteger} - keeps the lower 64 bits of larger numbers.
+     * If the value cannot be parsed, the conversion is delegated to
+     * {@link #toNumber(Object, Class)}, which generates an exception.
+     *
+     * @param value the value to convert
+     * @param targetClass the target class of the conversion
+     * @return the converted value
+     * @throws ConversionException if the value cannot be converted
+     */
+    private static long parseLongValue(Object value, Class<?> targetClass)
+            throws ConversionException
+    {
+        String str = value.toString();
+        try
+        {
+            if (str.startsWith(HEX_PREFIX))
+            {
+                return parseRadix(str, HEX_PREFIX.length(), HEX_RADIX);
+            }
+            if (str.startsWith(BIN_PREFIX))
+            {
+                return parseRadix(str, BIN_PREFIX.length(), BIN_RADIX);
+            }
+            return (targetClass == Integer.class) ? Integer.parseInt(str)
+                    : Long.parseLong(str);
+        }
+        catch (NumberFormatException nex)
+        {
+            return toNumber(value, targetClass).longValue();
+        }
+    }
+
+    /**
+     * Parses a number in the given radix. The number starts at the given
+     * position in the string and may have a sign. Only the lower 64 bits of
+     * the number are kept.
+     *
+     * @param str the string to parse
+     * @param start the start index of the number
+     * @param radix the radix
+     * @return the parsed number
+     * @throws NumberFormatException if the string is not a valid number
+     */
+    private static long parseRadix(String str, int start, int radix)
+    {
+        int pos = start;
+        boolean negative = false;
+        if (pos < str.length()
+                && (str.charAt(pos) == '-' || str.charAt(pos) == '+'))
+        {
+            negative = str.charAt(pos) == '-';
+            pos++;
+        }
+        if (pos >= str.length())
+        {
+            throw new NumberFormatException("Zero length number: " + str);
+        }
+
+        long result = 0;
+        for (; pos < str.length(); pos++)
+        {
+            int digit = Character.digit(str.charAt(pos), radix);
+            if (digit < 0)
+            {
+                throw new NumberFormatException("Illegal digit: " + str);
+            }
+            result = result * radix + digit;
         }
+        return negative ? -result : result;
     }
 
     /**
@@ -849,14 +1021,7 @@ public final class PropertyConverter
         }
         else if (value instanceof String)
         {
-            try
-            {
-                return new SimpleDateFormat(format).parse((String) value);
-            }
-            catch (ParseException e)
-            {
-                throw new ConversionException("The value " + value + " can't be converted to a Date", e);
-            }
+            return parseDate(fetchDateFormat(format), (String) value, "Date");
         }
         else
         {
@@ -886,23 +1051,141 @@ public final class PropertyConverter
         }
         else if (value instanceof String)
         {
-            try
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTime(parseDate(fetchDateFormat(format), (String) value, "Calendar"));
+            return calendar;
+        }
+        else
+        {
+            throw new ConversionException("The value " + value + " can't be converted to a Calendar");
+        }
+    }
+
+    /**
+     * Converts all objects in the specified collection into Dates. This method
+     * produces the same results as calling {@link #toDate(Object, String)}
+     * for each element, but the date format is set up only once.
+     *
+     * @param values the collection with the values to convert
+     * @param format the DateFormat pattern to parse String values
+     * @return a list with the converted values
+     * @throws ConversionException thrown if a value cannot be converted to a Date
+     * @since 2.0
+     */
+    public static List<Date> toDates(Collection<?> values, String format)
+            throws ConversionException
+    {
+        List<Date> result = new ArrayList<Date>(values.size());
+        DateFormat dateFormat = null;
+        for (Object value : values)
+        {
+            if (value instanceof String)
+            {
+                if (dateFormat == null)
+                {
+                    dateFormat = fetchDateFormat(format);
+                }
+                result.add(parseDate(dateFormat, (String) value, "Date"));
+            }
+            else
+            {
+                result.add(toDate(value, format));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converts all objects in the specified collection into Calendars. This
+     * method produces the same results as calling
+     * {@link #toCalendar(Object, String)} for each element, but the date
+     * format is set up only once.
+     *
+     * @param values the collection with the values to convert
+     * @param format the DateFormat pattern to parse String values
+     * @return a list with the converted values
+     * @throws ConversionException thrown if a value cannot be converted to a Calendar
+     * @since 2.0
+     */
+    public static List<Calendar> toCalendars(Collection<?> values, String format)
+            throws ConversionException
+    {
+        List<Calendar> result = new ArrayList<Calendar>(values.size());
+        DateFormat dateFormat = null;
+        for (Object value : values)
+        {
+            if (value instanceof String)
             {
+                if (dateFormat == null)
+                {
+                    dateFormat = fetchDateFormat(format);
+                }
                 Calendar calendar = Calendar.getInstance();
-                calendar.setTime(new SimpleDateFormat(format).parse((String) value));
-                return calendar;
+                calendar.setTime(parseDate(dateFormat, (String) value, "Calendar"));
+                result.add(calendar);
             }
-            catch (ParseException e)
+            else
             {
-                throw new ConversionException("The value " + value + " can't be converted to a Calendar", e);
+                result.add(toCalendar(value, format));
             }
         }
-        else
+        return result;
+    }
+
+    /**
+     * Parses a date string using the given format.
+     *
+     * @param dateFormat the date format
+     * @param value the string to be parsed
+     * @param targetName the name of the target type (for error messages)
+     * @return the parsed date
+     * @throws ConversionException if the string cannot be parsed
+     */
+    private static Date parseDate(DateFormat dateFormat, String value,
+            String targetName) throws ConversionException
+    {
+        try
         {
-            throw new ConversionException("The value " + value + " can't be converted to a Calendar");
+            return dateFormat.parse(value);
+        }
+        catch (ParseException e)
+        {
+            throw new ConversionException("The value " + value
+                    + " can't be converted to a " + targetName, e);
         }
     }
 
+    /**
+     * Returns a date format for the specified pattern. Creating a
+     * {@code SimpleDateFormat} requires compiling the pattern and looking up
+     * locale-specific symbols, which is expensive. So the formats are cached
+     * per pattern; as {@code SimpleDateFormat} is not thread-safe, the cached
+     * instance is cloned, and the clone is returned. The result is equivalent
+     * to a newly created format for the current default locale and time zone.
+     *
+     * @param pattern the date format pattern
+     * @return a date format for this pattern
+     */
+    private static DateFormat fetchDateFormat(String pattern)
+    {
+        Locale locale = Locale.getDefault();
+        DateFormatPrototype prototype = DATE_FORMATS.get(pattern);
+        if (prototype == null || !prototype.locale.equals(locale))
+        {
+            prototype = new DateFormatPrototype(new SimpleDateFormat(pattern,
+                    locale), locale);
+            if (DATE_FORMATS.size() >= DATE_FORMAT_CACHE_SIZE)
+            {
+                DATE_FORMATS.clear();
+            }
+            DATE_FORMATS.put(pattern, prototype);
+        }
+
+        DateFormat dateFormat = (DateFormat) prototype.format.clone();
+        dateFormat.setTimeZone(TimeZone.getDefault());
+        return dateFormat;
+    }
+
     /**
      * Returns an iterator over the simple values of a composite value. This
      * implementation calls {@link #flatten(Object, char)} and
@@ -1033,4 +1316,30 @@ public final class PropertyConverter
     {
         return toEnum(value, enumClass.asSubclass(Enum.class));
     }
+
+    /**
+     * A simple data class for the entries of the date format cache. As the
+     * symbols of a date format depend on the locale, the locale used for
+     * creating the format is stored, too.
+     */
+    private static class DateFormatPrototype
+    {
+        /** The date format. */
+        final DateFormat format;
+
+        /** The locale of the date format. */
+        final Locale locale;
+
+        /**
+         * Creates a new instance of {@code DateFormatPrototype}.
+         *
+         * @param format the date format
+         * @param locale the locale
+         */
+        public DateFormatPrototype(DateFormat format, Locale locale)
+        {
+            this.format = format;
+            this.locale = locale;
+        }
+    }
 }
@@ -0,0 +1,860 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.configuration;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+
+import org.apache.commons.configuration.interpol.ConfigurationInterpolator;
+import org.apache.commons.configuration.reloading.Reloadable;
+import org.apache.commons.configuration.tree.ConfigurationNode;
+import org.apache.commons.configuration.tree.ConfigurationNodeVisitorAdapter;
+import org.apache.commons.configuration.tree.ExpressionEngine;
+
+/**
+ * <p>
+ * An immutable snapshot of the content of a configuration.
+ * </p>
+ * <p>
+ * An instance of this class is created from an arbitrary source configuration
+ * (flat or hierarchical). On construction all keys returned by the source's
+ * {@code getKeys()} method are fetched together with their values. The values
+ * are interpolated and split at list delimiters as the source configuration
+ * would do it. They are then stored in an internal hash table using open
+ * addressing. Thus, queries for these keys can be answered by a single hash
+ * lookup; there is neither a traversal of a node structure nor any
+ * interpolation at access time.
+ * </p>
+ * <p>
+ * If the source configuration is hierarchical, a copy of its node structure
+ * (with already interpolated values) is kept, too. It is used for answering
+ * queries for keys which are not contained in the hash table, e.g. keys with
+ * indices like {@code tables.table(0).name}, and for the methods of the
+ * {@link ImmutableHierarchicalConfiguration} interface. For flat source
+ * configurations such a node structure is created on demand when one of
+ * these methods is called for the first time. Methods returning sub
+ * configurations, e.g. {@link #immutableConfigurationAt(String)} or
+ * {@link #immutableSubset(String)}, return new snapshot objects.
+ * </p>
+ * <p>
+ * A snapshot does not change after its creation; it is not affected by
+ * later modifications of its source configuration. Instances are thread-safe
+ * and can be shared between multiple threads without further synchronization,
+ * e.g. by publishing them through a single volatile reference. If the data
+ * of the source configuration changes, a new snapshot has to be created.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.0
+ */
+public final class SnapshotConfiguration implements
+        ImmutableHierarchicalConfiguration
+{
+    /** The internal configuration providing access to the snapshot data. */
+    private final SnapshotStore store;
+
+    /** The node structure copied from a hierarchical source configuration. */
+    private final BaseHierarchicalConfiguration hierarchy;
+
+    /** The node structure created on demand for a flat source configuration. */
+    private volatile BaseHierarchicalConfiguration convertedHierarchy;
+
+    /**
+     * Creates a new instance of {@code SnapshotConfiguration} with the
+     * current content of the given source configuration.
+     *
+     * @param source the source configuration (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the source configuration is
+     *         <b>null</b>
+     */
+    public SnapshotConfiguration(ImmutableConfiguration source)
+    {
+        this(source, true, throwExceptionOnMissing(source));
+    }
+
+    /**
+     * Creates a new instance of {@code SnapshotConfiguration} and specifies
+     * whether the values of the source configuration still have to be
+     * interpolated. This constructor is used internally for creating
+     * snapshots of sub configurations of this snapshot whose values have
+     * already been interpolated.
+     *
+     * @param source the source configuration
+     * @param interpolate a flag whether interpolation has to be performed
+     * @param throwExceptionOnMissing the throw exception on missing flag
+     */
+    private SnapshotConfiguration(ImmutableConfiguration source,
+            boolean interpolate, boolean throwExceptionOnMissing)
+    {
+        if (source == null)
+        {
+            throw new IllegalArgumentException(
+                    "Source configuration must not be null!");
+        }
+
+        KeyTable table;
+        if (source instanceof HierarchicalConfiguration)
+        {
+            hierarchy = copyHierarchy((HierarchicalConfiguration) source,
+                    interpolate);
+            table = createTable(hierarchy, false);
+        }
+        else
+        {
+            hierarchy = null;
+            table = createTable(source, interpolate);
+        }
+        store = new SnapshotStore(table, hierarchy, throwExceptionOnMissing);
+    }
+
+    public boolean isEmpty()
+    {
+        return store.isEmpty();
+    }
+
+    public boolean containsKey(String key)
+    {
+        return store.containsKey(key);
+    }
+
+    public Object getProperty(String key)
+    {
+        return store.getProperty(key);
+    }
+
+    public Iterator<String> getKeys(String prefix)
+    {
+        return store.getKeys(prefix);
+    }
+
+    public Iterator<String> getKeys()
+    {
+        return store.getKeys();
+    }
+
+    public Properties getProperties(String key)
+    {
+        return store.getProperties(key);
+    }
+
+    public boolean getBoolean(String key)
+    {
+        return store.getBoolean(key);
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue)
+    {
+        return store.getBoolean(key, defaultValue);
+    }
+
+    public Boolean getBoolean(String key, Boolean defaultValue)
+    {
+        return store.getBoolean(key, defaultValue);
+    }
+
+    public byte getByte(String key)
+    {
+        return store.getByte(key);
+    }
+
+    public byte getByte(String key, byte defaultValue)
+    {
+        return store.getByte(key, defaultValue);
+    }
+
+    public Byte getByte(String key, Byte defaultValue)
+    {
+        return store.getByte(key, defaultValue);
+    }
+
+    public double getDouble(String key)
+    {
+        return store.getDouble(key);
+    }
+
+    public double getDouble(String key, double defaultValue)
+    {
+        return store.getDouble(key, defaultValue);
+    }
+
+    public Double getDouble(String key, Double defaultValue)
+    {
+        return store.getDouble(key, defaultValue);
+    }
+
+    public float getFloat(String key)
+    {
+        return store.getFloat(key);
+    }
+
+    public float getFloat(String key, float defaultValue)
+    {
+        return store.getFloat(key, defaultValue);
+    }
+
+    public Float getFloat(String key, Float defaultValue)
+    {
+        return store.getFloat(key, defaultValue);
+    }
+
+    public int getInt(String key)
+    {
+        return store.getInt(key);
+    }
+
+    public int getInt(String key, int defaultValue)
+    {
+        return store.getInt(key, defaultValue);
+    }
+
+    public Integer getInteger(String key, Integer defaultValue)
+    {
+        return store.getInteger(key, defaultValue);
+    }
+
+    public long getLong(String key)
+    {
+        return store.getLong(key);
+    }
+
+    public long getLong(String key, long defaultValue)
+    {
+        return store.getLong(key, defaultValue);
+    }
+
+    public Long getLong(String key, Long defaultValue)
+    {
+        return store.getLong(key, defaultValue);
+    }
+
+    public short getShort(String key)
+    {
+        return store.getShort(key);
+    }
+
+    public short getShort(String key, short defaultValue)
+    {
+        return store.getShort(key, defaultValue);
+    }
+
+    public Short getShort(String key, Short defaultValue)
+    {
+        return store.getShort(key, defaultValue);
+    }
+
+    public BigDecimal getBigDecimal(String key)
+    {
+        return store.getBigDecimal(key);
+    }
+
+    public BigDecimal getBigDecimal(String key, BigDecimal defaultValue)
+    {
+        return store.getBigDecimal(key, defaultValue);
+    }
+
+    public BigInteger getBigInteger(String key)
+    {
+        return store.getBigInteger(key);
+    }
+
+    public BigInteger getBigInteger(String key, BigInteger defaultValue)
+    {
+        return store.getBigInteger(key, defaultValue);
+    }
+
+    public String getString(String key)
+    {
+        return store.getString(key);
+    }
+
+    public String getString(String key, String defaultValue)
+    {
+        return store.getString(key, defaultValue);
+    }
+
+    public String[] getStringArray(String key)
+    {
+        return store.getStringArray(key);
+    }
+
+    public List<Object> getList(String key)
+    {
+        return store.getList(key);
+    }
+
+    public List<Object> getList(String key, List<Object> defaultValue)
+    {
+        return store.getList(key, defaultValue);
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns a snapshot of the subset.
+     */
+    public ImmutableConfiguration immutableSubset(String prefix)
+    {
+        Configuration subset =
+                (hierarchy != null) ? hierarchy.subset(prefix) : store
+                        .subset(prefix);
+        return createSubSnapshot(subset);
+    }
+
+    public ExpressionEngine getExpressionEngine()
+    {
+        return getHierarchy().getExpressionEngine();
+    }
+
+    public int getMaxIndex(String key)
+    {
+        return getHierarchy().getMaxIndex(key);
+    }
+
+    public String getRootElementName()
+    {
+        return getHierarchy().getRootElementName();
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns a snapshot of the selected
+     * sub tree. Because a snapshot never changes, the {@code supportUpdates}
+     * flag is ignored.
+     */
+    public ImmutableHierarchicalConfiguration immutableConfigurationAt(
+            String key, boolean supportUpdates)
+    {
+        return createSubSnapshot(getHierarchy().configurationAt(key));
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns a snapshot of the selected
+     * sub tree.
+     */
+    public ImmutableHierarchicalConfiguration immutableConfigurationAt(
+            String key)
+    {
+        return immutableConfigurationAt(key, false);
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns snapshots of the selected
+     * sub trees.
+     */
+    public List<ImmutableHierarchicalConfiguration> immutableConfigurationsAt(
+            String key)
+    {
+        return createSubSnapshots(getHierarchy().configurationsAt(key));
+    }
+
+    /**
+     * {@inheritDoc} This implementation returns snapshots of the child
+     * nodes.
+     */
+    public List<ImmutableHierarchicalConfiguration> immutableChildConfigurationsAt(
+            String key)
+    {
+        return createSubSnapshots(getHierarchy().childConfigurationsAt(key));
+    }
+
+    /**
+     * Returns the hierarchical structure of this snapshot. For a hierarchical
+     * source configuration this is the copy created at construction time.
+     * Otherwise, a hierarchical structure is created from the flat data on
+     * first access. (As this structure only depends on immutable data, it
+     * does no harm if it is created multiple times concurrently.)
+     *
+     * @return the hierarchical structure of this snapshot
+     */
+    private BaseHierarchicalConfiguration getHierarchy()
+    {
+        if (hierarchy != null)
+        {
+            return hierarchy;
+        }
+
+        BaseHierarchicalConfiguration result = convertedHierarchy;
+        if (result == null)
+        {
+            result = new BaseHierarchicalConfiguration(
+                    ConfigurationUtils.convertToHierarchical(store));
+            result.setInterpolator(null);
+            convertedHierarchy = result;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a snapshot for a sub configuration of this snapshot.
+     *
+     * @param sub the sub configuration
+     * @return the snapshot for this sub configuration
+     */
+    private SnapshotConfiguration createSubSnapshot(ImmutableConfiguration sub)
+    {
+        return new SnapshotConfiguration(sub, false,
+                store.isThrowExceptionOnMissing());
+    }
+
+    /**
+     * Creates snapshots for a list of sub configurations.
+     *
+     * @param subs the list with sub configurations
+     * @return a list with the corresponding snapshots
+     */
+    private List<ImmutableHierarchicalConfiguration> createSubSnapshots(
+            List<SubnodeConfiguration> subs)
+    {
+        List<ImmutableHierarchicalConfiguration> result =
+                new ArrayList<ImmutableHierarchicalConfiguration>(subs.size());
+        for (SubnodeConfiguration sub : subs)
+        {
+            result.add(createSubSnapshot(sub));
+        }
+        return result;
+    }
+
+    /**
+     * Creates a copy of the node structure of the given hierarchical
+     * configuration. If requested, the values of all nodes are interpolated
+     * using the interpolator of the source configuration. The copy does not
+     * perform any further interpolation.
+     *
+     * @param source the hierarchical source configuration
+     * @param interpolate a flag whether interpolation has to be performed
+     * @return the copied structure
+     */
+    private static BaseHierarchicalConfiguration copyHierarchy(
+            HierarchicalConfiguration source, boolean interpolate)
+    {
+        BaseHierarchicalConfiguration copy;
+        if (source instanceof Reloadable)
+        {
+            synchronized (((Reloadable) source).getReloadLock())
+            {
+                copy = new BaseHierarchicalConfiguration(source);
+            }
+        }
+        else
+        {
+            copy = new BaseHierarchicalConfiguration(source);
+        }
+        copy.setExpressionEngine(source.getExpressionEngine());
+        copy.setInterpolator(null);
+
+        final ConfigurationInterpolator ci =
+                interpolate ? fetchInterpolator(source) : null;
+        if (ci != null)
+        {
+            copy.getRootNode().visit(new ConfigurationNodeVisitorAdapter()
+            {
+                @Override
+                public void visitAfterChildren(ConfigurationNode node)
+                {
+                    node.setValue(ci.interpolate(node.getValue()));
+                }
+            });
+        }
+        return copy;
+    }
+
+    /**
+     * Creates the hash table with the keys and values of the given
+     * configuration.
+     *
+     * @param source the source configuration
+     * @param interpolate a flag whether interpolation has to be performed
+     * @return the hash table
+     */
+    private static KeyTable createTable(ImmutableConfiguration source,
+            boolean interpolate)
+    {
+        ConfigurationInterpolator ci =
+                interpolate ? fetchInterpolator(source) : null;
+        Map<String, Object> data = new LinkedHashMap<String, Object>();
+        for (Iterator<String> it = source.getKeys(); it.hasNext();)
+        {
+            String key = it.next();
+            Object value;
+            if (ci != null)
+            {
+                value = interpolate(ci, source.getProperty(key));
+            }
+            else if (interpolate)
+            {
+                value = fetchInterpolatedValue(source, key);
+            }
+            else
+            {
+                value = freeze(source.getProperty(key));
+            }
+            data.put(key, value);
+        }
+        return new KeyTable(data);
+    }
+
+    /**
+     * Returns the {@code ConfigurationInterpolator} of the given
+     * configuration. This is possible only if the configuration is derived
+     * from {@code AbstractConfiguration}. Otherwise, result is <b>null</b>.
+     *
+     * @param config the configuration
+     * @return the {@code ConfigurationInterpolator} or <b>null</b>
+     */
+    private static ConfigurationInterpolator fetchInterpolator(
+            ImmutableConfiguration config)
+    {
+        return (config instanceof AbstractConfiguration) ? ((AbstractConfiguration) config)
+                .getInterpolator() : null;
+    }
+
+    /**
+     * Determines the initial value of the throw exception on missing flag.
+     * It is copied from the source configuration if possible.
+     *
+     * @param config the source configuration
+     * @return the throw exception on missing flag
+     */
+    private static boolean throwExceptionOnMissing(ImmutableConfiguration config)
+    {
+        return (config instanceof AbstractConfiguration)
+                && ((AbstractConfiguration) config).isThrowExceptionOnMissing();
+    }
+
+    /**
+     * Interpolates a property value using the given interpolator. If the
+     * value is a collection, all of its elements are interpolated.
+     *
+     * @param ci the {@code ConfigurationInterpolator}
+     * @param value the value
+     * @return the interpolated value
+     */
+    private static Object interpolate(ConfigurationInterpolator ci,
+            Object value)
+    {
+        if (value instanceof Collection)
+        {
+            Collection<?> col = (Collection<?>) value;
+            List<Object> result = new ArrayList<Object>(col.size());
+            for (Object elem : col)
+            {
+                result.add(ci.interpolate(elem));
+            }
+            return Collections.unmodifiableList(result);
+        }
+        return ci.interpolate(value);
+    }
+
+    /**
+     * Obtains an interpolated property value through the methods of the
+     * {@code ImmutableConfiguration} interface. This is used if the
+     * {@code ConfigurationInterpolator} of the source configuration is not
+     * accessible.
+     *
+     * @param source the source configuration
+     * @param key the key
+     * @return the interpolated value of this key
+     */
+    private static Object fetchInterpolatedValue(ImmutableConfiguration source,
+            String key)
+    {
+        Object value = source.getProperty(key);
+        if (value instanceof String || value instanceof Collection)
+        {
+            List<Object> values = source.getList(key);
+            return (values.size() == 1) ? values.get(0) : Collections
+                    .unmodifiableList(new ArrayList<Object>(values));
+        }
+        return value;
+    }
+
+    /**
+     * Makes sure that a property value cannot be modified. Collections are
+     * replaced by unmodifiable lists.
+     *
+     * @param value the value
+     * @return the unmodifiable value
+     */
+    private static Object freeze(Object value)
+    {
+        if (value instanceof Collection)
+        {
+            return Collections.unmodifiableList(new ArrayList<Object>(
+                    (Collection<?>) value));
+        }
+        return value;
+    }
+
+    /**
+     * A hash table for the keys and values stored in a snapshot. Collisions
+     * are resolved by linear probing. The table is filled once at
+     * construction time; afterwards it is read-only.
+     */
+    private static class KeyTable
+    {
+        /** An array with the keys in the order of the source configuration. */
+        private final String[] orderedKeys;
+
+        /** The array with the keys of the hash table. */
+        private final String[] keys;
+
+        /** The array with the values of the hash table. */
+        private final Object[] values;
+
+        /** The mask for mapping hash codes to table indices. */
+        private final int mask;
+
+        /**
+         * Creates a new instance of {@code KeyTable} and initializes it with
+         * the content of the given map.
+         *
+         * @param data the map with the keys and their values
+         */
+        public KeyTable(Map<String, Object> data)
+        {
+            orderedKeys = data.keySet().toArray(new String[data.size()]);
+            int capacity = tableSize(data.size());
+            keys = new String[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+
+            for (Map.Entry<String, Object> e : data.entrySet())
+            {
+                int idx = hash(e.getKey()) & mask;
+                while (keys[idx] != null)
+                {
+                    idx = (idx + 1) & mask;
+                }
+                keys[idx] = e.getKey();
+                values[idx] = e.getValue();
+            }
+        }
+
+        /**
+         * Returns the number of keys stored in this table.
+         *
+         * @return the number of keys
+         */
+        public int size()
+        {
+            return orderedKeys.length;
+        }
+
+        /**
+         * Returns the position of the given key in the table or -1 if it
+         * cannot be found.
+         *
+         * @param key the key
+         * @return the position of this key
+         */
+        public int indexOf(String key)
+        {
+            if (key != null)
+            {
+                int idx = hash(key) & mask;
+                String k;
+                while ((k = keys[idx]) != null)
+                {
+                    if (k.equals(key))
+                    {
+                        return idx;
+                    }
+                    idx = (idx + 1) & mask;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the value stored at the given position.
+         *
+         * @param idx the position as returned by {@code indexOf()}
+         * @return the value at this position
+         */
+        public Object valueAt(int idx)
+        {
+            return values[idx];
+        }
+
+        /**
+         * Returns an iterator over the keys of this table in the order of the
+         * source configuration. The iterator does not support removal.
+         *
+         * @return the iterator over all keys
+         */
+        public Iterator<String> keyIterator()
+        {
+            return new Iterator<String>()
+            {
+                /** The current position. */
+                private int position;
+
+                public boolean hasNext()
+                {
+                    return position < orderedKeys.length;
+                }
+
+                public String next()
+                {
+                    if (!hasNext())
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    return orderedKeys[position++];
+                }
+
+                public void remove()
+                {
+                    throw new UnsupportedOperationException(
+                            "remove() operation not supported!");
+                }
+            };
+        }
+
+        /**
+         * Calculates the hash code for a key. The hash code of the string is
+         * spread so that the lower bits used for table indices are influenced
+         * by the higher bits, too.
+         *
+         * @param key the key
+         * @return the hash code
+         */
+        private static int hash(String key)
+        {
+            int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+
+        /**
+         * Determines the size of the hash table for the given number of keys.
+         * The table size is a power of two, and the load factor does not
+         * exceed 0.5.
+         *
+         * @param count the number of keys
+         * @return the size of the hash table
+         */
+        private static int tableSize(int count)
+        {
+            int size = 2;
+            while (size < 2 * count)
+            {
+                size <<= 1;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * An internal configuration implementation which operates on the data of
+     * the snapshot. The methods of the {@code ImmutableConfiguration}
+     * interface are delegated to this object, so that all data conversions
+     * of {@code AbstractConfiguration} are available. Interpolation is
+     * disabled because values are already interpolated. Manipulations are
+     * not supported.
+     */
+    private static class SnapshotStore extends AbstractConfiguration
+    {
+        /** The hash table with the data. */
+        private final KeyTable table;
+
+        /** The hierarchical structure for keys not found in the table. */
+        private final BaseHierarchicalConfiguration hierarchy;
+
+        /**
+         * Creates a new instance of {@code SnapshotStore}.
+         *
+         * @param t the hash table
+         * @param h the hierarchical structure (can be <b>null</b>)
+         * @param throwExceptionOnMissing the throw exception on missing flag
+         */
+        public SnapshotStore(KeyTable t, BaseHierarchicalConfiguration h,
+                boolean throwExceptionOnMissing)
+        {
+            table = t;
+            hierarchy = h;
+            setInterpolator(null);
+            setThrowExceptionOnMissing(throwExceptionOnMissing);
+        }
+
+        public Object getProperty(String key)
+        {
+            int idx = table.indexOf(key);
+            if (idx >= 0)
+            {
+                return table.valueAt(idx);
+            }
+            return (hierarchy != null) ? hierarchy.getProperty(key) : null;
+        }
+
+        public boolean containsKey(String key)
+        {
+            return table.indexOf(key) >= 0
+                    || (hierarchy != null && hierarchy.containsKey(key));
+        }
+
+        public boolean isEmpty()
+        {
+            return table.size() == 0;
+        }
+
+        public Iterator<String> getKeys()
+        {
+            return table.keyIterator();
+        }
+
+        /**
+         * {@inheritDoc} For hierarchical data this implementation delegates
+         * to the hierarchical structure in order to support the specific
+         * semantics of prefix keys.
+         */
+        @Override
+        public Iterator<String> getKeys(String prefix)
+        {
+            return (hierarchy != null) ? hierarchy.getKeys(prefix) : super
+                    .getKeys(prefix);
+        }
+
+        /**
+         * {@inheritDoc} Snapshots cannot be modified, so this implementation
+         * throws an exception.
+         */
+        @Override
+        protected void addPropertyDirect(String key, Object value)
+        {
+            throw new UnsupportedOperationException(
+                    "Snapshot configurations cannot be modified!");
+        }
+
+        /**
+         * {@inheritDoc} Snapshots cannot be modified, so this implementation
+         * throws an exception.
+         */
+        @Override
+        protected void clearPropertyDirect(String key)
+        {
+            throw new UnsupportedOperationException(
+                    "Snapshot configurations cannot be modified!");
+        }
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.commons.configuration;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,18 +31,19 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
@@ -59,10 +61,14 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.Text;
+import org.xml.sax.Attributes;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
 import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.DefaultHandler2;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
@@ -183,13 +189,22 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
     /** Constant for the xml:space value for preserving whitespace.*/
     private static final String VALUE_PRESERVE = "preserve";
 
-    /** Schema Langauge key for the parser */
-    private static final String JAXP_SCHEMA_LANGUAGE =
-        "http://java.sun.com/xml/jaxp/properties/schemaLanguage";
+    /** The SAX property for registering a lexical handler. */
+    private static final String SAX_LEXICAL_HANDLER =
+        "http://xml.org/sax/properties/lexical-handler";
 
-    /** Schema Language for the parser */
-    private static final String W3C_XML_SCHEMA =
-        "http://www.w3.org/2001/XMLSchema";
+    /** The SAX feature for reporting qualified names and xmlns attributes. */
+    private static final String SAX_NAMESPACE_PREFIXES =
+        "http://xml.org/sax/features/namespace-prefixes";
+
+    /** The encoding written if no specific encoding is set. */
+    private static final String DEFAULT_ENCODING = "UTF-8";
+
+    /** The string used for indenting nested elements in streaming mode. */
+    private static final String INDENT = "    ";
+
+    /** The line separator used in streaming mode. */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
     /** The document from this configuration's data source. */
     private Document document;
@@ -215,6 +230,9 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
     /** The EntityResolver to use */
     private EntityResolver entityResolver = new DefaultEntityResolver();
 
+    /** Stores a flag whether documents are loaded without keeping a DOM. */
+    private boolean streamingLoad;
+
     /**
      * Creates a new instance of {@code XMLConfiguration}.
      */
@@ -483,6 +501,42 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
         return this.entityResolver;
     }
 
+    /**
+     * Returns a flag whether XML documents are loaded in streaming mode.
+     *
+     * @return the streaming load flag
+     * @since 2.0
+     */
+    public boolean isStreamingLoad()
+    {
+        return streamingLoad;
+    }
+
+    /**
+     * Sets a flag whether XML documents are loaded in streaming mode. Per
+     * default, a loaded document is parsed into a DOM tree which is kept by
+     * this configuration; it is used to preserve comments and the formatting
+     * of the original document when the configuration is saved. In streaming
+     * mode the document is parsed by a SAX parser, and the tree of
+     * configuration nodes is built directly from the parser events. No DOM is
+     * retained, so {@link #getDocument()} returns <b>null</b>. A save
+     * operation writes the configuration nodes directly to the output; the
+     * elements are indented, and a DOCTYPE declaration is generated if a
+     * system ID is set. This reduces memory consumption for large documents
+     * considerably.
+     * Whitespace handling, list delimiters, and validation work in the same
+     * way as in the default mode. If a custom {@code DocumentBuilder} is set,
+     * it is used for parsing; however, the resulting document is dropped
+     * after the node tree has been constructed.
+     *
+     * @param streamingLoad the streaming load flag
+     * @since 2.0
+     */
+    public void setStreamingLoad(boolean streamingLoad)
+    {
+        this.streamingLoad = streamingLoad;
+    }
+
     /**
      * Returns the XML document this configuration was loaded from. The return
      * value is <b>null</b> if this configuration was not loaded from a XML
@@ -723,14 +777,27 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
     private boolean shouldTrim(Element element, boolean currentTrim)
     {
         Attr attr = element.getAttributeNode(ATTR_SPACE);
+        return shouldTrim((attr == null) ? null : attr.getValue(), currentTrim);
+    }
 
-        if (attr == null)
+    /**
+     * Checks whether the content of an XML element should be trimmed based on
+     * the value of its {@code xml:space} attribute.
+     *
+     * @param space the value of the {@code xml:space} attribute or
+     *        <b>null</b> if it is not present
+     * @param currentTrim the current trim flag
+     * @return a flag whether the content of this element should be trimmed
+     */
+    private static boolean shouldTrim(String space, boolean currentTrim)
+    {
+        if (space == null)
         {
             return currentTrim;
         }
         else
         {
-            return !VALUE_PRESERVE.equals(attr.getValue());
+            return !VALUE_PRESERVE.equals(space);
         }
     }
 
@@ -738,9 +805,10 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
      * Creates the {@code DocumentBuilder} to be used for loading files.
      * This implementation checks whether a specific
      * {@code DocumentBuilder} has been set. If this is the case, this
-     * one is used. Otherwise a default builder is created. Depending on the
-     * value of the validating flag this builder will be a validating or a non
-     * validating {@code DocumentBuilder}.
+     * one is used. Otherwise a default builder is obtained from
+     * {@link XMLParserPool}; it is handed back to the pool after use.
+     * Depending on the value of the validating flag this builder will be a
+     * validating or a non validating {@code DocumentBuilder}.
      *
      * @return the {@code DocumentBuilder} for loading configuration
      * files
@@ -756,19 +824,8 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
         }
         else
         {
-            DocumentBuilderFactory factory = DocumentBuilderFactory
-                    .newInstance();
-            if (isValidating())
-            {
-                factory.setValidating(true);
-                if (isSchemaValidation())
-                {
-                    factory.setNamespaceAware(true);
-                    factory.setAttribute(JAXP_SCHEMA_LANGUAGE, W3C_XML_SCHEMA);
-                }
-            }
-
-            DocumentBuilder result = factory.newDocumentBuilder();
+            DocumentBuilder result = XMLParserPool.acquireDocumentBuilder(
+                    isValidating(), isSchemaValidation());
             result.setEntityResolver(this.entityResolver);
 
             if (isValidating())
@@ -787,6 +844,34 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
         }
     }
 
+    /**
+     * Creates the {@code SAXParser} to be used for loading files in streaming
+     * mode. The parser is configured in the same way as the
+     * {@code DocumentBuilder} returned by {@link #createDocumentBuilder()}
+     * with regard to validation. Content and error handlers are set by the
+     * caller. The parser is obtained from {@link XMLParserPool} and handed
+     * back after the load operation.
+     *
+     * @return the {@code SAXParser} for loading configuration files
+     * @throws ParserConfigurationException if an error occurs
+     * @throws SAXException if the parser cannot be configured
+     * @since 2.0
+     */
+    protected SAXParser createSAXParser() throws ParserConfigurationException,
+            SAXException
+    {
+        SAXParser parser = XMLParserPool.acquireSAXParser(isValidating(),
+                false, isSchemaValidation());
+        XMLReader reader = parser.getXMLReader();
+        if (parser.isNamespaceAware())
+        {
+            // report qualified names and namespace declarations like DOM
+            reader.setFeature(SAX_NAMESPACE_PREFIXES, true);
+        }
+        reader.setEntityResolver(this.entityResolver);
+        return parser;
+    }
+
     /**
      * Creates a DOM document from the internal tree of configuration nodes.
      *
@@ -799,8 +884,9 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
         {
             if (document == null)
             {
-                DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+                DocumentBuilder builder = XMLParserPool.acquireDocumentBuilder(false, false);
                 Document newDocument = builder.newDocument();
+                XMLParserPool.releaseDocumentBuilder(builder);
                 Element rootElem = newDocument.createElement(getRootElementName());
                 newDocument.appendChild(rootElem);
                 document = newDocument;
@@ -910,8 +996,22 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
                 source.setSystemId(sourceURL.toString());
             }
 
+            if (isStreamingLoad())
+            {
+                loadStreaming(source);
+                return;
+            }
+
             DocumentBuilder builder = createDocumentBuilder();
-            Document newDocument = builder.parse(source);
+            Document newDocument;
+            try
+            {
+                newDocument = builder.parse(source);
+            }
+            finally
+            {
+                XMLParserPool.releaseDocumentBuilder(builder);
+            }
             Document oldDocument = document;
             document = null;
             initProperties(newDocument, oldDocument == null);
@@ -928,6 +1028,69 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
         }
     }
 
+    /**
+     * Loads a configuration file from the specified input source in streaming
+     * mode. The node hierarchy is constructed directly from SAX events; no
+     * DOM document is kept.
+     *
+     * @param source the input source
+     * @throws Exception if an error occurs
+     */
+    private void loadStreaming(InputSource source) throws Exception
+    {
+        Document oldDocument = document;
+        document = null;
+        try
+        {
+            if (getDocumentBuilder() != null)
+            {
+                Document newDocument = getDocumentBuilder().parse(source);
+                initProperties(newDocument, false);
+                rootElementName = newDocument.getDocumentElement().getNodeName();
+            }
+            else
+            {
+                SAXParser parser = createSAXParser();
+                try
+                {
+                    XMLReader reader = parser.getXMLReader();
+                    StreamingLoadHandler handler = new StreamingLoadHandler();
+                    reader.setContentHandler(handler);
+                    reader.setErrorHandler(handler);
+                    try
+                    {
+                        reader.setProperty(SAX_LEXICAL_HANDLER, handler);
+                    }
+                    catch (SAXNotRecognizedException snrex)
+                    {
+                        // DOCTYPE information is not available
+                        getLogger().debug("Lexical handler not supported", snrex);
+                    }
+                    reader.parse(source);
+                }
+                finally
+                {
+                    XMLParserPool.releaseSAXParser(parser);
+                }
+            }
+        }
+        finally
+        {
+            document = oldDocument;
+        }
+    }
+
+    /**
+     * Releases a document which was created temporarily for a validate
+     * operation in streaming mode. In this mode no DOM is kept; so the
+     * document and the references to its elements are removed again.
+     */
+    private void releaseTemporaryDocument()
+    {
+        document = null;
+        clearReferences(getRootNode());
+    }
+
     /**
      * Saves the configuration to the specified writer.
      *
@@ -936,6 +1099,12 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
      */
     public void save(Writer writer) throws ConfigurationException
     {
+        if (isStreamingLoad() && getDocument() == null)
+        {
+            saveStreaming(writer);
+            return;
+        }
+
         try
         {
             Transformer transformer = createTransformer();
@@ -953,6 +1122,258 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
         }
     }
 
+    /**
+     * Saves the configuration in streaming mode. The hierarchy of
+     * configuration nodes is written directly to the given writer without
+     * constructing a DOM.
+     *
+     * @param writer the writer used to save the configuration
+     * @throws ConfigurationException if an error occurs
+     */
+    private void saveStreaming(Writer writer) throws ConfigurationException
+    {
+        try
+        {
+            Writer out = (writer instanceof BufferedWriter) ? writer
+                    : new BufferedWriter(writer);
+            String encoding = (getEncoding() != null) ? getEncoding() : DEFAULT_ENCODING;
+            out.write("<?xml version=\"1.0\" encoding=\"");
+            out.write(encoding);
+            out.write("\"?>");
+            out.write(LINE_SEPARATOR);
+            writeDoctype(out);
+
+            ConfigurationNode root = getRootNode();
+            writeElement(out, getRootElementName(), root, 0,
+                    shouldTrim(fetchSpaceAttribute(root), true));
+            out.write(LINE_SEPARATOR);
+            out.flush();
+        }
+        catch (IOException ioex)
+        {
+            throw new ConfigurationException("Unable to save the configuration", ioex);
+        }
+    }
+
+    /**
+     * Writes the DOCTYPE declaration in streaming mode. As the
+     * {@code Transformer} used in the default mode, a declaration is only
+     * written if a system ID is defined.
+     *
+     * @param out the writer
+     * @throws IOException if an error occurs
+     */
+    private void writeDoctype(Writer out) throws IOException
+    {
+        if (getSystemID() != null)
+        {
+            out.write("<!DOCTYPE ");
+            out.write(getRootElementName());
+            if (getPublicID() != null)
+            {
+                out.write(" PUBLIC \"");
+                out.write(escapeXML(getPublicID(), true));
+                out.write("\" \"");
+            }
+            else
+            {
+                out.write(" SYSTEM \"");
+            }
+            out.write(escapeXML(getSystemID(), true));
+            out.write("\">");
+            out.write(LINE_SEPARATOR);
+        }
+    }
+
+    /**
+     * Writes an XML element for the given configuration node and its children
+     * in streaming mode. Child elements are indented unless whitespace in
+     * the element's content has to be preserved.
+     *
+     * @param out the writer
+     * @param name the name of the element
+     * @param node the node to be written
+     * @param level the nesting level
+     * @param indent a flag whether the content of the element is indented
+     * @throws IOException if an error occurs
+     */
+    private void writeElement(Writer out, String name, ConfigurationNode node,
+            int level, boolean indent) throws IOException
+    {
+        out.write('<');
+        out.write(name);
+        writeAttributes(out, node);
+
+        String text = null;
+        if (node.getValue() != null)
+        {
+            text = node.getValue().toString();
+            if (!isDelimiterParsingDisabled())
+            {
+                text = PropertyConverter.escapeListDelimiter(text, getListDelimiter());
+            }
+        }
+        if (text == null && node.getChildrenCount() == 0)
+        {
+            out.write("/>");
+            return;
+        }
+
+        out.write('>');
+        if (text != null)
+        {
+            out.write(escapeXML(text, false));
+        }
+        for (ConfigurationNode child : node.getChildren())
+        {
+            boolean childIndent = indent
+                    && shouldTrim(fetchSpaceAttribute(child), true);
+            if (indent)
+            {
+                writeIndent(out, level + 1);
+            }
+            writeElement(out, child.getName(), child, level + 1, childIndent);
+        }
+        if (indent && node.getChildrenCount() > 0)
+        {
+            writeIndent(out, level);
+        }
+        out.write("</");
+        out.write(name);
+        out.write('>');
+    }
+
+    /**
+     * Writes the attributes of the given node in streaming mode. Only
+     * attributes with a defined value are written. As in the default mode,
+     * an attribute must not have multiple values.
+     *
+     * @param out the writer
+     * @param node the node whose attributes are to be written
+     * @throws IOException if an error occurs
+     */
+    private void writeAttributes(Writer out, ConfigurationNode node)
+            throws IOException
+    {
+        Map<String, String> attrs = new LinkedHashMap<String, String>();
+        for (ConfigurationNode attr : node.getAttributes())
+        {
+            if (attr.getValue() != null)
+            {
+                if (attrs.containsKey(attr.getName()))
+                {
+                    throw new ConfigurationRuntimeException(
+                            "Multiple values for attribute '" + attr.getName()
+                                    + "' are not supported!");
+                }
+                attrs.put(attr.getName(), attr.getValue().toString());
+            }
+        }
+
+        for (Map.Entry<String, String> e : attrs.entrySet())
+        {
+            out.write(' ');
+            out.write(e.getKey());
+            out.write("=\"");
+            out.write(escapeXML(e.getValue(), true));
+            out.write('"');
+        }
+    }
+
+    /**
+     * Writes a line separator and the indentation for the given level.
+     *
+     * @param out the writer
+     * @param level the nesting level
+     * @throws IOException if an error occurs
+     */
+    private static void writeIndent(Writer out, int level) throws IOException
+    {
+        out.write(LINE_SEPARATOR);
+        for (int i = 0; i < level; i++)
+        {
+            out.write(INDENT);
+        }
+    }
+
+    /**
+     * Returns the value of the {@code xml:space} attribute of the given node.
+     *
+     * @param node the node
+     * @return the value of the {@code xml:space} attribute or <b>null</b>
+     */
+    private static String fetchSpaceAttribute(ConfigurationNode node)
+    {
+        List<ConfigurationNode> attrs = node.getAttributes(ATTR_SPACE);
+        if (attrs.isEmpty() || attrs.get(0).getValue() == null)
+        {
+            return null;
+        }
+        return attrs.get(0).getValue().toString();
+    }
+
+    /**
+     * Escapes the special characters of XML in the given string.
+     *
+     * @param s the string to be escaped
+     * @param attr a flag whether the string is an attribute value; then quotes
+     *        and whitespace characters are escaped, too
+     * @return the escaped string
+     */
+    private static String escapeXML(String s, boolean attr)
+    {
+        StringBuilder buf = null;
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            String replacement;
+            switch (c)
+            {
+            case '&':
+                replacement = "&amp;";
+                break;
+            case '<':
+                replacement = "&lt;";
+                break;
+            case '>':
+                replacement = "&gt;";
+                break;
+            case '"':
+                replacement = attr ? "&quot;" : null;
+                break;
+            case '\n':
+                replacement = attr ? "&#10;" : null;
+                break;
+            case '\r':
+                replacement = "&#13;";
+                break;
+            case '\t':
+                replacement = attr ? "&#9;" : null;
+                break;
+            default:
+                replacement = null;
+            }
+
+            if (replacement != null && buf == null)
+            {
+                buf = new StringBuilder(s.length() + 16);
+                buf.append(s, 0, i);
+            }
+            if (buf != null)
+            {
+                if (replacement != null)
+                {
+                    buf.append(replacement);
+                }
+                else
+                {
+                    buf.append(c);
+                }
+            }
+        }
+        return (buf != null) ? buf.toString() : s;
+    }
+
     public void write(Writer out) throws ConfigurationException, IOException
     {
         save(out);
@@ -964,6 +1385,7 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
      */
     public void validate() throws ConfigurationException
     {
+        boolean temporaryDocument = isStreamingLoad() && getDocument() == null;
         try
         {
             Transformer transformer = createTransformer();
@@ -973,7 +1395,14 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
             transformer.transform(source, result);
             Reader reader = new StringReader(writer.getBuffer().toString());
             DocumentBuilder builder = createDocumentBuilder();
-            builder.parse(new InputSource(reader));
+            try
+            {
+                builder.parse(new InputSource(reader));
+            }
+            finally
+            {
+                XMLParserPool.releaseDocumentBuilder(builder);
+            }
         }
         catch (SAXException e)
         {
@@ -991,6 +1420,13 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
         {
             throw new ConfigurationException("Validation failed", pce);
         }
+        finally
+        {
+            if (temporaryDocument)
+            {
+                releaseTemporaryDocument();
+            }
+        }
     }
 
     /**
@@ -1005,8 +1441,7 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
      */
     protected Transformer createTransformer() throws TransformerException
     {
-        Transformer transformer = TransformerFactory.newInstance()
-                .newTransformer();
+        Transformer transformer = XMLParserPool.createTransformer();
 
         transformer.setOutputProperty(OutputKeys.INDENT, "yes");
         if (getEncoding() != null)
@@ -1550,6 +1985,165 @@ public class XMLConfiguration extends AbstractHierarchicalFileConfiguration
         }
     }
 
+    /**
+     * A SAX handler which constructs the hierarchy of configuration nodes in
+     * streaming mode. It produces the same node structure as the DOM-based
+     * loading process, but without setting references to XML elements. The
+     * data of the elements currently open is kept on a stack.
+     */
+    private class StreamingLoadHandler extends DefaultHandler2
+    {
+        /** The stack with the data of the elements currently processed. */
+        private final List<ElementData> stack = new ArrayList<ElementData>();
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                Attributes attributes)
+        {
+            ElementData parent = currentElement();
+            ConfigurationNode node =
+                    (parent == null) ? getRootNode() : new XMLNode(qName, null);
+            boolean trim = shouldTrim(attributes.getValue(ATTR_SPACE),
+                    (parent == null) || parent.trim);
+            Map<String, String> attrmap = processAttributes(node, attributes);
+            stack.add(new ElementData(node, qName, trim, attrmap));
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+        {
+            ElementData data = stack.remove(stack.size() - 1);
+            ConfigurationNode node = data.node;
+            String text = data.text.toString();
+            if (data.trim)
+            {
+                text = text.trim();
+            }
+            if (text.length() > 0 || (!hasChildren(node) && node != getRootNode()))
+            {
+                node.setValue(text);
+            }
+
+            ElementData parent = currentElement();
+            if (parent == null)
+            {
+                node.setName(data.name);
+                rootElementName = data.name;
+            }
+            else
+            {
+                parent.node.addChild(node);
+                handleDelimiters(parent.node, node, parent.trim, data.attributes);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length)
+        {
+            currentElement().text.append(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length)
+        {
+            currentElement().text.append(ch, start, length);
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId)
+        {
+            setPublicID(publicId);
+            setSystemID(systemId);
+        }
+
+        @Override
+        public void error(SAXParseException ex) throws SAXException
+        {
+            if (isValidating())
+            {
+                throw ex;
+            }
+        }
+
+        /**
+         * Returns the data of the element currently processed.
+         *
+         * @return the current element or <b>null</b> if there is none
+         */
+        private ElementData currentElement()
+        {
+            return stack.isEmpty() ? null : stack.get(stack.size() - 1);
+        }
+
+        /**
+         * Creates attribute nodes for the passed in SAX attributes. The
+         * attributes are added in alphabetical order as this is the order
+         * in which they are reported by a DOM parser.
+         *
+         * @param node the current node
+         * @param attributes the SAX attributes
+         * @return a map with all attribute values extracted for the node
+         */
+        private Map<String, String> processAttributes(ConfigurationNode node,
+                Attributes attributes)
+        {
+            if (attributes.getLength() == 0)
+            {
+                return Collections.emptyMap();
+            }
+
+            Map<String, String> attrmap = new TreeMap<String, String>();
+            for (int i = 0; i < attributes.getLength(); i++)
+            {
+                attrmap.put(attributes.getQName(i), attributes.getValue(i));
+            }
+            for (Map.Entry<String, String> e : attrmap.entrySet())
+            {
+                appendAttribute(node, null, false, e.getKey(), e.getValue());
+            }
+            return attrmap;
+        }
+    }
+
+    /**
+     * A simple data class storing information about an XML element which is
+     * processed by a {@code StreamingLoadHandler}.
+     */
+    private static class ElementData
+    {
+        /** The node created for the element. */
+        final ConfigurationNode node;
+
+        /** The name of the element. */
+        final String name;
+
+        /** The trim flag of the element. */
+        final boolean trim;
+
+        /** The attributes of the element. */
+        final Map<String, String> attributes;
+
+        /** A buffer for the text content of the element. */
+        final StringBuilder text = new StringBuilder();
+
+        /**
+         * Creates a new instance of {@code ElementData}.
+         *
+         * @param nd the node
+         * @param n the element name
+         * @param trimFlag the trim flag
+         * @param attrs the attributes
+         */
+        public ElementData(ConfigurationNode nd, String n, boolean trimFlag,
+                Map<String, String> attrs)
+        {
+            node = nd;
+            name = n;
+            trim = trimFlag;
+            attributes = attrs;
+        }
+    }
+
     /**
      * A special implementation of the {@code FileConfiguration} interface that is
      * used internally to implement the {@code FileConfiguration} methods
@@ -0,0 +1,422 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.configuration;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+import org.xml.sax.SAXException;
+
+/**
+ * <p>
+ * A helper class which manages the JAXP objects used by the XML-based
+ * configuration classes.
+ * </p>
+ * <p>
+ * Looking up a JAXP factory involves a service discovery which is rather
+ * expensive. Therefore, this class creates a factory only once for each
+ * combination of settings and caches it. (The system properties which select
+ * the factory implementations are still evaluated, so that they can be
+ * changed at runtime.) In addition, parsers and document
+ * builders are reused: A thread obtains an instance by calling one of the
+ * {@code acquire} methods. When it is done it hands the instance back using
+ * the corresponding {@code release} method; the instance is then reset and
+ * kept for the next request of the same thread. An instance which has been
+ * acquired is not handed out again before it is released, so nested parse
+ * operations on a single thread work as expected. Objects passed to a
+ * {@code release} method which have not been obtained from this class are
+ * ignored.
+ * </p>
+ * <p>
+ * JAXP factories are not guaranteed to be thread-safe. All methods of this
+ * class can be called concurrently from multiple threads; accesses to the
+ * shared factories are synchronized.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.0
+ */
+public final class XMLParserPool
+{
+    /** The cache for document builder factories. */
+    private static final ConcurrentMap<String, DocumentBuilderFactory> DOCUMENT_BUILDER_FACTORIES =
+            new ConcurrentHashMap<String, DocumentBuilderFactory>();
+
+    /** The cache for SAX parser factories. */
+    private static final ConcurrentMap<String, SAXParserFactory> SAX_PARSER_FACTORIES =
+            new ConcurrentHashMap<String, SAXParserFactory>();
+
+    /** The cache for transformer factories. */
+    private static final ConcurrentMap<String, TransformerFactory> TRANSFORMER_FACTORIES =
+            new ConcurrentHashMap<String, TransformerFactory>();
+
+    /** The reusable objects of the current thread. */
+    private static final ThreadLocal<PoolData> POOL = new ThreadLocal<PoolData>()
+    {
+        @Override
+        protected PoolData initialValue()
+        {
+            return new PoolData();
+        }
+    };
+
+    /** The attribute for setting the schema language. */
+    private static final String JAXP_SCHEMA_LANGUAGE =
+            "http://java.sun.com/xml/jaxp/properties/schemaLanguage";
+
+    /** The schema language for W3C XML schema. */
+    private static final String W3C_XML_SCHEMA =
+            "http://www.w3.org/2001/XMLSchema";
+
+    /** The system property selecting the document builder factory. */
+    private static final String PROP_DOM_FACTORY = "javax.xml.parsers.DocumentBuilderFactory";
+
+    /** The system property selecting the SAX parser factory. */
+    private static final String PROP_SAX_FACTORY = "javax.xml.parsers.SAXParserFactory";
+
+    /** The system property selecting the transformer factory. */
+    private static final String PROP_TRANSFORMER_FACTORY =
+            "javax.xml.transform.TransformerFactory";
+
+    /**
+     * Private constructor. Prevents instances from being created.
+     */
+    private XMLParserPool()
+    {
+        // to prevent instantiation...
+    }
+
+    /**
+     * Obtains a {@code DocumentBuilder} with the given settings for the
+     * current thread. If schema validation is enabled, the builder is
+     * namespace aware and uses W3C XML schema. The builder should be passed
+     * to {@link #releaseDocumentBuilder(DocumentBuilder)} after use.
+     *
+     * @param validating the validating flag
+     * @param schemaValidation the schema validation flag; it is evaluated only
+     *        if the validating flag is set
+     * @return the {@code DocumentBuilder}
+     * @throws ParserConfigurationException if the builder cannot be created
+     */
+    public static DocumentBuilder acquireDocumentBuilder(boolean validating,
+            boolean schemaValidation) throws ParserConfigurationException
+    {
+        boolean schema = validating && schemaValidation;
+        String key = createKey(PROP_DOM_FACTORY, validating, schema);
+        PoolData pool = POOL.get();
+        DocumentBuilder builder = (DocumentBuilder) pool.take(key);
+
+        if (builder == null)
+        {
+            DocumentBuilderFactory factory =
+                    fetchDocumentBuilderFactory(key, validating, schema);
+            synchronized (factory)
+            {
+                builder = factory.newDocumentBuilder();
+            }
+        }
+
+        pool.checkOut(builder, key);
+        return builder;
+    }
+
+    /**
+     * Hands back a {@code DocumentBuilder} which was obtained using
+     * {@link #acquireDocumentBuilder(boolean, boolean)}. The builder is reset
+     * and can then be reused by the current thread. If the builder does not
+     * support a reset, only its entity resolver and error handler are cleared.
+     *
+     * @param builder the builder to be released (may be <b>null</b>)
+     */
+    public static void releaseDocumentBuilder(DocumentBuilder builder)
+    {
+        PoolData pool = POOL.get();
+        String key = pool.checkIn(builder);
+        if (key != null)
+        {
+            try
+            {
+                builder.reset();
+                pool.put(key, builder);
+            }
+            catch (UnsupportedOperationException uoex)
+            {
+                // older parsers: reset the handlers set by callers manually
+                builder.setEntityResolver(null);
+                builder.setErrorHandler(null);
+                pool.put(key, builder);
+            }
+        }
+    }
+
+    /**
+     * Obtains a {@code SAXParser} with the given settings for the current
+     * thread. If schema validation is enabled, the parser is namespace aware
+     * and uses W3C XML schema. The parser should be passed to
+     * {@link #releaseSAXParser(SAXParser)} after use.
+     *
+     * @param validating the validating flag
+     * @param namespaceAware the namespace aware flag
+     * @param schemaValidation the schema validation flag; it is evaluated only
+     *        if the validating flag is set
+     * @return the {@code SAXParser}
+     * @throws ParserConfigurationException if the parser cannot be created
+     * @throws SAXException if the parser cannot be configured
+     */
+    public static SAXParser acquireSAXParser(boolean validating,
+            boolean namespaceAware, boolean schemaValidation)
+            throws ParserConfigurationException, SAXException
+    {
+        boolean schema = validating && schemaValidation;
+        String key = createKey(PROP_SAX_FACTORY, validating, schema,
+                namespaceAware || schema);
+        PoolData pool = POOL.get();
+        SAXParser parser = (SAXParser) pool.take(key);
+
+        if (parser == null)
+        {
+            SAXParserFactory factory = fetchSAXParserFactory(key, validating,
+                    namespaceAware || schema);
+            synchronized (factory)
+            {
+                parser = factory.newSAXParser();
+            }
+        }
+        if (schema)
+        {
+            // properties are lost when the parser is reset
+            parser.setProperty(JAXP_SCHEMA_LANGUAGE, W3C_XML_SCHEMA);
+        }
+
+        pool.checkOut(parser, key);
+        return parser;
+    }
+
+    /**
+     * Hands back a {@code SAXParser} which was obtained using
+     * {@link #acquireSAXParser(boolean, boolean, boolean)}. The parser is
+     * reset and can then be reused by the current thread. If the parser does
+     * not support a reset, it is dropped because it may still reference
+     * handlers and properties set by the caller.
+     *
+     * @param parser the parser to be released (may be <b>null</b>)
+     */
+    public static void releaseSAXParser(SAXParser parser)
+    {
+        PoolData pool = POOL.get();
+        String key = pool.checkIn(parser);
+        if (key != null)
+        {
+            try
+            {
+                parser.reset();
+                pool.put(key, parser);
+            }
+            catch (UnsupportedOperationException uoex)
+            {
+                // the parser cannot be reused safely
+            }
+        }
+    }
+
+    /**
+     * Creates a new {@code Transformer} using a shared
+     * {@code TransformerFactory}. Transformers are not reused because they
+     * are typically configured with specific output properties.
+     *
+     * @return the new {@code Transformer}
+     * @throws TransformerConfigurationException if the transformer cannot be
+     *         created
+     */
+    public static Transformer createTransformer()
+            throws TransformerConfigurationException
+    {
+        String key = createKey(PROP_TRANSFORMER_FACTORY);
+        TransformerFactory factory = TRANSFORMER_FACTORIES.get(key);
+        if (factory == null)
+        {
+            factory = TransformerFactory.newInstance();
+            TransformerFactory oldFactory = TRANSFORMER_FACTORIES.putIfAbsent(key, factory);
+            if (oldFactory != null)
+            {
+                factory = oldFactory;
+            }
+        }
+
+        synchronized (factory)
+        {
+            return factory.newTransformer();
+        }
+    }
+
+    /**
+     * Returns the cached {@code DocumentBuilderFactory} for the given
+     * settings. It is created on first access.
+     *
+     * @param key the key of the factory
+     * @param validating the validating flag
+     * @param schema the schema validation flag
+     * @return the factory
+     */
+    private static DocumentBuilderFactory fetchDocumentBuilderFactory(
+            String key, boolean validating, boolean schema)
+    {
+        DocumentBuilderFactory factory = DOCUMENT_BUILDER_FACTORIES.get(key);
+        if (factory == null)
+        {
+            factory = DocumentBuilderFactory.newInstance();
+            factory.setValidating(validating);
+            if (schema)
+            {
+                factory.setNamespaceAware(true);
+                factory.setAttribute(JAXP_SCHEMA_LANGUAGE, W3C_XML_SCHEMA);
+            }
+
+            DocumentBuilderFactory oldFactory =
+                    DOCUMENT_BUILDER_FACTORIES.putIfAbsent(key, factory);
+            if (oldFactory != null)
+            {
+                factory = oldFactory;
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * Returns the cached {@code SAXParserFactory} for the given settings. It
+     * is created on first access.
+     *
+     * @param key the key of the factory
+     * @param validating the validating flag
+     * @param namespaceAware the namespace aware flag
+     * @return the factory
+     */
+    private static SAXParserFactory fetchSAXParserFactory(String key,
+            boolean validating, boolean namespaceAware)
+    {
+        SAXParserFactory factory = SAX_PARSER_FACTORIES.get(key);
+        if (factory == null)
+        {
+            factory = SAXParserFactory.newInstance();
+            factory.setValidating(validating);
+            factory.setNamespaceAware(namespaceAware);
+
+            SAXParserFactory oldFactory =
+                    SAX_PARSER_FACTORIES.putIfAbsent(key, factory);
+            if (oldFactory != null)
+            {
+                factory = oldFactory;
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * Generates the key for a factory or a pooled object from the given
+     * settings. The key also contains the value of the system property which
+     * selects the factory implementation; so a change of this property is
+     * taken into account.
+     *
+     * @param factoryProperty the name of the system property for the factory
+     * @param flags the settings
+     * @return the key
+     */
+    private static String createKey(String factoryProperty, boolean... flags)
+    {
+        StringBuilder buf = new StringBuilder();
+        buf.append(System.getProperty(factoryProperty)).append(':');
+        for (boolean f : flags)
+        {
+            buf.append(f ? '1' : '0');
+        }
+        return buf.toString();
+    }
+
+    /**
+     * A class storing the reusable objects of a thread. For each key at most
+     * one idle object is kept. Objects which have been handed out are
+     * recorded together with their keys.
+     */
+    private static class PoolData
+    {
+        /** The idle objects. */
+        private final Map<String, Object> idleObjects =
+                new HashMap<String, Object>();
+
+        /** The objects currently in use. */
+        private final Map<Object, String> activeObjects =
+                new IdentityHashMap<Object, String>();
+
+        /**
+         * Removes the idle object with the given key.
+         *
+         * @param key the key
+         * @return the object or <b>null</b> if there is none
+         */
+        public Object take(String key)
+        {
+            return idleObjects.remove(key);
+        }
+
+        /**
+         * Stores an idle object for the given key.
+         *
+         * @param key the key
+         * @param obj the object
+         */
+        public void put(String key, Object obj)
+        {
+            idleObjects.put(key, obj);
+        }
+
+        /**
+         * Records that the given object has been handed out.
+         *
+         * @param obj the object
+         * @param key the key of the object
+         */
+        public void checkOut(Object obj, String key)
+        {
+            activeObjects.put(obj, key);
+        }
+
+        /**
+         * Records that the given object has been handed back.
+         *
+         * @param obj the object
+         * @return the key of the object or <b>null</b> if it has not been
+         *         handed out
+         */
+        public String checkIn(Object obj)
+        {
+            return (obj != null) ? activeObjects.remove(obj) : null;
+        }
+    }
+}
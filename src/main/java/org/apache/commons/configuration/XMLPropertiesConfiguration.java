@@ -24,7 +24,6 @@ import java.util.Iterator;
 import java.util.List;
 
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.commons.configuration.io.FileLocator;
 import org.apache.commons.configuration.io.FileLocatorAware;
@@ -136,13 +135,10 @@ public class XMLPropertiesConfiguration extends BaseConfiguration implements
 
     public void read(Reader in) throws ConfigurationException
     {
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        factory.setNamespaceAware(false);
-        factory.setValidating(true);
-
+        SAXParser parser = null;
         try
         {
-            SAXParser parser = factory.newSAXParser();
+            parser = XMLParserPool.acquireSAXParser(true, false, false);
 
             XMLReader xmlReader = parser.getXMLReader();
             xmlReader.setEntityResolver(new EntityResolver()
@@ -159,6 +155,10 @@ public class XMLPropertiesConfiguration extends BaseConfiguration implements
         {
             throw new ConfigurationException("Unable to parse the configuration file", e);
         }
+        finally
+        {
+            XMLParserPool.releaseSAXParser(parser);
+        }
 
         // todo: support included properties ?
     }
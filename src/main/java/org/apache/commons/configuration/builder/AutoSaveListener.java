@@ -16,11 +16,20 @@
  */
 package org.apache.commons.configuration.builder;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.event.ConfigurationEvent;
 import org.apache.commons.configuration.event.ConfigurationListener;
 import org.apache.commons.configuration.io.FileHandler;
 import org.apache.commons.configuration.io.FileHandlerListenerAdapter;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -41,6 +50,28 @@ import org.apache.commons.logging.LogFactory;
  * corruption of the source file. This is achieved by monitoring the associated
  * {@code FileHandler}: during load operations no auto-save is performed.
  * </p>
+ * <p>
+ * Per default, every change causes a save operation. Alternatively, changes can
+ * be collected: If a save delay is set, a save operation is scheduled on an
+ * executor service after the first change; it is performed when no further
+ * changes have been received for the delay period, or earlier if the maximum
+ * number of pending changes is reached. Such batched save operations are
+ * performed by {@link FileHandler#saveAtomically()}. If such an operation
+ * fails, the changes remain pending, and the save is retried after the delay.
+ * </p>
+ * <p>
+ * Batched save operations run on a different thread than the updates of the
+ * configuration. To prevent that a configuration is written while it is
+ * modified, the listener keeps track of the threads which have sent a
+ * before-update event, but not yet the corresponding after-update event. A
+ * save operation waits until there are no such updates in progress, and new
+ * updates wait until the save operation is complete. No lock is held between
+ * the two events; so an update which fails with an exception and never sends
+ * its after-update event cannot block save operations forever: Updates of
+ * threads which have terminated are ignored, and updates which have not
+ * completed after a timeout are considered to have failed. This tracking is
+ * only done if a save delay is set.
+ * </p>
  *
  * @version $Id: $
  * @since 2.0
@@ -48,12 +79,24 @@ import org.apache.commons.logging.LogFactory;
 class AutoSaveListener extends FileHandlerListenerAdapter implements
         ConfigurationListener
 {
+    /**
+     * The maximum time in milliseconds a save operation waits for updates in
+     * progress to complete.
+     */
+    private static final long UPDATE_TIMEOUT = 1000;
+
     /** The logger. */
     private final Log log = LogFactory.getLog(getClass());
 
     /** The associated builder. */
     private final FileBasedConfigurationBuilder<?> builder;
 
+    /**
+     * Stores the threads performing an update of the configuration together
+     * with the nesting depth of their updates.
+     */
+    private final Map<Thread, Integer> updates = new HashMap<Thread, Integer>();
+
     /** Stores the file handler monitored by this listener. */
     private FileHandler handler;
 
@@ -63,6 +106,33 @@ class AutoSaveListener extends FileHandlerListenerAdapter implements
      */
     private int loading;
 
+    /** The delay for batched save operations in milliseconds. */
+    private long saveDelay;
+
+    /** The maximum number of changes before a batched save is forced. */
+    private int maxChanges;
+
+    /** The executor service for batched save operations. */
+    private ScheduledExecutorService executorService;
+
+    /** The number of changes not yet saved. */
+    private int pendingChanges;
+
+    /** The time of the last change in nanoseconds. */
+    private long lastChangeTime;
+
+    /** The currently scheduled save task. */
+    private SaveTask scheduledTask;
+
+    /** The future of the currently scheduled save task. */
+    private ScheduledFuture<?> scheduledFuture;
+
+    /** A flag whether this listener has been closed. */
+    private boolean closed;
+
+    /** A flag whether a save operation is in progress. */
+    private boolean saving;
+
     /**
      * Creates a new instance of {@code AutoSaveListener} and initializes it
      * with the associated builder.
@@ -78,11 +148,19 @@ class AutoSaveListener extends FileHandlerListenerAdapter implements
      * {@inheritDoc} This implementation checks whether an auto-safe operation
      * should be performed. This is the case if the event indicates that an
      * update of the configuration has been performed and currently no load
-     * operation is in progress.
+     * operation is in progress. In addition, it keeps track of the updates in
+     * progress.
      */
     public void configurationChanged(ConfigurationEvent event)
     {
-        if (autoSaveRequired(event))
+        if (event.isBeforeUpdate())
+        {
+            updateStarted();
+            return;
+        }
+        updateCompleted();
+
+        if (autoSaveRequired(event) && !scheduleSave())
         {
             try
             {
@@ -95,6 +173,77 @@ class AutoSaveListener extends FileHandlerListenerAdapter implements
         }
     }
 
+    /**
+     * Sets the parameters for batched save operations. If the delay is greater
+     * than 0, changes are collected and saved by a background task after the
+     * delay has passed without further changes. If the maximum number of
+     * changes is greater than 0, the save task is triggered immediately when
+     * this number of changes is reached.
+     *
+     * @param delay the save delay in milliseconds (0 for saving each change
+     *        directly)
+     * @param changes the maximum number of pending changes (0 for no limit)
+     * @param exec the executor service for save operations (can be
+     *        <b>null</b>, then a default executor service is used)
+     */
+    public synchronized void setBatchParameters(long delay, int changes,
+            ScheduledExecutorService exec)
+    {
+        saveDelay = delay;
+        maxChanges = changes;
+        executorService = exec;
+    }
+
+    /**
+     * Saves all pending changes directly. If there are no pending changes, this
+     * method has no effect.
+     *
+     * @throws ConfigurationException if an error occurs
+     */
+    public void flush() throws ConfigurationException
+    {
+        int changes = resetPendingChanges(null);
+        if (changes > 0)
+        {
+            try
+            {
+                saveBatch();
+            }
+            catch (ConfigurationException cex)
+            {
+                saveFailed(changes);
+                throw cex;
+            }
+        }
+    }
+
+    /**
+     * Closes this listener. This method is called by the builder when auto
+     * save mode is disabled. A scheduled save task is canceled; pending changes
+     * are saved directly. Afterwards, this listener does not save any changes.
+     */
+    public void close()
+    {
+        int changes;
+        synchronized (this)
+        {
+            closed = true;
+            changes = resetPendingChanges(null);
+        }
+
+        if (changes > 0)
+        {
+            try
+            {
+                saveBatch();
+            }
+            catch (ConfigurationException cex)
+            {
+                log.warn("Auto save failed!", cex);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc} This implementation increments the counter for load
      * operations in progress.
@@ -155,8 +304,333 @@ class AutoSaveListener extends FileHandlerListenerAdapter implements
      * @return <b>true</b> if a save operation should be performed, <b>false</b>
      *         otherwise
      */
-    private boolean autoSaveRequired(ConfigurationEvent event)
+    private synchronized boolean autoSaveRequired(ConfigurationEvent event)
+    {
+        return !event.isBeforeUpdate() && !inLoadOperation() && !closed;
+    }
+
+    /**
+     * Records that the current thread starts an update of the configuration.
+     * If a save operation is in progress, this method waits until it is
+     * complete; unless the thread is already performing an update, i.e. this
+     * is a nested update. If no save delay is set, this method has no effect.
+     */
+    private synchronized void updateStarted()
+    {
+        if (saveDelay <= 0)
+        {
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        Integer depth = updates.get(thread);
+        if (depth == null)
+        {
+            while (saving)
+            {
+                try
+                {
+                    wait();
+                }
+                catch (InterruptedException iex)
+                {
+                    thread.interrupt();
+                    break;
+                }
+            }
+            updates.put(thread, Integer.valueOf(1));
+        }
+        else
+        {
+            updates.put(thread, Integer.valueOf(depth.intValue() + 1));
+        }
+    }
+
+    /**
+     * Records that the current thread has completed an update of the
+     * configuration.
+     */
+    private synchronized void updateCompleted()
+    {
+        if (updates.isEmpty())
+        {
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        Integer depth = updates.get(thread);
+        if (depth != null)
+        {
+            if (depth.intValue() > 1)
+            {
+                updates.put(thread, Integer.valueOf(depth.intValue() - 1));
+            }
+            else
+            {
+                updates.remove(thread);
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Marks the start of a save operation. Waits until other save operations
+     * and the updates in progress are complete. An update of the current
+     * thread or of a thread which has terminated is ignored; it must have
+     * failed without sending an after-update event. The same is true for
+     * updates which are not complete after a timeout.
+     *
+     * @throws ConfigurationException if the thread is interrupted
+     */
+    private synchronized void beginSave() throws ConfigurationException
+    {
+        long deadline =
+                System.nanoTime()
+                        + TimeUnit.MILLISECONDS.toNanos(UPDATE_TIMEOUT);
+        boolean started = false;
+        try
+        {
+            while (saving)
+            {
+                wait();
+            }
+            saving = true;
+            started = true;
+
+            updates.remove(Thread.currentThread());
+            while (removeTerminatedUpdates())
+            {
+                long remaining =
+                        TimeUnit.NANOSECONDS.toMillis(deadline
+                                - System.nanoTime());
+                if (remaining <= 0)
+                {
+                    log.warn("Ignoring updates which did not complete: "
+                            + updates.keySet());
+                    updates.clear();
+                    break;
+                }
+                wait(remaining);
+            }
+        }
+        catch (InterruptedException iex)
+        {
+            Thread.currentThread().interrupt();
+            if (started)
+            {
+                endSave();
+            }
+            throw new ConfigurationException(
+                    "Interrupted when waiting for updates to complete!", iex);
+        }
+    }
+
+    /**
+     * Marks the end of a save operation. Updates waiting for the save
+     * operation can continue.
+     */
+    private synchronized void endSave()
+    {
+        saving = false;
+        notifyAll();
+    }
+
+    /**
+     * Removes the updates of threads which have terminated. Such updates
+     * cannot be complete.
+     *
+     * @return a flag whether there are remaining updates in progress
+     */
+    private boolean removeTerminatedUpdates()
+    {
+        for (Iterator<Thread> it = updates.keySet().iterator(); it.hasNext();)
+        {
+            if (!it.next().isAlive())
+            {
+                it.remove();
+            }
+        }
+        return !updates.isEmpty();
+    }
+
+    /**
+     * Records a change if batched save operations are enabled and makes sure
+     * that a save task is scheduled.
+     *
+     * @return <b>true</b> if the change is saved by a batch, <b>false</b> if it
+     *         has to be saved directly
+     */
+    private synchronized boolean scheduleSave()
+    {
+        if (saveDelay <= 0)
+        {
+            return false;
+        }
+
+        pendingChanges++;
+        lastChangeTime = System.nanoTime();
+        if (maxChanges > 0 && pendingChanges >= maxChanges)
+        {
+            scheduleTask(0);
+        }
+        else if (scheduledTask == null)
+        {
+            scheduleTask(saveDelay);
+        }
+        return true;
+    }
+
+    /**
+     * Schedules a new save task replacing the current one.
+     *
+     * @param delay the delay in milliseconds
+     */
+    private void scheduleTask(long delay)
+    {
+        if (scheduledFuture != null)
+        {
+            scheduledFuture.cancel(false);
+        }
+        scheduledTask = new SaveTask();
+        scheduledFuture =
+                fetchExecutorService().schedule(scheduledTask, delay,
+                        TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called by a save task when it is executed. Checks whether the pending
+     * changes are to be saved now. If the delay has not yet passed since the
+     * last change, the task is rescheduled.
+     *
+     * @param task the task
+     * @return the number of pending changes to be saved now (0 if there is
+     *         nothing to save)
+     */
+    private synchronized int saveTaskTriggered(SaveTask task)
+    {
+        if (task != scheduledTask)
+        {
+            return 0;
+        }
+
+        long remaining =
+                saveDelay
+                        - TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+                                - lastChangeTime);
+        if (remaining > 0 && (maxChanges <= 0 || pendingChanges < maxChanges))
+        {
+            scheduledFuture = null; // the current task need not be canceled
+            scheduleTask(remaining);
+            return 0;
+        }
+        return resetPendingChanges(task);
+    }
+
+    /**
+     * Called when a batched save operation failed. The changes which should
+     * have been saved are pending again, and a new save task is scheduled
+     * unless this has already been done because of further changes.
+     *
+     * @param changes the number of changes which could not be saved
+     */
+    private synchronized void saveFailed(int changes)
+    {
+        if (!closed)
+        {
+            pendingChanges += changes;
+            if (scheduledTask == null)
+            {
+                scheduleTask(saveDelay);
+            }
+        }
+    }
+
+    /**
+     * Resets the pending changes and the scheduled task. If a task is passed
+     * in, the scheduled task is not canceled.
+     *
+     * @param task the task currently executed (may be <b>null</b>)
+     * @return the number of pending changes
+     */
+    private synchronized int resetPendingChanges(SaveTask task)
+    {
+        if (task == null && scheduledFuture != null)
+        {
+            scheduledFuture.cancel(false);
+        }
+        scheduledTask = null;
+        scheduledFuture = null;
+        int changes = pendingChanges;
+        pendingChanges = 0;
+        return changes;
+    }
+
+    /**
+     * Writes the batched changes. Updates in progress are completed before,
+     * and no updates can start while the configuration is saved.
+     *
+     * @throws ConfigurationException if an error occurs
+     */
+    private void saveBatch() throws ConfigurationException
+    {
+        FileHandler fh = builder.getFileHandler();
+        beginSave();
+        try
+        {
+            fh.saveAtomically();
+        }
+        finally
+        {
+            endSave();
+        }
+    }
+
+    /**
+     * Returns the executor service for save tasks. If none has been set, the
+     * default executor service is used.
+     *
+     * @return the executor service
+     */
+    private ScheduledExecutorService fetchExecutorService()
+    {
+        return (executorService != null) ? executorService
+                : DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * The task which saves batched changes.
+     */
+    private class SaveTask implements Runnable
+    {
+        public void run()
+        {
+            int changes = saveTaskTriggered(this);
+            if (changes > 0)
+            {
+                try
+                {
+                    saveBatch();
+                }
+                catch (ConfigurationException ce)
+                {
+                    log.warn("Auto save failed, will retry!", ce);
+                    saveFailed(changes);
+                }
+            }
+        }
+    }
+
+    /**
+     * A holder class for the lazily created default executor service. It uses
+     * a single daemon thread.
+     */
+    private static class DefaultExecutorHolder
     {
-        return !event.isBeforeUpdate() && !inLoadOperation();
+        /** The default executor service. */
+        static final ScheduledExecutorService EXECUTOR =
+                Executors.newScheduledThreadPool(1,
+                        new BasicThreadFactory.Builder()
+                                .namingPattern("AutoSave-%s").daemon(true)
+                                .build());
     }
 }
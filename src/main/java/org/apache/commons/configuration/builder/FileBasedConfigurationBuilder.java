@@ -19,6 +19,8 @@ package org.apache.commons.configuration.builder;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.FileBasedConfiguration;
@@ -50,6 +52,16 @@ import org.apache.commons.lang3.StringUtils;
  * initialization parameters are reset by calling {@code resetParameters()} the
  * location is reset, too.
  * </p>
+ * <p>
+ * In auto save mode the managed configuration is saved automatically when it
+ * is changed. Per default, each change is written directly. For configurations
+ * which are updated in bulk, a save delay can be set: Then changes are
+ * collected and written by a background task when no further changes have
+ * happened for this period (or when a maximum number of changes has been
+ * reached). Such batched save operations replace the target file atomically.
+ * Note that the background task accesses the configuration from another
+ * thread.
+ * </p>
  *
  * @version $Id$
  * @since 2.0
@@ -72,6 +84,15 @@ public class FileBasedConfigurationBuilder<T extends FileBasedConfiguration>
     /** A flag whether the builder's parameters were reset. */
     private boolean resetParameters;
 
+    /** The delay for batched auto save operations in milliseconds. */
+    private long autoSaveDelay;
+
+    /** The maximum number of changes collected by batched auto save. */
+    private int autoSaveMaxChanges;
+
+    /** The executor service for batched auto save operations. */
+    private ScheduledExecutorService autoSaveExecutor;
+
     /**
      * Creates a new instance of {@code FileBasedConfigurationBuilder} which
      * produces result objects of the specified class.
@@ -241,7 +262,8 @@ public class FileBasedConfigurationBuilder<T extends FileBasedConfiguration>
     /**
      * Enables or disables auto save mode. If auto save mode is enabled, every
      * update of the managed configuration causes it to be saved automatically;
-     * so changes are directly written to disk.
+     * so changes are directly written to disk. When auto save mode is disabled,
+     * changes collected for a batched save operation are saved immediately.
      *
      * @param enabled <b>true</b> if auto save mode is to be enabled,
      *        <b>false</b> otherwise
@@ -258,6 +280,117 @@ public class FileBasedConfigurationBuilder<T extends FileBasedConfiguration>
         }
     }
 
+    /**
+     * Returns the delay for batched auto save operations in milliseconds. A
+     * value of 0 means that each change is saved directly.
+     *
+     * @return the auto save delay in milliseconds
+     */
+    public synchronized long getAutoSaveDelay()
+    {
+        return autoSaveDelay;
+    }
+
+    /**
+     * Sets the delay for batched auto save operations. If the delay is greater
+     * than 0, changes of the managed configuration are not saved directly.
+     * Rather, they are written by a background task when no further changes
+     * have happened for the specified period. A value of 0 (which is the
+     * default) causes each change to be saved directly.
+     *
+     * @param delay the delay
+     * @param unit the time unit of the delay (must not be <b>null</b>)
+     * @throws IllegalArgumentException if the delay is negative or the time
+     *         unit is <b>null</b>
+     */
+    public synchronized void setAutoSaveDelay(long delay, TimeUnit unit)
+    {
+        if (delay < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Auto save delay must not be negative: " + delay);
+        }
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("Time unit must not be null!");
+        }
+        autoSaveDelay = unit.toMillis(delay);
+        updateAutoSaveListener();
+    }
+
+    /**
+     * Returns the maximum number of changes collected by batched auto save
+     * operations. A value of 0 means that there is no limit.
+     *
+     * @return the maximum number of changes
+     */
+    public synchronized int getAutoSaveMaxChanges()
+    {
+        return autoSaveMaxChanges;
+    }
+
+    /**
+     * Sets the maximum number of changes collected by batched auto save
+     * operations. If this number of changes is reached, they are saved without
+     * waiting for the auto save delay to pass. This setting is evaluated only
+     * if an auto save delay is set. A value of 0 (which is the default) means
+     * that there is no limit.
+     *
+     * @param maxChanges the maximum number of changes
+     * @throws IllegalArgumentException if the number is negative
+     */
+    public synchronized void setAutoSaveMaxChanges(int maxChanges)
+    {
+        if (maxChanges < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Maximum number of changes must not be negative: "
+                            + maxChanges);
+        }
+        autoSaveMaxChanges = maxChanges;
+        updateAutoSaveListener();
+    }
+
+    /**
+     * Returns the executor service used for batched auto save operations. Result
+     * is <b>null</b> if no executor service has been set.
+     *
+     * @return the auto save executor service
+     */
+    public synchronized ScheduledExecutorService getAutoSaveExecutor()
+    {
+        return autoSaveExecutor;
+    }
+
+    /**
+     * Sets the executor service used for batched auto save operations. If no
+     * executor service is set, a default one is used which is shared by all
+     * builders and runs a single daemon thread.
+     *
+     * @param exec the executor service (can be <b>null</b>)
+     */
+    public synchronized void setAutoSaveExecutor(ScheduledExecutorService exec)
+    {
+        autoSaveExecutor = exec;
+        updateAutoSaveListener();
+    }
+
+    /**
+     * Saves the changes collected by batched auto save operations directly.
+     * This method should be called before the application terminates if a save
+     * delay is set; otherwise, the latest changes may get lost. If auto save is
+     * disabled or no changes are pending, this method has no effect.
+     *
+     * @throws ConfigurationException if an error occurs
+     */
+    public synchronized void flushAutoSave() throws ConfigurationException
+    {
+        if (autoSaveListener != null)
+        {
+            autoSaveListener.flush();
+        }
+    }
+
     /**
      * {@inheritDoc} This implementation deals with the creation and
      * initialization of a {@code FileHandler} associated with the new result
@@ -331,19 +464,36 @@ public class FileBasedConfigurationBuilder<T extends FileBasedConfiguration>
         if (autoSaveListener == null)
         {
             autoSaveListener = new AutoSaveListener(this);
+            updateAutoSaveListener();
             addConfigurationListener(autoSaveListener);
             autoSaveListener.updateFileHandler(getFileHandler());
         }
     }
 
+    /**
+     * Passes the current settings for batched save operations to the auto save
+     * listener if it is active.
+     */
+    private void updateAutoSaveListener()
+    {
+        if (autoSaveListener != null)
+        {
+            autoSaveListener.setBatchParameters(autoSaveDelay,
+                    autoSaveMaxChanges, autoSaveExecutor);
+        }
+    }
+
     /**
      * Removes the listener for the auto save mechanism if it is currently
-     * active.
+     * active. The listener is closed before; so changes collected by it which
+     * have not yet been saved are written now, and a scheduled save task is
+     * canceled.
      */
     private void removeAutoSaveListener()
     {
         if (autoSaveListener != null)
         {
+            autoSaveListener.close();
             removeConfigurationListener(autoSaveListener);
             autoSaveListener.updateFileHandler(null);
             autoSaveListener = null;
@@ -59,6 +59,9 @@ public class XMLBuilderParametersImpl extends HierarchicalBuilderParametersImpl
     /** The key for the schema validation flag. */
     private static final String PROP_SCHEMA_VALIDATION = "schemaValidation";
 
+    /** The key for the streaming load property. */
+    private static final String PROP_STREAMING_LOAD = "streamingLoad";
+
     public XMLBuilderParametersImpl setDocumentBuilder(
             DocumentBuilder docBuilder)
     {
@@ -106,4 +109,10 @@ public class XMLBuilderParametersImpl extends HierarchicalBuilderParametersImpl
         storeProperty(PROP_SCHEMA_VALIDATION, Boolean.valueOf(f));
         return this;
     }
+
+    public XMLBuilderParametersImpl setStreamingLoad(boolean f)
+    {
+        storeProperty(PROP_STREAMING_LOAD, Boolean.valueOf(f));
+        return this;
+    }
 }
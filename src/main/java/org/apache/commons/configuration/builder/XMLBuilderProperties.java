@@ -86,4 +86,14 @@ public interface XMLBuilderProperties<T>
      * @return a reference to this object for method chaining
      */
     T setSchemaValidation(boolean f);
+
+    /**
+     * Sets a flag whether XML documents should be loaded in streaming mode.
+     * In this mode, no DOM is kept for the loaded document.
+     *
+     * @param f the streaming load flag
+     * @return a reference to this object for method chaining
+     * @since 2.0
+     */
+    T setStreamingLoad(boolean f);
 }
@@ -21,6 +21,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>
@@ -35,7 +37,10 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * </p>
  * <p>
  * Adding and removing event listeners can happen concurrently to manipulations
- * on a configuration that cause events. The operations are synchronized.
+ * on a configuration that cause events. The operations are thread-safe, but
+ * do not require locking: if no listeners are registered or if an event is
+ * suppressed because detail events are disabled, firing an event is a cheap
+ * operation.
  * </p>
  * <p>
  * With the {@code detailEvents} property the number of detail events can
@@ -62,6 +67,20 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * {@code fireError()} method can be used by derived classes to send
  * notifications about errors to registered observers.
  * </p>
+ * <p>
+ * Per default, configuration events are delivered synchronously in the thread
+ * which caused the event. Optionally, an {@code Executor} can be set using the
+ * {@link #setEventExecutor(Executor)} method. Then events are passed to
+ * listeners asynchronously by tasks submitted to this executor. This is
+ * useful if listeners perform expensive operations which should not block
+ * the thread manipulating the configuration. Note, however, that in this
+ * mode listeners are notified after the method causing the event has
+ * returned; so this mode should not be used if listeners rely on
+ * &quot;before update&quot; events being delivered in time. The order in
+ * which events are received depends on the executor; a single-threaded
+ * executor preserves the order in which the events were fired. Error events
+ * are always delivered synchronously.
+ * </p>
  *
  * @author <a href="http://commons.apache.org/configuration/team-list.html">Commons Configuration team</a>
  * @version $Id$
@@ -75,11 +94,11 @@ public class BaseEventSource implements EventSource
     /** A collection for the registered error listeners.*/
     private Collection<ConfigurationErrorListener> errorListeners;
 
-    /** A lock object for guarding access to the detail events counter. */
-    private final Object lockDetailEventsCount = new Object();
-
     /** A counter for the detail events. */
-    private int detailEvents;
+    private AtomicInteger detailEvents = new AtomicInteger();
+
+    /** An optional executor for asynchronous event delivery. */
+    private volatile Executor eventExecutor;
 
     /**
      * Creates a new instance of {@code BaseEventSource}.
@@ -143,17 +162,42 @@ public class BaseEventSource implements EventSource
      */
     public void setDetailEvents(boolean enable)
     {
-        synchronized (lockDetailEventsCount)
+        if (enable)
         {
-            if (enable)
-            {
-                detailEvents++;
-            }
-            else
-            {
-                detailEvents--;
-            }
+            detailEvents.incrementAndGet();
         }
+        else
+        {
+            detailEvents.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the {@code Executor} used for delivering configuration events
+     * asynchronously. Result is <b>null</b> if events are delivered
+     * synchronously.
+     *
+     * @return the executor for event delivery
+     * @since 2.0
+     */
+    public Executor getEventExecutor()
+    {
+        return eventExecutor;
+    }
+
+    /**
+     * Sets an {@code Executor} for delivering configuration events
+     * asynchronously. If an executor is set, each event is passed to the
+     * registered listeners by a task submitted to this executor. Passing in
+     * <b>null</b> switches back to synchronous event delivery, which is the
+     * default.
+     *
+     * @param executor the executor for event delivery (can be <b>null</b>)
+     * @since 2.0
+     */
+    public void setEventExecutor(Executor executor)
+    {
+        eventExecutor = executor;
     }
 
     public void addErrorListener(ConfigurationErrorListener l)
@@ -193,9 +237,10 @@ public class BaseEventSource implements EventSource
 
     /**
      * Creates an event object and delivers it to all registered event
-     * listeners. The method will check first if sending an event is allowed
-     * (making use of the {@code detailEvents} property), and if
-     * listeners are registered.
+     * listeners. The method will check first if listeners are registered and
+     * if sending an event is allowed (making use of the {@code detailEvents}
+     * property). If an event executor is set, the listeners are notified
+     * asynchronously.
      *
      * @param type the event's type
      * @param propName the name of the affected property (can be <b>null</b>)
@@ -204,16 +249,21 @@ public class BaseEventSource implements EventSource
      */
     protected void fireEvent(int type, String propName, Object propValue, boolean before)
     {
-        if (checkDetailEvents(-1))
+        if (!listeners.isEmpty() && checkDetailEvents(-1))
         {
             Iterator<ConfigurationListener> it = listeners.iterator();
             if (it.hasNext())
             {
                 ConfigurationEvent event =
                         createEvent(type, propName, propValue, before);
-                while (it.hasNext())
+                Executor executor = getEventExecutor();
+                if (executor == null)
+                {
+                    deliverEvent(it, event);
+                }
+                else
                 {
-                    it.next().configurationChanged(event);
+                    executor.execute(new EventDeliveryTask(it, event));
                 }
             }
         }
@@ -292,6 +342,7 @@ public class BaseEventSource implements EventSource
     {
         BaseEventSource copy = (BaseEventSource) super.clone();
         copy.initListeners();
+        copy.detailEvents = new AtomicInteger(detailEvents.get());
         return copy;
     }
 
@@ -329,9 +380,56 @@ public class BaseEventSource implements EventSource
      */
     private boolean checkDetailEvents(int limit)
     {
-        synchronized (lockDetailEventsCount)
+        return detailEvents.get() > limit;
+    }
+
+    /**
+     * Passes the given event to all listeners provided by the iterator.
+     *
+     * @param it the iterator with the listeners to be notified
+     * @param event the event
+     */
+    private static void deliverEvent(Iterator<ConfigurationListener> it,
+            ConfigurationEvent event)
+    {
+        while (it.hasNext())
+        {
+            it.next().configurationChanged(event);
+        }
+    }
+
+    /**
+     * A task for delivering a configuration event asynchronously. The task
+     * is initialized with the listeners registered at the time the event was
+     * fired.
+     */
+    private static class EventDeliveryTask implements Runnable
+    {
+        /** The iterator with the listeners to be notified. */
+        private final Iterator<ConfigurationListener> listenerIterator;
+
+        /** The event to be delivered. */
+        private final ConfigurationEvent event;
+
+        /**
+         * Creates a new instance of {@code EventDeliveryTask}.
+         *
+         * @param it the iterator with the listeners to be notified
+         * @param ev the event to be delivered
+         */
+        public EventDeliveryTask(Iterator<ConfigurationListener> it,
+                ConfigurationEvent ev)
+        {
+            listenerIterator = it;
+            event = ev;
+        }
+
+        /**
+         * Delivers the event to the listeners.
+         */
+        public void run()
         {
-            return detailEvents > limit;
+            deliverEvent(listenerIterator, event);
         }
     }
 }
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.lang3.text.StrLookup;
@@ -76,6 +77,14 @@ import org.apache.commons.lang3.text.StrSubstitutor;
  * values of specific variables without performing interpolation.
  * </p>
  * <p>
+ * String values passed to {@code interpolate()} are parsed only once: the
+ * structure of a value (its literal text and the variables it contains) is
+ * cached, so that later interpolations of the same value only have to
+ * resolve the variables. Values which do not contain variables are returned
+ * directly. Because the cache is keyed by the raw value, a changed value is
+ * simply parsed again.
+ * </p>
+ * <p>
  * Implementation node: This class is thread-safe. Lookup objects can be added
  * or removed at any time concurrent to interpolation operations.
  * </p>
@@ -91,6 +100,12 @@ public class ConfigurationInterpolator
     /** Constant for the prefix separator. */
     private static final char PREFIX_SEPARATOR = ':';
 
+    /** Constant for the character starting a variable. */
+    private static final char VAR_START = '$';
+
+    /** Constant for the maximum number of cached templates. */
+    private static final int TEMPLATE_CACHE_SIZE = 1024;
+
     /** A map containing the default prefix lookups. */
     private static final Map<String, Lookup> DEFAULT_PREFIX_LOOKUPS;
 
@@ -103,6 +118,9 @@ public class ConfigurationInterpolator
     /** The helper object performing variable substitution. */
     private final StrSubstitutor substitutor;
 
+    /** A cache for the templates of interpolated values. */
+    private final ConcurrentMap<String, InterpolationTemplate> templateCache;
+
     /** Stores a parent interpolator objects if the interpolator is nested hierarchically. */
     private volatile ConfigurationInterpolator parentInterpolator;
 
@@ -114,6 +132,7 @@ public class ConfigurationInterpolator
         prefixLookups = new ConcurrentHashMap<String, Lookup>();
         defaultLookups = new CopyOnWriteArrayList<Lookup>();
         substitutor = initSubstitutor();
+        templateCache = new ConcurrentHashMap<String, InterpolationTemplate>();
     }
 
     /**
@@ -378,7 +397,13 @@ public class ConfigurationInterpolator
     {
         if (value instanceof String)
         {
-            return substitutor.replace((String) value);
+            String strValue = (String) value;
+            if (strValue.indexOf(VAR_START) < 0)
+            {
+                // no variables
+                return strValue;
+            }
+            return fetchTemplate(strValue).interpolate(this);
         }
         return value;
     }
@@ -447,6 +472,42 @@ public class ConfigurationInterpolator
         return nullSafeLookup(prefixLookups.get(prefix));
     }
 
+    /**
+     * Performs variable substitution on the given string using the internal
+     * {@code StrSubstitutor}. This method is called by templates which
+     * cannot handle a value on their own.
+     *
+     * @param value the value to be processed
+     * @return the value with all variables substituted
+     */
+    String substitute(String value)
+    {
+        return substitutor.replace(value);
+    }
+
+    /**
+     * Returns the template for the given value. The template is obtained from
+     * the cache or created if necessary. If the cache becomes too large, it is
+     * cleared.
+     *
+     * @param value the value
+     * @return the template for this value
+     */
+    private InterpolationTemplate fetchTemplate(String value)
+    {
+        InterpolationTemplate template = templateCache.get(value);
+        if (template == null)
+        {
+            template = InterpolationTemplate.compile(value);
+            if (templateCache.size() >= TEMPLATE_CACHE_SIZE)
+            {
+                templateCache.clear();
+            }
+            templateCache.put(value, template);
+        }
+        return template;
+    }
+
     /**
      * Creates and initializes a {@code StrSubstitutor} object which is used for
      * variable substitution. This {@code StrSubstitutor} is assigned a
@@ -17,13 +17,17 @@
 package org.apache.commons.configuration.interpol;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.configuration.AbstractConfiguration;
 import org.apache.commons.configuration.ConfigurationRuntimeException;
 import org.apache.commons.jexl2.Expression;
 import org.apache.commons.jexl2.JexlContext;
 import org.apache.commons.jexl2.JexlEngine;
-import org.apache.commons.jexl2.MapContext;
 import org.apache.commons.lang.ClassUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.text.StrLookup;
@@ -59,6 +63,11 @@ import org.apache.commons.lang.text.StrSubstitutor;
  * This lookup uses Apache Commons Jexl and requires that the dependency be added to any
  * projects which use this.
  *
+ * Compiled expressions are cached, so evaluating the same expression again is
+ * cheap. The variables are collected when they are set; so changes on
+ * {@code Variable} objects after the call of {@code setVariables()} are not
+ * visible in expressions.
+ *
  * @since 1.7
  * @author <a
  * href="http://commons.apache.org/configuration/team-list.html">Commons Configuration team</a>
@@ -75,6 +84,9 @@ public class ExprLookup implements Lookup
     /** The default suffix for subordinate lookup expressions */
     private static final String DEFAULT_SUFFIX = "]";
 
+    /** The maximum number of cached expressions */
+    private static final int EXPRESSION_CACHE_SIZE = 256;
+
     /** Configuration being operated on */
     private AbstractConfiguration configuration;
 
@@ -82,11 +94,18 @@ public class ExprLookup implements Lookup
     private StrSubstitutor substitutor;
 
     /** The engine. */
-    private final JexlEngine engine = new JexlEngine();
+    private final JexlEngine engine = createEngine();
+
+    /** A cache for the expressions created by the engine. */
+    private final ConcurrentMap<String, Expression> expressionCache =
+            new ConcurrentHashMap<String, Expression>();
 
     /** The variables maintained by this object. */
     private Variables variables;
 
+    /** The values of the variables, shared by all evaluations. */
+    private volatile Map<String, Object> variableValues = Collections.emptyMap();
+
     /** The String to use to start subordinate lookup expressions */
     private String prefixMatcher = DEFAULT_PREFIX;
 
@@ -151,6 +170,7 @@ public class ExprLookup implements Lookup
     public void setVariables(Variables list)
     {
         variables = new Variables(list);
+        variableValues = createVariableValues(variables);
     }
 
     /**
@@ -187,8 +207,8 @@ public class ExprLookup implements Lookup
         String result = substitutor.replace(var);
         try
         {
-            Expression exp = engine.createExpression(result);
-            result = (String) exp.evaluate(createContext());
+            Expression exp = fetchExpression(result);
+            result = (String) exp.evaluate(new LookupContext(variableValues));
         }
         catch (Exception e)
         {
@@ -231,29 +251,101 @@ public class ExprLookup implements Lookup
     }
 
     /**
-     * Creates a new {@code JexlContext} and initializes it with the variables
-     * managed by this Lookup object.
+     * Returns the compiled expression for the specified string. Expressions
+     * are cached; if the cache is full, it is cleared.
+     *
+     * @param expression the expression string
+     * @return the compiled expression
+     */
+    private Expression fetchExpression(String expression)
+    {
+        Expression exp = expressionCache.get(expression);
+        if (exp == null)
+        {
+            exp = engine.createExpression(expression);
+            if (expressionCache.size() >= EXPRESSION_CACHE_SIZE)
+            {
+                expressionCache.clear();
+            }
+            expressionCache.put(expression, exp);
+        }
+        return exp;
+    }
+
+    /**
+     * Creates the JEXL engine used by this object. The engine's own parse
+     * cache is enabled, too.
      *
-     * @return the newly created context
+     * @return the engine
      */
-    private JexlContext createContext()
+    private static JexlEngine createEngine()
     {
-        JexlContext ctx = new MapContext();
-        initializeContext(ctx);
-        return ctx;
+        JexlEngine jexl = new JexlEngine();
+        jexl.setCache(EXPRESSION_CACHE_SIZE);
+        return jexl;
     }
 
     /**
-     * Initializes the specified context with the variables managed by this
-     * Lookup object.
+     * Creates an unmodifiable map with the values of the given variables.
      *
-     * @param ctx the context to be initialized
+     * @param vars the variables
+     * @return the map with the values of these variables
      */
-    private void initializeContext(JexlContext ctx)
+    private static Map<String, Object> createVariableValues(Variables vars)
     {
-        for (Variable var : variables)
+        Map<String, Object> values = new HashMap<String, Object>();
+        for (Variable var : vars)
+        {
+            values.put(var.getName(), var.getValue());
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * The {@code JexlContext} used for evaluating expressions. It reads the
+     * values of the shared variables. Variables assigned by an expression are
+     * stored in a local map, so that they do not affect other evaluations.
+     */
+    private static class LookupContext implements JexlContext
+    {
+        /** The shared variables. */
+        private final Map<String, Object> variables;
+
+        /** The variables set during the evaluation. */
+        private Map<String, Object> localVariables;
+
+        /**
+         * Creates a new instance of {@code LookupContext}.
+         *
+         * @param vars the shared variables
+         */
+        public LookupContext(Map<String, Object> vars)
+        {
+            variables = vars;
+        }
+
+        public Object get(String name)
+        {
+            if (localVariables != null && localVariables.containsKey(name))
+            {
+                return localVariables.get(name);
+            }
+            return variables.get(name);
+        }
+
+        public void set(String name, Object value)
+        {
+            if (localVariables == null)
+            {
+                localVariables = new HashMap<String, Object>();
+            }
+            localVariables.put(name, value);
+        }
+
+        public boolean has(String name)
         {
-            ctx.set(var.getName(), var.getValue());
+            return (localVariables != null && localVariables.containsKey(name))
+                    || variables.containsKey(name);
         }
     }
 
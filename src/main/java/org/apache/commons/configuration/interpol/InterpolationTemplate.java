@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration.interpol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * An internal helper class representing a parsed string value which is subject
+ * of interpolation.
+ * </p>
+ * <p>
+ * A template splits a value once into literal text and the names of the
+ * variables it contains. Interpolating the value then only requires the
+ * resolution of these variables; the value does not have to be scanned again.
+ * Values which make use of features of the variable syntax not handled by
+ * this class (escaped, unterminated, or nested variable expressions) are
+ * marked as complex; they are always processed by the
+ * {@code StrSubstitutor} of the {@code ConfigurationInterpolator}. This is
+ * also the case if a variable value contains variables itself, so the results
+ * are always the same as produced by {@code StrSubstitutor}.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.0
+ */
+final class InterpolationTemplate
+{
+    /** Constant for the start of a variable. */
+    private static final String VAR_START = "${";
+
+    /** Constant for the end of a variable. */
+    private static final char VAR_END = '}';
+
+    /** Constant for the escape character. */
+    private static final char ESCAPE = '$';
+
+    /** The original value. */
+    private final String value;
+
+    /** The literal parts of the value; one more than variables. */
+    private final String[] literals;
+
+    /** The names of the variables; <b>null</b> for a complex value. */
+    private final String[] variables;
+
+    /**
+     * Creates a new instance of {@code InterpolationTemplate}.
+     *
+     * @param value the original value
+     * @param literals the literal parts
+     * @param variables the names of the variables
+     */
+    private InterpolationTemplate(String value, String[] literals,
+            String[] variables)
+    {
+        this.value = value;
+        this.literals = literals;
+        this.variables = variables;
+    }
+
+    /**
+     * Parses the given value and creates a corresponding template.
+     *
+     * @param value the value to be parsed (must not be <b>null</b>)
+     * @return the template for this value
+     */
+    public static InterpolationTemplate compile(String value)
+    {
+        List<String> lits = new ArrayList<String>();
+        List<String> vars = new ArrayList<String>();
+        int pos = 0;
+        int start;
+        while ((start = value.indexOf(VAR_START, pos)) >= 0)
+        {
+            if (start > 0 && value.charAt(start - 1) == ESCAPE)
+            {
+                return complex(value);
+            }
+            int end = value.indexOf(VAR_END, start);
+            if (end < 0)
+            {
+                return complex(value);
+            }
+            String var = value.substring(start + VAR_START.length(), end);
+            if (var.indexOf(ESCAPE) >= 0)
+            {
+                return complex(value);
+            }
+            lits.add(value.substring(pos, start));
+            vars.add(var);
+            pos = end + 1;
+        }
+        lits.add(value.substring(pos));
+
+        return new InterpolationTemplate(value, lits.toArray(new String[lits
+                .size()]), vars.toArray(new String[vars.size()]));
+    }
+
+    /**
+     * Interpolates the value represented by this template using the given
+     * {@code ConfigurationInterpolator}.
+     *
+     * @param ci the {@code ConfigurationInterpolator}
+     * @return the interpolated value
+     */
+    public String interpolate(ConfigurationInterpolator ci)
+    {
+        if (variables == null)
+        {
+            return ci.substitute(value);
+        }
+        if (variables.length == 0)
+        {
+            return value;
+        }
+
+        StringBuilder buf = new StringBuilder(value.length());
+        buf.append(literals[0]);
+        for (int i = 0; i < variables.length; i++)
+        {
+            Object varValue = ci.resolve(variables[i]);
+            if (varValue == null)
+            {
+                buf.append(VAR_START).append(variables[i]).append(VAR_END);
+            }
+            else
+            {
+                String strValue = varValue.toString();
+                if (strValue.indexOf(VAR_START) >= 0)
+                {
+                    // variable values have to be interpolated recursively
+                    return ci.substitute(value);
+                }
+                buf.append(strValue);
+            }
+            buf.append(literals[i + 1]);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Creates a template for a complex value which cannot be handled by this
+     * class.
+     *
+     * @param value the value
+     * @return the template for this value
+     */
+    private static InterpolationTemplate complex(String value)
+    {
+        return new InterpolationTemplate(value, null, null);
+    }
+}
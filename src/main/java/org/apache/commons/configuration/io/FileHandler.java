@@ -83,6 +83,12 @@ public class FileHandler
     /** Constant for the URI scheme for files with slashes. */
     private static final String FILE_SCHEME_SLASH = FILE_SCHEME + "//";
 
+    /** Constant for the prefix of temporary files created by save operations. */
+    private static final String TEMP_FILE_PREFIX = ".";
+
+    /** Constant for the suffix of temporary files created by save operations. */
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
     /** The file-based object managed by this handler. */
     private final FileBased content;
 
@@ -586,6 +592,36 @@ public class FileHandler
         save(checkContentAndCreateSnapshotFileSpec());
     }
 
+    /**
+     * Saves the associated file to the current location replacing the existing
+     * file only after all data has been written. If the current location
+     * points to a local file, the data is written into a temporary file in the
+     * same directory which is then renamed to the target file. So readers never
+     * see a partially written file, and a failed save operation leaves the
+     * original file untouched. For other locations this method behaves like
+     * {@link #save()}. Note: On platforms which do not allow renaming a file to
+     * the name of an existing file, the target file has to be deleted first;
+     * then the replacement is not atomic.
+     *
+     * @throws ConfigurationException if an error occurs or no location has been
+     *         set yet
+     * @since 2.0
+     */
+    public void saveAtomically() throws ConfigurationException
+    {
+        FileSpec spec = checkContentAndCreateSnapshotFileSpec();
+        URL url = fetchSaveURL(spec);
+        File target = ConfigurationUtils.fileFromURL(url);
+        if (target == null)
+        {
+            save(url, spec);
+        }
+        else
+        {
+            saveAtomically(url, target, spec);
+        }
+    }
+
     /**
      * Saves the associated file to the specified file name. This does not
      * change the location of this object (use {@link #setFileName(String)} if
@@ -863,31 +899,52 @@ public class FileHandler
      *         operation
      */
     private void save(FileSpec spec) throws ConfigurationException
+    {
+        save(fetchSaveURL(spec), spec);
+    }
+
+    /**
+     * Internal helper method for saving data to the given file name.
+     *
+     * @param fileName the path to the target file
+     * @param spec the current {@code FileSpec}
+     * @throws ConfigurationException if an error occurs during the save
+     *         operation
+     */
+    private void save(String fileName, FileSpec spec)
+            throws ConfigurationException
+    {
+        save(locateSaveURL(fileName, spec), spec);
+    }
+
+    /**
+     * Determines the URL to which the current location is saved.
+     *
+     * @param spec the current {@code FileSpec}
+     * @return the URL of the target file
+     * @throws ConfigurationException if no location has been set or it cannot
+     *         be resolved
+     */
+    private URL fetchSaveURL(FileSpec spec) throws ConfigurationException
     {
         if (spec.getFileName() == null)
         {
             throw new ConfigurationException("No file name has been set!");
         }
 
-        if (spec.getSourceURL() != null)
-        {
-            save(spec.getSourceURL(), spec);
-        }
-        else
-        {
-            save(spec.getFileName(), spec);
-        }
+        return (spec.getSourceURL() != null) ? spec.getSourceURL()
+                : locateSaveURL(spec.getFileName(), spec);
     }
 
     /**
-     * Internal helper method for saving data to the given file name.
+     * Resolves the given file name to the URL to which data is saved.
      *
      * @param fileName the path to the target file
      * @param spec the current {@code FileSpec}
-     * @throws ConfigurationException if an error occurs during the save
-     *         operation
+     * @return the URL of the target file
+     * @throws ConfigurationException if the file name cannot be resolved
      */
-    private void save(String fileName, FileSpec spec)
+    private URL locateSaveURL(String fileName, FileSpec spec)
             throws ConfigurationException
     {
         URL url;
@@ -905,7 +962,7 @@ public class FileHandler
             throw new ConfigurationException(
                     "Cannot locate configuration source " + fileName);
         }
-        save(url, spec);
+        return url;
     }
 
     /**
@@ -968,6 +1025,92 @@ public class FileHandler
         }
     }
 
+    /**
+     * Internal helper method for saving data to a temporary file which then
+     * replaces the given target file.
+     *
+     * @param url the URL of the target file
+     * @param target the target file
+     * @param spec the current {@code FileSpec}
+     * @throws ConfigurationException if an error occurs during the save
+     *         operation
+     */
+    private void saveAtomically(URL url, File target, FileSpec spec)
+            throws ConfigurationException
+    {
+        File temp = createTempFile(target);
+        OutputStream out = null;
+        try
+        {
+            out = spec.getFileSystem().getOutputStream(temp);
+            saveToStream(out, spec.getEncoding(), url);
+            out.close();
+            out = null;
+            replaceFile(temp, target);
+        }
+        catch (IOException ioex)
+        {
+            throw new ConfigurationException(ioex);
+        }
+        finally
+        {
+            closeSilent(out);
+            if (temp.exists())
+            {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Creates a temporary file in the directory of the given target file.
+     *
+     * @param target the target file
+     * @return the temporary file
+     * @throws ConfigurationException if the file cannot be created
+     */
+    private static File createTempFile(File target)
+            throws ConfigurationException
+    {
+        File dir = target.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs())
+        {
+            throw new ConfigurationException("Cannot create path: " + dir);
+        }
+
+        try
+        {
+            return File.createTempFile(TEMP_FILE_PREFIX + target.getName(),
+                    TEMP_FILE_SUFFIX, dir);
+        }
+        catch (IOException ioex)
+        {
+            throw new ConfigurationException(
+                    "Cannot create temporary file in " + dir, ioex);
+        }
+    }
+
+    /**
+     * Replaces the target file by the given temporary file.
+     *
+     * @param temp the temporary file
+     * @param target the target file
+     * @throws ConfigurationException if the file cannot be replaced
+     */
+    private static void replaceFile(File temp, File target)
+            throws ConfigurationException
+    {
+        if (temp.renameTo(target))
+        {
+            return;
+        }
+
+        if ((target.exists() && !target.delete()) || !temp.renameTo(target))
+        {
+            throw new ConfigurationException("Cannot replace file " + target);
+        }
+    }
+
     /**
      * Internal helper method for saving a file to the given output stream.
      *
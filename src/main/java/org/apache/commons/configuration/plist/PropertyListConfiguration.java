@@ -109,8 +109,36 @@ public class PropertyListConfiguration extends AbstractHierarchicalFileConfigura
             BLANK_SEPARATOR_PARSER, new DateTimeZoneParser(),
             new DateSeparatorParser(">")};
 
-    /** Constant for the ID prefix for GMT time zones. */
-    private static final String TIME_ZONE_PREFIX = "GMT";
+    /**
+     * An array with the component parsers for dates in XML property lists in
+     * the format used by Mac OS X, e.g. {@code 2005-01-01T12:00:00Z}.
+     */
+    private static final DateComponentParser[] XML_DATE_PARSERS =
+    {new DateFieldParser(Calendar.YEAR, 4),
+            DATE_SEPARATOR_PARSER, new DateFieldParser(Calendar.MONTH, 2, 1),
+            DATE_SEPARATOR_PARSER, new DateFieldParser(Calendar.DATE, 2),
+            new DateSeparatorParser("T"),
+            new DateFieldParser(Calendar.HOUR_OF_DAY, 2),
+            TIME_SEPARATOR_PARSER, new DateFieldParser(Calendar.MINUTE, 2),
+            TIME_SEPARATOR_PARSER, new DateFieldParser(Calendar.SECOND, 2),
+            new DateSeparatorParser("Z")};
+
+    /**
+     * An array with the component parsers for dates in XML property lists in
+     * the format used by GNUstep, e.g. {@code 2002-03-22 11:30:00 +0100}.
+     */
+    private static final DateComponentParser[] GNUSTEP_DATE_PARSERS =
+    {new DateFieldParser(Calendar.YEAR, 4),
+            DATE_SEPARATOR_PARSER, new DateFieldParser(Calendar.MONTH, 2, 1),
+            DATE_SEPARATOR_PARSER, new DateFieldParser(Calendar.DATE, 2),
+            BLANK_SEPARATOR_PARSER,
+            new DateFieldParser(Calendar.HOUR_OF_DAY, 2),
+            TIME_SEPARATOR_PARSER, new DateFieldParser(Calendar.MINUTE, 2),
+            TIME_SEPARATOR_PARSER, new DateFieldParser(Calendar.SECOND, 2),
+            BLANK_SEPARATOR_PARSER, new DateTimeZoneParser()};
+
+    /** The time zone of dates in the Mac OS X XML format. */
+    private static final TimeZone TIME_ZONE_UTC = TimeZone.getTimeZone("UTC");
 
     /** The serial version UID. */
     private static final long serialVersionUID = 3227248503779092127L;
@@ -130,6 +158,9 @@ public class PropertyListConfiguration extends AbstractHierarchicalFileConfigura
     /** Constant for the padding character in the date format.*/
     private static final char PAD_CHAR = '0';
 
+    /** Constant for the radix of numbers in the date format.*/
+    private static final int RADIX = 10;
+
     /**
      * Creates an empty PropertyListConfiguration object which can be
      * used to synthesize a new plist file by adding values and
@@ -435,11 +466,80 @@ public class PropertyListConfiguration extends AbstractHierarchicalFileConfigura
      */
     static Date parseDate(String s) throws ParseException
     {
-        Calendar cal = Calendar.getInstance();
+        return parseDate(s, DATE_PARSERS, Calendar.getInstance());
+    }
+
+    /**
+     * Parses a date in the format used by XML property lists of Mac OS X,
+     * e.g. {@code 2005-01-01T12:00:00Z}. The date is interpreted as UTC.
+     * Other than a shared {@code SimpleDateFormat}, this method is
+     * thread-safe without synchronization.
+     *
+     * @param s the string with the date to be parsed
+     * @return the parsed date
+     * @throws ParseException if an error occurred while parsing the string
+     */
+    static Date parseXMLDate(String s) throws ParseException
+    {
+        return parseDate(s, XML_DATE_PARSERS, Calendar.getInstance(TIME_ZONE_UTC));
+    }
+
+    /**
+     * Parses a date in the GNUstep format used by XML property lists, e.g.
+     * {@code 2002-03-22 11:30:00 +0100}. This method is thread-safe without
+     * synchronization.
+     *
+     * @param s the string with the date to be parsed
+     * @return the parsed date
+     * @throws ParseException if an error occurred while parsing the string
+     */
+    static Date parseGNUstepDate(String s) throws ParseException
+    {
+        return parseDate(s, GNUSTEP_DATE_PARSERS, Calendar.getInstance());
+    }
+
+    /**
+     * Returns a string representation for the date specified by the given
+     * calendar.
+     *
+     * @param cal the calendar with the initialized date
+     * @return a string for this date
+     */
+    static String formatDate(Calendar cal)
+    {
+        return formatDate(cal, DATE_PARSERS);
+    }
+
+    /**
+     * Returns a string representation for the specified date in the format
+     * used by XML property lists of Mac OS X. The date is written in UTC.
+     *
+     * @param date the date
+     * @return a string for this date
+     */
+    static String formatXMLDate(Date date)
+    {
+        Calendar cal = Calendar.getInstance(TIME_ZONE_UTC);
+        cal.setTime(date);
+        return formatDate(cal, XML_DATE_PARSERS);
+    }
+
+    /**
+     * Parses a date using the given component parsers.
+     *
+     * @param s the string with the date to be parsed
+     * @param parsers the component parsers
+     * @param cal the calendar to be used
+     * @return the parsed date
+     * @throws ParseException if an error occurred while parsing the string
+     */
+    private static Date parseDate(String s, DateComponentParser[] parsers,
+            Calendar cal) throws ParseException
+    {
         cal.clear();
         int index = 0;
 
-        for (DateComponentParser parser : DATE_PARSERS)
+        for (DateComponentParser parser : parsers)
         {
             index += parser.parseComponent(s, index, cal);
         }
@@ -448,19 +548,20 @@ public class PropertyListConfiguration extends AbstractHierarchicalFileConfigura
     }
 
     /**
-     * Returns a string representation for the date specified by the given
-     * calendar.
+     * Formats the date specified by the given calendar using the given
+     * component parsers.
      *
      * @param cal the calendar with the initialized date
+     * @param parsers the component parsers
      * @return a string for this date
      */
-    static String formatDate(Calendar cal)
+    private static String formatDate(Calendar cal, DateComponentParser[] parsers)
     {
         StringBuilder buf = new StringBuilder();
 
-        for (int i = 0; i < DATE_PARSERS.length; i++)
+        for (int i = 0; i < parsers.length; i++)
         {
-            DATE_PARSERS[i].formatComponent(buf, cal);
+            parsers[i].formatComponent(buf, cal);
         }
 
         return buf.toString();
@@ -564,6 +665,34 @@ public class PropertyListConfiguration extends AbstractHierarchicalFileConfigura
             buf.append(StringUtils.leftPad(String.valueOf(num), length,
                     PAD_CHAR));
         }
+
+        /**
+         * Parses a number consisting of the given number of decimal digits.
+         * Other than {@code Integer.parseInt()}, no intermediate string is
+         * created.
+         *
+         * @param s the string to be parsed
+         * @param index the start index of the number
+         * @param length the number of digits
+         * @return the parsed number
+         * @throws ParseException if the string does not contain a number
+         */
+        protected int parseNum(String s, int index, int length)
+                throws ParseException
+        {
+            int result = 0;
+            for (int i = index; i < index + length; i++)
+            {
+                int digit = Character.digit(s.charAt(i), RADIX);
+                if (digit < 0)
+                {
+                    throw new ParseException("Invalid number: " + s
+                            + ", index " + index);
+                }
+                result = result * RADIX + digit;
+            }
+            return result;
+        }
     }
 
     /**
@@ -619,18 +748,8 @@ public class PropertyListConfiguration extends AbstractHierarchicalFileConfigura
                 throws ParseException
         {
             checkLength(s, index, length);
-            try
-            {
-                cal.set(calendarField, Integer.parseInt(s.substring(index,
-                        index + length))
-                        - offset);
-                return length;
-            }
-            catch (NumberFormatException nfex)
-            {
-                throw new ParseException("Invalid number: " + s + ", index "
-                        + index);
-            }
+            cal.set(calendarField, parseNum(s, index, length) - offset);
+            return length;
         }
     }
 
@@ -700,14 +819,27 @@ public class PropertyListConfiguration extends AbstractHierarchicalFileConfigura
             padNum(buf, min, 2);
         }
 
+        /**
+         * {@inheritDoc} This implementation sets the zone offset fields of the
+         * calendar directly rather than looking up a {@code TimeZone}
+         * object because this lookup is synchronized.
+         */
         @Override
         public int parseComponent(String s, int index, Calendar cal)
                 throws ParseException
         {
             checkLength(s, index, TIME_ZONE_LENGTH);
-            TimeZone tz = TimeZone.getTimeZone(TIME_ZONE_PREFIX
-                    + s.substring(index, index + TIME_ZONE_LENGTH));
-            cal.setTimeZone(tz);
+            char sign = s.charAt(index);
+            if (sign != '+' && sign != '-')
+            {
+                throw new ParseException("Invalid time zone: " + s + ", index "
+                        + index);
+            }
+            int hour = parseNum(s, index + 1, 2);
+            int min = parseNum(s, index + 3, 2);
+            int ofs = (hour * MINUTES_PER_HOUR + min) * MILLIS_PER_MINUTE;
+            cal.set(Calendar.ZONE_OFFSET, (sign == '-') ? -ofs : ofs);
+            cal.set(Calendar.DST_OFFSET, 0);
             return TIME_ZONE_LENGTH;
         }
     }
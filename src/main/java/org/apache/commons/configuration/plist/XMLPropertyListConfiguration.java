@@ -24,9 +24,6 @@ import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URL;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
@@ -35,10 +32,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.TimeZone;
 
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.configuration.AbstractHierarchicalFileConfiguration;
@@ -46,6 +41,7 @@ import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 import org.apache.commons.configuration.MapConfiguration;
+import org.apache.commons.configuration.XMLParserPool;
 import org.apache.commons.configuration.tree.ConfigurationNode;
 import org.apache.commons.configuration.tree.DefaultConfigurationNode;
 import org.apache.commons.lang.StringEscapeUtils;
@@ -251,13 +247,17 @@ public class XMLPropertyListConfiguration extends AbstractHierarchicalFileConfig
         XMLPropertyListHandler handler = new XMLPropertyListHandler(getRootNode());
         try
         {
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            factory.setValidating(true);
-
-            SAXParser parser = factory.newSAXParser();
-            parser.getXMLReader().setEntityResolver(resolver);
-            parser.getXMLReader().setContentHandler(handler);
-            parser.getXMLReader().parse(new InputSource(in));
+            SAXParser parser = XMLParserPool.acquireSAXParser(true, false, false);
+            try
+            {
+                parser.getXMLReader().setEntityResolver(resolver);
+                parser.getXMLReader().setContentHandler(handler);
+                parser.getXMLReader().parse(new InputSource(in));
+            }
+            finally
+            {
+                XMLParserPool.releaseSAXParser(parser);
+            }
         }
         catch (Exception e)
         {
@@ -338,10 +338,8 @@ public class XMLPropertyListConfiguration extends AbstractHierarchicalFileConfig
 
         if (value instanceof Date)
         {
-            synchronized (PListNode.FORMAT)
-            {
-                out.println(padding + "<date>" + PListNode.FORMAT.format((Date) value) + "</date>");
-            }
+            out.println(padding + "<date>"
+                    + PropertyListConfiguration.formatXMLDate((Date) value) + "</date>");
         }
         else if (value instanceof Calendar)
         {
@@ -625,24 +623,6 @@ public class XMLPropertyListConfiguration extends AbstractHierarchicalFileConfig
          */
         private static final long serialVersionUID = -7614060264754798317L;
 
-        /**
-         * The MacOS FORMAT of dates in plist files. Note: Because
-         * {@code SimpleDateFormat} is not thread-safe, each access has to be
-         * synchronized.
-         */
-        private static final DateFormat FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-        static
-        {
-            FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
-        }
-
-        /**
-         * The GNUstep FORMAT of dates in plist files. Note: Because
-         * {@code SimpleDateFormat} is not thread-safe, each access has to be
-         * synchronized.
-         */
-        private static final DateFormat GNUSTEP_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss Z");
-
         /**
          * Update the value of the node. If the existing value is null, it's
          * replaced with the new value. If the existing value is a list, the
@@ -686,18 +666,12 @@ public class XMLPropertyListConfiguration extends AbstractHierarchicalFileConfig
                 if (value.indexOf(' ') != -1)
                 {
                     // parse the date using the GNUstep FORMAT
-                    synchronized (GNUSTEP_FORMAT)
-                    {
-                        addValue(GNUSTEP_FORMAT.parse(value));
-                    }
+                    addValue(PropertyListConfiguration.parseGNUstepDate(value));
                 }
                 else
                 {
                     // parse the date using the MacOS X FORMAT
-                    synchronized (FORMAT)
-                    {
-                        addValue(FORMAT.parse(value));
-                    }
+                    addValue(PropertyListConfiguration.parseXMLDate(value));
                 }
             }
             catch (ParseException e)
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.configuration.reloading;
+
+import java.io.File;
+import java.net.URL;
+
+import org.apache.commons.configuration.ConfigurationUtils;
+import org.apache.commons.configuration.io.FileHandler;
+
+/**
+ * <p>
+ * A trigger for reloading checks which is notified about changes of a
+ * configuration file.
+ * </p>
+ * <p>
+ * This class is an alternative to {@link PeriodicReloadingTrigger}. Rather
+ * than calling the associated {@link ReloadingController} in a fixed
+ * interval, it registers the file defined by a {@link FileHandler} at a
+ * {@link FileChangeWatcher}. Only if a change of this file is reported,
+ * {@link ReloadingController#checkForReloading(Object)} is called. So changes
+ * are detected shortly after they happen, and many files can be monitored by a
+ * single watcher without polling them. If the controller uses a
+ * {@link FileHandlerReloadingDetector}, its refresh delay is bypassed for the
+ * check caused by a notification; so a change is not missed if it happens
+ * shortly after the previous check.
+ * </p>
+ * <p>
+ * The file to be monitored is obtained from the {@code FileHandler} when the
+ * trigger is started. If the location of the handler is changed, the trigger
+ * has to be stopped and started again. A {@code FileChangeWatcher} can be
+ * passed to the constructor; otherwise, the default watcher is used which is
+ * shared by all triggers.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.0
+ * @see FileChangeWatcher
+ */
+public class FileChangeReloadingTrigger
+{
+    /** The associated reloading controller. */
+    private final ReloadingController controller;
+
+    /** The parameter to be passed to the controller. */
+    private final Object controllerParam;
+
+    /** The file handler defining the monitored file. */
+    private final FileHandler fileHandler;
+
+    /** The watcher used by this trigger. */
+    private final FileChangeWatcher watcher;
+
+    /** The callback registered at the watcher. */
+    private final Runnable callback;
+
+    /** The file currently monitored. */
+    private File monitoredFile;
+
+    /**
+     * Creates a new instance of {@code FileChangeReloadingTrigger} and sets
+     * all parameters.
+     *
+     * @param ctrl the {@code ReloadingController} (must not be <b>null</b>)
+     * @param ctrlParam the optional parameter to be passed to the controller
+     *        when doing reloading checks
+     * @param handler the {@code FileHandler} defining the file to be monitored
+     *        (must not be <b>null</b>)
+     * @param fileWatcher the watcher to use (can be <b>null</b>, then the
+     *        default watcher is used)
+     * @throws IllegalArgumentException if a required argument is missing
+     */
+    public FileChangeReloadingTrigger(ReloadingController ctrl,
+            Object ctrlParam, FileHandler handler,
+            FileChangeWatcher fileWatcher)
+    {
+        if (ctrl == null)
+        {
+            throw new IllegalArgumentException(
+                    "ReloadingController must not be null!");
+        }
+        if (handler == null)
+        {
+            throw new IllegalArgumentException(
+                    "FileHandler must not be null!");
+        }
+
+        controller = ctrl;
+        controllerParam = ctrlParam;
+        fileHandler = handler;
+        watcher =
+                (fileWatcher != null) ? fileWatcher : FileChangeWatcher
+                        .getDefault();
+        callback = createCallback();
+    }
+
+    /**
+     * Creates a new instance of {@code FileChangeReloadingTrigger} which uses
+     * the default watcher.
+     *
+     * @param ctrl the {@code ReloadingController} (must not be <b>null</b>)
+     * @param ctrlParam the optional parameter to be passed to the controller
+     *        when doing reloading checks
+     * @param handler the {@code FileHandler} defining the file to be monitored
+     *        (must not be <b>null</b>)
+     * @throws IllegalArgumentException if a required argument is missing
+     */
+    public FileChangeReloadingTrigger(ReloadingController ctrl,
+            Object ctrlParam, FileHandler handler)
+    {
+        this(ctrl, ctrlParam, handler, null);
+    }
+
+    /**
+     * Starts this trigger. The file defined by the associated
+     * {@code FileHandler} is registered at the watcher. If this trigger is
+     * already started, this invocation has no effect.
+     *
+     * @throws IllegalStateException if the {@code FileHandler} does not point
+     *         to a local file
+     */
+    public synchronized void start()
+    {
+        if (!isRunning())
+        {
+            File file = fetchFile();
+            if (file == null)
+            {
+                throw new IllegalStateException(
+                        "FileHandler does not point to a local file!");
+            }
+            watcher.addFile(file, callback);
+            monitoredFile = file;
+        }
+    }
+
+    /**
+     * Stops this trigger. The monitored file is removed from the watcher. If
+     * this trigger is already stopped, this invocation has no effect.
+     */
+    public synchronized void stop()
+    {
+        if (isRunning())
+        {
+            watcher.removeFile(monitoredFile, callback);
+            monitoredFile = null;
+        }
+    }
+
+    /**
+     * Returns a flag whether this trigger is currently active.
+     *
+     * @return a flag whether this trigger is running
+     */
+    public synchronized boolean isRunning()
+    {
+        return monitoredFile != null;
+    }
+
+    /**
+     * Returns the {@code FileChangeWatcher} used by this object.
+     *
+     * @return the associated {@code FileChangeWatcher}
+     */
+    public FileChangeWatcher getWatcher()
+    {
+        return watcher;
+    }
+
+    /**
+     * Obtains the file to be monitored from the {@code FileHandler}.
+     *
+     * @return the file or <b>null</b> if there is no local file
+     */
+    private File fetchFile()
+    {
+        URL url = fileHandler.getURL();
+        return (url != null) ? ConfigurationUtils.fileFromURL(url)
+                : fileHandler.getFile();
+    }
+
+    /**
+     * Notifies the reloading controller about a change of the monitored file.
+     * The watcher reports each change only once. So if the controller's
+     * detector has a refresh delay, it is bypassed; otherwise, a change shortly
+     * after the previous check would not be detected.
+     */
+    private void fileChanged()
+    {
+        ReloadingDetector detector = controller.getDetector();
+        if (detector instanceof FileHandlerReloadingDetector)
+        {
+            ((FileHandlerReloadingDetector) detector).expireRefreshDelay();
+        }
+        controller.checkForReloading(controllerParam);
+    }
+
+    /**
+     * Creates the callback which triggers the reloading controller.
+     *
+     * @return the callback
+     */
+    private Runnable createCallback()
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                fileChanged();
+            }
+        };
+    }
+}
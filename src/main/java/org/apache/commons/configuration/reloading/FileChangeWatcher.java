@@ -0,0 +1,943 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.configuration.reloading;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * <p>
+ * A class which monitors a set of files and notifies registered callbacks when
+ * they are changed.
+ * </p>
+ * <p>
+ * A single instance can monitor an arbitrary number of files using a single
+ * background thread. If the Java runtime supports the
+ * {@code java.nio.file.WatchService} API (Java 7 or higher), the directories
+ * containing the monitored files are registered at a watch service; so changes
+ * are reported by the operating system, and no file system access is needed
+ * as long as the files do not change. On older platforms, or if a directory
+ * cannot be registered, the files are polled: their last modification dates
+ * and sizes are checked in the configured poll interval.
+ * </p>
+ * <p>
+ * Editors often write a file in multiple steps. Therefore a change is not
+ * reported immediately; rather, the callbacks registered for a file are
+ * invoked after no further change has been detected for the quiet period.
+ * Callbacks are invoked on the background thread; so they should not block.
+ * </p>
+ * <p>
+ * The background thread is started when the first file is added. It runs until
+ * {@code shutdown()} is called. Instances of this class are thread-safe.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.0
+ * @see FileChangeReloadingTrigger
+ */
+public class FileChangeWatcher
+{
+    /** Constant for the default quiet period in milliseconds. */
+    private static final long DEFAULT_QUIET_PERIOD = 250;
+
+    /** Constant for the default poll interval in milliseconds. */
+    private static final long DEFAULT_POLL_INTERVAL = 5000;
+
+    /** The logger. */
+    private final Log log = LogFactory.getLog(getClass());
+
+    /** The callbacks registered for the monitored files. */
+    private final Map<File, List<Runnable>> callbacks =
+            new HashMap<File, List<Runnable>>();
+
+    /** The watch keys of the registered directories. */
+    private final Map<File, Object> directoryKeys = new HashMap<File, Object>();
+
+    /** The registered directories with their watch keys. */
+    private final Map<Object, File> keyDirectories =
+            new HashMap<Object, File>();
+
+    /** The files which have to be polled with their last state. */
+    private final Map<File, FileState> polledFiles =
+            new HashMap<File, FileState>();
+
+    /** The files with changes not yet reported and the time of the change. */
+    private final Map<File, Long> pendingChanges = new HashMap<File, Long>();
+
+    /** The quiet period in milliseconds. */
+    private final long quietPeriod;
+
+    /** The poll interval in milliseconds. */
+    private final long pollInterval;
+
+    /** A flag whether a watch service is to be used. */
+    private final boolean useWatchService;
+
+    /** The watch service; <b>null</b> if not available. */
+    private NioWatchService watchService;
+
+    /** The background thread. */
+    private Thread watcherThread;
+
+    /** The time when the files are polled next. */
+    private long nextPoll;
+
+    /** A flag whether this object has been shut down. */
+    private boolean shutdown;
+
+    /**
+     * Creates a new instance of {@code FileChangeWatcher} with the specified
+     * quiet period and poll interval.
+     *
+     * @param quiet the quiet period after a change before it is reported
+     * @param poll the interval in which files are polled if they cannot be
+     *        monitored by a watch service
+     * @param unit the time unit for both values (must not be <b>null</b>)
+     * @throws IllegalArgumentException if a value is invalid
+     */
+    public FileChangeWatcher(long quiet, long poll, TimeUnit unit)
+    {
+        this(quiet, poll, unit, true);
+    }
+
+    /**
+     * Creates a new instance of {@code FileChangeWatcher} with default settings.
+     */
+    public FileChangeWatcher()
+    {
+        this(DEFAULT_QUIET_PERIOD, DEFAULT_POLL_INTERVAL,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance of {@code FileChangeWatcher} and allows disabling
+     * the watch service. This constructor is used for testing purposes.
+     *
+     * @param quiet the quiet period
+     * @param poll the poll interval
+     * @param unit the time unit
+     * @param watch a flag whether a watch service is to be used
+     */
+    FileChangeWatcher(long quiet, long poll, TimeUnit unit, boolean watch)
+    {
+        if (unit == null)
+        {
+            throw new IllegalArgumentException("Time unit must not be null!");
+        }
+        if (quiet < 0 || poll <= 0)
+        {
+            throw new IllegalArgumentException(
+                    "Invalid quiet period or poll interval: " + quiet + ", "
+                            + poll);
+        }
+
+        quietPeriod = unit.toMillis(quiet);
+        pollInterval = Math.max(1, unit.toMillis(poll));
+        useWatchService = watch;
+    }
+
+    /**
+     * Returns a default instance which is shared by all triggers not
+     * associated with a specific watcher. This instance uses default settings
+     * and a daemon thread.
+     *
+     * @return the default {@code FileChangeWatcher}
+     */
+    public static FileChangeWatcher getDefault()
+    {
+        return DefaultWatcherHolder.WATCHER;
+    }
+
+    /**
+     * Returns the quiet period in milliseconds.
+     *
+     * @return the quiet period
+     */
+    public long getQuietPeriod()
+    {
+        return quietPeriod;
+    }
+
+    /**
+     * Returns the poll interval in milliseconds.
+     *
+     * @return the poll interval
+     */
+    public long getPollInterval()
+    {
+        return pollInterval;
+    }
+
+    /**
+     * Adds a file to be monitored. The callback is invoked whenever the file is
+     * changed, created, or deleted. A file can be added multiple times with
+     * different callbacks.
+     *
+     * @param file the file to be monitored (must not be <b>null</b>)
+     * @param callback the callback to be notified (must not be <b>null</b>)
+     * @throws IllegalArgumentException if a parameter is <b>null</b>
+     * @throws IllegalStateException if this object has been shut down
+     */
+    public synchronized void addFile(File file, Runnable callback)
+    {
+        if (file == null || callback == null)
+        {
+            throw new IllegalArgumentException(
+                    "File and callback must not be null!");
+        }
+        if (shutdown)
+        {
+            throw new IllegalStateException("Watcher has been shut down!");
+        }
+
+        File key = file.getAbsoluteFile();
+        List<Runnable> fileCallbacks = callbacks.get(key);
+        if (fileCallbacks == null)
+        {
+            fileCallbacks = new ArrayList<Runnable>();
+            callbacks.put(key, fileCallbacks);
+            startMonitoring(key);
+        }
+        fileCallbacks.add(callback);
+
+        startWatcherThread();
+        notifyAll();
+    }
+
+    /**
+     * Removes a callback for a monitored file. If no more callbacks are
+     * registered for this file, it is no longer monitored.
+     *
+     * @param file the file
+     * @param callback the callback to be removed
+     */
+    public synchronized void removeFile(File file, Runnable callback)
+    {
+        if (file == null)
+        {
+            return;
+        }
+
+        File key = file.getAbsoluteFile();
+        List<Runnable> fileCallbacks = callbacks.get(key);
+        if (fileCallbacks != null && fileCallbacks.remove(callback)
+                && fileCallbacks.isEmpty())
+        {
+            callbacks.remove(key);
+            pendingChanges.remove(key);
+            polledFiles.remove(key);
+            stopMonitoringDirectory(key.getParentFile());
+        }
+    }
+
+    /**
+     * Shuts down this watcher. The background thread is stopped, and all files
+     * are removed. This object cannot be used any more afterwards.
+     */
+    public void shutdown()
+    {
+        Thread thread;
+        synchronized (this)
+        {
+            shutdown = true;
+            callbacks.clear();
+            polledFiles.clear();
+            pendingChanges.clear();
+            directoryKeys.clear();
+            keyDirectories.clear();
+            if (watchService != null)
+            {
+                watchService.close();
+            }
+            thread = watcherThread;
+            notifyAll();
+        }
+
+        if (thread != null && thread != Thread.currentThread())
+        {
+            try
+            {
+                thread.join();
+            }
+            catch (InterruptedException iex)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns a flag whether this watcher uses a watch service. This method is
+     * used for testing purposes.
+     *
+     * @return a flag whether a watch service is used
+     */
+    synchronized boolean isWatchServiceUsed()
+    {
+        return watchService != null;
+    }
+
+    /**
+     * Starts monitoring the given file. The directory of the file is
+     * registered at the watch service if possible. Otherwise, the file is
+     * polled.
+     *
+     * @param file the file
+     */
+    private void startMonitoring(File file)
+    {
+        File dir = file.getParentFile();
+        if (dir != null && directoryKeys.containsKey(dir))
+        {
+            return;
+        }
+
+        if (dir != null && dir.isDirectory() && fetchWatchService() != null)
+        {
+            try
+            {
+                Object key = watchService.register(dir);
+                directoryKeys.put(dir, key);
+                keyDirectories.put(key, dir);
+                return;
+            }
+            catch (Exception ex)
+            {
+                log.warn("Cannot watch directory " + dir
+                        + ", falling back to polling.", ex);
+            }
+        }
+
+        if (polledFiles.isEmpty())
+        {
+            nextPoll = now() + pollInterval;
+        }
+        polledFiles.put(file, new FileState(file));
+    }
+
+    /**
+     * Stops monitoring a directory if it does not contain any more monitored
+     * files.
+     *
+     * @param dir the directory
+     */
+    private void stopMonitoringDirectory(File dir)
+    {
+        Object key = directoryKeys.get(dir);
+        if (key != null && !containsMonitoredFiles(dir))
+        {
+            directoryKeys.remove(dir);
+            keyDirectories.remove(key);
+            watchService.cancel(key);
+        }
+    }
+
+    /**
+     * Checks whether the given directory contains files which are monitored.
+     *
+     * @param dir the directory
+     * @return a flag whether there are monitored files in this directory
+     */
+    private boolean containsMonitoredFiles(File dir)
+    {
+        for (File file : callbacks.keySet())
+        {
+            if (dir.equals(file.getParentFile()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the watch service, creating it on first access. Result is
+     * <b>null</b> if no watch service is available.
+     *
+     * @return the watch service or <b>null</b>
+     */
+    private NioWatchService fetchWatchService()
+    {
+        if (watchService == null && useWatchService)
+        {
+            watchService = NioWatchService.create(log);
+        }
+        return watchService;
+    }
+
+    /**
+     * Starts the background thread if this has not been done yet.
+     */
+    private void startWatcherThread()
+    {
+        if (watcherThread == null)
+        {
+            ThreadFactory factory =
+                    new BasicThreadFactory.Builder()
+                            .namingPattern("FileChangeWatcher-%s")
+                            .daemon(true).build();
+            watcherThread = factory.newThread(new Runnable()
+            {
+                public void run()
+                {
+                    watch();
+                }
+            });
+            watcherThread.start();
+        }
+    }
+
+    /**
+     * The main loop of the background thread. It waits for events, polls
+     * files if necessary, and reports changes after the quiet period.
+     */
+    private void watch()
+    {
+        while (true)
+        {
+            long timeout;
+            NioWatchService service;
+            synchronized (this)
+            {
+                if (shutdown)
+                {
+                    return;
+                }
+                timeout = calculateTimeout(now());
+                service = watchService;
+            }
+
+            Object key = awaitEvents(service, timeout);
+            List<Runnable> changeCallbacks;
+            synchronized (this)
+            {
+                if (shutdown)
+                {
+                    return;
+                }
+                long time = now();
+                if (key != null)
+                {
+                    processEvents(key, time);
+                }
+                pollFiles(time);
+                changeCallbacks = fetchDueCallbacks(time);
+            }
+
+            for (Runnable callback : changeCallbacks)
+            {
+                try
+                {
+                    callback.run();
+                }
+                catch (RuntimeException rex)
+                {
+                    log.warn("Callback for file change failed!", rex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for events of the watch service or until the timeout has passed.
+     *
+     * @param service the watch service (may be <b>null</b>)
+     * @param timeout the timeout in milliseconds
+     * @return the key with events or <b>null</b>
+     */
+    private Object awaitEvents(NioWatchService service, long timeout)
+    {
+        try
+        {
+            if (service != null)
+            {
+                return service.poll(timeout);
+            }
+
+            synchronized (this)
+            {
+                if (!shutdown)
+                {
+                    wait(timeout);
+                }
+            }
+        }
+        catch (InterruptedException iex)
+        {
+            Thread.currentThread().interrupt();
+            shutdown();
+        }
+        catch (Exception ex)
+        {
+            synchronized (this)
+            {
+                if (!shutdown)
+                {
+                    log.warn("Error when waiting for file changes.", ex);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Calculates how long the background thread can wait for events.
+     *
+     * @param time the current time
+     * @return the timeout in milliseconds
+     */
+    private long calculateTimeout(long time)
+    {
+        long timeout = pollInterval;
+        if (!polledFiles.isEmpty())
+        {
+            timeout = Math.min(timeout, nextPoll - time);
+        }
+        for (Long changeTime : pendingChanges.values())
+        {
+            timeout =
+                    Math.min(timeout, changeTime.longValue() + quietPeriod
+                            - time);
+        }
+        return Math.max(1, timeout);
+    }
+
+    /**
+     * Processes the events reported for a watch key.
+     *
+     * @param key the watch key
+     * @param time the current time
+     */
+    private void processEvents(Object key, long time)
+    {
+        File dir = keyDirectories.get(key);
+        List<String> names = watchService.pollEvents(key);
+        if (dir != null)
+        {
+            for (String name : names)
+            {
+                if (name == null)
+                {
+                    // events were lost, so all files may have been changed
+                    markDirectoryChanged(dir, time);
+                }
+                else
+                {
+                    markChanged(new File(dir, name), time);
+                }
+            }
+        }
+
+        if (!watchService.reset(key) && dir != null)
+        {
+            // the directory is no longer accessible; switch to polling
+            directoryKeys.remove(dir);
+            keyDirectories.remove(key);
+            for (File file : callbacks.keySet())
+            {
+                if (dir.equals(file.getParentFile()))
+                {
+                    startMonitoring(file);
+                    markChanged(file, time);
+                }
+            }
+        }
+    }
+
+    /**
+     * Polls the files which are not monitored by the watch service if the poll
+     * interval has passed.
+     *
+     * @param time the current time
+     */
+    private void pollFiles(long time)
+    {
+        if (polledFiles.isEmpty() || time < nextPoll)
+        {
+            return;
+        }
+
+        for (Map.Entry<File, FileState> e : polledFiles.entrySet())
+        {
+            FileState state = new FileState(e.getKey());
+            if (!state.equals(e.getValue()))
+            {
+                e.setValue(state);
+                markChanged(e.getKey(), time);
+            }
+        }
+        nextPoll = time + pollInterval;
+    }
+
+    /**
+     * Records a change of a file if this file is monitored.
+     *
+     * @param file the file
+     * @param time the current time
+     */
+    private void markChanged(File file, long time)
+    {
+        if (callbacks.containsKey(file))
+        {
+            pendingChanges.put(file, Long.valueOf(time));
+        }
+    }
+
+    /**
+     * Records a change for all monitored files in the given directory.
+     *
+     * @param dir the directory
+     * @param time the current time
+     */
+    private void markDirectoryChanged(File dir, long time)
+    {
+        for (File file : callbacks.keySet())
+        {
+            if (dir.equals(file.getParentFile()))
+            {
+                markChanged(file, time);
+            }
+        }
+    }
+
+    /**
+     * Returns the callbacks of all files whose changes are to be reported now.
+     *
+     * @param time the current time
+     * @return the callbacks to be invoked
+     */
+    private List<Runnable> fetchDueCallbacks(long time)
+    {
+        List<Runnable> result = new ArrayList<Runnable>();
+        for (Iterator<Map.Entry<File, Long>> it =
+                pendingChanges.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry<File, Long> e = it.next();
+            if (time - e.getValue().longValue() >= quietPeriod)
+            {
+                it.remove();
+                result.addAll(callbacks.get(e.getKey()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the current time in milliseconds. A monotonic clock is used.
+     *
+     * @return the current time
+     */
+    private static long now()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * A simple data class storing the state of a polled file.
+     */
+    private static class FileState
+    {
+        /** The last modification date. */
+        private final long lastModified;
+
+        /** The length of the file. */
+        private final long length;
+
+        /**
+         * Creates a new instance of {@code FileState} for the given file.
+         *
+         * @param file the file
+         */
+        public FileState(File file)
+        {
+            lastModified = file.lastModified();
+            length = file.length();
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof FileState))
+            {
+                return false;
+            }
+            FileState c = (FileState) obj;
+            return lastModified == c.lastModified && length == c.length;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (int) (lastModified ^ length);
+        }
+    }
+
+    /**
+     * A wrapper around the {@code java.nio.file.WatchService} API. The API is
+     * accessed via reflection because it is not available on all supported
+     * Java versions.
+     */
+    private static class NioWatchService
+    {
+        /** The watch service. */
+        private final Object service;
+
+        /** The kinds of events to be watched. */
+        private final Object eventKinds;
+
+        /** The File.toPath() method. */
+        private final Method toPath;
+
+        /** The Path.register() method. */
+        private final Method register;
+
+        /** The WatchService.poll() method. */
+        private final Method poll;
+
+        /** The WatchService.close() method. */
+        private final Method close;
+
+        /** The WatchKey.pollEvents() method. */
+        private final Method pollEvents;
+
+        /** The WatchKey.reset() method. */
+        private final Method reset;
+
+        /** The WatchKey.cancel() method. */
+        private final Method cancel;
+
+        /** The WatchEvent.context() method. */
+        private final Method context;
+
+        /**
+         * Creates a new instance of {@code NioWatchService}. All reflection
+         * objects are obtained.
+         *
+         * @throws Exception if the watch service API is not available
+         */
+        private NioWatchService() throws Exception
+        {
+            Class<?> fsCls = Class.forName("java.nio.file.FileSystem");
+            Class<?> wsCls = Class.forName("java.nio.file.WatchService");
+            Class<?> keyCls = Class.forName("java.nio.file.WatchKey");
+            Class<?> kindCls = Class.forName("java.nio.file.WatchEvent$Kind");
+            Class<?> kindsCls =
+                    Class.forName("java.nio.file.StandardWatchEventKinds");
+            Object fs =
+                    Class.forName("java.nio.file.FileSystems")
+                            .getMethod("getDefault").invoke(null);
+
+            String[] kindNames = {
+                    "ENTRY_CREATE", "ENTRY_MODIFY", "ENTRY_DELETE"
+            };
+            eventKinds = Array.newInstance(kindCls, kindNames.length);
+            for (int i = 0; i < kindNames.length; i++)
+            {
+                Array.set(eventKinds, i, kindsCls.getField(kindNames[i])
+                        .get(null));
+            }
+
+            toPath = File.class.getMethod("toPath");
+            register =
+                    Class.forName("java.nio.file.Path").getMethod("register",
+                            wsCls, eventKinds.getClass());
+            poll = wsCls.getMethod("poll", Long.TYPE, TimeUnit.class);
+            close = wsCls.getMethod("close");
+            pollEvents = keyCls.getMethod("pollEvents");
+            reset = keyCls.getMethod("reset");
+            cancel = keyCls.getMethod("cancel");
+            context =
+                    Class.forName("java.nio.file.WatchEvent").getMethod(
+                            "context");
+            service = fsCls.getMethod("newWatchService").invoke(fs);
+        }
+
+        /**
+         * Creates a new instance if the watch service API is available.
+         * Otherwise, result is <b>null</b>.
+         *
+         * @param log the logger
+         * @return the new instance or <b>null</b>
+         */
+        public static NioWatchService create(Log log)
+        {
+            try
+            {
+                return new NioWatchService();
+            }
+            catch (Exception ex)
+            {
+                log.debug("WatchService not available, polling files.", ex);
+                return null;
+            }
+        }
+
+        /**
+         * Registers a directory.
+         *
+         * @param dir the directory
+         * @return the watch key
+         * @throws Exception if an error occurs
+         */
+        public Object register(File dir) throws Exception
+        {
+            return invoke(register, invoke(toPath, dir), service, eventKinds);
+        }
+
+        /**
+         * Waits for the next watch key with events.
+         *
+         * @param timeout the timeout in milliseconds
+         * @return the watch key or <b>null</b> if the timeout passed
+         * @throws Exception if an error occurs
+         */
+        public Object poll(long timeout) throws Exception
+        {
+            return invoke(poll, service, Long.valueOf(timeout),
+                    TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Returns the names of the files affected by the events of the given
+         * watch key. A <b>null</b> element indicates that events were lost.
+         *
+         * @param key the watch key
+         * @return a list with the names of the changed files
+         */
+        public List<String> pollEvents(Object key)
+        {
+            List<String> names = new ArrayList<String>();
+            try
+            {
+                for (Object event : (List<?>) invoke(pollEvents, key))
+                {
+                    Object ctx = invoke(context, event);
+                    names.add((ctx != null) ? ctx.toString() : null);
+                }
+            }
+            catch (Exception ex)
+            {
+                names.add(null);
+            }
+            return names;
+        }
+
+        /**
+         * Resets a watch key.
+         *
+         * @param key the watch key
+         * @return a flag whether the key is still valid
+         */
+        public boolean reset(Object key)
+        {
+            try
+            {
+                return ((Boolean) invoke(reset, key)).booleanValue();
+            }
+            catch (Exception ex)
+            {
+                return false;
+            }
+        }
+
+        /**
+         * Cancels a watch key.
+         *
+         * @param key the watch key
+         */
+        public void cancel(Object key)
+        {
+            try
+            {
+                invoke(cancel, key);
+            }
+            catch (Exception ex)
+            {
+                // ignore
+            }
+        }
+
+        /**
+         * Closes the watch service.
+         */
+        public void close()
+        {
+            try
+            {
+                invoke(close, service);
+            }
+            catch (Exception ex)
+            {
+                // ignore
+            }
+        }
+
+        /**
+         * Invokes a method and unwraps exceptions thrown by it.
+         *
+         * @param method the method
+         * @param target the target object
+         * @param args the arguments
+         * @return the result of the method
+         * @throws Exception if the method throws an exception
+         */
+        private static Object invoke(Method method, Object target,
+                Object... args) throws Exception
+        {
+            try
+            {
+                return method.invoke(target, args);
+            }
+            catch (InvocationTargetException itex)
+            {
+                Throwable cause = itex.getCause();
+                if (cause instanceof Exception)
+                {
+                    throw (Exception) cause;
+                }
+                throw itex;
+            }
+        }
+    }
+
+    /**
+     * A holder class for the lazily created default instance.
+     */
+    private static class DefaultWatcherHolder
+    {
+        /** The default watcher. */
+        static final FileChangeWatcher WATCHER = new FileChangeWatcher();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.configuration.reloading;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+import org.apache.commons.configuration.io.FileHandler;
+
+/**
+ * <p>
+ * A specialized {@code FileHandlerReloadingDetector} which reports a need for
+ * reloading only if the content of the monitored file has changed.
+ * </p>
+ * <p>
+ * The base class compares only the last modification date of the monitored
+ * file. So touching the file or writing it again with the same content causes
+ * a reload operation. This class additionally stores the size and a checksum of
+ * the file's content. If the base class detects a changed modification date,
+ * the checksum is calculated again; only if it differs, a reload is required.
+ * Otherwise, the new modification date is recorded, and the change is ignored.
+ * </p>
+ * <p>
+ * Calculating the checksum requires reading the whole file. This happens only
+ * if the modification date has changed and when a reload has been performed.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.0
+ */
+public class FileContentReloadingDetector extends FileHandlerReloadingDetector
+{
+    /** Constant for the size of the buffer for reading files. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The size of the monitored file when it was last checked. */
+    private long contentSize = -1;
+
+    /** The checksum of the monitored file when it was last checked. */
+    private long checksum;
+
+    /**
+     * Creates a new instance of {@code FileContentReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor and the refresh
+     * delay.
+     *
+     * @param handler the {@code FileHandler} associated with this detector (can
+     *        be <b>null</b>)
+     * @param refreshDelay the refresh delay; a value of 0 means that a check is
+     *        performed in all cases
+     */
+    public FileContentReloadingDetector(FileHandler handler, long refreshDelay)
+    {
+        super(handler, refreshDelay);
+    }
+
+    /**
+     * Creates a new instance of {@code FileContentReloadingDetector} and
+     * initializes it with the {@code FileHandler} to monitor and a default
+     * refresh delay.
+     *
+     * @param handler the {@code FileHandler} associated with this detector (can
+     *        be <b>null</b>)
+     */
+    public FileContentReloadingDetector(FileHandler handler)
+    {
+        super(handler);
+    }
+
+    /**
+     * Creates a new instance of {@code FileContentReloadingDetector} with an
+     * uninitialized {@code FileHandler} object.
+     */
+    public FileContentReloadingDetector()
+    {
+        super();
+    }
+
+    /**
+     * {@inheritDoc} This implementation checks the content of the monitored
+     * file if the base class reports a change. If the content is unchanged, the
+     * new modification date is stored, and result is <b>false</b>.
+     */
+    @Override
+    public boolean isReloadingRequired()
+    {
+        if (!super.isReloadingRequired())
+        {
+            return false;
+        }
+
+        long modified = getLastModificationDate();
+        if (modified > 0 && contentSize >= 0 && isContentUnchanged())
+        {
+            super.updateLastModified(modified);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc} This implementation also records the size and the checksum
+     * of the monitored file.
+     */
+    @Override
+    protected void updateLastModified(long time)
+    {
+        super.updateLastModified(time);
+        updateChecksum();
+    }
+
+    /**
+     * Checks whether the size and the checksum of the monitored file are the
+     * same as recorded during the last check.
+     *
+     * @return a flag whether the content is unchanged
+     */
+    private boolean isContentUnchanged()
+    {
+        File file = getFile();
+        if (file == null || file.length() != contentSize)
+        {
+            return false;
+        }
+
+        try
+        {
+            return readChecksum(file) == checksum;
+        }
+        catch (IOException ioex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Records the size and the checksum of the monitored file. If the file
+     * cannot be read, no content information is available.
+     */
+    private void updateChecksum()
+    {
+        contentSize = -1;
+        File file = getFile();
+        if (file != null && file.exists())
+        {
+            try
+            {
+                long size = file.length();
+                checksum = readChecksum(file);
+                contentSize = size;
+            }
+            catch (IOException ioex)
+            {
+                // no content information; each change causes a reload
+            }
+        }
+    }
+
+    /**
+     * Calculates the checksum of the given file.
+     *
+     * @param file the file
+     * @return the checksum
+     * @throws IOException if the file cannot be read
+     */
+    private static long readChecksum(File file) throws IOException
+    {
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) >= 0)
+            {
+                crc.update(buffer, 0, count);
+            }
+            return crc.getValue();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
@@ -70,7 +70,7 @@ public class FileHandlerReloadingDetector implements ReloadingDetector
     private long lastModified;
 
     /** The last time the file was checked for changes. */
-    private long lastChecked;
+    private volatile long lastChecked;
 
     /**
      * Creates a new instance of {@code FileHandlerReloadingDetector} and
@@ -185,6 +185,21 @@ public class FileHandlerReloadingDetector implements ReloadingDetector
         updateLastModified(getLastModificationDate());
     }
 
+    /**
+     * Makes sure that the next call of {@code isReloadingRequired()} checks
+     * the monitored file even if the refresh delay has not yet passed since
+     * the previous check. This method can be called if a change of the file
+     * has been reported by other means, e.g. by a
+     * {@link FileChangeReloadingTrigger}; then the change is not missed
+     * because of the refresh delay.
+     *
+     * @since 2.0
+     */
+    public void expireRefreshDelay()
+    {
+        lastChecked = 0;
+    }
+
     /**
      * Returns the date of the last modification of the monitored file. A return
      * value of 0 indicates, that the monitored file does not exist.
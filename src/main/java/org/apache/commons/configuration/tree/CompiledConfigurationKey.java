@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * A pre-parsed representation of a configuration key understood by a
+ * {@link DefaultExpressionEngine}.
+ * </p>
+ * <p>
+ * Evaluating a key with a {@link DefaultConfigurationKey.KeyIterator}
+ * requires tokenizing the key string each time it is queried. An instance of
+ * this class stores the result of this tokenization: an array with the names
+ * of the single key parts together with flags whether a part refers to a
+ * property or an attribute and the indices defined for the parts. So a key
+ * has to be parsed only once and can then be evaluated multiple times
+ * without any further string operations.
+ * </p>
+ * <p>
+ * Instances are created by the {@link #compile(DefaultExpressionEngine, String)}
+ * factory method. They are immutable and thus can be shared between multiple
+ * threads. Note that a compiled key reflects the settings of the expression
+ * engine (delimiters, index markers, etc.) at the time it was created.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.0
+ */
+final class CompiledConfigurationKey
+{
+    /** An array with the names of the single key parts. */
+    private final String[] names;
+
+    /** An array with the indices of the key parts. */
+    private final int[] indices;
+
+    /** An array with flags whether the key parts have an index. */
+    private final boolean[] indexFlags;
+
+    /** An array with flags whether the key parts refer to properties. */
+    private final boolean[] propertyFlags;
+
+    /** An array with flags whether the key parts refer to attributes. */
+    private final boolean[] attributeFlags;
+
+    /**
+     * Creates a new instance of {@code CompiledConfigurationKey} and
+     * initializes it from the given list of key parts.
+     *
+     * @param parts the list with the key parts
+     */
+    private CompiledConfigurationKey(List<KeyPart> parts)
+    {
+        int size = parts.size();
+        names = new String[size];
+        indices = new int[size];
+        indexFlags = new boolean[size];
+        propertyFlags = new boolean[size];
+        attributeFlags = new boolean[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            KeyPart part = parts.get(i);
+            names[i] = part.name;
+            indices[i] = part.index;
+            indexFlags[i] = part.hasIndex;
+            propertyFlags[i] = part.propertyKey;
+            attributeFlags[i] = part.attribute;
+        }
+    }
+
+    /**
+     * Parses the given key according to the settings of the specified
+     * expression engine and returns a compiled representation. The parsing
+     * is done by a {@link DefaultConfigurationKey.KeyIterator}; so the
+     * resulting compiled key is guaranteed to be evaluated in the same way as
+     * the original key string.
+     *
+     * @param engine the expression engine
+     * @param key the key to be compiled
+     * @return the compiled key
+     */
+    public static CompiledConfigurationKey compile(
+            DefaultExpressionEngine engine, String key)
+    {
+        List<KeyPart> parts = new ArrayList<KeyPart>();
+        DefaultConfigurationKey.KeyIterator it =
+                new DefaultConfigurationKey(engine, key).iterator();
+        while (it.hasNext())
+        {
+            String name = it.nextKey(false);
+            parts.add(new KeyPart(name, it.hasIndex(), it.getIndex(), it
+                    .isPropertyKey(), it.isAttribute()));
+        }
+        return new CompiledConfigurationKey(parts);
+    }
+
+    /**
+     * Returns the number of parts of this key.
+     *
+     * @return the number of key parts
+     */
+    public int size()
+    {
+        return names.length;
+    }
+
+    /**
+     * Returns the name of the key part with the given index.
+     *
+     * @param pos the index of the key part
+     * @return the name of this key part
+     */
+    public String getName(int pos)
+    {
+        return names[pos];
+    }
+
+    /**
+     * Returns a flag whether the key part with the given index has an
+     * associated index.
+     *
+     * @param pos the index of the key part
+     * @return a flag whether an index is defined for this key part
+     */
+    public boolean hasIndex(int pos)
+    {
+        return indexFlags[pos];
+    }
+
+    /**
+     * Returns the index value of the key part with the given index. If the
+     * part does not have an index, result is -1.
+     *
+     * @param pos the index of the key part
+     * @return the index value of this key part
+     */
+    public int getIndex(int pos)
+    {
+        return indices[pos];
+    }
+
+    /**
+     * Returns a flag whether the key part with the given index refers to a
+     * property (i.e. a child node).
+     *
+     * @param pos the index of the key part
+     * @return a flag whether this is a property key
+     */
+    public boolean isPropertyKey(int pos)
+    {
+        return propertyFlags[pos];
+    }
+
+    /**
+     * Returns a flag whether the key part with the given index refers to an
+     * attribute.
+     *
+     * @param pos the index of the key part
+     * @return a flag whether this is an attribute key
+     */
+    public boolean isAttribute(int pos)
+    {
+        return attributeFlags[pos];
+    }
+
+    /**
+     * A simple data class for temporarily storing the data of a key part
+     * during compilation.
+     */
+    private static class KeyPart
+    {
+        /** The name of the key part. */
+        private final String name;
+
+        /** The flag whether an index is defined. */
+        private final boolean hasIndex;
+
+        /** The index value. */
+        private final int index;
+
+        /** The flag whether this is a property key. */
+        private final boolean propertyKey;
+
+        /** The flag whether this is an attribute key. */
+        private final boolean attribute;
+
+        /**
+         * Creates a new instance of {@code KeyPart} and initializes all
+         * fields.
+         *
+         * @param n the name
+         * @param hasIdx the index flag
+         * @param idx the index value
+         * @param prop the property key flag
+         * @param attr the attribute flag
+         */
+        public KeyPart(String n, boolean hasIdx, int idx, boolean prop,
+                boolean attr)
+        {
+            name = n;
+            hasIndex = hasIdx;
+            index = idx;
+            propertyKey = prop;
+            attribute = attr;
+        }
+    }
+}
@@ -19,6 +19,8 @@ package org.apache.commons.configuration.tree;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -99,6 +101,19 @@ import org.apache.commons.lang.StringUtils;
  * It is also possible to set custom values for these properties so that you can
  * adapt a {@code DefaultExpressionEngine} to your personal needs.
  * </p>
+ * <p>
+ * Keys passed to the {@code query()} method are parsed only once. The parsed
+ * representation is stored in a cache and reused when the same key is
+ * queried again. This avoids tokenizing the key strings over and over again
+ * for frequently accessed properties. The maximum number of cached keys can
+ * be configured using the {@link #setKeyCacheSize(int)} method; a value of 0
+ * disables caching. The cache is cleared automatically when one of the
+ * properties defining the syntax of keys is changed. Subclasses which
+ * override the protected
+ * {@link #findNodesForKey(DefaultConfigurationKey.KeyIterator, ConfigurationNode, Collection)}
+ * method are detected; for them {@code query()} evaluates keys through this
+ * method as before, so the cache is not used.
+ * </p>
  *
  * @since 1.3
  * @author <a
@@ -127,6 +142,9 @@ public class DefaultExpressionEngine implements ExpressionEngine
     /** Constant for the default index end marker. */
     public static final String DEFAULT_INDEX_END = ")";
 
+    /** Constant for the default maximum size of the key cache. */
+    public static final int DEFAULT_KEY_CACHE_SIZE = 1024;
+
     /** Stores the property delimiter. */
     private String propertyDelimiter = DEFAULT_PROPERTY_DELIMITER;
 
@@ -145,6 +163,24 @@ public class DefaultExpressionEngine implements ExpressionEngine
     /** stores the index end marker. */
     private String indexEnd = DEFAULT_INDEX_END;
 
+    /**
+     * A cache for keys that have already been parsed. When the syntax of keys
+     * changes, a new map is created, so that keys which are compiled
+     * concurrently with the old syntax cannot end up in the current cache.
+     */
+    private volatile Map<String, CompiledConfigurationKey> keyCache =
+            createKeyCache();
+
+    /**
+     * A flag whether a subclass overrides the {@code findNodesForKey()}
+     * method; then compiled keys cannot be used.
+     */
+    private final boolean findNodesForKeyOverridden =
+            isFindNodesForKeyOverridden(getClass());
+
+    /** Stores the maximum number of keys in the key cache. */
+    private volatile int keyCacheSize = DEFAULT_KEY_CACHE_SIZE;
+
     /**
      * Sets the attribute end marker.
      *
@@ -164,6 +200,7 @@ public class DefaultExpressionEngine implements ExpressionEngine
     public void setAttributeEnd(String attributeEnd)
     {
         this.attributeEnd = attributeEnd;
+        clearKeyCache();
     }
 
     /**
@@ -185,6 +222,7 @@ public class DefaultExpressionEngine implements ExpressionEngine
     public void setAttributeStart(String attributeStart)
     {
         this.attributeStart = attributeStart;
+        clearKeyCache();
     }
 
     /**
@@ -209,6 +247,7 @@ public class DefaultExpressionEngine implements ExpressionEngine
     public void setEscapedDelimiter(String escapedDelimiter)
     {
         this.escapedDelimiter = escapedDelimiter;
+        clearKeyCache();
     }
 
     /**
@@ -229,6 +268,7 @@ public class DefaultExpressionEngine implements ExpressionEngine
     public void setIndexEnd(String indexEnd)
     {
         this.indexEnd = indexEnd;
+        clearKeyCache();
     }
 
     /**
@@ -250,6 +290,7 @@ public class DefaultExpressionEngine implements ExpressionEngine
     public void setIndexStart(String indexStart)
     {
         this.indexStart = indexStart;
+        clearKeyCache();
     }
 
     /**
@@ -271,6 +312,51 @@ public class DefaultExpressionEngine implements ExpressionEngine
     public void setPropertyDelimiter(String propertyDelimiter)
     {
         this.propertyDelimiter = propertyDelimiter;
+        clearKeyCache();
+    }
+
+    /**
+     * Returns the maximum number of parsed keys stored in the key cache.
+     *
+     * @return the maximum size of the key cache
+     * @since 2.0
+     */
+    public int getKeyCacheSize()
+    {
+        return keyCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of parsed keys stored in the key cache. If the
+     * cache is full, it is cleared before another key is added. So this value
+     * should be large enough to hold the keys which are accessed frequently.
+     * A value of 0 disables caching.
+     *
+     * @param keyCacheSize the maximum size of the key cache
+     * @throws IllegalArgumentException if the size is negative
+     * @since 2.0
+     */
+    public void setKeyCacheSize(int keyCacheSize)
+    {
+        if (keyCacheSize < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Key cache size must not be negative: " + keyCacheSize);
+        }
+        this.keyCacheSize = keyCacheSize;
+        clearKeyCache();
+    }
+
+    /**
+     * Removes all keys from the key cache. This method is called
+     * automatically when a property is changed which affects the parsing of
+     * keys.
+     *
+     * @since 2.0
+     */
+    public void clearKeyCache()
+    {
+        keyCache = createKeyCache();
     }
 
     /**
@@ -284,8 +370,15 @@ public class DefaultExpressionEngine implements ExpressionEngine
     public List<ConfigurationNode> query(ConfigurationNode root, String key)
     {
         List<ConfigurationNode> nodes = new LinkedList<ConfigurationNode>();
-        findNodesForKey(new DefaultConfigurationKey(this, key).iterator(),
-                root, nodes);
+        if (findNodesForKeyOverridden)
+        {
+            findNodesForKey(new DefaultConfigurationKey(this, key).iterator(),
+                    root, nodes);
+        }
+        else
+        {
+            findNodesForKey(compileKey(key), 0, root, nodes);
+        }
         return nodes;
     }
 
@@ -513,6 +606,144 @@ public class DefaultExpressionEngine implements ExpressionEngine
         }
     }
 
+    /**
+     * Returns a compiled representation of the given key. If the key is
+     * contained in the key cache, the cached instance is returned. Otherwise,
+     * the key is parsed now and added to the cache. <b>null</b> keys are not
+     * cached. The cache map is obtained before the key is parsed; so if the
+     * syntax is changed in the meantime, the key is added to a map which is
+     * no longer in use.
+     *
+     * @param key the key
+     * @return the compiled key
+     */
+    CompiledConfigurationKey compileKey(String key)
+    {
+        if (key == null)
+        {
+            return CompiledConfigurationKey.compile(this, key);
+        }
+
+        Map<String, CompiledConfigurationKey> cache = keyCache;
+        CompiledConfigurationKey compiledKey = cache.get(key);
+        if (compiledKey == null)
+        {
+            compiledKey = CompiledConfigurationKey.compile(this, key);
+            int maxSize = getKeyCacheSize();
+            if (maxSize > 0)
+            {
+                if (cache.size() >= maxSize)
+                {
+                    cache.clear();
+                }
+                cache.put(key, compiledKey);
+            }
+        }
+        return compiledKey;
+    }
+
+    /**
+     * Creates a new, empty map for the key cache.
+     *
+     * @return the map for the key cache
+     */
+    private static Map<String, CompiledConfigurationKey> createKeyCache()
+    {
+        return new ConcurrentHashMap<String, CompiledConfigurationKey>();
+    }
+
+    /**
+     * Checks whether the given class overrides the protected
+     * {@code findNodesForKey()} method. In this case the overridden method
+     * has to be called for evaluating keys.
+     *
+     * @param engineClass the class of this expression engine
+     * @return a flag whether {@code findNodesForKey()} is overridden
+     */
+    private static boolean isFindNodesForKeyOverridden(Class<?> engineClass)
+    {
+        for (Class<?> c = engineClass; c != DefaultExpressionEngine.class; c = c
+                .getSuperclass())
+        {
+            try
+            {
+                c.getDeclaredMethod("findNodesForKey",
+                        DefaultConfigurationKey.KeyIterator.class,
+                        ConfigurationNode.class, Collection.class);
+                return true;
+            }
+            catch (NoSuchMethodException nmex)
+            {
+                // not declared in this class, check the super class
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates a compiled key. This method works like
+     * {@link #findNodesForKey(DefaultConfigurationKey.KeyIterator, ConfigurationNode, Collection)},
+     * but operates on an already parsed key. It processes the key part at the
+     * given position and then calls itself recursively for the following
+     * parts.
+     *
+     * @param key the compiled key
+     * @param pos the position of the current key part
+     * @param node the actual node
+     * @param nodes here the found nodes are stored
+     */
+    private void findNodesForKey(CompiledConfigurationKey key, int pos,
+            ConfigurationNode node, Collection<ConfigurationNode> nodes)
+    {
+        if (pos >= key.size())
+        {
+            nodes.add(node);
+        }
+
+        else
+        {
+            String name = key.getName(pos);
+            if (key.isPropertyKey(pos))
+            {
+                processSubNodes(key, pos, node.getChildren(name), nodes);
+            }
+            if (key.isAttribute(pos))
+            {
+                processSubNodes(key, pos, node.getAttributes(name), nodes);
+            }
+        }
+    }
+
+    /**
+     * Processes the sub nodes of the current node for a compiled key. This
+     * is analogous to
+     * {@link #processSubNodes(DefaultConfigurationKey.KeyIterator, List, Collection)}.
+     *
+     * @param key the compiled key
+     * @param pos the position of the current key part
+     * @param subNodes a list with the sub nodes to process
+     * @param nodes the target collection
+     */
+    private void processSubNodes(CompiledConfigurationKey key, int pos,
+            List<ConfigurationNode> subNodes, Collection<ConfigurationNode> nodes)
+    {
+        if (key.hasIndex(pos))
+        {
+            int index = key.getIndex(pos);
+            if (index >= 0 && index < subNodes.size())
+            {
+                findNodesForKey(key, pos + 1, subNodes.get(index), nodes);
+            }
+        }
+        else
+        {
+            for (ConfigurationNode node : subNodes)
+            {
+                findNodesForKey(key, pos + 1, node, nodes);
+            }
+        }
+    }
+
     /**
      * Called by {@code findNodesForKey()} to process the sub nodes of
      * the current node depending on the type of the current key part (children,
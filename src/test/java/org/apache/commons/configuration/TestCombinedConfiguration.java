@@ -34,6 +34,8 @@ import java.text.MessageFormat;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import junit.framework.Assert;
 
@@ -41,6 +43,7 @@ import org.apache.commons.configuration.event.ConfigurationEvent;
 import org.apache.commons.configuration.event.ConfigurationListener;
 import org.apache.commons.configuration.reloading.FileAlwaysReloadingStrategy;
 import org.apache.commons.configuration.reloading.FileRandomReloadingStrategy;
+import org.apache.commons.configuration.tree.ConfigurationNode;
 import org.apache.commons.configuration.tree.DefaultExpressionEngine;
 import org.apache.commons.configuration.tree.MergeCombiner;
 import org.apache.commons.configuration.tree.NodeCombiner;
@@ -848,6 +851,208 @@ public class TestCombinedConfiguration
         return config;
     }
 
+    /**
+     * Prepares a combined configuration with three children for tests of the
+     * incremental construction of the combined node structure. A counting
+     * node combiner is set.
+     *
+     * @param combiner the combiner to be used
+     * @return an array with the child configurations
+     */
+    private BaseHierarchicalConfiguration[] setUpIncrementalTest(
+            CountingCombiner combiner)
+    {
+        BaseHierarchicalConfiguration[] children = new BaseHierarchicalConfiguration[3];
+        for (int i = 0; i < children.length; i++)
+        {
+            children[i] = new BaseHierarchicalConfiguration();
+            children[i].addProperty("child" + i, Integer.valueOf(i));
+            children[i].addProperty("value", Integer.valueOf(i));
+            config.addConfiguration(children[i], null, (i == 1) ? "sub" : null);
+        }
+        config.setNodeCombiner(combiner);
+        config.getRootNode();
+        assertEquals("Wrong number of initial combine() calls", 2,
+                combiner.combineCount);
+        return children;
+    }
+
+    /**
+     * Tests that only the nodes of a changed child configuration and of the
+     * ones following it are combined again.
+     */
+    @Test
+    public void testIncrementalCombineLastChild()
+    {
+        CountingCombiner combiner = new CountingCombiner();
+        BaseHierarchicalConfiguration[] children = setUpIncrementalTest(combiner);
+        children[2].addProperty("newKey", "newValue");
+        assertEquals("Property not found", "newValue", config.getString("newKey"));
+        assertEquals("Wrong number of combine() calls", 3, combiner.combineCount);
+        assertEquals("Wrong child property", 1, config.getInt("sub.child1"));
+    }
+
+    /**
+     * Tests the incremental combination if the first child configuration is
+     * changed.
+     */
+    @Test
+    public void testIncrementalCombineFirstChild()
+    {
+        CountingCombiner combiner = new CountingCombiner();
+        BaseHierarchicalConfiguration[] children = setUpIncrementalTest(combiner);
+        children[0].setProperty("value", Integer.valueOf(42));
+        assertEquals("Property not changed", 42, config.getInt("value"));
+        assertEquals("Wrong number of combine() calls", 4, combiner.combineCount);
+        assertEquals("Wrong other property", 2, config.getInt("child2"));
+    }
+
+    /**
+     * Tests that nodes of child configurations are combined correctly after a
+     * configuration has been removed.
+     */
+    @Test
+    public void testIncrementalCombineRemoveConfiguration()
+    {
+        CountingCombiner combiner = new CountingCombiner();
+        BaseHierarchicalConfiguration[] children = setUpIncrementalTest(combiner);
+        config.removeConfiguration(children[1]);
+        assertFalse("Removed property found", config.containsKey("sub.child1"));
+        assertTrue("Property not found", config.containsKey("child2"));
+        assertEquals("Wrong number of combine() calls", 3, combiner.combineCount);
+    }
+
+    /**
+     * Tests that all nodes are combined again after invalidate() was called.
+     */
+    @Test
+    public void testIncrementalCombineInvalidate()
+    {
+        CountingCombiner combiner = new CountingCombiner();
+        setUpIncrementalTest(combiner);
+        config.invalidate();
+        config.getRootNode();
+        assertEquals("Wrong number of combine() calls", 4, combiner.combineCount);
+    }
+
+    /**
+     * Tests that properties added directly to the combined configuration are
+     * discarded if a child configuration changes, even if only a part of the
+     * combined node structure has to be constructed again.
+     */
+    @Test
+    public void testIncrementalCombineAfterDirectChange()
+    {
+        CountingCombiner combiner = new CountingCombiner();
+        BaseHierarchicalConfiguration[] children = setUpIncrementalTest(combiner);
+        config.addProperty("direct", "value");
+        config.addProperty("sub.direct", "value");
+        children[2].addProperty("newKey", "newValue");
+        assertFalse("Direct property found", config.containsKey("direct"));
+        assertFalse("Direct sub property found", config.containsKey("sub.direct"));
+        assertFalse("Child was changed", children[1].containsKey("direct"));
+    }
+
+    /**
+     * Tests the default value of the non-blocking reads flag.
+     */
+    @Test
+    public void testNonBlockingReadsDefault()
+    {
+        assertFalse("Wrong default", config.isNonBlockingReads());
+        config.setNonBlockingReads(true);
+        assertTrue("Flag not set", config.isNonBlockingReads());
+    }
+
+    /**
+     * Tests that in non-blocking mode readers see the old root node while
+     * another thread re-constructs the combined node structure.
+     */
+    @Test
+    public void testNonBlockingReadsDuringReconstruction() throws Exception
+    {
+        BlockingCombiner combiner = new BlockingCombiner();
+        BaseHierarchicalConfiguration child1 = new BaseHierarchicalConfiguration();
+        child1.addProperty("key1", "value1");
+        BaseHierarchicalConfiguration child2 = new BaseHierarchicalConfiguration();
+        child2.addProperty("key2", "value2");
+        config.setNonBlockingReads(true);
+        config.setNodeCombiner(combiner);
+        config.addConfiguration(child1);
+        config.addConfiguration(child2);
+        combiner.release.countDown();
+        ConfigurationNode oldRoot = config.getRootNode();
+
+        combiner.started = new CountDownLatch(1);
+        combiner.release = new CountDownLatch(1);
+        child2.addProperty("key3", "value3");
+        Thread reconstructThread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                config.getRootNode();
+            }
+        };
+        reconstructThread.start();
+        assertTrue("Reconstruction not started",
+                combiner.started.await(10, TimeUnit.SECONDS));
+        assertSame("Reader was not given the old root", oldRoot,
+                config.getRootNode());
+        assertFalse("New property found", config.containsKey("key3"));
+
+        combiner.release.countDown();
+        reconstructThread.join();
+        assertNotSame("Root node not replaced", oldRoot, config.getRootNode());
+        assertEquals("New property not found", "value3", config.getString("key3"));
+    }
+
+    /**
+     * A node combiner which blocks until it is released. This is used for
+     * testing concurrent access during a reconstruction.
+     */
+    static class BlockingCombiner extends UnionCombiner
+    {
+        /** A latch which is triggered when combine() is called. */
+        volatile CountDownLatch started = new CountDownLatch(1);
+
+        /** The latch for releasing the combiner. */
+        volatile CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public ConfigurationNode combine(ConfigurationNode node1,
+                ConfigurationNode node2)
+        {
+            started.countDown();
+            try
+            {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException iex)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return super.combine(node1, node2);
+        }
+    }
+
+    /**
+     * A node combiner which counts the number of its invocations.
+     */
+    static class CountingCombiner extends UnionCombiner
+    {
+        /** The number of calls of combine(). */
+        int combineCount;
+
+        @Override
+        public ConfigurationNode combine(ConfigurationNode node1,
+                ConfigurationNode node2)
+        {
+            combineCount++;
+            return super.combine(node1, node2);
+        }
+    }
+
     /**
      * Test event listener class for checking if the expected invalidate events
      * are fired.
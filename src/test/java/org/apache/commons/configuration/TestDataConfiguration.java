@@ -20,7 +20,9 @@ package org.apache.commons.configuration;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -2440,4 +2442,150 @@ public class TestDataConfiguration
         conf.clearPropertyDirect(key);
         EasyMock.verify(wrapped);
     }
+
+    /**
+     * Tests that the conversion cache is disabled per default.
+     */
+    @Test
+    public void testConversionCacheDefault()
+    {
+        assertFalse("Cache enabled", conf.isConversionCacheEnabled());
+        assertNotSame("Converted value cached", conf.getURL("url.string"),
+                conf.getURL("url.string"));
+    }
+
+    /**
+     * Tests whether converted values are returned from the cache.
+     */
+    @Test
+    public void testConversionCacheGet()
+    {
+        conf.setConversionCacheEnabled(true);
+        assertTrue("Cache not enabled", conf.isConversionCacheEnabled());
+        URL url = conf.getURL("url.string");
+        assertSame("Value not cached", url, conf.getURL("url.string"));
+        assertSame("Value not cached (2)", url, conf.get(URL.class, "url.string"));
+    }
+
+    /**
+     * Tests whether the conversion cache is cleared when the wrapped
+     * configuration is changed.
+     */
+    @Test
+    public void testConversionCacheInvalidatedOnChange() throws Exception
+    {
+        conf.setConversionCacheEnabled(true);
+        conf.getURL("url.string");
+        conf.getConfiguration().setProperty("url.string", "http://commons.apache.org");
+        assertEquals("Wrong URL after set", new URL("http://commons.apache.org"),
+                conf.getURL("url.string"));
+        conf.getConfiguration().clearProperty("url.string");
+        assertNull("Got a URL after clear", conf.getURL("url.string", null));
+    }
+
+    /**
+     * Tests whether the conversion cache takes changes of variables into
+     * account.
+     */
+    @Test
+    public void testConversionCacheInterpolatedValue() throws Exception
+    {
+        conf.setConversionCacheEnabled(true);
+        conf.getURL("url.string.interpolated");
+        conf.setProperty("url.string", "http://commons.apache.org");
+        assertEquals("Wrong interpolated URL", new URL("http://commons.apache.org"),
+                conf.getURL("url.string.interpolated"));
+    }
+
+    /**
+     * Tests that lists of converted values can be cached and that the cached
+     * lists cannot be modified by the caller.
+     */
+    @Test
+    public void testConversionCacheList() throws Exception
+    {
+        conf.setConversionCacheEnabled(true);
+        List<URL> list = conf.getList(URL.class, "url.list1");
+        List<URL> list2 = conf.getList(URL.class, "url.list1");
+        assertNotSame("Same list", list, list2);
+        assertSame("Element not cached", list.get(0), list2.get(0));
+        list.clear();
+        assertEquals("Wrong list size", 2, conf.getList(URL.class, "url.list1").size());
+    }
+
+    /**
+     * Tests that a null key is handled if the conversion cache is enabled.
+     */
+    @Test
+    public void testConversionCacheNullKey() throws Exception
+    {
+        conf.setConversionCacheEnabled(true);
+        URL defaultURL = new URL("http://commons.apache.org");
+        assertSame("Wrong value", defaultURL,
+                conf.get(URL.class, null, defaultURL));
+        List<URL> defaultList = new ArrayList<URL>();
+        assertSame("Wrong list", defaultList,
+                conf.getList(URL.class, null, defaultList));
+    }
+
+    /**
+     * Tests that mutable values are copied by the conversion cache.
+     */
+    @Test
+    public void testConversionCacheDateCopied() throws Exception
+    {
+        conf.setConversionCacheEnabled(true);
+        Date date = conf.getDate("date.string");
+        Date expected = (Date) date.clone();
+        date.setTime(0);
+        assertEquals("Cached date modified", expected, conf.getDate("date.string"));
+    }
+
+    /**
+     * Tests that the date format is taken into account by the conversion
+     * cache.
+     */
+    @Test
+    public void testConversionCacheDateFormat() throws Exception
+    {
+        conf.setConversionCacheEnabled(true);
+        conf.setProperty("date.test", "02.01.2004");
+        conf.setProperty(DataConfiguration.DATE_FORMAT_KEY, "dd.MM.yyyy");
+        Date date = conf.getDate("date.test");
+        conf.setProperty(DataConfiguration.DATE_FORMAT_KEY, "MM.dd.yyyy");
+        assertFalse("Format not taken into account",
+                date.equals(conf.getDate("date.test")));
+        assertEquals("Wrong date with explicit format", date,
+                conf.getDate("date.test", "dd.MM.yyyy"));
+    }
+
+    /**
+     * Tests whether the conversion cache can be disabled again.
+     */
+    @Test
+    public void testConversionCacheDisable()
+    {
+        BaseConfiguration wrapped = (BaseConfiguration) conf.getConfiguration();
+        int listenerCount = wrapped.getConfigurationListeners().size();
+        conf.setConversionCacheEnabled(true);
+        assertEquals("No listener registered", listenerCount + 1,
+                wrapped.getConfigurationListeners().size());
+        conf.setConversionCacheEnabled(false);
+        assertFalse("Cache still enabled", conf.isConversionCacheEnabled());
+        assertEquals("Listener not removed", listenerCount,
+                wrapped.getConfigurationListeners().size());
+        assertNotSame("Converted value cached", conf.getURL("url.string"),
+                conf.getURL("url.string"));
+    }
+
+    /**
+     * Tries to enable the conversion cache if the wrapped configuration does
+     * not support events.
+     */
+    @Test(expected = ConfigurationRuntimeException.class)
+    public void testConversionCacheNoEventSource()
+    {
+        conf = new DataConfiguration(EasyMock.createMock(Configuration.class));
+        conf.setConversionCacheEnabled(true);
+    }
 }
@@ -19,8 +19,13 @@ package org.apache.commons.configuration;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Iterator;
@@ -28,6 +33,7 @@ import java.util.List;
 
 import javax.sql.DataSource;
 
+import org.apache.commons.configuration.reloading.ReloadingDetector;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -522,6 +528,437 @@ public class TestDatabaseConfiguration
         assertEquals("Wrong value at index 1", "2", values[1]);
     }
 
+    /**
+     * Creates a database configuration with an enabled cache.
+     *
+     * @return the configuration
+     */
+    private PotentialErrorDatabaseConfiguration setUpCachedConfig()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpConfig();
+        config.setCacheEnabled(true);
+        return config;
+    }
+
+    /**
+     * Tests the default values of the cache properties.
+     */
+    @Test
+    public void testCacheDefaults()
+    {
+        DatabaseConfiguration config = setUpConfig();
+        assertFalse("Cache enabled", config.isCacheEnabled());
+        assertEquals("Wrong cache timeout", 0, config.getCacheTimeout());
+    }
+
+    /**
+     * Tests that a negative cache timeout is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetCacheTimeoutNegative()
+    {
+        setUpConfig().setCacheTimeout(-1);
+    }
+
+    /**
+     * Tests whether read operations are served by a single query if the cache
+     * is enabled.
+     */
+    @Test
+    public void testCacheReadOperations()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpCachedConfig();
+        config.setListDelimiter(';');
+        assertEquals("Wrong value 1", "value1", config.getString("key1"));
+        assertEquals("Wrong value 2", "value2", config.getProperty("key2"));
+        assertEquals("Wrong list", 3, config.getList("keyMulti").size());
+        assertNull("Got unknown property", config.getProperty("unknown"));
+        assertTrue("Key not found", config.containsKey("key1"));
+        assertFalse("Unknown key found", config.containsKey("unknown"));
+        assertFalse("Empty", config.isEmpty());
+        Iterator<String> it = config.getKeys();
+        int count = 0;
+        while (it.hasNext())
+        {
+            it.next();
+            count++;
+        }
+        assertEquals("Wrong number of keys", 3, count);
+        assertEquals("Wrong number of connections", 1, config.connectionCount);
+    }
+
+    /**
+     * Tests the cache for a configuration stored in a table with multiple
+     * configurations.
+     */
+    @Test
+    public void testCacheMultiple()
+    {
+        DatabaseConfiguration config = helper.setUpMultiConfig();
+        config.setCacheEnabled(true);
+        assertEquals("Wrong value", "value1", config.getString("key1"));
+        assertTrue("Key not found", config.containsKey("key2"));
+        DatabaseConfiguration config2 = helper.setUpMultiConfig(CONFIG_NAME2);
+        config2.setCacheEnabled(true);
+        assertTrue("Other configuration not empty", config2.isEmpty());
+    }
+
+    /**
+     * Tests whether updates through the configuration invalidate the cache.
+     */
+    @Test
+    public void testCacheInvalidatedByUpdates()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpCachedConfig();
+        assertFalse("Key found", config.containsKey("newKey"));
+        config.addProperty("newKey", "newValue");
+        assertEquals("Added property not found", "newValue",
+                config.getString("newKey"));
+        config.clearProperty("key1");
+        assertFalse("Property not removed", config.containsKey("key1"));
+        config.clear();
+        assertTrue("Not empty", config.isEmpty());
+    }
+
+    /**
+     * Tests that changes made by others become visible after a refresh.
+     */
+    @Test
+    public void testRefreshCache()
+    {
+        DatabaseConfiguration config = setUpCachedConfig();
+        assertFalse("Key found", config.containsKey("newKey"));
+        setUpConfig().addProperty("newKey", "newValue");
+        assertFalse("Change visible", config.containsKey("newKey"));
+        config.refreshCache();
+        assertEquals("Change not visible", "newValue",
+                config.getString("newKey"));
+    }
+
+    /**
+     * Tests whether the cache is reloaded after it has expired.
+     */
+    @Test
+    public void testCacheTimeout() throws InterruptedException
+    {
+        DatabaseConfiguration config = setUpCachedConfig();
+        config.setCacheTimeout(1);
+        assertFalse("Key found", config.containsKey("newKey"));
+        setUpConfig().addProperty("newKey", "newValue");
+        Thread.sleep(20);
+        assertTrue("Change not visible", config.containsKey("newKey"));
+    }
+
+    /**
+     * Tests the reloading detector for the cache.
+     */
+    @Test
+    public void testCacheReloadingDetector() throws InterruptedException
+    {
+        PotentialErrorDatabaseConfiguration config = setUpCachedConfig();
+        ReloadingDetector detector = config.getReloadingDetector();
+        assertFalse("Reload required before loading",
+                detector.isReloadingRequired());
+        config.getProperty("key1");
+        assertFalse("Reload required without timeout",
+                detector.isReloadingRequired());
+        config.setCacheTimeout(1);
+        Thread.sleep(20);
+        assertTrue("No reload required", detector.isReloadingRequired());
+        detector.reloadingPerformed();
+        config.setCacheTimeout(0);
+        assertFalse("Still reload required", detector.isReloadingRequired());
+        config.getProperty("key1");
+        assertEquals("Wrong number of connections", 2, config.connectionCount);
+    }
+
+    /**
+     * Tests that disabling the cache causes direct database access again.
+     */
+    @Test
+    public void testDisableCache()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpCachedConfig();
+        config.getProperty("key1");
+        config.setCacheEnabled(false);
+        config.getProperty("key1");
+        config.getProperty("key2");
+        assertEquals("Wrong number of connections", 3, config.connectionCount);
+    }
+
+    /**
+     * Tests the error handling when loading the cache.
+     */
+    @Test
+    public void testCacheLoadError()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpErrorConfig();
+        config.setCacheEnabled(true);
+        assertNull("Got a value", config.getProperty("key1"));
+        checkErrorListener(AbstractConfiguration.EVENT_READ_PROPERTY, null, null);
+        config.failOnConnect = false;
+        assertEquals("Cache not reloaded after error", "value1",
+                config.getString("key1"));
+    }
+
+    /**
+     * Tests that a cache which is loaded while an update happens is not
+     * stored, so that the update is not hidden by the loaded data.
+     */
+    @Test
+    public void testCacheInvalidatedDuringLoad()
+    {
+        final PotentialErrorDatabaseConfiguration config = setUpCachedConfig();
+        config.connectAction = new Runnable()
+        {
+            public void run()
+            {
+                config.connectAction = null;
+                config.addProperty("newKey", "newValue");
+            }
+        };
+        config.getProperty("key1");
+        int count = config.connectionCount;
+        assertEquals("Wrong value", "newValue", config.getString("newKey"));
+        assertEquals("Cache not reloaded", count + 1, config.connectionCount);
+        config.getProperty("key1");
+        assertEquals("Cache not stored", count + 1, config.connectionCount);
+    }
+
+    /**
+     * Tests that cached values are split again if the list delimiter is
+     * changed.
+     */
+    @Test
+    public void testCacheListDelimiterChanged()
+    {
+        DatabaseConfiguration config = setUpCachedConfig();
+        assertEquals("Wrong single value", "a;b;c",
+                config.getString("keyMulti"));
+        config.setListDelimiter(';');
+        List<Object> values = config.getList("keyMulti");
+        assertEquals("Wrong number of list elements", 3, values.size());
+        values.clear();
+        assertEquals("Cached list was modified", 3,
+                config.getList("keyMulti").size());
+    }
+
+    /**
+     * Tests that updates in a batch are collected and written with a single
+     * connection.
+     */
+    @Test
+    public void testBatchUpdates()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpConfig();
+        assertFalse("Batch active", config.isBatchActive());
+        config.beginBatch();
+        assertTrue("No batch active", config.isBatchActive());
+        for (int i = 0; i < 10; i++)
+        {
+            config.addProperty("batchKey" + i, "value" + i);
+        }
+        config.clearProperty("key1");
+        config.addProperty("key1", "newValue");
+        assertEquals("Connections used before execute", 0,
+                config.connectionCount);
+        config.executeBatch();
+        assertFalse("Batch still active", config.isBatchActive());
+        assertEquals("Wrong number of connections", 1, config.connectionCount);
+        assertEquals("Wrong batch value", "value5",
+                config.getString("batchKey5"));
+        assertEquals("Wrong changed value", "newValue",
+                config.getString("key1"));
+    }
+
+    /**
+     * Tests a batch in a table with multiple configurations and commits.
+     */
+    @Test
+    public void testBatchUpdatesMultipleCommit()
+    {
+        helper.setAutoCommit(false);
+        DatabaseConfiguration config = helper.setUpMultiConfig();
+        config.beginBatch();
+        config.clear();
+        config.addProperty("key", "value");
+        config.executeBatch();
+        assertEquals("Wrong value", "value", config.getString("key"));
+        assertFalse("Property not removed", config.containsKey("key1"));
+    }
+
+    /**
+     * Tests that beginBatch() cannot be called while a batch is active.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testBeginBatchTwice()
+    {
+        DatabaseConfiguration config = setUpConfig();
+        config.beginBatch();
+        config.beginBatch();
+    }
+
+    /**
+     * Tests that executeBatch() fails if no batch is active.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testExecuteBatchNotActive()
+    {
+        setUpConfig().executeBatch();
+    }
+
+    /**
+     * Tests the error handling when executing a batch.
+     */
+    @Test
+    public void testExecuteBatchError()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpErrorConfig();
+        config.beginBatch();
+        config.addProperty("key1", "value");
+        config.executeBatch();
+        checkErrorListener(AbstractConfiguration.EVENT_ADD_PROPERTY, "key1",
+                "value");
+        assertFalse("Batch still active", config.isBatchActive());
+    }
+
+    /**
+     * Tests that the error event of a failed batch statement refers to the
+     * update which caused the failure.
+     */
+    @Test
+    public void testExecuteBatchErrorFailedOperation()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpConfig();
+        setUpErrorListener(config);
+        config.failOnConnect = false;
+        config.beginBatch();
+        config.addProperty("batchKey1", "value1");
+        config.addProperty("key1", "duplicate");
+        config.addProperty("batchKey2", "value2");
+        config.executeBatch();
+        listener.verify(AbstractConfiguration.EVENT_ADD_PROPERTY, "key1",
+                "duplicate");
+        listener = null;
+    }
+
+    /**
+     * Tests that a batch is confined to the thread which started it. Updates
+     * of other threads have to be written directly.
+     */
+    @Test
+    public void testBatchThreadConfined() throws InterruptedException
+    {
+        final DatabaseConfiguration config = setUpConfig();
+        final boolean[] otherBatchActive = new boolean[1];
+        config.beginBatch();
+        config.addProperty("batchKey", "batchValue");
+        Thread t = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                otherBatchActive[0] = config.isBatchActive();
+                config.addProperty("otherKey", "otherValue");
+            }
+        };
+        t.start();
+        t.join();
+        assertFalse("Batch active in other thread", otherBatchActive[0]);
+        DatabaseConfiguration config2 = setUpConfig();
+        assertEquals("Update of other thread not written", "otherValue",
+                config2.getString("otherKey"));
+        assertFalse("Batch written too early",
+                config2.containsKey("batchKey"));
+        config.executeBatch();
+        assertEquals("Batch not written", "batchValue",
+                config2.getString("batchKey"));
+    }
+
+    /**
+     * Tests that copy() uses a single batch.
+     */
+    @Test
+    public void testCopyBatch()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpConfig();
+        BaseConfiguration src = new BaseConfiguration();
+        for (int i = 0; i < 10; i++)
+        {
+            src.addProperty("copyKey" + i, "value" + i);
+        }
+        src.addProperty("key1", "copiedValue");
+        config.copy(src);
+        assertEquals("Wrong number of connections", 1, config.connectionCount);
+        assertEquals("Wrong number of statements", 2, config.statementCount);
+        assertEquals("Wrong copied value", "value7",
+                config.getString("copyKey7"));
+        assertEquals("Property not replaced", "copiedValue",
+                config.getString("key1"));
+    }
+
+    /**
+     * Tests that the operations of a batch are grouped by their statements,
+     * but the order of the operations for a single key is retained.
+     */
+    @Test
+    public void testBatchGroupedByStatement()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpConfig();
+        config.beginBatch();
+        config.addProperty("batchKey1", "value1");
+        config.clearProperty("key1");
+        config.addProperty("batchKey2", "value2");
+        config.clearProperty("batchKey1");
+        config.addProperty("key1", "newValue");
+        config.clearProperty("key2");
+        config.executeBatch();
+        assertEquals("Wrong number of statements", 3, config.statementCount);
+        assertFalse("Property not removed", config.containsKey("batchKey1"));
+        assertEquals("Wrong value 1", "newValue", config.getString("key1"));
+        assertEquals("Wrong value 2", "value2", config.getString("batchKey2"));
+        assertFalse("Property 2 not removed", config.containsKey("key2"));
+    }
+
+    /**
+     * Tests that clearing the configuration in a batch is not reordered
+     * relative to other operations.
+     */
+    @Test
+    public void testBatchClearNotReordered()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpConfig();
+        config.beginBatch();
+        config.clearProperty("key1");
+        config.addProperty("batchKey1", "value1");
+        config.clear();
+        config.clearProperty("key2");
+        config.addProperty("batchKey2", "value2");
+        config.executeBatch();
+        assertFalse("Property not cleared", config.containsKey("batchKey1"));
+        assertEquals("Wrong value", "value2", config.getString("batchKey2"));
+    }
+
+    /**
+     * Tests that append() uses a single batch.
+     */
+    @Test
+    public void testAppendBatch()
+    {
+        PotentialErrorDatabaseConfiguration config = setUpConfig();
+        BaseConfiguration src = new BaseConfiguration();
+        src.addProperty("appendKey1", "value1");
+        src.addProperty("appendKey2", "value2");
+        config.append(src);
+        assertEquals("Wrong number of connections", 1, config.connectionCount);
+        assertEquals("Wrong appended value 1", "value1",
+                config.getString("appendKey1"));
+        assertEquals("Wrong appended value 2", "value2",
+                config.getString("appendKey2"));
+        assertEquals("Existing property changed", "value1",
+                config.getString("key1"));
+    }
+
     /**
      * A specialized database configuration implementation that can be
      * configured to throw an exception when obtaining a connection. This way
@@ -532,6 +969,15 @@ public class TestDatabaseConfiguration
         /** A flag whether a getConnection() call should fail. */
         boolean failOnConnect;
 
+        /** The number of connections that have been requested. */
+        int connectionCount;
+
+        /** An optional action to be executed when a connection is requested. */
+        Runnable connectAction;
+
+        /** The number of statements that have been prepared. */
+        int statementCount;
+
         public PotentialErrorDatabaseConfiguration(DataSource datasource,
                 String table, String keyColumn, String valueColumn)
         {
@@ -541,11 +987,38 @@ public class TestDatabaseConfiguration
         @Override
         protected Connection getConnection() throws SQLException
         {
+            connectionCount++;
+            if (connectAction != null)
+            {
+                connectAction.run();
+            }
             if (failOnConnect)
             {
                 throw new SQLException("Simulated DB error");
             }
-            return super.getConnection();
+            final Connection conn = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass()
+                    .getClassLoader(), new Class<?>[] {
+                Connection.class
+            }, new InvocationHandler()
+            {
+                public Object invoke(Object proxy, Method method,
+                        Object[] args) throws Throwable
+                {
+                    if ("prepareStatement".equals(method.getName()))
+                    {
+                        statementCount++;
+                    }
+                    try
+                    {
+                        return method.invoke(conn, args);
+                    }
+                    catch (InvocationTargetException itex)
+                    {
+                        throw itex.getCause();
+                    }
+                }
+            });
         }
     }
 }
@@ -21,6 +21,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.FileReader;
@@ -28,7 +29,11 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration.builder.BuilderConfigurationWrapperFactory;
 import org.apache.commons.configuration.builder.ConfigurationBuilder;
@@ -37,6 +42,7 @@ import org.apache.commons.configuration.builder.combined.CombinedConfigurationBu
 import org.apache.commons.configuration.builder.combined.MultiFileConfigurationBuilder;
 import org.apache.commons.configuration.builder.combined.ReloadingCombinedConfigurationBuilder;
 import org.apache.commons.configuration.builder.fluent.Parameters;
+import org.apache.commons.configuration.event.ConfigurationListener;
 import org.apache.commons.configuration.interpol.ConfigurationInterpolator;
 import org.apache.commons.configuration.interpol.Lookup;
 import org.apache.commons.configuration.tree.xpath.XPathExpressionEngine;
@@ -248,6 +254,481 @@ public class TestDynamicCombinedConfiguration
     }
 
 
+    /**
+     * Creates a configuration with a lookup for the prefix "test" which
+     * is backed by the given map.
+     *
+     * @param pattern the key pattern
+     * @param values the map with variable values
+     * @return the configuration
+     */
+    private static DynamicCombinedConfiguration setUpKeyPatternConfig(
+            String pattern, final Map<String, String> values)
+    {
+        DynamicCombinedConfiguration config = new DynamicCombinedConfiguration();
+        config.getInterpolator().registerLookup("test", new Lookup()
+        {
+            public Object lookup(String variable)
+            {
+                return values.get(variable);
+            }
+        });
+        config.setKeyPattern(pattern);
+        return config;
+    }
+
+    /**
+     * Checks whether the current key of the configuration is the same as
+     * produced by direct interpolation of the key pattern.
+     *
+     * @param config the configuration
+     * @param expected the expected key
+     */
+    private static void checkCurrentKey(DynamicCombinedConfiguration config,
+            String expected)
+    {
+        assertEquals("Wrong current key", expected, config.getCurrentKey());
+        assertEquals("Different result than interpolation",
+                String.valueOf(config.getInterpolator().interpolate(
+                        config.getKeyPattern())), config.getCurrentKey());
+    }
+
+    /**
+     * Tests the resolution of key patterns with different variables.
+     */
+    @Test
+    public void testCurrentKeyPatterns()
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("tenant", "t1");
+        values.put("region", "eu");
+        values.put("nested", "${test:tenant}");
+        checkCurrentKey(setUpKeyPatternConfig("constant", values), "constant");
+        checkCurrentKey(setUpKeyPatternConfig(null, values), "null");
+        checkCurrentKey(setUpKeyPatternConfig("${test:tenant}", values), "t1");
+        checkCurrentKey(setUpKeyPatternConfig(
+                "cfg_${test:tenant}_${test:region}.xml", values),
+                "cfg_t1_eu.xml");
+        checkCurrentKey(setUpKeyPatternConfig("a${test:unknown}b", values),
+                "a${test:unknown}b");
+        checkCurrentKey(setUpKeyPatternConfig("x-${test:nested}", values),
+                "x-t1");
+        checkCurrentKey(setUpKeyPatternConfig("$${test:tenant}", values),
+                "${test:tenant}");
+        checkCurrentKey(setUpKeyPatternConfig("x${test:tenant", values),
+                "x${test:tenant");
+    }
+
+    /**
+     * Tests that the key pattern reflects changes of variable values.
+     */
+    @Test
+    public void testCurrentKeyChangingVariable()
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("tenant", "t1");
+        DynamicCombinedConfiguration config =
+                setUpKeyPatternConfig("${test:tenant}", values);
+        checkCurrentKey(config, "t1");
+        values.put("tenant", "t2");
+        checkCurrentKey(config, "t2");
+    }
+
+    /**
+     * Tests binding a key to the current thread.
+     */
+    @Test
+    public void testBindKey() throws InterruptedException
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("tenant", "t1");
+        final DynamicCombinedConfiguration config =
+                setUpKeyPatternConfig("${test:tenant}", values);
+        config.bindKey("bound");
+        assertEquals("Key not bound", "bound", config.getCurrentKey());
+        final String[] otherKey = new String[1];
+        Thread t = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                otherKey[0] = config.getCurrentKey();
+            }
+        };
+        t.start();
+        t.join();
+        assertEquals("Binding visible in other thread", "t1", otherKey[0]);
+        config.unbindKey();
+        assertEquals("Key still bound", "t1", config.getCurrentKey());
+    }
+
+    /**
+     * Tests binding the resolved key pattern to the current thread.
+     */
+    @Test
+    public void testBindCurrentKey()
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        values.put("tenant", "t1");
+        DynamicCombinedConfiguration config =
+                setUpKeyPatternConfig("${test:tenant}", values);
+        assertEquals("Wrong bound key", "t1", config.bindCurrentKey());
+        values.put("tenant", "t2");
+        assertEquals("Key not bound", "t1", config.getCurrentKey());
+        config.bindKey(null);
+        assertEquals("Key still bound", "t2", config.getCurrentKey());
+    }
+
+    /**
+     * Creates a configuration for testing the cache of combined
+     * configurations. The key pattern uses the variable tenant from the given
+     * map. A child configuration is added.
+     *
+     * @param values the map with variable values
+     * @param child the child configuration
+     * @return the configuration
+     */
+    private static DynamicCombinedConfiguration setUpCacheConfig(
+            Map<String, String> values, BaseConfiguration child)
+    {
+        DynamicCombinedConfiguration config =
+                setUpKeyPatternConfig("${test:tenant}", values);
+        config.addConfiguration(child, "child");
+        return config;
+    }
+
+    /**
+     * Accesses the configuration for the specified tenant.
+     *
+     * @param config the configuration
+     * @param values the map with variable values
+     * @param tenant the tenant
+     */
+    private static void access(DynamicCombinedConfiguration config,
+            Map<String, String> values, String tenant)
+    {
+        values.put("tenant", tenant);
+        assertEquals("Wrong property value", "value",
+                config.getString("property"));
+    }
+
+    /**
+     * Tests the default settings of the configuration cache.
+     */
+    @Test
+    public void testCacheDefaults()
+    {
+        DynamicCombinedConfiguration config = new DynamicCombinedConfiguration();
+        assertEquals("Wrong maximum", 0, config.getMaxConfigurations());
+        assertEquals("Wrong policy",
+                DynamicCombinedConfiguration.EvictionPolicy.LRU,
+                config.getEvictionPolicy());
+        assertEquals("Wrong idle timeout", 0, config.getIdleTimeout());
+        assertEquals("Wrong size", 0, config.getCachedConfigurationCount());
+    }
+
+    /**
+     * Tests the statistics of the configuration cache.
+     */
+    @Test
+    public void testCacheStatistics()
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        BaseConfiguration child = new BaseConfiguration();
+        child.addProperty("property", "value");
+        DynamicCombinedConfiguration config = setUpCacheConfig(values, child);
+        access(config, values, "t1");
+        access(config, values, "t1");
+        access(config, values, "t2");
+        assertEquals("Wrong size", 2, config.getCachedConfigurationCount());
+        assertEquals("Wrong misses", 2, config.getCacheMissCount());
+        assertEquals("Wrong hits", 1, config.getCacheHitCount());
+        assertEquals("Wrong evictions", 0, config.getCacheEvictionCount());
+    }
+
+    /**
+     * Tests eviction with the LRU policy.
+     */
+    @Test
+    public void testCacheEvictionLRU()
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        BaseConfiguration child = new BaseConfiguration();
+        child.addProperty("property", "value");
+        DynamicCombinedConfiguration config = setUpCacheConfig(values, child);
+        config.setMaxConfigurations(2);
+        access(config, values, "t1");
+        access(config, values, "t2");
+        access(config, values, "t1");
+        int listenerCount = child.getConfigurationListeners().size();
+        access(config, values, "t3");
+        assertEquals("Wrong size", 2, config.getCachedConfigurationCount());
+        assertEquals("Wrong evictions", 1, config.getCacheEvictionCount());
+        assertEquals("Evicted configuration not detached", listenerCount,
+                child.getConfigurationListeners().size());
+        long misses = config.getCacheMissCount();
+        access(config, values, "t1");
+        assertEquals("Wrong configuration evicted", misses,
+                config.getCacheMissCount());
+        access(config, values, "t2");
+        assertEquals("Configuration not evicted", misses + 1,
+                config.getCacheMissCount());
+    }
+
+    /**
+     * Tests eviction with the LFU policy.
+     */
+    @Test
+    public void testCacheEvictionLFU()
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        BaseConfiguration child = new BaseConfiguration();
+        child.addProperty("property", "value");
+        DynamicCombinedConfiguration config = setUpCacheConfig(values, child);
+        config.setMaxConfigurations(2);
+        config.setEvictionPolicy(DynamicCombinedConfiguration.EvictionPolicy.LFU);
+        access(config, values, "t1");
+        access(config, values, "t1");
+        access(config, values, "t1");
+        access(config, values, "t2");
+        access(config, values, "t3");
+        long misses = config.getCacheMissCount();
+        access(config, values, "t1");
+        assertEquals("Wrong configuration evicted", misses,
+                config.getCacheMissCount());
+        assertEquals("Wrong evictions", 1, config.getCacheEvictionCount());
+    }
+
+    /**
+     * Tests that reducing the maximum number of configurations evicts
+     * configurations immediately.
+     */
+    @Test
+    public void testSetMaxConfigurationsEvicts()
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        BaseConfiguration child = new BaseConfiguration();
+        child.addProperty("property", "value");
+        DynamicCombinedConfiguration config = setUpCacheConfig(values, child);
+        for (int i = 0; i < 5; i++)
+        {
+            access(config, values, "t" + i);
+        }
+        config.setMaxConfigurations(3);
+        assertEquals("Wrong size", 3, config.getCachedConfigurationCount());
+        assertEquals("Wrong evictions", 2, config.getCacheEvictionCount());
+    }
+
+    /**
+     * Tests the eviction of idle configurations.
+     */
+    @Test
+    public void testEvictIdleConfigurations() throws InterruptedException
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        BaseConfiguration child = new BaseConfiguration();
+        child.addProperty("property", "value");
+        DynamicCombinedConfiguration config = setUpCacheConfig(values, child);
+        access(config, values, "t1");
+        access(config, values, "t2");
+        config.evictIdleConfigurations();
+        assertEquals("Evicted without timeout", 2,
+                config.getCachedConfigurationCount());
+        config.setIdleTimeout(1);
+        Thread.sleep(20);
+        access(config, values, "t3");
+        assertEquals("Idle configurations not evicted", 1,
+                config.getCachedConfigurationCount());
+        Thread.sleep(20);
+        config.evictIdleConfigurations();
+        assertEquals("Idle configuration not evicted", 0,
+                config.getCachedConfigurationCount());
+        assertEquals("Wrong evictions", 3, config.getCacheEvictionCount());
+    }
+
+    /**
+     * Tests eviction if configurations are accessed concurrently while child
+     * configurations are added and removed.
+     */
+    @Test
+    public void testCacheEvictionConcurrent() throws InterruptedException
+    {
+        final int maxConfigs = 5;
+        final int accessCount = 250;
+        Map<String, String> values = new HashMap<String, String>();
+        BaseConfiguration child = new BaseConfiguration();
+        child.addProperty("property", "value");
+        final DynamicCombinedConfiguration config =
+                setUpCacheConfig(values, child);
+        config.setMaxConfigurations(maxConfigs);
+        int listenerCount = child.getConfigurationListeners().size();
+        final boolean[] errors = new boolean[THREAD_COUNT + 1];
+        Thread[] threads = new Thread[THREAD_COUNT + 1];
+        for (int i = 0; i < THREAD_COUNT; i++)
+        {
+            final int index = i;
+            threads[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    Random random = new Random(index);
+                    try
+                    {
+                        for (int j = 0; j < accessCount; j++)
+                        {
+                            config.bindKey("tenant" + random.nextInt(50));
+                            errors[index] |=
+                                    !"value".equals(config.getString("property"));
+                        }
+                    }
+                    catch (RuntimeException rex)
+                    {
+                        errors[index] = true;
+                    }
+                    finally
+                    {
+                        config.unbindKey();
+                    }
+                }
+            };
+        }
+        threads[THREAD_COUNT] = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    for (int j = 0; j < accessCount; j++)
+                    {
+                        BaseConfiguration extra = new BaseConfiguration();
+                        config.addConfiguration(extra, "extra");
+                        config.removeConfiguration("extra");
+                    }
+                }
+                catch (RuntimeException rex)
+                {
+                    errors[THREAD_COUNT] = true;
+                }
+            }
+        };
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+
+        for (int i = 0; i < errors.length; i++)
+        {
+            assertFalse("Error in thread " + i, errors[i]);
+        }
+        int size = config.getCachedConfigurationCount();
+        assertTrue("Too many configurations: " + size, size <= maxConfigs);
+        assertEquals("Evicted configurations not detached", listenerCount
+                + size, child.getConfigurationListeners().size());
+    }
+
+    /**
+     * Tests that an access to an already cached configuration does not have
+     * to wait while another thread creates a new configuration.
+     */
+    @Test
+    public void testCacheHitDoesNotBlock() throws InterruptedException
+    {
+        Map<String, String> values = new HashMap<String, String>();
+        BlockingConfiguration child = new BlockingConfiguration();
+        child.addProperty("property", "value");
+        final DynamicCombinedConfiguration config =
+                setUpCacheConfig(values, child);
+        access(config, values, "t1");
+
+        child.block();
+        Thread missThread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                config.bindKey("t2");
+                try
+                {
+                    config.getString("property");
+                }
+                finally
+                {
+                    config.unbindKey();
+                }
+            }
+        };
+        missThread.start();
+        assertTrue("Creation not started",
+                child.blocked.await(10, TimeUnit.SECONDS));
+        final boolean[] hit = new boolean[1];
+        Thread hitThread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                config.bindKey("t1");
+                try
+                {
+                    hit[0] = "value".equals(config.getString("property"));
+                }
+                finally
+                {
+                    config.unbindKey();
+                }
+            }
+        };
+        hitThread.start();
+        hitThread.join(10000);
+        boolean blocked = hitThread.isAlive();
+        child.release.countDown();
+        missThread.join();
+        hitThread.join();
+        assertFalse("Cache hit blocked", blocked);
+        assertTrue("Wrong value", hit[0]);
+    }
+
+    /**
+     * Tests invalid cache settings.
+     */
+    @Test
+    public void testInvalidCacheSettings()
+    {
+        DynamicCombinedConfiguration config = new DynamicCombinedConfiguration();
+        try
+        {
+            config.setMaxConfigurations(-1);
+            fail("Negative maximum not detected!");
+        }
+        catch (IllegalArgumentException iex)
+        {
+            // ok
+        }
+        try
+        {
+            config.setIdleTimeout(-1);
+            fail("Negative timeout not detected!");
+        }
+        catch (IllegalArgumentException iex)
+        {
+            // ok
+        }
+        try
+        {
+            config.setEvictionPolicy(null);
+            fail("Null policy not detected!");
+        }
+        catch (IllegalArgumentException iex)
+        {
+            // ok
+        }
+    }
+
     private class ReloadThread extends Thread
     {
         private final CombinedConfigurationBuilder builder;
@@ -378,6 +859,48 @@ public class TestDynamicCombinedConfiguration
         writer.close();
     }
 
+    /**
+     * A test configuration which can block when a listener is registered.
+     * This is used to simulate a slow creation of a combined configuration.
+     */
+    private static class BlockingConfiguration extends BaseConfiguration
+    {
+        /** A latch which is triggered when a registration blocks. */
+        final CountDownLatch blocked = new CountDownLatch(1);
+
+        /** A latch which releases a blocked registration. */
+        final CountDownLatch release = new CountDownLatch(1);
+
+        /** A flag whether registrations are blocked. */
+        private volatile boolean blocking;
+
+        /**
+         * Causes the next registrations of listeners to block.
+         */
+        public void block()
+        {
+            blocking = true;
+        }
+
+        @Override
+        public void addConfigurationListener(ConfigurationListener l)
+        {
+            super.addConfigurationListener(l);
+            if (blocking)
+            {
+                blocked.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException iex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
     public static class ThreadLookup implements Lookup
     {
         private static ThreadLocal<String> id = new ThreadLocal<String>();
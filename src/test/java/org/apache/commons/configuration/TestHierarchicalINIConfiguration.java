@@ -922,6 +922,108 @@ public class TestHierarchicalINIConfiguration
         assertEquals("Wrong value", "1,2,3", config.getString("test.nolist"));
     }
 
+    /**
+     * Tests whether escaped list delimiters are handled correctly.
+     */
+    @Test
+    public void testValueWithEscapedDelimiters() throws ConfigurationException
+    {
+        HierarchicalINIConfiguration config =
+                setUpConfig("[test]" + LINE_SEPARATOR + "esc=a\\,b"
+                        + LINE_SEPARATOR + "path=C:\\Temp" + LINE_SEPARATOR);
+        assertEquals("Wrong escaped value", "a,b",
+                config.getString("test.esc"));
+        assertEquals("Wrong path", "C:\\Temp", config.getString("test.path"));
+    }
+
+    /**
+     * Tests that a backslash which is not preceded by whitespace does not
+     * cause a line continuation.
+     */
+    @Test
+    public void testLineContinuationNoWhitespace()
+            throws ConfigurationException
+    {
+        HierarchicalINIConfiguration config =
+                setUpConfig("[test]" + LINE_SEPARATOR + "dir = C:\\Temp\\"
+                        + LINE_SEPARATOR + "next = value" + LINE_SEPARATOR);
+        assertEquals("Wrong value", "C:\\Temp\\",
+                config.getString("test.dir"));
+        assertEquals("Wrong next value", "value",
+                config.getString("test.next"));
+    }
+
+    /**
+     * Tests whether a separator directly before a quoted value takes
+     * precedence over other separators in the line.
+     */
+    @Test
+    public void testSeparatorBeforeQuote() throws ConfigurationException
+    {
+        HierarchicalINIConfiguration config =
+                setUpConfig("[test]" + LINE_SEPARATOR
+                        + "a:b=c = \"x=y\" ; comment" + LINE_SEPARATOR);
+        assertEquals("Wrong value", "x=y", config.getString("test.a:b=c"));
+    }
+
+    /**
+     * Tests whether a larger configuration can be written and read again.
+     */
+    @Test
+    public void testSaveAndLoadManyProperties() throws ConfigurationException,
+            IOException
+    {
+        final int sectionCount = 20;
+        final int propertyCount = 50;
+        HierarchicalINIConfiguration config = new HierarchicalINIConfiguration();
+        config.addProperty("global", "value;with;semicolons");
+        for (int i = 0; i < sectionCount; i++)
+        {
+            for (int j = 0; j < propertyCount; j++)
+            {
+                config.addProperty("section" + i + ".prop" + j, "value" + j);
+            }
+            config.addProperty("section" + i + ".multi", "m1");
+            config.addProperty("section" + i + ".multi", "m2");
+        }
+        StringWriter writer = new StringWriter();
+        config.write(writer);
+
+        HierarchicalINIConfiguration config2 = setUpConfig(writer.toString());
+        assertEquals("Wrong number of sections", sectionCount + 1, config2
+                .getSections().size());
+        assertEquals("Wrong global value", "value;with;semicolons",
+                config2.getString("global"));
+        for (int i = 0; i < sectionCount; i++)
+        {
+            for (int j = 0; j < propertyCount; j++)
+            {
+                assertEquals("Wrong value", "value" + j,
+                        config2.getString("section" + i + ".prop" + j));
+            }
+            assertEquals("Wrong multiple values", 2,
+                    config2.getList("section" + i + ".multi").size());
+        }
+    }
+
+    /**
+     * Tests whether sections containing nested properties and attributes can
+     * still be written.
+     */
+    @Test
+    public void testSaveComplexSection() throws ConfigurationException,
+            IOException
+    {
+        HierarchicalINIConfiguration config = new HierarchicalINIConfiguration();
+        config.addProperty("section.simple", "value");
+        config.addProperty("section.nested.key", "nestedValue");
+        StringWriter writer = new StringWriter();
+        config.write(writer);
+        assertEquals("Wrong content", "[section]" + LINE_SEPARATOR
+                + "simple = value" + LINE_SEPARATOR + "nested.key = nestedValue"
+                + LINE_SEPARATOR + LINE_SEPARATOR, writer.toString());
+    }
+
     /**
      * A thread class for testing concurrent access to the global section.
      */
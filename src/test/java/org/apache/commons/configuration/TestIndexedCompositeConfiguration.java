@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for {@code CompositeConfiguration} with an enabled key index.
+ * All tests of the base class are run with the index, too.
+ *
+ * @version $Id$
+ */
+public class TestIndexedCompositeConfiguration extends TestCompositeConfiguration
+{
+    /** Constant for a key used by tests. */
+    private static final String TEST_KEY = "test.index.key";
+
+    @Override
+    @Before
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        cc.setIndexEnabled(true);
+    }
+
+    /**
+     * Helper method for collecting the keys of the composite configuration.
+     *
+     * @return a list with the keys
+     */
+    private List<String> fetchKeys()
+    {
+        List<String> keys = new ArrayList<String>();
+        for (Iterator<String> it = cc.getKeys(); it.hasNext();)
+        {
+            keys.add(it.next());
+        }
+        return keys;
+    }
+
+    /**
+     * Tests whether the index is enabled.
+     */
+    @Test
+    public void testIsIndexEnabled()
+    {
+        assertTrue("Index not enabled", cc.isIndexEnabled());
+        assertFalse("Index enabled per default",
+                new CompositeConfiguration().isIndexEnabled());
+    }
+
+    /**
+     * Tests whether the index is updated when a child configuration defines
+     * a key which was defined by a configuration with lower priority before.
+     */
+    @Test
+    public void testIndexUpdatedOnAddProperty()
+    {
+        cc.addConfiguration(conf1);
+        cc.addConfiguration(conf2);
+        conf2.addProperty(TEST_KEY, "conf2");
+        assertEquals("Wrong initial value", "conf2", cc.getString(TEST_KEY));
+        conf1.addProperty(TEST_KEY, "conf1");
+        assertEquals("Index not updated", "conf1", cc.getString(TEST_KEY));
+    }
+
+    /**
+     * Tests whether the index is updated when a property is removed from a
+     * child configuration.
+     */
+    @Test
+    public void testIndexUpdatedOnClearProperty()
+    {
+        cc.addConfiguration(conf1);
+        cc.addConfiguration(conf2);
+        assertEquals("Wrong initial value", "test.properties",
+                cc.getString("propertyInOrder"));
+        conf1.clearProperty("propertyInOrder");
+        assertEquals("Index not updated", "test2.properties",
+                cc.getString("propertyInOrder"));
+        conf2.clearProperty("propertyInOrder");
+        assertFalse("Key still found", fetchKeys().contains("propertyInOrder"));
+        assertNull("Got a value", cc.getString("propertyInOrder", null));
+    }
+
+    /**
+     * Tests whether the index is updated when a whole child configuration is
+     * cleared.
+     */
+    @Test
+    public void testIndexUpdatedOnClear()
+    {
+        cc.addConfiguration(conf1);
+        cc.addConfiguration(conf2);
+        cc.getString("propertyInOrder");
+        conf1.clear();
+        assertEquals("Index not updated", "test2.properties",
+                cc.getString("propertyInOrder"));
+    }
+
+    /**
+     * Tests whether hierarchical child configurations are supported by the
+     * index.
+     */
+    @Test
+    public void testIndexHierarchicalChild()
+    {
+        cc.addConfiguration(xmlConf);
+        cc.addConfiguration(conf1);
+        assertEquals("Wrong initial value", "test.properties",
+                cc.getString("propertyInOrder"));
+        xmlConf.addProperty("propertyInOrder", "test.xml");
+        assertEquals("Index not updated", "test.xml",
+                cc.getString("propertyInOrder"));
+        xmlConf.addProperty("list.item(-1)", "newItem");
+        assertTrue("Expression key not resolved",
+                cc.containsKey("list.item(0)"));
+        assertEquals("Wrong value for expression key",
+                xmlConf.getString("list.item(0)"),
+                cc.getString("list.item(0)"));
+    }
+
+    /**
+     * Tests that non-hierarchical child configurations are not queried for
+     * keys which are not contained in the index.
+     */
+    @Test
+    public void testGetPropertyUnknownKeyNoLinearSearch()
+    {
+        final int[] containsCount = new int[1];
+        BaseConfiguration child = new BaseConfiguration()
+        {
+            @Override
+            public boolean containsKey(String key)
+            {
+                containsCount[0]++;
+                return super.containsKey(key);
+            }
+        };
+        child.addProperty(TEST_KEY, "value");
+        cc.addConfiguration(child);
+        cc.addConfiguration(conf1);
+        assertEquals("Wrong value", "value", cc.getString(TEST_KEY));
+        assertEquals("Wrong default value", "default",
+                cc.getString("unknown.key", "default"));
+        assertEquals("Child configuration queried", 0, containsCount[0]);
+    }
+
+    /**
+     * Tests whether the keys are cached and the cache is updated on changes.
+     */
+    @Test
+    public void testGetKeysCached()
+    {
+        cc.addConfiguration(conf1);
+        List<String> keys = fetchKeys();
+        assertEquals("Different keys", keys, fetchKeys());
+        conf1.addProperty("a.new.key", Boolean.TRUE);
+        keys.add("a.new.key");
+        assertEquals("Keys not updated", keys, fetchKeys());
+        cc.removeConfiguration(conf1);
+        assertEquals("Wrong keys after remove", 0, fetchKeys().size());
+    }
+
+    /**
+     * Tests that the cached keys cannot be modified through the iterator.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetKeysRemove()
+    {
+        cc.addConfiguration(conf1);
+        Iterator<String> it = cc.getKeys();
+        it.next();
+        it.remove();
+    }
+
+    /**
+     * Tests whether the index can be invalidated manually.
+     */
+    @Test
+    public void testInvalidateIndex()
+    {
+        MapConfiguration mapConf = new MapConfiguration(new HashMap<String, Object>());
+        cc.addConfiguration(mapConf);
+        cc.addConfiguration(conf1);
+        cc.getString("propertyInOrder");
+        mapConf.getMap().put("propertyInOrder", "map");
+        cc.invalidateIndex();
+        assertEquals("Wrong value", "map", cc.getString("propertyInOrder"));
+    }
+
+    /**
+     * Tests that a value is found even if the index is out of date because a
+     * property was removed without an event.
+     */
+    @Test
+    public void testIndexOwnerWithoutValue()
+    {
+        MapConfiguration mapConf = new MapConfiguration(new HashMap<String, Object>());
+        mapConf.addProperty("propertyInOrder", "map");
+        cc.addConfiguration(mapConf);
+        cc.addConfiguration(conf1);
+        assertEquals("Wrong initial value", "map", cc.getString("propertyInOrder"));
+        mapConf.getMap().remove("propertyInOrder");
+        assertEquals("Wrong value", "test.properties", cc.getString("propertyInOrder"));
+    }
+
+    /**
+     * Tests whether the index listener is removed when the index is disabled.
+     */
+    @Test
+    public void testDisableIndex()
+    {
+        cc.addConfiguration(conf1);
+        int listenerCount = conf1.getConfigurationListeners().size();
+        cc.setIndexEnabled(false);
+        assertFalse("Index still enabled", cc.isIndexEnabled());
+        assertEquals("Listener not removed", listenerCount - 1,
+                conf1.getConfigurationListeners().size());
+        conf1.setProperty("propertyInOrder", "changed");
+        assertEquals("Wrong value", "changed", cc.getString("propertyInOrder"));
+    }
+
+    /**
+     * Tests that the listener is removed from a child configuration when it
+     * is removed from the composite configuration.
+     */
+    @Test
+    public void testRemoveConfigurationListener()
+    {
+        int listenerCount = conf1.getConfigurationListeners().size();
+        cc.addConfiguration(conf1);
+        cc.removeConfiguration(conf1);
+        assertEquals("Listener not removed", listenerCount,
+                conf1.getConfigurationListeners().size());
+    }
+
+    /**
+     * Tests whether a clone has its own index.
+     */
+    @Test
+    public void testCloneIndex()
+    {
+        cc.addConfiguration(conf1);
+        cc.getString("propertyInOrder");
+        CompositeConfiguration copy = (CompositeConfiguration) cc.clone();
+        assertTrue("Index not enabled in clone", copy.isIndexEnabled());
+        copy.getConfiguration(0).setProperty("propertyInOrder", "copy");
+        assertEquals("Wrong value in copy", "copy", copy.getString("propertyInOrder"));
+        assertEquals("Original changed", "test.properties", cc.getString("propertyInOrder"));
+    }
+
+    /**
+     * Tries to add a child configuration which does not support events.
+     */
+    @Test(expected = ConfigurationRuntimeException.class)
+    public void testAddConfigurationNoEventSource()
+    {
+        cc.addConfiguration(EasyMock.createMock(Configuration.class));
+    }
+}
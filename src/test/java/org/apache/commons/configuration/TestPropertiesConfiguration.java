@@ -550,6 +550,77 @@ public class TestPropertiesConfiguration
         assertEquals("whitespace separator not properly parsed", "foo", conf.getProperty("test.separator.whitespace"));
     }
 
+    /**
+     * Tests whether the reader extracts key, separator, and value of property
+     * lines correctly.
+     */
+    @Test
+    public void testReaderParseProperty() throws IOException
+    {
+        PropertiesConfiguration.PropertiesReader reader =
+                new PropertiesConfiguration.PropertiesReader(new StringReader(
+                        "# comment\n  key1 =  value1  \nkey\\:2:value2\n"
+                                + "key3 \t value3\nkey4\\ with\\ spaces value4\n"
+                                + "key5=\n"), ',');
+        assertTrue("No property 1", reader.nextProperty());
+        assertEquals("Wrong comment", Arrays.asList("# comment"),
+                reader.getCommentLines());
+        assertEquals("Wrong key 1", "key1", reader.getPropertyName());
+        assertEquals("Wrong value 1", "value1", reader.getPropertyValue());
+        assertEquals("Wrong separator 1", " =  ",
+                reader.getPropertySeparator());
+        assertTrue("No property 2", reader.nextProperty());
+        assertTrue("Got comments", reader.getCommentLines().isEmpty());
+        assertEquals("Wrong key 2", "key:2", reader.getPropertyName());
+        assertEquals("Wrong value 2", "value2", reader.getPropertyValue());
+        assertEquals("Wrong separator 2", ":", reader.getPropertySeparator());
+        assertTrue("No property 3", reader.nextProperty());
+        assertEquals("Wrong key 3", "key3", reader.getPropertyName());
+        assertEquals("Wrong value 3", "value3", reader.getPropertyValue());
+        assertEquals("Wrong separator 3", " \t ",
+                reader.getPropertySeparator());
+        assertTrue("No property 4", reader.nextProperty());
+        assertEquals("Wrong key 4", "key4 with spaces",
+                reader.getPropertyName());
+        assertEquals("Wrong value 4", "value4", reader.getPropertyValue());
+        assertTrue("No property 5", reader.nextProperty());
+        assertEquals("Wrong key 5", "key5", reader.getPropertyName());
+        assertEquals("Wrong value 5", "", reader.getPropertyValue());
+        assertFalse("Too many properties", reader.nextProperty());
+    }
+
+    /**
+     * Tests whether continuation lines are combined by the reader.
+     */
+    @Test
+    public void testReaderContinuationLines() throws IOException
+    {
+        PropertiesConfiguration.PropertiesReader reader =
+                new PropertiesConfiguration.PropertiesReader(new StringReader(
+                        "key = a, \\\n   b, \\\n  c\nkey2 = d\\\\\n"), ',');
+        assertTrue("No property", reader.nextProperty());
+        assertEquals("Wrong key", "key", reader.getPropertyName());
+        assertEquals("Wrong value", "a, b, c", reader.getPropertyValue());
+        assertTrue("No property 2", reader.nextProperty());
+        assertEquals("Wrong value 2", "d\\", reader.getPropertyValue());
+        assertFalse("Too many properties", reader.nextProperty());
+    }
+
+    /**
+     * Tests the reader with a line which does not contain a separator.
+     */
+    @Test
+    public void testReaderNoSeparator() throws IOException
+    {
+        PropertiesConfiguration.PropertiesReader reader =
+                new PropertiesConfiguration.PropertiesReader(new StringReader(
+                        "keyOnly\n"), ',');
+        assertTrue("No property", reader.nextProperty());
+        assertEquals("Wrong key", "", reader.getPropertyName());
+        assertEquals("Wrong value", "", reader.getPropertyValue());
+        assertEquals("Wrong separator", "", reader.getPropertySeparator());
+    }
+
     /**
      * Tests including properties when they are loaded from a nested directory
      * structure.
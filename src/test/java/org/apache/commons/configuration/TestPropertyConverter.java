@@ -24,8 +24,14 @@ import static org.junit.Assert.assertTrue;
 
 import java.lang.annotation.ElementType;
 import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.TimeZone;
 
 import org.junit.Test;
 
@@ -334,6 +340,131 @@ public class TestPropertyConverter
         PropertyConverter.toNumber("42", Object.class);
     }
 
+    /**
+     * Tests the conversion of strings to primitive int values.
+     */
+    @Test
+    public void testToIntValue()
+    {
+        assertEquals("Wrong decimal", 42, PropertyConverter.toIntValue("42"));
+        assertEquals("Wrong negative", -42, PropertyConverter.toIntValue("-42"));
+        assertEquals("Wrong hex", 255, PropertyConverter.toIntValue("0xFF"));
+        assertEquals("Wrong negative hex", -16, PropertyConverter.toIntValue("0x-10"));
+        assertEquals("Wrong binary", 5, PropertyConverter.toIntValue("0b101"));
+        assertEquals("Wrong number", 42, PropertyConverter.toIntValue(new BigDecimal("42.5")));
+        assertEquals("Wrong buffer", 10, PropertyConverter.toIntValue(new StringBuffer("10")));
+    }
+
+    /**
+     * Tests whether the primitive conversions of hex and binary values produce
+     * the same results as the generic conversion, even if the values are too
+     * large for the target type.
+     */
+    @Test
+    public void testToPrimitiveValueSameAsToNumber()
+    {
+        String[] values = {
+                "0x7FFFFFFF", "0xFFFFFFFF", "0x1FFFFFFFF", "0x-80000001",
+                "0xFFFFFFFFFFFFFFFF", "0x123456789ABCDEF0123", "0b11111111111111111111111111111111",
+                "0x+1f"
+        };
+        for (String value : values)
+        {
+            assertEquals("Wrong int for " + value, PropertyConverter.toNumber(value, Integer.class).intValue(),
+                    PropertyConverter.toIntValue(value));
+            assertEquals("Wrong long for " + value, PropertyConverter.toNumber(value, Long.class).longValue(),
+                    PropertyConverter.toLongValue(value));
+            assertEquals("Wrong double for " + value, PropertyConverter.toNumber(value, Double.class).doubleValue(),
+                    PropertyConverter.toDoubleValue(value), 0);
+        }
+    }
+
+    /**
+     * Tests the conversion of strings to primitive long values.
+     */
+    @Test
+    public void testToLongValue()
+    {
+        assertEquals("Wrong decimal", 10000000000L, PropertyConverter.toLongValue("10000000000"));
+        assertEquals("Wrong hex", 0x7FFFFFFFFFFFFFFFL, PropertyConverter.toLongValue("0x7FFFFFFFFFFFFFFF"));
+        assertEquals("Wrong binary", 6L, PropertyConverter.toLongValue("0b110"));
+    }
+
+    /**
+     * Tests the conversion of strings to primitive double values.
+     */
+    @Test
+    public void testToDoubleValue()
+    {
+        assertEquals("Wrong decimal", 3.5, PropertyConverter.toDoubleValue("3.5"), 0);
+        assertEquals("Wrong hex", 16.0, PropertyConverter.toDoubleValue("0x10"), 0);
+        assertEquals("Wrong number", 42.0, PropertyConverter.toDoubleValue(new Integer(42)), 0);
+    }
+
+    /**
+     * Tests the conversion to primitive boolean values.
+     */
+    @Test
+    public void testToBooleanValue()
+    {
+        assertTrue("Wrong true", PropertyConverter.toBooleanValue("on"));
+        assertTrue("Wrong false", !PropertyConverter.toBooleanValue("false"));
+    }
+
+    /**
+     * Tests a primitive conversion of an invalid decimal value.
+     */
+    @Test(expected = ConversionException.class)
+    public void testToIntValueInvalid()
+    {
+        PropertyConverter.toIntValue("Not a number");
+    }
+
+    /**
+     * Tests a primitive conversion of a decimal value which is out of range.
+     */
+    @Test(expected = ConversionException.class)
+    public void testToIntValueOutOfRange()
+    {
+        PropertyConverter.toIntValue("10000000000");
+    }
+
+    /**
+     * Tests a primitive conversion of an invalid hex value.
+     */
+    @Test(expected = ConversionException.class)
+    public void testToLongValueInvalidHex()
+    {
+        PropertyConverter.toLongValue("0xNotAHexValue");
+    }
+
+    /**
+     * Tests a primitive conversion of a hex prefix without digits.
+     */
+    @Test(expected = ConversionException.class)
+    public void testToIntValueEmptyHex()
+    {
+        PropertyConverter.toIntValue("0x-");
+    }
+
+    /**
+     * Tests a primitive conversion of an invalid binary value.
+     */
+    @Test(expected = ConversionException.class)
+    public void testToIntValueInvalidBinary()
+    {
+        PropertyConverter.toIntValue("0b102");
+    }
+
+    /**
+     * Tests a primitive conversion of an invalid double value.
+     */
+    @Test(expected = ConversionException.class)
+    public void testToDoubleValueInvalid()
+    {
+        PropertyConverter.toDoubleValue("Not a number");
+    }
+
     @Test
     public void testToEnumFromEnum()
     {
@@ -376,4 +507,83 @@ public class TestPropertyConverter
         assertEquals("Wrong conversion result", value,
                 PropertyConverter.to(String.class, value, null));
     }
+
+    /**
+     * Tests whether a list of values can be converted to dates.
+     */
+    @Test
+    public void testToDates() throws Exception
+    {
+        String format = "yyyy-MM-dd";
+        Date date = new SimpleDateFormat(format).parse("2010-03-25");
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+        Collection<Object> values = new ArrayList<Object>();
+        values.add("2004-01-01");
+        values.add(date);
+        values.add(cal);
+        values.add("2004-12-31");
+        List<Date> dates = PropertyConverter.toDates(values, format);
+        assertEquals("Wrong number of dates", values.size(), dates.size());
+        Iterator<Object> it = values.iterator();
+        for (Date d : dates)
+        {
+            assertEquals("Wrong date", PropertyConverter.toDate(it.next(), format), d);
+        }
+        assertEquals("Wrong parsed date", new SimpleDateFormat(format).parse("2004-12-31"), dates.get(3));
+    }
+
+    /**
+     * Tests whether a list of values can be converted to calendars.
+     */
+    @Test
+    public void testToCalendars() throws Exception
+    {
+        String format = "dd.MM.yyyy";
+        Collection<Object> values = new ArrayList<Object>();
+        values.add("01.01.2004");
+        values.add(new SimpleDateFormat(format).parse("31.12.2004"));
+        List<Calendar> calendars = PropertyConverter.toCalendars(values, format);
+        assertEquals("Wrong number of calendars", 2, calendars.size());
+        assertEquals("Wrong year", 2004, calendars.get(0).get(Calendar.YEAR));
+        assertEquals("Wrong day", 1, calendars.get(0).get(Calendar.DAY_OF_MONTH));
+        assertEquals("Wrong month", Calendar.DECEMBER, calendars.get(1).get(Calendar.MONTH));
+    }
+
+    /**
+     * Tests a bulk date conversion if one of the values is invalid.
+     */
+    @Test(expected = ConversionException.class)
+    public void testToDatesInvalid()
+    {
+        Collection<Object> values = new ArrayList<Object>();
+        values.add("2004-01-01");
+        values.add("not a date");
+        PropertyConverter.toDates(values, "yyyy-MM-dd");
+    }
+
+    /**
+     * Tests that date conversions take the current default time zone into
+     * account even if the format has been used before.
+     */
+    @Test
+    public void testToDateDefaultTimeZoneChanged() throws Exception
+    {
+        String format = "yyyy-MM-dd HH:mm";
+        String value = "2010-03-25 12:00";
+        TimeZone tz = TimeZone.getDefault();
+        try
+        {
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT"));
+            Date date1 = PropertyConverter.toDate(value, format);
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT+02:00"));
+            Date date2 = PropertyConverter.toDate(value, format);
+            assertEquals("Wrong difference", 2 * 60 * 60 * 1000L,
+                    date1.getTime() - date2.getTime());
+        }
+        finally
+        {
+            TimeZone.setDefault(tz);
+        }
+    }
 }
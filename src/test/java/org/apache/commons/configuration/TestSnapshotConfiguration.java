@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.configuration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.configuration.tree.xpath.XPathExpressionEngine;
+import org.junit.Test;
+
+/**
+ * Test class for {@code SnapshotConfiguration}.
+ *
+ * @version $Id$
+ */
+public class TestSnapshotConfiguration
+{
+    /**
+     * Creates a hierarchical test configuration with some structure.
+     *
+     * @return the test configuration
+     */
+    private static BaseHierarchicalConfiguration createHierarchicalConfig()
+    {
+        BaseHierarchicalConfiguration config =
+                new BaseHierarchicalConfiguration();
+        config.addProperty("tables.table(-1).name", "users");
+        config.addProperty("tables.table[@type]", "system");
+        config.addProperty("tables.table(-1).name", "documents");
+        config.addProperty("tables.table.fields.field(-1).name", "docid");
+        config.addProperty("tables.table.fields.field(-1).name", "${author}");
+        config.addProperty("author", "authorID");
+        return config;
+    }
+
+    /**
+     * Tries to create a snapshot of a null configuration.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitNull()
+    {
+        new SnapshotConfiguration(null);
+    }
+
+    /**
+     * Tests whether a snapshot of a flat configuration contains all data.
+     */
+    @Test
+    public void testFlatConfiguration()
+    {
+        BaseConfiguration config = new BaseConfiguration();
+        config.addProperty("intValue", 42);
+        config.addProperty("list", "a, b, c");
+        config.addProperty("text", "Hello");
+        ImmutableConfiguration snapshot =
+                ConfigurationUtils.snapshotConfiguration(config);
+
+        assertFalse("Empty", snapshot.isEmpty());
+        Iterator<String> keys = snapshot.getKeys();
+        assertEquals("Wrong key 1", "intValue", keys.next());
+        assertEquals("Wrong key 2", "list", keys.next());
+        assertEquals("Wrong key 3", "text", keys.next());
+        assertFalse("Too many keys", keys.hasNext());
+        assertEquals("Wrong int", 42, snapshot.getInt("intValue"));
+        assertEquals("Wrong type", Integer.valueOf(42),
+                snapshot.getProperty("intValue"));
+        assertEquals("Wrong list", Arrays.asList("a", "b", "c"),
+                snapshot.getList("list"));
+        assertEquals("Wrong string", "Hello", snapshot.getString("text"));
+        assertTrue("Key not found", snapshot.containsKey("text"));
+        assertFalse("Unknown key found", snapshot.containsKey("unknown"));
+        assertNull("Got a value for an unknown key",
+                snapshot.getString("unknown"));
+    }
+
+    /**
+     * Tests whether values are split at list delimiters as in the source
+     * configuration.
+     */
+    @Test
+    public void testMapConfigurationSplitting()
+    {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("list", "1,2,3");
+        SnapshotConfiguration snapshot =
+                new SnapshotConfiguration(new MapConfiguration(map));
+        assertEquals("Wrong list", Arrays.asList("1", "2", "3"),
+                snapshot.getProperty("list"));
+    }
+
+    /**
+     * Tests that values are interpolated when the snapshot is created.
+     */
+    @Test
+    public void testInterpolation()
+    {
+        BaseConfiguration config = new BaseConfiguration();
+        config.addProperty("base", "/usr/local");
+        config.addProperty("dir", "${base}/lib");
+        config.addProperty("dirs", "${base}/bin");
+        config.addProperty("dirs", "${base}/lib");
+        SnapshotConfiguration snapshot = new SnapshotConfiguration(config);
+        assertEquals("Wrong raw value", "/usr/local/lib",
+                snapshot.getProperty("dir"));
+        assertEquals("Wrong list",
+                Arrays.asList("/usr/local/bin", "/usr/local/lib"),
+                snapshot.getList("dirs"));
+
+        config.setProperty("base", "/opt");
+        assertEquals("Snapshot changed", "/usr/local/lib",
+                snapshot.getString("dir"));
+    }
+
+    /**
+     * Tests that a snapshot is not affected by changes on the source
+     * configuration.
+     */
+    @Test
+    public void testIndependentFromSource()
+    {
+        BaseHierarchicalConfiguration config = createHierarchicalConfig();
+        SnapshotConfiguration snapshot = new SnapshotConfiguration(config);
+        config.addProperty("newKey", "newValue");
+        config.setProperty("tables.table(0).name", "changed");
+        assertFalse("Got new key", snapshot.containsKey("newKey"));
+        assertEquals("Value changed", "users",
+                snapshot.getString("tables.table(0).name"));
+    }
+
+    /**
+     * Tests that the lists returned by a snapshot cannot be modified.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testListValuesUnmodifiable()
+    {
+        BaseConfiguration config = new BaseConfiguration();
+        config.addProperty("list", "a,b");
+        SnapshotConfiguration snapshot = new SnapshotConfiguration(config);
+        ((List<?>) snapshot.getProperty("list")).clear();
+    }
+
+    /**
+     * Tests that the key iterator does not support remove operations.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetKeysRemove()
+    {
+        BaseConfiguration config = new BaseConfiguration();
+        config.addProperty("key", "value");
+        Iterator<String> it = new SnapshotConfiguration(config).getKeys();
+        it.next();
+        it.remove();
+    }
+
+    /**
+     * Tests the throw exception on missing flag.
+     */
+    @Test(expected = java.util.NoSuchElementException.class)
+    public void testThrowExceptionOnMissing()
+    {
+        BaseConfiguration config = new BaseConfiguration();
+        config.setThrowExceptionOnMissing(true);
+        new SnapshotConfiguration(config).getString("unknown");
+    }
+
+    /**
+     * Tests access to a snapshot of a hierarchical configuration.
+     */
+    @Test
+    public void testHierarchicalConfiguration()
+    {
+        SnapshotConfiguration snapshot =
+                new SnapshotConfiguration(createHierarchicalConfig());
+        assertEquals("Wrong names", Arrays.asList("users", "documents"),
+                snapshot.getList("tables.table.name"));
+        assertEquals("Wrong indexed access", "documents",
+                snapshot.getString("tables.table(1).name"));
+        assertEquals("Wrong attribute", "system",
+                snapshot.getString("tables.table(0)[@type]"));
+        assertEquals("Wrong max index", 1,
+                snapshot.getMaxIndex("tables.table"));
+        assertEquals("Not interpolated", "authorID",
+                snapshot.getString("tables.table(1).fields.field(1).name"));
+        assertTrue("Indexed key not found",
+                snapshot.containsKey("tables.table(1).fields.field(0).name"));
+    }
+
+    /**
+     * Tests that the expression engine of the source configuration is used.
+     */
+    @Test
+    public void testHierarchicalExpressionEngine()
+    {
+        BaseHierarchicalConfiguration config = createHierarchicalConfig();
+        config.setExpressionEngine(new XPathExpressionEngine());
+        SnapshotConfiguration snapshot = new SnapshotConfiguration(config);
+        assertEquals("Wrong value", "documents",
+                snapshot.getString("tables/table[2]/name"));
+    }
+
+    /**
+     * Tests whether sub configurations can be obtained from a snapshot.
+     */
+    @Test
+    public void testImmutableConfigurationsAt()
+    {
+        SnapshotConfiguration snapshot =
+                new SnapshotConfiguration(createHierarchicalConfig());
+        List<ImmutableHierarchicalConfiguration> subs =
+                snapshot.immutableConfigurationsAt("tables.table");
+        assertEquals("Wrong number of sub configurations", 2, subs.size());
+        List<String> names = new ArrayList<String>();
+        for (ImmutableHierarchicalConfiguration sub : subs)
+        {
+            assertTrue("No snapshot", sub instanceof SnapshotConfiguration);
+            names.add(sub.getString("name"));
+        }
+        assertEquals("Wrong names", Arrays.asList("users", "documents"),
+                names);
+
+        ImmutableHierarchicalConfiguration sub =
+                snapshot.immutableConfigurationAt("tables.table(1)");
+        assertEquals("Wrong field names",
+                Arrays.asList("docid", "authorID"),
+                sub.getList("fields.field.name"));
+    }
+
+    /**
+     * Tests whether child configurations can be obtained from a snapshot.
+     */
+    @Test
+    public void testImmutableChildConfigurationsAt()
+    {
+        SnapshotConfiguration snapshot =
+                new SnapshotConfiguration(createHierarchicalConfig());
+        List<ImmutableHierarchicalConfiguration> children =
+                snapshot.immutableChildConfigurationsAt("tables");
+        assertEquals("Wrong number of children", 2, children.size());
+    }
+
+    /**
+     * Tests hierarchical access to a snapshot of a flat configuration.
+     */
+    @Test
+    public void testFlatConfigurationHierarchicalAccess()
+    {
+        BaseConfiguration config = new BaseConfiguration();
+        config.addProperty("db.user", "scott");
+        config.addProperty("db.pwd", "tiger");
+        SnapshotConfiguration snapshot = new SnapshotConfiguration(config);
+        ImmutableHierarchicalConfiguration sub =
+                snapshot.immutableConfigurationAt("db");
+        assertEquals("Wrong user", "scott", sub.getString("user"));
+        assertEquals("Wrong max index", 0, snapshot.getMaxIndex("db.pwd"));
+    }
+
+    /**
+     * Tests whether a subset can be obtained from a snapshot.
+     */
+    @Test
+    public void testImmutableSubset()
+    {
+        BaseConfiguration config = new BaseConfiguration();
+        config.addProperty("db.user", "scott");
+        config.addProperty("db.pwd", "${db.user}");
+        config.addProperty("other", "value");
+        ImmutableConfiguration subset =
+                new SnapshotConfiguration(config).immutableSubset("db");
+        assertEquals("Wrong user", "scott", subset.getString("user"));
+        assertEquals("Wrong password", "scott", subset.getString("pwd"));
+        assertFalse("Got other key", subset.containsKey("other"));
+    }
+
+    /**
+     * Tests a snapshot with a larger number of keys.
+     */
+    @Test
+    public void testManyKeys()
+    {
+        final int count = 1000;
+        BaseConfiguration config = new BaseConfiguration();
+        for (int i = 0; i < count; i++)
+        {
+            config.addProperty("key" + i, i);
+        }
+        SnapshotConfiguration snapshot = new SnapshotConfiguration(config);
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals("Wrong value", i, snapshot.getInt("key" + i));
+        }
+        assertFalse("Unknown key found", snapshot.containsKey("key" + count));
+    }
+
+    /**
+     * Tests a snapshot of an empty configuration.
+     */
+    @Test
+    public void testEmptyConfiguration()
+    {
+        SnapshotConfiguration snapshot =
+                new SnapshotConfiguration(new BaseConfiguration());
+        assertTrue("Not empty", snapshot.isEmpty());
+        assertFalse("Got keys", snapshot.getKeys().hasNext());
+        assertNull("Got a value", snapshot.getProperty("key"));
+    }
+}
@@ -43,6 +43,7 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.apache.commons.configuration.io.FileHandler;
 import org.apache.commons.configuration.reloading.FileAlwaysReloadingStrategy;
 import org.apache.commons.configuration.reloading.InvariantReloadingStrategy;
 import org.apache.commons.configuration.resolver.CatalogResolver;
@@ -1840,6 +1841,257 @@ public class TestXMLConfiguration
         }
     }
 
+    /**
+     * Tests whether a configuration loaded in streaming mode contains the same
+     * data as one loaded in the default mode.
+     */
+    @Test
+    public void testStreamingLoad() throws ConfigurationException
+    {
+        XMLConfiguration streamConf = createStreamingConfig(testProperties);
+        assertNull("Got a document", streamConf.getDocument());
+        assertEquals("Wrong root element", "testconfig",
+                streamConf.getRootElementName());
+        assertEquals("Wrong root node", "testconfig",
+                streamConf.getRootNode().getName());
+        ConfigurationAssert.assertEquals(conf, streamConf);
+    }
+
+    /**
+     * Tests whether whitespace, lists, and attributes are handled correctly
+     * in streaming mode.
+     */
+    @Test
+    public void testStreamingLoadValues() throws ConfigurationException
+    {
+        XMLConfiguration streamConf = createStreamingConfig(testProperties);
+        assertEquals("Wrong blanc", " ", streamConf.getString("space.blanc"));
+        assertEquals("Wrong stars", " * * ", streamConf.getString("space.stars"));
+        assertEquals("Wrong description", "Some text",
+                streamConf.getString("space.description"));
+        assertEquals("Wrong list size", 3,
+                streamConf.getList("split.list1").size());
+        assertEquals("Wrong escaped list", "a,b,c",
+                streamConf.getString("split.list2"));
+        assertEquals("Attribute split", "a,b|c",
+                streamConf.getString("expressions[@value2]"));
+        assertEquals("Wrong list attribute", "u",
+                streamConf.getString("attrList.a(4)[@name]"));
+        assertEquals("Wrong CDATA", "<cdata value>",
+                streamConf.getString("test.cdata"));
+        assertEquals("Wrong entity", "foo\"bar",
+                streamConf.getString("test.entity[@name]"));
+        assertEquals("Wrong empty element", "", streamConf.getString("empty"));
+    }
+
+    /**
+     * Tests whether the DOCTYPE is evaluated in streaming mode.
+     */
+    @Test
+    public void testStreamingLoadDoctype() throws ConfigurationException
+    {
+        String content = "<?xml  version=\"1.0\"?>"
+                + DOCTYPE
+                + "properties"
+                + DOCTYPE_DECL
+                + "<properties version=\"1.0\"><entry key=\"test\">value</entry></properties>";
+        conf = new XMLConfiguration();
+        conf.setStreamingLoad(true);
+        conf.setFileName("testDtd.xml");
+        conf.load();
+        conf.clear();
+        conf.load(new StringReader(content));
+
+        assertEquals("Wrong public ID", PUBLIC_ID, conf.getPublicID());
+        assertEquals("Wrong system ID", SYSTEM_ID, conf.getSystemID());
+        assertEquals("Wrong key", "test", conf.getString("entry[@key]"));
+        assertEquals("Wrong value", "value", conf.getString("entry"));
+        assertNull("Got a document", conf.getDocument());
+    }
+
+    /**
+     * Tests whether validation is performed in streaming mode.
+     */
+    @Test(expected = ConfigurationException.class)
+    public void testStreamingLoadValidating() throws ConfigurationException
+    {
+        conf = new XMLConfiguration();
+        conf.setStreamingLoad(true);
+        conf.setValidating(true);
+        conf.load(ConfigurationAssert.getTestFile("testValidateInvalid.xml"));
+    }
+
+    /**
+     * Tests streaming mode if a custom document builder is set. The document
+     * should not be kept.
+     */
+    @Test
+    public void testStreamingLoadCustomDocumentBuilder() throws Exception
+    {
+        XMLConfiguration streamConf = new XMLConfiguration();
+        streamConf.setStreamingLoad(true);
+        streamConf.setDocumentBuilder(DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder());
+        streamConf.load(new File(testProperties));
+        assertNull("Got a document", streamConf.getDocument());
+        assertEquals("Wrong root element", "testconfig",
+                streamConf.getRootElementName());
+        ConfigurationAssert.assertEquals(conf, streamConf);
+    }
+
+    /**
+     * Tests whether a configuration loaded in streaming mode can be saved
+     * multiple times. The output has to be generated from the node tree.
+     */
+    @Test
+    public void testStreamingLoadSave() throws ConfigurationException
+    {
+        XMLConfiguration streamConf = createStreamingConfig(testProperties);
+        streamConf.addProperty("newElement", "new");
+        streamConf.save(testSaveConf);
+        assertNull("Got a document", streamConf.getDocument());
+        streamConf.setProperty("element", "changed");
+        streamConf.save(testSaveConf);
+
+        XMLConfiguration checkConf = new XMLConfiguration(testSaveConf);
+        assertEquals("Wrong root element", "testconfig",
+                checkConf.getRootElementName());
+        assertEquals("Wrong complex value", "I'm complex!",
+                checkConf.getString("element2.subelement.subsubelement"));
+        assertEquals("Wrong list", streamConf.getList("list.item"),
+                checkConf.getList("list.item"));
+        assertEquals("Wrong attribute", "foo",
+                checkConf.getString("element3[@name]"));
+        assertEquals("Wrong blanc", " ", checkConf.getString("space.blanc"));
+        assertEquals("Wrong changed value", "changed",
+                checkConf.getString("element"));
+        assertEquals("Wrong new value", "new", checkConf.getString("newElement"));
+    }
+
+    /**
+     * Tests the output generated by a save operation in streaming mode.
+     */
+    @Test
+    public void testStreamingSaveOutput() throws ConfigurationException
+    {
+        conf = new XMLConfiguration();
+        conf.setStreamingLoad(true);
+        conf.setRootElementName("properties");
+        conf.setPublicID(PUBLIC_ID);
+        conf.setSystemID(SYSTEM_ID);
+        conf.addProperty("entry[@key]", "test");
+        conf.addProperty("entry.sub", "value");
+        StringWriter out = new StringWriter();
+        conf.save(out);
+
+        String ls = System.getProperty("line.separator");
+        String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + ls
+                + DOCTYPE + "properties" + DOCTYPE_DECL + ls
+                + "<properties>" + ls
+                + "    <entry key=\"test\">" + ls
+                + "        <sub>value</sub>" + ls
+                + "    </entry>" + ls
+                + "</properties>" + ls;
+        assertEquals("Wrong output", expected, out.toString());
+    }
+
+    /**
+     * Tests whether special characters and list delimiters are escaped when
+     * saving in streaming mode.
+     */
+    @Test
+    public void testStreamingSaveEscaping() throws ConfigurationException
+    {
+        conf = new XMLConfiguration();
+        conf.setStreamingLoad(true);
+        conf.addProperty("test.special", "<a & \"b\">");
+        conf.addProperty("test.list", "a\\,b");
+        conf.addProperty("test[@attr]", "x \"&\" y\nz");
+        StringWriter out = new StringWriter();
+        conf.save(out);
+
+        XMLConfiguration checkConf = new XMLConfiguration();
+        checkConf.setStreamingLoad(true);
+        checkConf.load(new StringReader(out.toString()));
+        ConfigurationAssert.assertEquals(conf, checkConf);
+        assertEquals("Wrong list", "a,b", checkConf.getString("test.list"));
+    }
+
+    /**
+     * Tests that whitespace is not added to elements with a preserve space
+     * attribute when saving in streaming mode.
+     */
+    @Test
+    public void testStreamingSavePreserveSpace() throws ConfigurationException
+    {
+        conf = new XMLConfiguration();
+        conf.setStreamingLoad(true);
+        conf.addProperty("space[@xml:space]", "preserve");
+        conf.addProperty("space.text", " text ");
+        StringWriter out = new StringWriter();
+        conf.save(out);
+        assertTrue("Space indented: " + out,
+                out.toString().indexOf("<space xml:space=\"preserve\"><text> text </text></space>") >= 0);
+    }
+
+    /**
+     * Tests that multiple values of an attribute cause an exception when
+     * saving in streaming mode.
+     */
+    @Test(expected = ConfigurationRuntimeException.class)
+    public void testStreamingSaveMultipleAttributeValues() throws ConfigurationException
+    {
+        conf = new XMLConfiguration();
+        conf.setStreamingLoad(true);
+        conf.setDelimiterParsingDisabled(true);
+        conf.addProperty("test[@attr]", "a");
+        conf.addProperty("test[@attr]", "b");
+        conf.save(new StringWriter());
+    }
+
+    /**
+     * Tests whether a configuration in streaming mode can be saved atomically
+     * through a file handler.
+     */
+    @Test
+    public void testStreamingSaveAtomically() throws ConfigurationException
+    {
+        XMLConfiguration streamConf = createStreamingConfig(testProperties);
+        FileHandler handler = new FileHandler(streamConf);
+        handler.setFile(testSaveConf);
+        handler.saveAtomically();
+
+        XMLConfiguration checkConf = createStreamingConfig(testSaveConf.getAbsolutePath());
+        assertEquals("Wrong value", "value", checkConf.getString("element"));
+        assertEquals("Wrong list", conf.getList("attrList.a[@name]"),
+                checkConf.getList("attrList.a[@name]"));
+        assertEquals("Wrong preserved value", " * * ",
+                checkConf.getString("space.stars"));
+        for (String name : testSaveConf.getAbsoluteFile().getParentFile().list())
+        {
+            assertFalse("Temporary file not removed: " + name,
+                    name.startsWith("." + testSaveConf.getName()));
+        }
+    }
+
+    /**
+     * Helper method for creating a configuration which is loaded in streaming
+     * mode from the specified file.
+     *
+     * @param fileName the name of the file to load
+     * @return the configuration
+     * @throws ConfigurationException if an error occurs
+     */
+    private static XMLConfiguration createStreamingConfig(String fileName)
+            throws ConfigurationException
+    {
+        XMLConfiguration streamConf = new XMLConfiguration();
+        streamConf.setStreamingLoad(true);
+        streamConf.setFile(new File(fileName));
+        streamConf.load();
+        return streamConf;
+    }
+
     /**
      * Helper method for checking if a save operation was successful. Loads a
      * saved configuration and then tests against a reference configuration.
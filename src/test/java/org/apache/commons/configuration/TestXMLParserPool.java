@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.configuration;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.SAXParser;
+import javax.xml.transform.TransformerFactoryConfigurationError;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Test class for {@code XMLParserPool}.
+ *
+ * @version $Id$
+ */
+public class TestXMLParserPool
+{
+    /** The system property for the transformer factory. */
+    private static final String PROP_TRANSFORMER_FACTORY =
+            "javax.xml.transform.TransformerFactory";
+
+    /** A simple XML document for parsing. */
+    private static final String DOC = "<config><test>value</test></config>";
+
+    /**
+     * Tests whether a document builder is reused after it has been released.
+     */
+    @Test
+    public void testReuseDocumentBuilder() throws Exception
+    {
+        DocumentBuilder builder = XMLParserPool.acquireDocumentBuilder(false, false);
+        builder.setErrorHandler(new DefaultHandler());
+        Document doc = builder.parse(new InputSource(new StringReader(DOC)));
+        assertNotNull("No document", doc.getDocumentElement());
+        XMLParserPool.releaseDocumentBuilder(builder);
+
+        DocumentBuilder builder2 = XMLParserPool.acquireDocumentBuilder(false, false);
+        try
+        {
+            assertSame("Builder not reused", builder, builder2);
+            assertNotNull("Cannot parse again", builder2.parse(
+                    new InputSource(new StringReader(DOC))).getDocumentElement());
+            assertFalse("Wrong validating flag", builder2.isValidating());
+        }
+        finally
+        {
+            XMLParserPool.releaseDocumentBuilder(builder2);
+        }
+    }
+
+    /**
+     * Tests that a document builder is not handed out twice before it is
+     * released.
+     */
+    @Test
+    public void testNestedAcquireDocumentBuilder() throws Exception
+    {
+        DocumentBuilder builder = XMLParserPool.acquireDocumentBuilder(false, false);
+        DocumentBuilder builder2 = XMLParserPool.acquireDocumentBuilder(false, false);
+        assertNotSame("Same builder", builder, builder2);
+        XMLParserPool.releaseDocumentBuilder(builder2);
+        XMLParserPool.releaseDocumentBuilder(builder);
+    }
+
+    /**
+     * Tests that builders with different settings are distinguished.
+     */
+    @Test
+    public void testDocumentBuilderSettings() throws Exception
+    {
+        DocumentBuilder builder = XMLParserPool.acquireDocumentBuilder(true, false);
+        DocumentBuilder builder2 = XMLParserPool.acquireDocumentBuilder(true, true);
+        try
+        {
+            assertTrue("Not validating", builder.isValidating());
+            assertFalse("Namespace aware", builder.isNamespaceAware());
+            assertTrue("Not namespace aware", builder2.isNamespaceAware());
+        }
+        finally
+        {
+            XMLParserPool.releaseDocumentBuilder(builder);
+            XMLParserPool.releaseDocumentBuilder(builder2);
+        }
+    }
+
+    /**
+     * Tests that releasing a foreign document builder has no effect.
+     */
+    @Test
+    public void testReleaseUnknownDocumentBuilder() throws Exception
+    {
+        DocumentBuilder builder = XMLParserPool.acquireDocumentBuilder(false, false);
+        XMLParserPool.releaseDocumentBuilder(builder);
+        XMLParserPool.releaseDocumentBuilder(builder);
+        XMLParserPool.releaseDocumentBuilder(null);
+        DocumentBuilder builder2 = XMLParserPool.acquireDocumentBuilder(false, false);
+        DocumentBuilder builder3 = XMLParserPool.acquireDocumentBuilder(false, false);
+        assertNotSame("Same builder", builder2, builder3);
+        XMLParserPool.releaseDocumentBuilder(builder2);
+        XMLParserPool.releaseDocumentBuilder(builder3);
+    }
+
+    /**
+     * Tests whether a SAX parser is reused and reset after it has been
+     * released.
+     */
+    @Test
+    public void testReuseSAXParser() throws Exception
+    {
+        SAXParser parser = XMLParserPool.acquireSAXParser(true, false, false);
+        DefaultHandler handler = new DefaultHandler();
+        parser.getXMLReader().setContentHandler(handler);
+        XMLParserPool.releaseSAXParser(parser);
+
+        SAXParser parser2 = XMLParserPool.acquireSAXParser(true, false, false);
+        try
+        {
+            if (isResetSupported(parser2))
+            {
+                assertSame("Parser not reused", parser, parser2);
+            }
+            else
+            {
+                assertNotSame("Parser reused without reset", parser, parser2);
+            }
+            assertTrue("Not validating", parser2.isValidating());
+            assertNotSame("Handler not reset", handler,
+                    parser2.getXMLReader().getContentHandler());
+        }
+        finally
+        {
+            XMLParserPool.releaseSAXParser(parser2);
+        }
+    }
+
+    /**
+     * Tests that a SAX parser with schema validation is namespace aware.
+     */
+    @Test
+    public void testSAXParserSchemaValidation() throws Exception
+    {
+        SAXParser parser = XMLParserPool.acquireSAXParser(true, false, true);
+        try
+        {
+            assertTrue("Not namespace aware", parser.isNamespaceAware());
+        }
+        finally
+        {
+            XMLParserPool.releaseSAXParser(parser);
+        }
+    }
+
+    /**
+     * Tests that pooled objects are not shared between threads.
+     */
+    @Test
+    public void testDifferentThreads() throws Exception
+    {
+        SAXParser parser = XMLParserPool.acquireSAXParser(false, false, false);
+        XMLParserPool.releaseSAXParser(parser);
+        final AtomicReference<Object> ref = new AtomicReference<Object>();
+        Thread t = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    SAXParser p = XMLParserPool.acquireSAXParser(false, false, false);
+                    ref.set(p);
+                    XMLParserPool.releaseSAXParser(p);
+                }
+                catch (Exception ex)
+                {
+                    ref.set(ex);
+                }
+            }
+        };
+        t.start();
+        t.join();
+        assertTrue("No parser: " + ref.get(), ref.get() instanceof SAXParser);
+        assertNotSame("Parser shared", parser, ref.get());
+    }
+
+    /**
+     * Tests whether a change of the system property selecting the transformer
+     * factory is taken into account.
+     */
+    @Test
+    public void testCreateTransformerFactoryProperty() throws Exception
+    {
+        XMLParserPool.createTransformer();
+        System.setProperty(PROP_TRANSFORMER_FACTORY, "an.invalid.Factory");
+        try
+        {
+            XMLParserPool.createTransformer();
+            fail("Invalid factory property not evaluated!");
+        }
+        catch (TransformerFactoryConfigurationError tfcex)
+        {
+            // expected
+        }
+        finally
+        {
+            System.getProperties().remove(PROP_TRANSFORMER_FACTORY);
+        }
+    }
+
+    /**
+     * Checks whether the given parser supports a reset. Older parsers do not
+     * implement this JAXP 1.3 method.
+     *
+     * @param parser the parser
+     * @return a flag whether reset is supported
+     */
+    private static boolean isResetSupported(SAXParser parser)
+    {
+        try
+        {
+            parser.reset();
+            return true;
+        }
+        catch (UnsupportedOperationException uoex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Tests whether transformers can be created.
+     */
+    @Test
+    public void testCreateTransformer() throws Exception
+    {
+        assertNotNull("No transformer", XMLParserPool.createTransformer());
+        assertNull("Unexpected output property", XMLParserPool
+                .createTransformer().getOutputProperties()
+                .getProperty("doctype-public"));
+    }
+}
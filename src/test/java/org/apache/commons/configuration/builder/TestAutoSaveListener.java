@@ -16,11 +16,21 @@
  */
 package org.apache.commons.configuration.builder;
 
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.commons.configuration.AbstractConfiguration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.event.ConfigurationEvent;
 import org.apache.commons.configuration.io.FileHandler;
+import org.easymock.Capture;
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -56,6 +66,53 @@ public class TestAutoSaveListener
                 "someValue", before));
     }
 
+    /**
+     * Prepares the mock executor service to expect a save task to be scheduled.
+     *
+     * @param exec the mock executor service
+     * @param delay the expected delay
+     * @param future the future to be returned
+     * @return the capture for the save task
+     */
+    private static Capture<Runnable> expectSchedule(
+            ScheduledExecutorService exec, long delay, ScheduledFuture<?> future)
+    {
+        Capture<Runnable> task = new Capture<Runnable>();
+        exec.schedule(EasyMock.capture(task), EasyMock.eq(delay),
+                EasyMock.eq(TimeUnit.MILLISECONDS));
+        EasyMock.expectLastCall().andReturn(future);
+        return task;
+    }
+
+    /**
+     * Prepares the mock builder to expect an atomic save operation.
+     *
+     * @return the mock file handler
+     */
+    private FileHandler expectAtomicSave() throws ConfigurationException
+    {
+        FileHandler handler = EasyMock.createMock(FileHandler.class);
+        handler.saveAtomically();
+        EasyMock.expect(builder.getFileHandler()).andReturn(handler);
+        EasyMock.replay(handler);
+        return handler;
+    }
+
+    /**
+     * Waits a bit so that a short save delay has passed.
+     */
+    private static void waitForDelay()
+    {
+        try
+        {
+            Thread.sleep(20);
+        }
+        catch (InterruptedException iex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Tests whether the file handler can be updated and is correctly
      * initialized.
@@ -141,6 +198,384 @@ public class TestAutoSaveListener
         fireChangeEvent(false);
     }
 
+    /**
+     * Tests that changes are collected and saved by a scheduled task if a save
+     * delay is set.
+     */
+    @Test
+    public void testConfigurationChangedBatched() throws ConfigurationException
+    {
+        ScheduledExecutorService exec =
+                EasyMock.createMock(ScheduledExecutorService.class);
+        ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+        Capture<Runnable> task = expectSchedule(exec, 1000000, future);
+        EasyMock.replay(exec, future, builder);
+        listener.setBatchParameters(1000000, 0, exec);
+        fireChangeEvent(false);
+        fireChangeEvent(false);
+        EasyMock.verify(exec, builder);
+
+        EasyMock.reset(exec, builder);
+        Capture<Runnable> task2 = new Capture<Runnable>();
+        exec.schedule(EasyMock.capture(task2), EasyMock.gt(0L),
+                EasyMock.eq(TimeUnit.MILLISECONDS));
+        EasyMock.expectLastCall().andReturn(future);
+        EasyMock.replay(exec, builder);
+        task.getValue().run();
+        EasyMock.verify(exec, builder);
+        assertTrue("Delay not respected", task2.hasCaptured());
+    }
+
+    /**
+     * Tests that a save task saves the pending changes when the delay has
+     * passed.
+     */
+    @Test
+    public void testBatchedSaveTaskAfterDelay() throws ConfigurationException
+    {
+        ScheduledExecutorService exec =
+                EasyMock.createMock(ScheduledExecutorService.class);
+        ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+        Capture<Runnable> task = expectSchedule(exec, 1, future);
+        EasyMock.replay(exec, future, builder);
+        listener.setBatchParameters(1, 0, exec);
+        fireChangeEvent(false);
+        EasyMock.verify(exec, builder);
+
+        EasyMock.reset(builder);
+        FileHandler handler = expectAtomicSave();
+        EasyMock.replay(builder);
+        waitForDelay();
+        task.getValue().run();
+        task.getValue().run();
+        EasyMock.verify(handler, builder);
+    }
+
+    /**
+     * Tests that a save is triggered directly if the maximum number of changes
+     * is reached.
+     */
+    @Test
+    public void testBatchedSaveMaxChanges() throws ConfigurationException
+    {
+        ScheduledExecutorService exec =
+                EasyMock.createMock(ScheduledExecutorService.class);
+        ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+        expectSchedule(exec, 1000000, future);
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        Capture<Runnable> task = expectSchedule(exec, 0, future);
+        EasyMock.replay(exec, future, builder);
+        listener.setBatchParameters(1000000, 2, exec);
+        fireChangeEvent(false);
+        fireChangeEvent(false);
+        EasyMock.verify(exec, future, builder);
+
+        EasyMock.reset(builder);
+        FileHandler handler = expectAtomicSave();
+        EasyMock.replay(builder);
+        task.getValue().run();
+        EasyMock.verify(handler, builder);
+    }
+
+    /**
+     * Tests whether pending changes can be flushed.
+     */
+    @Test
+    public void testFlush() throws ConfigurationException
+    {
+        ScheduledExecutorService exec =
+                EasyMock.createMock(ScheduledExecutorService.class);
+        ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+        Capture<Runnable> task = expectSchedule(exec, 1000000, future);
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        FileHandler handler = expectAtomicSave();
+        EasyMock.replay(exec, future, builder);
+        listener.setBatchParameters(1000000, 0, exec);
+        fireChangeEvent(false);
+        listener.flush();
+        task.getValue().run();
+        listener.flush();
+        EasyMock.verify(exec, future, handler, builder);
+    }
+
+    /**
+     * Tests that a failed batched save operation is retried.
+     */
+    @Test
+    public void testBatchedSaveFailedRetried() throws ConfigurationException
+    {
+        ScheduledExecutorService exec =
+                EasyMock.createMock(ScheduledExecutorService.class);
+        ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+        Capture<Runnable> task = expectSchedule(exec, 1, future);
+        Capture<Runnable> task2 = expectSchedule(exec, 1, future);
+        FileHandler handler = EasyMock.createMock(FileHandler.class);
+        handler.saveAtomically();
+        EasyMock.expectLastCall().andThrow(new ConfigurationException());
+        handler.saveAtomically();
+        EasyMock.expect(builder.getFileHandler()).andReturn(handler).times(2);
+        EasyMock.replay(exec, future, handler, builder);
+        listener.setBatchParameters(1, 0, exec);
+        fireChangeEvent(false);
+        waitForDelay();
+        task.getValue().run();
+        waitForDelay();
+        task2.getValue().run();
+        EasyMock.verify(exec, handler, builder);
+    }
+
+    /**
+     * Tests that the changes are still pending if a flush operation fails.
+     */
+    @Test
+    public void testFlushFailed() throws ConfigurationException
+    {
+        ScheduledExecutorService exec =
+                EasyMock.createMock(ScheduledExecutorService.class);
+        ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+        expectSchedule(exec, 1000000, future);
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        expectSchedule(exec, 1000000, future);
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        FileHandler handler = EasyMock.createMock(FileHandler.class);
+        handler.saveAtomically();
+        ConfigurationException cex = new ConfigurationException();
+        EasyMock.expectLastCall().andThrow(cex);
+        handler.saveAtomically();
+        EasyMock.expect(builder.getFileHandler()).andReturn(handler).times(2);
+        EasyMock.replay(exec, future, handler, builder);
+        listener.setBatchParameters(1000000, 0, exec);
+        fireChangeEvent(false);
+        try
+        {
+            listener.flush();
+            fail("Exception not thrown!");
+        }
+        catch (ConfigurationException ex)
+        {
+            assertTrue("Wrong exception", ex == cex);
+        }
+        listener.flush();
+        EasyMock.verify(exec, future, handler, builder);
+    }
+
+    /**
+     * Tests that closing the listener saves pending changes and cancels the
+     * scheduled task.
+     */
+    @Test
+    public void testClose() throws ConfigurationException
+    {
+        ScheduledExecutorService exec =
+                EasyMock.createMock(ScheduledExecutorService.class);
+        ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+        Capture<Runnable> task = expectSchedule(exec, 1, future);
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        FileHandler handler = expectAtomicSave();
+        EasyMock.replay(exec, future, builder);
+        listener.setBatchParameters(1, 0, exec);
+        fireChangeEvent(false);
+        listener.close();
+        fireChangeEvent(false);
+        waitForDelay();
+        task.getValue().run();
+        listener.flush();
+        EasyMock.verify(exec, future, handler, builder);
+    }
+
+    /**
+     * Tests that a batched save operation waits until an update in progress
+     * on another thread has been completed.
+     */
+    @Test
+    public void testSaveWaitsForUpdate() throws Exception
+    {
+        ScheduledExecutorService exec =
+                EasyMock.createMock(ScheduledExecutorService.class);
+        ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+        expectSchedule(exec, 1000000, future);
+        EasyMock.expect(future.cancel(false)).andReturn(Boolean.TRUE);
+        final boolean[] updateCompleted = new boolean[1];
+        final boolean[] savedAfterUpdate = new boolean[1];
+        FileHandler handler = EasyMock.createMock(FileHandler.class);
+        handler.saveAtomically();
+        EasyMock.expectLastCall().andAnswer(new IAnswer<Object>()
+        {
+            public Object answer() throws Throwable
+            {
+                synchronized (updateCompleted)
+                {
+                    savedAfterUpdate[0] = updateCompleted[0];
+                }
+                return null;
+            }
+        });
+        EasyMock.expect(builder.getFileHandler()).andReturn(handler);
+        EasyMock.replay(exec, future, handler, builder);
+        listener.setBatchParameters(1000000, 0, exec);
+        fireChangeEvent(false);
+
+        final CountDownLatch updateStarted = new CountDownLatch(1);
+        Thread updateThread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                fireChangeEvent(true);
+                updateStarted.countDown();
+                waitForDelay();
+                synchronized (updateCompleted)
+                {
+                    updateCompleted[0] = true;
+                }
+                fireChangeEvent(false);
+            }
+        };
+        updateThread.start();
+        updateStarted.await();
+        listener.flush();
+        updateThread.join();
+        assertTrue("Saved during update", savedAfterUpdate[0]);
+        EasyMock.verify(handler, builder);
+    }
+
+    /**
+     * Prepares a listener with a pending change which is to be saved by
+     * calling flush().
+     *
+     * @return the mock file handler
+     */
+    private FileHandler prepareFlush() throws ConfigurationException
+    {
+        ScheduledExecutorService exec =
+                EasyMock.createNiceMock(ScheduledExecutorService.class);
+        FileHandler handler = expectAtomicSave();
+        EasyMock.replay(exec, builder);
+        listener.setBatchParameters(1000000, 0, exec);
+        fireChangeEvent(false);
+        return handler;
+    }
+
+    /**
+     * Starts a thread which sends a before-update event, but no after-update
+     * event. This simulates an update failing with an exception.
+     *
+     * @param finish a latch which causes the thread to terminate (can be
+     *        <b>null</b>, then the thread terminates directly)
+     * @return the thread
+     */
+    private Thread startFailedUpdate(final CountDownLatch finish)
+            throws InterruptedException
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                fireChangeEvent(true);
+                started.countDown();
+                if (finish != null)
+                {
+                    try
+                    {
+                        finish.await();
+                    }
+                    catch (InterruptedException iex)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        thread.start();
+        started.await();
+        return thread;
+    }
+
+    /**
+     * Tests that a failed update of the thread triggering the save operation
+     * does not prevent saving.
+     */
+    @Test
+    public void testSaveAfterFailedUpdateOfCurrentThread()
+            throws ConfigurationException
+    {
+        FileHandler handler = prepareFlush();
+        fireChangeEvent(true);
+        listener.flush();
+        EasyMock.verify(handler, builder);
+    }
+
+    /**
+     * Tests that a failed update of a thread which has terminated does not
+     * prevent saving.
+     */
+    @Test
+    public void testSaveAfterFailedUpdateOfTerminatedThread() throws Exception
+    {
+        FileHandler handler = prepareFlush();
+        startFailedUpdate(null).join();
+        listener.flush();
+        EasyMock.verify(handler, builder);
+    }
+
+    /**
+     * Tests that a failed update of a thread which is still alive delays a
+     * save operation only until a timeout.
+     */
+    @Test
+    public void testSaveAfterFailedUpdateTimeout() throws Exception
+    {
+        FileHandler handler = prepareFlush();
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread thread = startFailedUpdate(finish);
+        try
+        {
+            listener.flush();
+            EasyMock.verify(handler, builder);
+
+            EasyMock.reset(handler, builder);
+            handler = expectAtomicSave();
+            EasyMock.replay(builder);
+            fireChangeEvent(false);
+            long start = System.nanoTime();
+            listener.flush();
+            assertTrue("Failed update not ignored", System.nanoTime() - start
+                    < TimeUnit.MILLISECONDS.toNanos(500));
+            EasyMock.verify(handler, builder);
+        }
+        finally
+        {
+            finish.countDown();
+            thread.join();
+        }
+    }
+
+    /**
+     * Tests that updates are not tracked if no save delay is set.
+     */
+    @Test
+    public void testNoUpdateTrackingWithoutDelay() throws Exception
+    {
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread thread = startFailedUpdate(finish);
+        try
+        {
+            FileHandler handler = prepareFlush();
+            long start = System.nanoTime();
+            listener.flush();
+            assertTrue("Update was tracked", System.nanoTime() - start
+                    < TimeUnit.MILLISECONDS.toNanos(500));
+            EasyMock.verify(handler, builder);
+        }
+        finally
+        {
+            finish.countDown();
+            thread.join();
+        }
+    }
+
     /**
      * Tests that after a load operation changes on the monitored configuration
      * are detected again.
@@ -30,6 +30,9 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
@@ -353,6 +356,175 @@ public class TestFileBasedConfigurationBuilder
         checkSavedConfig(file, 1);
     }
 
+    /**
+     * Tests that pending changes are saved when auto save mode is disabled,
+     * and that no further changes are written afterwards.
+     */
+    @Test
+    public void testDisableAutoSaveDelayed() throws ConfigurationException
+    {
+        File file = createTestFile(0);
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<PropertiesConfiguration>(
+                        PropertiesConfiguration.class);
+        builder.configure(new FileBasedBuilderParametersImpl().setFile(file));
+        builder.setAutoSaveDelay(1, TimeUnit.HOURS);
+        builder.setAutoSave(true);
+        PropertiesConfiguration config = builder.getConfiguration();
+        config.setProperty(PROP, 1);
+        builder.setAutoSave(false);
+        checkSavedConfig(file, 1);
+        config.setProperty(PROP, 2);
+        builder.flushAutoSave();
+        checkSavedConfig(file, 1);
+    }
+
+    /**
+     * Tests that changes are not saved directly if an auto save delay is set.
+     */
+    @Test
+    public void testAutoSaveDelayed() throws ConfigurationException
+    {
+        File file = createTestFile(0);
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<PropertiesConfiguration>(
+                        PropertiesConfiguration.class);
+        builder.configure(new FileBasedBuilderParametersImpl().setFile(file));
+        builder.setAutoSaveDelay(1, TimeUnit.HOURS);
+        builder.setAutoSave(true);
+        PropertiesConfiguration config = builder.getConfiguration();
+        for (int i = 1; i <= 10; i++)
+        {
+            config.setProperty(PROP, i);
+        }
+        checkSavedConfig(file, 0);
+        builder.flushAutoSave();
+        checkSavedConfig(file, 10);
+    }
+
+    /**
+     * Tests whether batched changes are saved by the background task.
+     */
+    @Test
+    public void testAutoSaveMaxChanges() throws ConfigurationException,
+            InterruptedException
+    {
+        File file = createTestFile(0);
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<PropertiesConfiguration>(
+                        PropertiesConfiguration.class);
+        builder.configure(new FileBasedBuilderParametersImpl().setFile(file));
+        ScheduledExecutorService exec =
+                Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            builder.setAutoSave(true);
+            builder.setAutoSaveExecutor(exec);
+            builder.setAutoSaveDelay(1, TimeUnit.HOURS);
+            builder.setAutoSaveMaxChanges(5);
+            PropertiesConfiguration config = builder.getConfiguration();
+            for (int i = 1; i <= 5; i++)
+            {
+                config.setProperty(PROP, i);
+            }
+        }
+        finally
+        {
+            exec.shutdown();
+        }
+        assertTrue("Executor not terminated",
+                exec.awaitTermination(10, TimeUnit.SECONDS));
+        checkSavedConfig(file, 5);
+    }
+
+    /**
+     * Tests that a batched save is still possible after an update of the
+     * managed configuration failed with an exception.
+     */
+    @Test
+    public void testAutoSaveAfterFailedUpdate() throws ConfigurationException,
+            IOException, InterruptedException
+    {
+        File file = folder.newFile();
+        Writer out = new FileWriter(file);
+        try
+        {
+            out.write("<config><" + PROP + ">0</" + PROP + "></config>");
+        }
+        finally
+        {
+            out.close();
+        }
+        FileBasedConfigurationBuilder<XMLConfiguration> builder =
+                new FileBasedConfigurationBuilder<XMLConfiguration>(
+                        XMLConfiguration.class);
+        builder.configure(new FileBasedBuilderParametersImpl().setFile(file));
+        ScheduledExecutorService exec =
+                Executors.newSingleThreadScheduledExecutor();
+        try
+        {
+            builder.setAutoSave(true);
+            builder.setAutoSaveExecutor(exec);
+            builder.setAutoSaveDelay(1, TimeUnit.HOURS);
+            builder.setAutoSaveMaxChanges(1);
+            XMLConfiguration config = builder.getConfiguration();
+            try
+            {
+                config.addProperty("[@invalid].key", "value");
+                fail("Invalid key not detected!");
+            }
+            catch (IllegalArgumentException iex)
+            {
+                // expected: no after-update event is sent
+            }
+            config.setProperty(PROP, 1);
+        }
+        finally
+        {
+            exec.shutdown();
+        }
+        assertTrue("Executor not terminated",
+                exec.awaitTermination(10, TimeUnit.SECONDS));
+        XMLConfiguration saved = new XMLConfiguration();
+        new FileHandler(saved).load(file);
+        assertEquals("Configuration was not saved", 1, saved.getInt(PROP));
+    }
+
+    /**
+     * Tests the default settings for batched auto save operations.
+     */
+    @Test
+    public void testAutoSaveBatchDefaults()
+    {
+        FileBasedConfigurationBuilder<PropertiesConfiguration> builder =
+                new FileBasedConfigurationBuilder<PropertiesConfiguration>(
+                        PropertiesConfiguration.class);
+        assertEquals("Wrong delay", 0, builder.getAutoSaveDelay());
+        assertEquals("Wrong max changes", 0, builder.getAutoSaveMaxChanges());
+        assertNull("Got an executor", builder.getAutoSaveExecutor());
+    }
+
+    /**
+     * Tries to set a negative auto save delay.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetAutoSaveDelayNegative()
+    {
+        new FileBasedConfigurationBuilder<PropertiesConfiguration>(
+                PropertiesConfiguration.class).setAutoSaveDelay(-1,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Tries to set a negative maximum number of changes.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetAutoSaveMaxChangesNegative()
+    {
+        new FileBasedConfigurationBuilder<PropertiesConfiguration>(
+                PropertiesConfiguration.class).setAutoSaveMaxChanges(-1);
+    }
+
     /**
      * Tries to set a default encoding for a null class.
      */
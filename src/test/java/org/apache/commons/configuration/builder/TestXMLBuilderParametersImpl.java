@@ -118,6 +118,17 @@ public class TestXMLBuilderParametersImpl
                 .getParameters().get("schemaValidation"));
     }
 
+    /**
+     * Tests whether the streaming load flag can be set.
+     */
+    @Test
+    public void testSetStreamingLoad()
+    {
+        assertSame("Wrong result", params, params.setStreamingLoad(true));
+        assertEquals("Flag not in parameters", Boolean.TRUE, params
+                .getParameters().get("streamingLoad"));
+    }
+
     /**
      * Tests whether properties can be set through BeanUtils.
      */
@@ -18,9 +18,14 @@ package org.apache.commons.configuration.event;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -201,6 +206,50 @@ public class TestEventSource
         assertEquals("Listener was called", 0, l.numberOfCalls);
     }
 
+    /**
+     * Tests that events are delivered synchronously per default.
+     */
+    @Test
+    public void testGetEventExecutorDefault()
+    {
+        assertNull("Got an executor", source.getEventExecutor());
+    }
+
+    /**
+     * Tests whether events can be delivered asynchronously via an executor.
+     */
+    @Test
+    public void testFireEventAsync()
+    {
+        CollectingExecutor executor = new CollectingExecutor();
+        source.setEventExecutor(executor);
+        TestListener l = new TestListener();
+        source.addConfigurationListener(l);
+        source.fireEvent(TEST_TYPE, TEST_PROPNAME, TEST_PROPVALUE, false);
+        assertEquals("Listener already called", 0, l.numberOfCalls);
+        assertEquals("Wrong number of tasks", 1, executor.tasks.size());
+
+        executor.tasks.get(0).run();
+        assertEquals("Listener not called", 1, l.numberOfCalls);
+        assertEquals("Wrong property name", TEST_PROPNAME, l.lastEvent
+                .getPropertyName());
+        assertSame("Wrong source", source, l.lastEvent.getSource());
+    }
+
+    /**
+     * Tests that no task is submitted to the executor if there are no
+     * listeners.
+     */
+    @Test
+    public void testFireEventAsyncNoListeners()
+    {
+        CollectingExecutor executor = new CollectingExecutor();
+        source.setEventExecutor(executor);
+        source.fireEvent(TEST_TYPE, TEST_PROPNAME, TEST_PROPVALUE, false);
+        assertTrue("Got tasks", executor.tasks.isEmpty());
+        assertEquals("An event object was created", 0, source.eventCount);
+    }
+
     /**
      * Tests whether an event listener can deregister itself in reaction of a
      * delivered event.
@@ -338,6 +387,36 @@ public class TestEventSource
                 .getErrorListeners().isEmpty());
     }
 
+    /**
+     * Tests that the detail events counter of a clone is independent from the
+     * original object.
+     */
+    @Test
+    public void testCloneDetailEvents() throws CloneNotSupportedException
+    {
+        source.setDetailEvents(true);
+        BaseEventSource copy = (BaseEventSource) source.clone();
+        copy.setDetailEvents(false);
+        copy.setDetailEvents(false);
+        assertTrue("Detail events disabled for original",
+                source.isDetailEvents());
+        assertFalse("Detail events enabled for clone", copy.isDetailEvents());
+    }
+
+    /**
+     * A test executor implementation which just records the tasks passed to
+     * it. So the tests can control when the tasks are executed.
+     */
+    static class CollectingExecutor implements Executor
+    {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        public void execute(Runnable command)
+        {
+            tasks.add(command);
+        }
+    }
+
     /**
      * A test event listener implementation.
      */
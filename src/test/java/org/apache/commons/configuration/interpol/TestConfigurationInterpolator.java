@@ -29,6 +29,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.lang3.text.StrLookup;
+import org.apache.commons.lang3.text.StrSubstitutor;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.junit.Before;
@@ -464,6 +466,92 @@ public class TestConfigurationInterpolator
         assertEquals("Wrong result", value, interpolator.interpolate(value));
     }
 
+    /**
+     * Tests that a string without variables is returned without changes.
+     */
+    @Test
+    public void testInterpolateStringNoVariables()
+    {
+        String value = "A value without variables; costs $100 {}";
+        assertSame("Value was changed", value, interpolator.interpolate(value));
+    }
+
+    /**
+     * Tests that interpolation of the same value reflects changes of the
+     * variable values.
+     */
+    @Test
+    public void testInterpolateStringChangedVariable()
+    {
+        final Map<String, String> values = new HashMap<String, String>();
+        interpolator.registerLookup(TEST_PREFIX, new Lookup()
+        {
+            public Object lookup(String variable)
+            {
+                return values.get(variable);
+            }
+        });
+        String value = "<${" + TEST_PREFIX + ':' + TEST_NAME + "}>";
+        values.put(TEST_NAME, "v1");
+        assertEquals("Wrong result (1)", "<v1>", interpolator.interpolate(value));
+        values.put(TEST_NAME, "v2");
+        assertEquals("Wrong result (2)", "<v2>", interpolator.interpolate(value));
+    }
+
+    /**
+     * Tests whether interpolation produces the same results as a plain
+     * {@code StrSubstitutor} for various kinds of values.
+     */
+    @Test
+    public void testInterpolateSameAsSubstitutor()
+    {
+        final Map<String, String> values = new HashMap<String, String>();
+        values.put("a", "A");
+        values.put("b", "B");
+        values.put("ref", "${a}-${b}");
+        values.put("empty", "");
+        interpolator.addDefaultLookup(new Lookup()
+        {
+            public Object lookup(String variable)
+            {
+                return values.get(variable);
+            }
+        });
+        StrSubstitutor substitutor = new StrSubstitutor(new StrLookup<Object>()
+        {
+            @Override
+            public String lookup(String key)
+            {
+                Object result = interpolator.resolve(key);
+                return (result != null) ? result.toString() : null;
+            }
+        });
+
+        String[] tests = {
+                "${a}", "x${a}y${b}z", "${a}${b}", "${unknown}",
+                "pre ${unknown} ${a}", "${ref}", "<${empty}>", "$${a}",
+                "$$${a}", "${a", "x${a} ${b", "${a${b}}", "${}", "$a{b}",
+                "${a}}", "{${a}}", "$"
+        };
+        for (String test : tests)
+        {
+            assertEquals("Wrong result for " + test, substitutor.replace(test),
+                    interpolator.interpolate(test));
+            assertEquals("Wrong cached result for " + test,
+                    substitutor.replace(test), interpolator.interpolate(test));
+        }
+    }
+
+    /**
+     * Tests that a cyclic variable reference is still detected.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testInterpolateCyclicReference()
+    {
+        interpolator.addDefaultLookup(setUpTestLookup("cycle", "${cycle}"));
+        interpolator.interpolate("${cycle}");
+    }
+
     /**
      * Tests whether the flag for substitution in variable names can be
      * modified.
@@ -83,6 +83,77 @@ public class TestExprLookup
         assertEquals("Wrong result", value, lookup.lookup(value));
     }
 
+    /**
+     * Tests that repeated lookups of the same expression yield the same result.
+     */
+    @Test
+    public void testLookupRepeated()
+    {
+        ExprLookup.Variables vars = new ExprLookup.Variables();
+        vars.add(new ExprLookup.Variable("Util", new Utility("Hello")));
+        ExprLookup lookup = new ExprLookup(vars);
+        lookup.setConfiguration(new XMLConfiguration());
+        String expr = "Util.str('Hello') + ' World'";
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals("Wrong result", "Hello World", lookup.lookup(expr));
+        }
+    }
+
+    /**
+     * Tests that the values of subordinate lookups are evaluated each time
+     * even if the expression is cached.
+     */
+    @Test
+    public void testLookupChangedSubordinateValue()
+    {
+        ExprLookup.Variables vars = new ExprLookup.Variables();
+        vars.add(new ExprLookup.Variable("String", org.apache.commons.lang.StringUtils.class));
+        XMLConfiguration config = new XMLConfiguration();
+        config.addProperty("element", "value");
+        ExprLookup lookup = new ExprLookup(vars);
+        lookup.setConfiguration(config);
+        String expr = "String.upperCase('$[element]')";
+        assertEquals("Wrong result (1)", "VALUE", lookup.lookup(expr));
+        config.setProperty("element", "other");
+        assertEquals("Wrong result (2)", "OTHER", lookup.lookup(expr));
+    }
+
+    /**
+     * Tests that variables assigned by an expression do not affect further
+     * lookups.
+     */
+    @Test
+    public void testLookupAssignmentNotVisible()
+    {
+        ExprLookup.Variables vars = new ExprLookup.Variables();
+        vars.add(new ExprLookup.Variable("Util", new Utility("Hello")));
+        ExprLookup lookup = new ExprLookup(vars);
+        lookup.setConfiguration(new XMLConfiguration());
+        assertEquals("Wrong assignment result", "Hi",
+                lookup.lookup("Util = 'Hi'; Util"));
+        assertEquals("Variable changed", "Hello",
+                lookup.lookup("Util.message"));
+    }
+
+    /**
+     * Tests that setVariables() replaces the variables available in
+     * expressions.
+     */
+    @Test
+    public void testSetVariablesAfterLookup()
+    {
+        ExprLookup.Variables vars = new ExprLookup.Variables();
+        vars.add(new ExprLookup.Variable("Util", new Utility("Hello")));
+        ExprLookup lookup = new ExprLookup(vars);
+        lookup.setConfiguration(new XMLConfiguration());
+        assertEquals("Wrong result (1)", "Hello", lookup.lookup("Util.message"));
+        vars = new ExprLookup.Variables();
+        vars.add(new ExprLookup.Variable("Util", new Utility("Goodbye")));
+        lookup.setVariables(vars);
+        assertEquals("Wrong result (2)", "Goodbye", lookup.lookup("Util.message"));
+    }
+
     public static class Utility
     {
         String message;
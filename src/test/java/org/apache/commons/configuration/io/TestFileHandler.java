@@ -708,6 +708,81 @@ public class TestFileHandler
         handler.save();
     }
 
+    /**
+     * Tests whether an existing file can be replaced by saveAtomically().
+     */
+    @Test
+    public void testSaveAtomically() throws ConfigurationException, IOException
+    {
+        File file = folder.newFile();
+        FileHandler handler = new FileHandler(new FileBasedTestImpl());
+        handler.setFile(file);
+        handler.saveAtomically();
+        assertEquals("Wrong content", CONTENT, readFile(file));
+        assertEquals("Temporary file not removed", 1,
+                file.getParentFile().list().length);
+    }
+
+    /**
+     * Tests whether saveAtomically() can create a new file in a non-existing
+     * directory.
+     */
+    @Test
+    public void testSaveAtomicallyNewFile() throws ConfigurationException
+    {
+        File file = new File(new File(folder.getRoot(), "sub"), TEST_FILENAME);
+        FileHandler handler = new FileHandler(new FileBasedTestImpl());
+        handler.setFile(file);
+        handler.saveAtomically();
+        assertEquals("Wrong content", CONTENT, readFile(file));
+    }
+
+    /**
+     * Tests that a failed atomic save operation does not change the original
+     * file.
+     */
+    @Test
+    public void testSaveAtomicallyError() throws IOException
+    {
+        File file = createTestFile();
+        final IOException ioex = new IOException("Test exception");
+        FileBasedTestImpl content = new FileBasedTestImpl()
+        {
+            @Override
+            public void write(Writer out) throws ConfigurationException,
+                    IOException
+            {
+                out.write("partial data");
+                out.flush();
+                throw ioex;
+            }
+        };
+        FileHandler handler = new FileHandler(content);
+        handler.setFile(file);
+        try
+        {
+            handler.saveAtomically();
+            fail("Exception not detected!");
+        }
+        catch (ConfigurationException cex)
+        {
+            assertEquals("Wrong cause", ioex, cex.getCause());
+        }
+        assertEquals("File was changed", CONTENT, readFile(file));
+        assertEquals("Temporary file not removed", 1,
+                file.getParentFile().list().length);
+    }
+
+    /**
+     * Tries to save data atomically if no location has been set.
+     */
+    @Test(expected = ConfigurationException.class)
+    public void testSaveAtomicallyNoLocation() throws ConfigurationException
+    {
+        FileHandler handler = new FileHandler(new FileBasedTestImpl());
+        handler.saveAtomically();
+    }
+
     /**
      * Tests loading and saving a configuration file with a complicated path
      * name including spaces. (related to issue 35210)
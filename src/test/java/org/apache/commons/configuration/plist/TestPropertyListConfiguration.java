@@ -25,7 +25,9 @@ import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -411,4 +413,119 @@ public class TestPropertyListConfiguration
         assertEquals("Wrong date literal (2)", "<*D2007-10-30 22:02:15 +1111>",
                 PropertyListConfiguration.formatDate(cal));
     }
+
+    /**
+     * Tests whether a negative time zone offset is evaluated when parsing a
+     * date.
+     */
+    @Test
+    public void testParseDateNegativeTimeZone() throws ParseException
+    {
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        cal.clear();
+        cal.set(2002, 2, 22, 14, 0, 0);
+        assertEquals("Wrong date", cal.getTime(), PropertyListConfiguration
+                .parseDate("<*D2002-03-22 11:30:00 -0230>"));
+    }
+
+    /**
+     * Tests parsing a date with an invalid time zone.
+     */
+    @Test(expected = ParseException.class)
+    public void testParseDateInvalidTimeZone() throws ParseException
+    {
+        PropertyListConfiguration.parseDate("<*D2002-03-22 11:30:00 #0100>");
+    }
+
+    /**
+     * Tests parsing a date in the Mac OS X format of XML property lists.
+     */
+    @Test
+    public void testParseXMLDate() throws ParseException
+    {
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        cal.clear();
+        cal.set(2005, 0, 1, 12, 0, 0);
+        assertEquals("Wrong date", cal.getTime(), PropertyListConfiguration
+                .parseXMLDate("2005-01-01T12:00:00Z"));
+    }
+
+    /**
+     * Tests parsing an invalid date in the Mac OS X format.
+     */
+    @Test(expected = ParseException.class)
+    public void testParseXMLDateInvalid() throws ParseException
+    {
+        PropertyListConfiguration.parseXMLDate("2005-01-01 12:00:00Z");
+    }
+
+    /**
+     * Tests parsing a date in the GNUstep format of XML property lists.
+     */
+    @Test
+    public void testParseGNUstepDate() throws ParseException
+    {
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("GMT+0100"));
+        cal.clear();
+        cal.set(2002, 2, 22, 11, 30, 0);
+        assertEquals("Wrong date", cal.getTime(), PropertyListConfiguration
+                .parseGNUstepDate("2002-03-22 11:30:00 +0100"));
+    }
+
+    /**
+     * Tests formatting a date in the Mac OS X format of XML property lists.
+     */
+    @Test
+    public void testFormatXMLDate()
+    {
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("GMT+0200"));
+        cal.clear();
+        cal.set(2007, 9, 29, 1, 4, 30);
+        assertEquals("Wrong date literal", "2007-10-28T23:04:30Z",
+                PropertyListConfiguration.formatXMLDate(cal.getTime()));
+    }
+
+    /**
+     * Tests whether dates can be parsed concurrently.
+     */
+    @Test
+    public void testParseXMLDateMultipleThreads() throws Exception
+    {
+        final int threadCount = 8;
+        final int loopCount = 500;
+        final Date expected = PropertyListConfiguration
+                .parseXMLDate("2005-01-01T12:00:00Z");
+        final List<Throwable> errors = Collections
+                .synchronizedList(new ArrayList<Throwable>());
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++)
+        {
+            threads[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for (int j = 0; j < loopCount; j++)
+                        {
+                            assertEquals("Wrong date", expected,
+                                    PropertyListConfiguration
+                                            .parseXMLDate("2005-01-01T12:00:00Z"));
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        errors.add(t);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertTrue("Errors: " + errors, errors.isEmpty());
+    }
 }
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.configuration.reloading;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.configuration.io.FileHandler;
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@code FileChangeReloadingTrigger}.
+ *
+ * @version $Id$
+ */
+public class TestFileChangeReloadingTrigger
+{
+    /** Constant for a parameter to be passed to the controller. */
+    private static final Object CTRL_PARAM = "Test controller parameter";
+
+    /** Helper object for managing temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** A mock for the reloading controller. */
+    private ReloadingController controller;
+
+    /** A mock for the file watcher. */
+    private FileChangeWatcher watcher;
+
+    /** The file handler. */
+    private FileHandler handler;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        controller = EasyMock.createMock(ReloadingController.class);
+        watcher = EasyMock.createMock(FileChangeWatcher.class);
+        handler = new FileHandler();
+    }
+
+    /**
+     * Creates a test instance with default parameters.
+     *
+     * @return the test instance
+     */
+    private FileChangeReloadingTrigger createTrigger()
+    {
+        return new FileChangeReloadingTrigger(controller, CTRL_PARAM, handler,
+                watcher);
+    }
+
+    /**
+     * Tests whether the default watcher is used if none is specified.
+     */
+    @Test
+    public void testDefaultWatcher()
+    {
+        FileChangeReloadingTrigger trigger =
+                new FileChangeReloadingTrigger(controller, CTRL_PARAM, handler);
+        assertSame("Wrong watcher", FileChangeWatcher.getDefault(),
+                trigger.getWatcher());
+    }
+
+    /**
+     * Tries to create an instance without a controller.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitNoController()
+    {
+        new FileChangeReloadingTrigger(null, CTRL_PARAM, handler);
+    }
+
+    /**
+     * Tries to create an instance without a file handler.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitNoFileHandler()
+    {
+        new FileChangeReloadingTrigger(controller, CTRL_PARAM, null);
+    }
+
+    /**
+     * Tests that a newly created trigger is not running.
+     */
+    @Test
+    public void testIsRunningAfterInit()
+    {
+        assertFalse("Running", createTrigger().isRunning());
+    }
+
+    /**
+     * Tests whether the trigger registers the file and notifies the controller
+     * when it is changed.
+     */
+    @Test
+    public void testStart() throws IOException
+    {
+        File file = folder.newFile();
+        handler.setFile(file);
+        Capture<Runnable> callback = new Capture<Runnable>();
+        watcher.addFile(EasyMock.eq(file), EasyMock.capture(callback));
+        EasyMock.expect(controller.getDetector()).andReturn(
+                EasyMock.createNiceMock(ReloadingDetector.class));
+        EasyMock.expect(controller.checkForReloading(CTRL_PARAM)).andReturn(
+                Boolean.FALSE);
+        EasyMock.replay(controller, watcher);
+        FileChangeReloadingTrigger trigger = createTrigger();
+        trigger.start();
+        trigger.start(); // should have no effect
+        assertTrue("Not running", trigger.isRunning());
+        callback.getValue().run();
+        EasyMock.verify(controller, watcher);
+    }
+
+    /**
+     * Tests that a change is detected even if it is reported within the
+     * refresh delay of a FileHandlerReloadingDetector.
+     */
+    @Test
+    public void testChangeWithinRefreshDelay() throws IOException
+    {
+        File file = folder.newFile();
+        handler.setFile(file);
+        FileHandlerReloadingDetector detector =
+                new FileHandlerReloadingDetector(handler,
+                        60 * 60 * 1000L);
+        detector.reloadingPerformed();
+        ReloadingController ctrl = new ReloadingController(detector);
+        Capture<Runnable> callback = new Capture<Runnable>();
+        watcher.addFile(EasyMock.eq(file), EasyMock.capture(callback));
+        EasyMock.replay(watcher);
+        FileChangeReloadingTrigger trigger =
+                new FileChangeReloadingTrigger(ctrl, CTRL_PARAM, handler,
+                        watcher);
+        trigger.start();
+        assertFalse("Reloading required", ctrl.checkForReloading(CTRL_PARAM));
+
+        assertTrue("Cannot change time stamp",
+                file.setLastModified(file.lastModified() - 10000));
+        callback.getValue().run();
+        assertTrue("Change not detected", ctrl.isInReloadingState());
+        ctrl.resetReloadingState();
+        assertTrue("Cannot change time stamp",
+                file.setLastModified(file.lastModified() - 10000));
+        callback.getValue().run();
+        assertTrue("Second change not detected", ctrl.isInReloadingState());
+    }
+
+    /**
+     * Tests whether the trigger can be stopped.
+     */
+    @Test
+    public void testStop() throws IOException
+    {
+        File file = folder.newFile();
+        handler.setFile(file);
+        Capture<Runnable> callback = new Capture<Runnable>();
+        Capture<Runnable> removedCallback = new Capture<Runnable>();
+        watcher.addFile(EasyMock.eq(file), EasyMock.capture(callback));
+        watcher.removeFile(EasyMock.eq(file),
+                EasyMock.capture(removedCallback));
+        EasyMock.replay(controller, watcher);
+        FileChangeReloadingTrigger trigger = createTrigger();
+        trigger.start();
+        trigger.stop();
+        trigger.stop(); // should have no effect
+        assertFalse("Still running", trigger.isRunning());
+        assertSame("Different callbacks", callback.getValue(),
+                removedCallback.getValue());
+        EasyMock.verify(controller, watcher);
+    }
+
+    /**
+     * Tries to start a trigger if the file handler does not define a file.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testStartNoFile()
+    {
+        EasyMock.replay(controller, watcher);
+        createTrigger().start();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.configuration.reloading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@code FileChangeWatcher}.
+ *
+ * @version $Id$
+ */
+public class TestFileChangeWatcher
+{
+    /** Constant for the quiet period used by the tests. */
+    private static final long QUIET_PERIOD = 100;
+
+    /** Constant for the poll interval used by the tests. */
+    private static final long POLL_INTERVAL = 50;
+
+    /** Constant for the time to wait for notifications in seconds. */
+    private static final long TIMEOUT = 10;
+
+    /** Helper object for managing temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The watcher to be tested. */
+    private FileChangeWatcher watcher;
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (watcher != null)
+        {
+            watcher.shutdown();
+        }
+    }
+
+    /**
+     * Writes the given content into a file.
+     *
+     * @param file the file
+     * @param content the content
+     */
+    private static void writeFile(File file, String content) throws IOException
+    {
+        Writer out = new FileWriter(file);
+        try
+        {
+            out.write(content);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Tests that a change of a monitored file is reported once if multiple
+     * writes happen in short succession.
+     *
+     * @param watchService flag whether the watch service is to be used
+     */
+    private void checkChangeReported(boolean watchService) throws Exception
+    {
+        watcher =
+                new FileChangeWatcher(QUIET_PERIOD, POLL_INTERVAL,
+                        TimeUnit.MILLISECONDS, watchService);
+        File file = folder.newFile();
+        File otherFile = folder.newFile();
+        ChangeCallback callback = new ChangeCallback();
+        watcher.addFile(file, callback);
+        // wait until the initial state has been recorded
+        Thread.sleep(2 * POLL_INTERVAL);
+
+        writeFile(otherFile, "other");
+        writeFile(file, "a");
+        writeFile(file, "ab");
+        writeFile(file, "abc");
+        assertTrue("No notification",
+                callback.latch.await(TIMEOUT, TimeUnit.SECONDS));
+        Thread.sleep(3 * QUIET_PERIOD);
+        assertEquals("Wrong number of notifications", 1, callback.count.get());
+    }
+
+    /**
+     * Tests whether changes are reported if a watch service is used.
+     */
+    @Test
+    public void testChangeReportedWatchService() throws Exception
+    {
+        checkChangeReported(true);
+        assertTrue("Watch service not used", watcher.isWatchServiceUsed());
+    }
+
+    /**
+     * Tests whether changes are reported if files are polled.
+     */
+    @Test
+    public void testChangeReportedPolling() throws Exception
+    {
+        checkChangeReported(false);
+        assertFalse("Watch service used", watcher.isWatchServiceUsed());
+    }
+
+    /**
+     * Tests that a callback is no longer notified after it has been removed.
+     */
+    @Test
+    public void testRemoveFile() throws Exception
+    {
+        watcher =
+                new FileChangeWatcher(QUIET_PERIOD, POLL_INTERVAL,
+                        TimeUnit.MILLISECONDS);
+        File file = folder.newFile();
+        ChangeCallback callback1 = new ChangeCallback();
+        ChangeCallback callback2 = new ChangeCallback();
+        watcher.addFile(file, callback1);
+        watcher.addFile(file, callback2);
+        watcher.removeFile(file, callback1);
+        Thread.sleep(2 * POLL_INTERVAL);
+
+        writeFile(file, "changed");
+        assertTrue("No notification",
+                callback2.latch.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals("Removed callback notified", 0, callback1.count.get());
+    }
+
+    /**
+     * Tests whether a file in a directory which does not yet exist can be
+     * monitored.
+     */
+    @Test
+    public void testFileInNewDirectory() throws Exception
+    {
+        watcher =
+                new FileChangeWatcher(QUIET_PERIOD, POLL_INTERVAL,
+                        TimeUnit.MILLISECONDS);
+        File dir = new File(folder.getRoot(), "newDir");
+        File file = new File(dir, "test.properties");
+        ChangeCallback callback = new ChangeCallback();
+        watcher.addFile(file, callback);
+        assertTrue("Cannot create directory", dir.mkdir());
+        writeFile(file, "created");
+        assertTrue("No notification",
+                callback.latch.await(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tries to add a file after the watcher has been shut down.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testAddFileAfterShutdown() throws IOException
+    {
+        watcher = new FileChangeWatcher();
+        watcher.shutdown();
+        watcher.addFile(folder.newFile(), new ChangeCallback());
+    }
+
+    /**
+     * Tries to create an instance with an invalid poll interval.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitInvalidPollInterval()
+    {
+        new FileChangeWatcher(QUIET_PERIOD, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A test callback which counts its invocations.
+     */
+    private static class ChangeCallback implements Runnable
+    {
+        /** The latch for waiting for the first invocation. */
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        /** The number of invocations. */
+        final AtomicInteger count = new AtomicInteger();
+
+        public void run()
+        {
+            count.incrementAndGet();
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.configuration.reloading;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.apache.commons.configuration.io.FileHandler;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for {@code FileContentReloadingDetector}.
+ *
+ * @version $Id$
+ */
+public class TestFileContentReloadingDetector
+{
+    /** Constant for the content of the test file. */
+    private static final String CONTENT = "test.key = value";
+
+    /** Helper object for managing temporary files. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The test file. */
+    private File file;
+
+    /** The detector to be tested. */
+    private FileContentReloadingDetector detector;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        file = folder.newFile();
+        writeFile(CONTENT);
+        FileHandler handler = new FileHandler();
+        handler.setFile(file);
+        detector = new FileContentReloadingDetector(handler, 0);
+        detector.reloadingPerformed();
+    }
+
+    /**
+     * Writes the given content into the test file and changes its modification
+     * date.
+     *
+     * @param content the content
+     */
+    private void writeFile(String content) throws IOException
+    {
+        long modified = file.lastModified();
+        Writer out = new FileWriter(file);
+        try
+        {
+            out.write(content);
+        }
+        finally
+        {
+            out.close();
+        }
+        file.setLastModified(modified + 10000);
+    }
+
+    /**
+     * Tests that no reload is required if the file is not changed.
+     */
+    @Test
+    public void testIsReloadingRequiredUnchanged()
+    {
+        assertFalse("Reloading required", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests that no reload is required if only the modification date changes.
+     */
+    @Test
+    public void testIsReloadingRequiredSameContent() throws IOException
+    {
+        writeFile(CONTENT);
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        assertFalse("Reloading required (2)", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests whether a change of the content is detected.
+     */
+    @Test
+    public void testIsReloadingRequiredChangedContent() throws IOException
+    {
+        writeFile("test.key = other");
+        assertTrue("Reloading not required", detector.isReloadingRequired());
+        detector.reloadingPerformed();
+        assertFalse("Still reloading required", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests whether a change of the file size is detected.
+     */
+    @Test
+    public void testIsReloadingRequiredChangedSize() throws IOException
+    {
+        writeFile(CONTENT + "\nanother.key = value");
+        assertTrue("Reloading not required", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests that a changed content is detected after the file was rewritten
+     * with the same content before.
+     */
+    @Test
+    public void testIsReloadingRequiredChangeAfterNoOp() throws IOException
+    {
+        writeFile(CONTENT);
+        assertFalse("Reloading required", detector.isReloadingRequired());
+        writeFile("test.key = other");
+        assertTrue("Reloading not required", detector.isReloadingRequired());
+    }
+
+    /**
+     * Tests that a deleted file does not cause a reload.
+     */
+    @Test
+    public void testIsReloadingRequiredFileDeleted()
+    {
+        assertTrue("Cannot delete file", file.delete());
+        assertFalse("Reloading required", detector.isReloadingRequired());
+    }
+}
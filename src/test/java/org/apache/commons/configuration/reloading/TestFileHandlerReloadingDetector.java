@@ -139,6 +139,28 @@ public class TestFileHandlerReloadingDetector
         assertFalse("Reloading required", detector.isReloadingRequired());
     }
 
+    /**
+     * Tests whether the refresh delay can be bypassed for the next check.
+     */
+    @Test
+    public void testExpireRefreshDelay() throws Exception
+    {
+        File f = EasyMock.createMock(File.class);
+        EasyMock.expect(f.exists()).andReturn(Boolean.TRUE).anyTimes();
+        EasyMock.expect(f.lastModified()).andReturn(LAST_MODIFIED).times(2);
+        EasyMock.expect(f.lastModified()).andReturn(LAST_MODIFIED + 1);
+        EasyMock.replay(f);
+        FileHandlerReloadingDetector detector =
+                new FileHandlerReloadingDetectorTestImpl(f, 60 * 60 * 1000L);
+        detector.reloadingPerformed();
+        assertFalse("Reloading initially required",
+                detector.isReloadingRequired());
+        detector.expireRefreshDelay();
+        assertTrue("Reloading not detected", detector.isReloadingRequired());
+        assertFalse("Next check not skipped", detector.isReloadingRequired());
+        EasyMock.verify(f);
+    }
+
     /**
      * Tests whether a non-existing file is handled correctly.
      */
@@ -18,9 +18,12 @@ package org.apache.commons.configuration.tree;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -402,6 +405,94 @@ public class TestDefaultExpressionEngine
         engine.prepareAdd(root, "");
     }
 
+    /**
+     * Tests that parsed keys are cached.
+     */
+    @Test
+    public void testCompileKeyCached()
+    {
+        String key = "tables.table(0).fields.field(1)[@type]";
+        CompiledConfigurationKey compiledKey = engine.compileKey(key);
+        assertEquals("Wrong number of parts", 5, compiledKey.size());
+        assertTrue("No index", compiledKey.hasIndex(1));
+        assertEquals("Wrong index", 0, compiledKey.getIndex(1));
+        assertTrue("No attribute", compiledKey.isAttribute(4));
+        assertFalse("Property key", compiledKey.isPropertyKey(4));
+        assertEquals("Wrong attribute name", "type", compiledKey.getName(4));
+        assertSame("Key not cached", compiledKey, engine.compileKey(key));
+    }
+
+    /**
+     * Tests whether the key cache can be disabled.
+     */
+    @Test
+    public void testCompileKeyCacheDisabled()
+    {
+        engine.setKeyCacheSize(0);
+        String key = "tables.table.name";
+        assertNotSame("Key was cached", engine.compileKey(key),
+                engine.compileKey(key));
+        checkKey(key, "name", 2);
+    }
+
+    /**
+     * Tests whether the key cache is cleared if the syntax of keys changes.
+     */
+    @Test
+    public void testKeyCacheClearedOnSyntaxChange()
+    {
+        checkKey("tables/table/name", null, 0);
+        engine.setPropertyDelimiter("/");
+        checkKey("tables/table/name", "name", 2);
+    }
+
+    /**
+     * Tests whether the key cache is cleared if its maximum size is reached.
+     */
+    @Test
+    public void testKeyCacheMaximumSize()
+    {
+        engine.setKeyCacheSize(2);
+        CompiledConfigurationKey key1 = engine.compileKey("tables.table");
+        engine.compileKey("tables.table.name");
+        engine.compileKey("tables.table.fields");
+        assertNotSame("Cache not cleared", key1,
+                engine.compileKey("tables.table"));
+        checkKey("tables.table.fields.field.name", "name", 10);
+    }
+
+    /**
+     * Tries to set a negative key cache size.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetKeyCacheSizeNegative()
+    {
+        engine.setKeyCacheSize(-1);
+    }
+
+    /**
+     * Tests whether an overridden findNodesForKey() method is still called
+     * by query().
+     */
+    @Test
+    public void testQueryFindNodesForKeyOverridden()
+    {
+        final List<String> keys = new ArrayList<String>();
+        engine = new DefaultExpressionEngine()
+        {
+            @Override
+            protected void findNodesForKey(
+                    DefaultConfigurationKey.KeyIterator keyPart,
+                    ConfigurationNode node, Collection<ConfigurationNode> nodes)
+            {
+                keys.add(keyPart.currentKey());
+                super.findNodesForKey(keyPart, node, nodes);
+            }
+        };
+        checkKey("tables.table.name", "name", 2);
+        assertFalse("Method not called", keys.isEmpty());
+    }
+
     /**
      * Creates a node hierarchy for testing that consists of tables, their
      * fields, and some additional data: